@@ -0,0 +1,306 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+import java.util.stream.IntStream;
+
+/**
+ * Immutable affine transformation of 3D points, composed of translations, rotations, scalings and shears into a single homogeneous
+ * {@link Matrix4x4}.<br>
+ * <br>
+ * Each composing method returns a new {@link AffineTransform}, which applies the given step after the existing ones. Points can be
+ * transformed one by one or in bulk as packed x,y,z coordinate arrays, which only needs a single pass over the data.<br>
+ * <br>
+ * Example:<br>
+ *
+ * <pre>
+ * AffineTransform transform = AffineTransform.identity()
+ *                                            .scale(2.0)
+ *                                            .rotate(0, 0, 90)
+ *                                            .translate(1, 2, 3);
+ * transform.applyParallel(coordinates, coordinates);
+ * </pre>
+ *
+ * @author Omnaest
+ */
+public class AffineTransform
+{
+    private static final int CHUNK_SIZE = 4096;
+
+    private Matrix4x4 matrix;
+
+    private final double m00, m01, m02, m03;
+    private final double m10, m11, m12, m13;
+    private final double m20, m21, m22, m23;
+
+    protected AffineTransform(Matrix4x4 matrix)
+    {
+        super();
+        this.matrix = matrix;
+        double[][] data = matrix.toArray();
+        this.m00 = data[0][0];
+        this.m01 = data[0][1];
+        this.m02 = data[0][2];
+        this.m03 = data[0][3];
+        this.m10 = data[1][0];
+        this.m11 = data[1][1];
+        this.m12 = data[1][2];
+        this.m13 = data[1][3];
+        this.m20 = data[2][0];
+        this.m21 = data[2][1];
+        this.m22 = data[2][2];
+        this.m23 = data[2][3];
+    }
+
+    public static AffineTransform identity()
+    {
+        return new AffineTransform(Matrix4x4.identity());
+    }
+
+    /**
+     * Returns the {@link AffineTransform} of the given homogeneous {@link Matrix}, whose last row has to be 0,0,0,1
+     *
+     * @param matrix
+     * @return
+     * @throws IllegalArgumentException
+     *             if the {@link Matrix} is not 4x4 or has a projective last row
+     */
+    public static AffineTransform of(Matrix matrix)
+    {
+        Matrix4x4 matrix4x4 = Matrix4x4.of(matrix);
+        if (matrix4x4.getValue(4, 1) != 0.0 || matrix4x4.getValue(4, 2) != 0.0 || matrix4x4.getValue(4, 3) != 0.0
+                || matrix4x4.getValue(4, 4) != 1.0)
+        {
+            throw new IllegalArgumentException("Last row of the Matrix must be 0,0,0,1");
+        }
+        return new AffineTransform(matrix4x4);
+    }
+
+    private static Matrix4x4 linear(Matrix3x3 matrix)
+    {
+        double[][] data = matrix.toArray();
+        return new Matrix4x4(data[0][0], data[0][1], data[0][2], 0.0,
+                             data[1][0], data[1][1], data[1][2], 0.0,
+                             data[2][0], data[2][1], data[2][2], 0.0,
+                             0.0, 0.0, 0.0, 1.0);
+    }
+
+    /**
+     * Returns a new {@link AffineTransform}, which applies the given {@link AffineTransform} after this one
+     *
+     * @param next
+     * @return
+     */
+    public AffineTransform then(AffineTransform next)
+    {
+        return this.then(next.matrix);
+    }
+
+    private AffineTransform then(Matrix4x4 next)
+    {
+        return new AffineTransform(next.multiply(this.matrix));
+    }
+
+    public AffineTransform translate(double x, double y, double z)
+    {
+        return this.then(new Matrix4x4(1.0, 0.0, 0.0, x,
+                                       0.0, 1.0, 0.0, y,
+                                       0.0, 0.0, 1.0, z,
+                                       0.0, 0.0, 0.0, 1.0));
+    }
+
+    public AffineTransform translate(Vector translation)
+    {
+        return this.translate(translation.getX(), translation.getY(), translation.getZ());
+    }
+
+    /**
+     * Rotates in degree with the same conventions as {@link Vector#rotate(double, double, double)}
+     *
+     * @param angleX
+     * @param angleY
+     * @param angleZ
+     * @return
+     */
+    public AffineTransform rotate(double angleX, double angleY, double angleZ)
+    {
+        return this.then(linear(Vector.rotationMatrix(angleX, angleY, angleZ)));
+    }
+
+    /**
+     * Similar to {@link #rotate(double, double, double)} but computes the sine and cosine of the angles with the given {@link Trigonometry}
+     *
+     * @param angleX
+     * @param angleY
+     * @param angleZ
+     * @param trigonometry
+     * @return
+     */
+    public AffineTransform rotate(double angleX, double angleY, double angleZ, Trigonometry trigonometry)
+    {
+        return this.then(linear(trigonometry.rotationMatrix(angleX, angleY, angleZ)));
+    }
+
+    /**
+     * Rotates in degree around the given axis through the origin
+     *
+     * @param axis
+     * @param angle
+     * @return
+     */
+    public AffineTransform rotate(Vector axis, double angle)
+    {
+        return this.then(linear(Vector.getRotationMatrix(axis.normVector(), angle)));
+    }
+
+    public AffineTransform scale(double factor)
+    {
+        return this.scale(factor, factor, factor);
+    }
+
+    public AffineTransform scale(double x, double y, double z)
+    {
+        return this.then(new Matrix4x4(x, 0.0, 0.0, 0.0,
+                                       0.0, y, 0.0, 0.0,
+                                       0.0, 0.0, z, 0.0,
+                                       0.0, 0.0, 0.0, 1.0));
+    }
+
+    /**
+     * Shears each coordinate by the given factors of the other coordinates, e.g. x' = x + xy * y + xz * z
+     *
+     * @param xy
+     * @param xz
+     * @param yx
+     * @param yz
+     * @param zx
+     * @param zy
+     * @return
+     */
+    public AffineTransform shear(double xy, double xz, double yx, double yz, double zx, double zy)
+    {
+        return this.then(new Matrix4x4(1.0, xy, xz, 0.0,
+                                       yx, 1.0, yz, 0.0,
+                                       zx, zy, 1.0, 0.0,
+                                       0.0, 0.0, 0.0, 1.0));
+    }
+
+    public AffineTransform inverse()
+    {
+        return new AffineTransform(this.matrix.inverse());
+    }
+
+    /**
+     * Returns the homogeneous {@link Matrix4x4}
+     *
+     * @return
+     */
+    public Matrix4x4 getMatrix()
+    {
+        return this.matrix;
+    }
+
+    /**
+     * Returns the transformed point
+     *
+     * @param point
+     * @return
+     */
+    public Vector apply(Vector point)
+    {
+        double x = point.getX();
+        double y = point.getY();
+        double z = point.getZ();
+        return new Vector(this.m00 * x + this.m01 * y + this.m02 * z + this.m03,
+                          this.m10 * x + this.m11 * y + this.m12 * z + this.m13,
+                          this.m20 * x + this.m21 * y + this.m22 * z + this.m23);
+    }
+
+    /**
+     * Returns the transformed direction, which in contrast to a point is not translated
+     *
+     * @param direction
+     * @return
+     */
+    public Vector applyToDirection(Vector direction)
+    {
+        double x = direction.getX();
+        double y = direction.getY();
+        double z = direction.getZ();
+        return new Vector(this.m00 * x + this.m01 * y + this.m02 * z,
+                          this.m10 * x + this.m11 * y + this.m12 * z,
+                          this.m20 * x + this.m21 * y + this.m22 * z);
+    }
+
+    public Vector[] apply(Vector... points)
+    {
+        Vector[] retval = new Vector[points.length];
+        for (int ii = 0; ii < points.length; ii++)
+        {
+            retval[ii] = this.apply(points[ii]);
+        }
+        return retval;
+    }
+
+    /**
+     * Transforms the points given as packed x,y,z coordinates. Source and target can be the same array.
+     *
+     * @param source
+     * @param target
+     */
+    public void apply(double[] source, double[] target)
+    {
+        this.apply(source, target, 0, source.length / 3);
+    }
+
+    /**
+     * Similar to {@link #apply(double[], double[])} but transforms chunks of points in parallel
+     *
+     * @param source
+     * @param target
+     */
+    public void applyParallel(double[] source, double[] target)
+    {
+        int numberOfPoints = source.length / 3;
+        int numberOfChunks = (numberOfPoints + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        IntStream.range(0, numberOfChunks)
+                 .parallel()
+                 .forEach(chunk -> this.apply(source, target, chunk * CHUNK_SIZE, Math.min(numberOfPoints, (chunk + 1) * CHUNK_SIZE)));
+    }
+
+    private void apply(double[] source, double[] target, int fromPoint, int toPoint)
+    {
+        for (int ii = fromPoint * 3; ii < toPoint * 3; ii += 3)
+        {
+            double x = source[ii];
+            double y = source[ii + 1];
+            double z = source[ii + 2];
+            target[ii] = this.m00 * x + this.m01 * y + this.m02 * z + this.m03;
+            target[ii + 1] = this.m10 * x + this.m11 * y + this.m12 * z + this.m13;
+            target[ii + 2] = this.m20 * x + this.m21 * y + this.m22 * z + this.m23;
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "AffineTransform [matrix=\n" + this.matrix + "]";
+    }
+
+}
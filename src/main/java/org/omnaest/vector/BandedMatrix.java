@@ -0,0 +1,341 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+/**
+ * Square {@link Matrix} with non zero values only within a band of a lower and upper bandwidth around the diagonal, e.g. a tridiagonal
+ * {@link Matrix} has a lower and upper bandwidth of 1. Each row stores lowerBandwidth + upperBandwidth + 1 values.<br>
+ * <br>
+ * Solving uses a banded LU decomposition with partial pivoting in O(n * lowerBandwidth * (lowerBandwidth + upperBandwidth)). As in LAPACK
+ * gbtrf the row interchanges widen the upper bandwidth of U to lowerBandwidth + upperBandwidth. If the matrix is singular, the dense solver
+ * is used instead.
+ *
+ * @see <a href="https://en.wikipedia.org/wiki/Band_matrix">wikipedia</a>
+ * @see <a href="https://www.netlib.org/lapack/explore-html/dgbtrf.html">LAPACK dgbtrf</a>
+ * @author Omnaest
+ */
+public class BandedMatrix extends StructuredMatrix
+{
+    private int        lowerBandwidth;
+    private int        upperBandwidth;
+    private double[][] band;
+
+    /**
+     * U in band storage with the widened upper bandwidth, the multipliers of L by column and the row interchanged at each step
+     */
+    private static class Decomposition
+    {
+        private double[][] upper;
+        private double[][] lower;
+        private int[]      pivots;
+
+        public Decomposition(double[][] upper, double[][] lower, int[] pivots)
+        {
+            super();
+            this.upper = upper;
+            this.lower = lower;
+            this.pivots = pivots;
+        }
+    }
+
+    protected BandedMatrix(int lowerBandwidth, int upperBandwidth, double[][] band)
+    {
+        super(band.length);
+        this.lowerBandwidth = lowerBandwidth;
+        this.upperBandwidth = upperBandwidth;
+        this.band = band;
+    }
+
+    /**
+     * Returns the band of the given square {@link Matrix}, values outside of the band are ignored
+     *
+     * @param matrix
+     * @param lowerBandwidth
+     * @param upperBandwidth
+     * @return
+     */
+    public static BandedMatrix of(Matrix matrix, int lowerBandwidth, int upperBandwidth)
+    {
+        int dimension = matrix.getRowCount();
+        if (dimension != matrix.getColumnCount())
+        {
+            throw new IllegalStateException("Matrix must be square");
+        }
+        if (lowerBandwidth < 0 || upperBandwidth < 0)
+        {
+            throw new IllegalArgumentException("Bandwidth must not be negative");
+        }
+        double[][] band = new double[dimension][lowerBandwidth + upperBandwidth + 1];
+        for (int ii = 0; ii < dimension; ii++)
+        {
+            for (int jj = Math.max(0, ii - lowerBandwidth); jj <= Math.min(dimension - 1, ii + upperBandwidth); jj++)
+            {
+                band[ii][lowerBandwidth + jj - ii] = matrix.getRaw(jj, ii);
+            }
+        }
+        return new BandedMatrix(lowerBandwidth, upperBandwidth, band);
+    }
+
+    /**
+     * Returns a tridiagonal {@link Matrix}
+     *
+     * @param subDiagonal
+     *            n-1 values below the diagonal
+     * @param diagonal
+     *            n values
+     * @param superDiagonal
+     *            n-1 values above the diagonal
+     * @return
+     */
+    public static BandedMatrix tridiagonal(double[] subDiagonal, double[] diagonal, double[] superDiagonal)
+    {
+        int dimension = diagonal.length;
+        if (subDiagonal.length != dimension - 1 || superDiagonal.length != dimension - 1)
+        {
+            throw new IllegalArgumentException("Sub and super diagonal must have one value less than the diagonal");
+        }
+        double[][] band = new double[dimension][3];
+        for (int ii = 0; ii < dimension; ii++)
+        {
+            band[ii][0] = ii > 0 ? subDiagonal[ii - 1] : 0.0;
+            band[ii][1] = diagonal[ii];
+            band[ii][2] = ii < dimension - 1 ? superDiagonal[ii] : 0.0;
+        }
+        return new BandedMatrix(1, 1, band);
+    }
+
+    public int getLowerBandwidth()
+    {
+        return this.lowerBandwidth;
+    }
+
+    public int getUpperBandwidth()
+    {
+        return this.upperBandwidth;
+    }
+
+    @Override
+    protected double getRaw(int x, int y)
+    {
+        int offset = x - y;
+        return offset < -this.lowerBandwidth || offset > this.upperBandwidth ? 0.0 : this.band[y][this.lowerBandwidth + offset];
+    }
+
+    @Override
+    public void apply(double[] input, double[] output)
+    {
+        for (int ii = 0; ii < this.dimension; ii++)
+        {
+            int from = Math.max(0, ii - this.lowerBandwidth);
+            int to = Math.min(this.dimension - 1, ii + this.upperBandwidth);
+            output[ii] = DenseKernels.dot(this.band[ii], this.lowerBandwidth + from - ii, input, from, to - from + 1);
+        }
+    }
+
+    @Override
+    public void applyTransposed(double[] input, double[] output)
+    {
+        for (int ii = 0; ii < this.dimension; ii++)
+        {
+            output[ii] = 0.0;
+        }
+        for (int ii = 0; ii < this.dimension; ii++)
+        {
+            double[] row = this.band[ii];
+            double value = input[ii];
+            int from = Math.max(0, ii - this.lowerBandwidth);
+            int to = Math.min(this.dimension - 1, ii + this.upperBandwidth);
+            for (int jj = from; jj <= to; jj++)
+            {
+                output[jj] += row[this.lowerBandwidth + jj - ii] * value;
+            }
+        }
+    }
+
+    @Override
+    public BandedMatrix multiply(double scalar)
+    {
+        double[][] retval = new double[this.dimension][];
+        for (int ii = 0; ii < this.dimension; ii++)
+        {
+            retval[ii] = this.band[ii].clone();
+            for (int jj = 0; jj < retval[ii].length; jj++)
+            {
+                retval[ii][jj] *= scalar;
+            }
+        }
+        return new BandedMatrix(this.lowerBandwidth, this.upperBandwidth, retval);
+    }
+
+    /**
+     * Returns the banded LU decomposition with partial pivoting, or null if the matrix is singular
+     */
+    private Decomposition decompose()
+    {
+        int lower = this.lowerBandwidth;
+        int width = 2 * lower + this.upperBandwidth + 1;
+        double[][] upper = new double[this.dimension][width];
+        double[][] multipliers = new double[this.dimension][lower];
+        int[] pivots = new int[this.dimension];
+        for (int ii = 0; ii < this.dimension; ii++)
+        {
+            System.arraycopy(this.band[ii], 0, upper[ii], 0, this.band[ii].length);
+        }
+        for (int kk = 0; kk < this.dimension; kk++)
+        {
+            int lastRow = Math.min(this.dimension - 1, kk + lower);
+            int pivot = kk;
+            double maximum = Math.abs(upper[kk][lower]);
+            for (int ii = kk + 1; ii <= lastRow; ii++)
+            {
+                double value = Math.abs(upper[ii][lower + kk - ii]);
+                if (value > maximum)
+                {
+                    maximum = value;
+                    pivot = ii;
+                }
+            }
+            if (maximum == 0.0)
+            {
+                return null;
+            }
+            pivots[kk] = pivot;
+
+            int lastColumn = Math.min(this.dimension - 1, kk + lower + this.upperBandwidth);
+            if (pivot != kk)
+            {
+                for (int jj = kk; jj <= lastColumn; jj++)
+                {
+                    double value = upper[kk][lower + jj - kk];
+                    upper[kk][lower + jj - kk] = upper[pivot][lower + jj - pivot];
+                    upper[pivot][lower + jj - pivot] = value;
+                }
+            }
+
+            double[] pivotRow = upper[kk];
+            for (int ii = kk + 1; ii <= lastRow; ii++)
+            {
+                double[] row = upper[ii];
+                double factor = row[lower + kk - ii] / pivotRow[lower];
+                multipliers[kk][ii - kk - 1] = factor;
+                row[lower + kk - ii] = 0.0;
+                if (factor != 0.0)
+                {
+                    for (int jj = kk + 1; jj <= lastColumn; jj++)
+                    {
+                        row[lower + jj - ii] -= factor * pivotRow[lower + jj - kk];
+                    }
+                }
+            }
+        }
+        return new Decomposition(upper, multipliers, pivots);
+    }
+
+    @Override
+    public Vector solve(Vector b)
+    {
+        Decomposition decomposition = this.decompose();
+        if (decomposition == null)
+        {
+            return super.solve(b);
+        }
+        return new Vector(this.solve(decomposition, b.getCoordinates()));
+    }
+
+    private double[] solve(Decomposition decomposition, double[] b)
+    {
+        int lower = this.lowerBandwidth;
+        double[][] upper = decomposition.upper;
+        double[] x = new double[this.dimension];
+        System.arraycopy(b, 0, x, 0, Math.min(this.dimension, b.length));
+        for (int kk = 0; kk < this.dimension; kk++)
+        {
+            int pivot = decomposition.pivots[kk];
+            double value = x[pivot];
+            x[pivot] = x[kk];
+            x[kk] = value;
+
+            double[] multipliers = decomposition.lower[kk];
+            int lastRow = Math.min(this.dimension - 1, kk + lower);
+            for (int ii = kk + 1; ii <= lastRow; ii++)
+            {
+                x[ii] -= multipliers[ii - kk - 1] * value;
+            }
+        }
+        for (int ii = this.dimension - 1; ii >= 0; ii--)
+        {
+            int to = Math.min(this.dimension - 1, ii + lower + this.upperBandwidth);
+            double sum = x[ii] - DenseKernels.dot(upper[ii], lower + 1, x, ii + 1, to - ii);
+            x[ii] = sum / upper[ii][lower];
+        }
+        return x;
+    }
+
+    @Override
+    public double determinant()
+    {
+        Decomposition decomposition = this.decompose();
+        if (decomposition == null)
+        {
+            return super.determinant();
+        }
+
+        double retval = 1.0;
+        for (int ii = 0; ii < this.dimension; ii++)
+        {
+            retval *= decomposition.upper[ii][this.lowerBandwidth];
+            if (decomposition.pivots[ii] != ii)
+            {
+                retval = -retval;
+            }
+        }
+        return retval;
+    }
+
+    /**
+     * Returns the inverse by a single banded LU decomposition and substitution for each column of the identity
+     */
+    @Override
+    public Matrix inverse()
+    {
+        Decomposition decomposition = this.decompose();
+        if (decomposition == null)
+        {
+            return super.inverse();
+        }
+        return this.inverseByColumns(b -> this.solve(decomposition, b));
+    }
+
+    @Override
+    protected BandedMatrix transposed()
+    {
+        double[][] retval = new double[this.dimension][this.lowerBandwidth + this.upperBandwidth + 1];
+        for (int ii = 0; ii < this.dimension; ii++)
+        {
+            int from = Math.max(0, ii - this.lowerBandwidth);
+            int to = Math.min(this.dimension - 1, ii + this.upperBandwidth);
+            for (int jj = from; jj <= to; jj++)
+            {
+                retval[jj][this.upperBandwidth + ii - jj] = this.band[ii][this.lowerBandwidth + jj - ii];
+            }
+        }
+        return new BandedMatrix(this.upperBandwidth, this.lowerBandwidth, retval);
+    }
+
+}
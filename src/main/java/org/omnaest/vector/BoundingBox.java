@@ -0,0 +1,330 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+import java.util.Arrays;
+
+/**
+ * Immutable axis aligned bounding box in 3D. 2D {@link Vector}s are treated as lying in the x-y plane.
+ *
+ * @see BoundingVolumeHierarchy
+ * @author Omnaest
+ */
+public class BoundingBox
+{
+    /**
+     * The empty {@link BoundingBox}, which contains nothing and is neutral for {@link #union(BoundingBox)}
+     */
+    public static final BoundingBox EMPTY = new BoundingBox(Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+                                                            Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY);
+
+    private final double minX;
+    private final double minY;
+    private final double minZ;
+    private final double maxX;
+    private final double maxY;
+    private final double maxZ;
+
+    protected BoundingBox(double minX, double minY, double minZ, double maxX, double maxY, double maxZ)
+    {
+        super();
+        this.minX = minX;
+        this.minY = minY;
+        this.minZ = minZ;
+        this.maxX = maxX;
+        this.maxY = maxY;
+        this.maxZ = maxZ;
+    }
+
+    /**
+     * Returns the {@link BoundingBox} spanned by the given corners, which do not need to be ordered
+     *
+     * @param corner
+     * @param oppositeCorner
+     * @return
+     */
+    public static BoundingBox of(Vector corner, Vector oppositeCorner)
+    {
+        return new BoundingBox(Math.min(corner.getX(), oppositeCorner.getX()), Math.min(corner.getY(), oppositeCorner.getY()),
+                               Math.min(corner.getZ(), oppositeCorner.getZ()), Math.max(corner.getX(), oppositeCorner.getX()),
+                               Math.max(corner.getY(), oppositeCorner.getY()), Math.max(corner.getZ(), oppositeCorner.getZ()));
+    }
+
+    /**
+     * Returns the smallest {@link BoundingBox} containing all given points
+     *
+     * @param points
+     * @return
+     */
+    public static BoundingBox around(Vector... points)
+    {
+        double[] bounds = new double[] { Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY,
+                Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY };
+        for (Vector point : points)
+        {
+            include(bounds, 0, point.getX(), point.getY(), point.getZ());
+        }
+        return of(bounds, 0);
+    }
+
+    /**
+     * Returns the {@link BoundingBox} stored as minX,minY,minZ,maxX,maxY,maxZ at the given offset
+     */
+    static BoundingBox of(double[] bounds, int offset)
+    {
+        return new BoundingBox(bounds[offset], bounds[offset + 1], bounds[offset + 2], bounds[offset + 3], bounds[offset + 4], bounds[offset + 5]);
+    }
+
+    /**
+     * Stores this {@link BoundingBox} as minX,minY,minZ,maxX,maxY,maxZ at the given offset
+     */
+    void copyTo(double[] bounds, int offset)
+    {
+        bounds[offset] = this.minX;
+        bounds[offset + 1] = this.minY;
+        bounds[offset + 2] = this.minZ;
+        bounds[offset + 3] = this.maxX;
+        bounds[offset + 4] = this.maxY;
+        bounds[offset + 5] = this.maxZ;
+    }
+
+    /**
+     * Enlarges the bounds stored at the given offset to contain the given point
+     */
+    static void include(double[] bounds, int offset, double x, double y, double z)
+    {
+        bounds[offset] = Math.min(bounds[offset], x);
+        bounds[offset + 1] = Math.min(bounds[offset + 1], y);
+        bounds[offset + 2] = Math.min(bounds[offset + 2], z);
+        bounds[offset + 3] = Math.max(bounds[offset + 3], x);
+        bounds[offset + 4] = Math.max(bounds[offset + 4], y);
+        bounds[offset + 5] = Math.max(bounds[offset + 5], z);
+    }
+
+    /**
+     * Enlarges the bounds stored at the target offset to contain the bounds stored at the source offset
+     */
+    static void union(double[] target, int targetOffset, double[] source, int sourceOffset)
+    {
+        for (int ii = 0; ii < 3; ii++)
+        {
+            target[targetOffset + ii] = Math.min(target[targetOffset + ii], source[sourceOffset + ii]);
+            target[targetOffset + 3 + ii] = Math.max(target[targetOffset + 3 + ii], source[sourceOffset + 3 + ii]);
+        }
+    }
+
+    /**
+     * Returns the surface area of the bounds stored at the given offset, which is 0 for empty bounds
+     */
+    static double surfaceArea(double[] bounds, int offset)
+    {
+        double dx = bounds[offset + 3] - bounds[offset];
+        double dy = bounds[offset + 4] - bounds[offset + 1];
+        double dz = bounds[offset + 5] - bounds[offset + 2];
+        return dx < 0 || dy < 0 || dz < 0 ? 0.0 : 2.0 * (dx * dy + dy * dz + dz * dx);
+    }
+
+    /**
+     * Returns true, if the bounds stored at the given offsets overlap, including touching faces
+     */
+    static boolean overlaps(double[] bounds, int offset, double[] otherBounds, int otherOffset)
+    {
+        return bounds[offset] <= otherBounds[otherOffset + 3] && otherBounds[otherOffset] <= bounds[offset + 3]
+                && bounds[offset + 1] <= otherBounds[otherOffset + 4] && otherBounds[otherOffset + 1] <= bounds[offset + 4]
+                && bounds[offset + 2] <= otherBounds[otherOffset + 5] && otherBounds[otherOffset + 2] <= bounds[offset + 5];
+    }
+
+    /**
+     * Returns the distance along the ray from the origin in the given direction at which it enters the bounds stored at the given offset,
+     * which is 0 if the origin is inside, or {@link Double#POSITIVE_INFINITY} if the ray misses the bounds within the maximum distance.
+     * The direction is given by its inverse components, so a ray parallel to an axis has an infinite inverse component there.
+     */
+    static double intersectRay(double[] bounds, int offset, double ox, double oy, double oz, double inverseDx, double inverseDy,
+                               double inverseDz, double maxDistance)
+    {
+        double near = 0.0;
+        double far = maxDistance;
+
+        double t1 = (bounds[offset] - ox) * inverseDx;
+        double t2 = (bounds[offset + 3] - ox) * inverseDx;
+        if (Double.isNaN(t1) || Double.isNaN(t2))
+        {
+            if (ox < bounds[offset] || ox > bounds[offset + 3])
+            {
+                return Double.POSITIVE_INFINITY;
+            }
+        }
+        else
+        {
+            near = Math.max(near, Math.min(t1, t2));
+            far = Math.min(far, Math.max(t1, t2));
+        }
+
+        t1 = (bounds[offset + 1] - oy) * inverseDy;
+        t2 = (bounds[offset + 4] - oy) * inverseDy;
+        if (Double.isNaN(t1) || Double.isNaN(t2))
+        {
+            if (oy < bounds[offset + 1] || oy > bounds[offset + 4])
+            {
+                return Double.POSITIVE_INFINITY;
+            }
+        }
+        else
+        {
+            near = Math.max(near, Math.min(t1, t2));
+            far = Math.min(far, Math.max(t1, t2));
+        }
+
+        t1 = (bounds[offset + 2] - oz) * inverseDz;
+        t2 = (bounds[offset + 5] - oz) * inverseDz;
+        if (Double.isNaN(t1) || Double.isNaN(t2))
+        {
+            if (oz < bounds[offset + 2] || oz > bounds[offset + 5])
+            {
+                return Double.POSITIVE_INFINITY;
+            }
+        }
+        else
+        {
+            near = Math.max(near, Math.min(t1, t2));
+            far = Math.min(far, Math.max(t1, t2));
+        }
+
+        return near <= far ? near : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Returns the smallest {@link BoundingBox} containing this and the other {@link BoundingBox}
+     *
+     * @param other
+     * @return
+     */
+    public BoundingBox union(BoundingBox other)
+    {
+        return new BoundingBox(Math.min(this.minX, other.minX), Math.min(this.minY, other.minY), Math.min(this.minZ, other.minZ),
+                               Math.max(this.maxX, other.maxX), Math.max(this.maxY, other.maxY), Math.max(this.maxZ, other.maxZ));
+    }
+
+    /**
+     * Returns true, if this and the other {@link BoundingBox} overlap, including touching faces
+     *
+     * @param other
+     * @return
+     */
+    public boolean overlaps(BoundingBox other)
+    {
+        return this.minX <= other.maxX && other.minX <= this.maxX && this.minY <= other.maxY && other.minY <= this.maxY && this.minZ <= other.maxZ
+                && other.minZ <= this.maxZ;
+    }
+
+    /**
+     * Returns true, if the given point lies within or on the border of this {@link BoundingBox}
+     *
+     * @param point
+     * @return
+     */
+    public boolean contains(Vector point)
+    {
+        double x = point.getX();
+        double y = point.getY();
+        double z = point.getZ();
+        return this.minX <= x && x <= this.maxX && this.minY <= y && y <= this.maxY && this.minZ <= z && z <= this.maxZ;
+    }
+
+    /**
+     * Returns the distance from the origin along the normalized direction at which the ray enters this {@link BoundingBox}, which is 0 if
+     * the origin is inside, or {@link Double#POSITIVE_INFINITY} if the ray misses it
+     *
+     * @param origin
+     * @param direction
+     * @return
+     */
+    public double intersectRay(Vector origin, Vector direction)
+    {
+        double[] bounds = new double[6];
+        this.copyTo(bounds, 0);
+        double length = direction.absolute();
+        return intersectRay(bounds, 0, origin.getX(), origin.getY(), origin.getZ(), length / direction.getX(), length / direction.getY(),
+                            length / direction.getZ(), Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Returns true, if this {@link BoundingBox} contains nothing
+     *
+     * @return
+     */
+    public boolean isEmpty()
+    {
+        return this.minX > this.maxX || this.minY > this.maxY || this.minZ > this.maxZ;
+    }
+
+    public Vector getMin()
+    {
+        return Vector.of(this.minX, this.minY, this.minZ);
+    }
+
+    public Vector getMax()
+    {
+        return Vector.of(this.maxX, this.maxY, this.maxZ);
+    }
+
+    public Vector getCenter()
+    {
+        return Vector.of((this.minX + this.maxX) * 0.5, (this.minY + this.maxY) * 0.5, (this.minZ + this.maxZ) * 0.5);
+    }
+
+    public double getSurfaceArea()
+    {
+        double[] bounds = new double[6];
+        this.copyTo(bounds, 0);
+        return surfaceArea(bounds, 0);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        double[] bounds = new double[6];
+        this.copyTo(bounds, 0);
+        return Arrays.hashCode(bounds);
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj)
+        {
+            return true;
+        }
+        if (!(obj instanceof BoundingBox))
+        {
+            return false;
+        }
+        BoundingBox other = (BoundingBox) obj;
+        return this.minX == other.minX && this.minY == other.minY && this.minZ == other.minZ && this.maxX == other.maxX && this.maxY == other.maxY
+                && this.maxZ == other.maxZ;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "BoundingBox [min=(" + this.minX + ", " + this.minY + ", " + this.minZ + "), max=(" + this.maxX + ", " + this.maxY + ", " + this.maxZ
+                + ")]";
+    }
+
+}
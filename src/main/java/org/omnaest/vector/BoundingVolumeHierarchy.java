@@ -0,0 +1,663 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Bounding volume hierarchy over {@link BoundingBox}es of arbitrary elements, which answers ray cast, segment, nearest hit and overlap
+ * queries in logarithmic instead of linear time.<br>
+ * <br>
+ * The hierarchy is built top down with binned splits along the axis of the largest centroid extent, choosing the split with the lowest
+ * surface area heuristic cost. Nodes and element bounds are kept in flat arrays. If elements move, {@link #refit()} or
+ * {@link #refit(int)} update the bounds bottom up without changing the tree structure, which is much cheaper than a rebuild but degrades
+ * the query performance if elements move far.<br>
+ * <br>
+ * Example:<br>
+ *
+ * <pre>
+ * BoundingVolumeHierarchy&lt;Sphere&gt; hierarchy = BoundingVolumeHierarchy.of(spheres, Sphere::getBoundingBox);
+ * Optional&lt;Hit&lt;Sphere&gt;&gt; hit = hierarchy.nearestHit(origin, direction, Sphere::intersect);
+ * </pre>
+ *
+ * @see BoundingBox
+ * @author Omnaest
+ */
+public class BoundingVolumeHierarchy<E>
+{
+    private static final int MAX_LEAF_SIZE  = 4;
+    private static final int NUMBER_OF_BINS = 12;
+
+    private final List<E>                  elements;
+    private final Function<E, BoundingBox> boundsFunction;
+    private final double[]                 elementBounds;
+    private final int[]                    elementLeaf;
+    private final int[]                    order;
+
+    private int      numberOfNodes;
+    private double[] nodeBounds;
+    private int[]    nodeFirst;
+    private int[]    nodeSize;
+    private int[]    nodeRight;
+    private int[]    nodeParent;
+
+    /**
+     * Intersection of a ray with an element
+     *
+     * @author Omnaest
+     */
+    @FunctionalInterface
+    public static interface RayIntersection<E>
+    {
+        /**
+         * Returns the distance from the origin along the normalized direction at which the ray hits the given element, or
+         * {@link Double#POSITIVE_INFINITY} if the ray misses it. Negative distances are ignored.
+         *
+         * @param element
+         * @param origin
+         * @param direction
+         * @return
+         */
+        public double intersect(E element, Vector origin, Vector direction);
+    }
+
+    /**
+     * Result of {@link BoundingVolumeHierarchy#nearestHit(Vector, Vector, double, RayIntersection)}
+     *
+     * @author Omnaest
+     */
+    public static class Hit<E>
+    {
+        private E      element;
+        private double distance;
+        private Vector point;
+
+        protected Hit(E element, double distance, Vector point)
+        {
+            super();
+            this.element = element;
+            this.distance = distance;
+            this.point = point;
+        }
+
+        public E getElement()
+        {
+            return this.element;
+        }
+
+        public double getDistance()
+        {
+            return this.distance;
+        }
+
+        public Vector getPoint()
+        {
+            return this.point;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Hit [element=" + this.element + ", distance=" + this.distance + ", point=" + this.point + "]";
+        }
+
+    }
+
+    protected BoundingVolumeHierarchy(List<E> elements, Function<E, BoundingBox> boundsFunction)
+    {
+        super();
+        this.elements = new ArrayList<>(elements);
+        this.boundsFunction = boundsFunction;
+
+        int size = this.elements.size();
+        this.elementBounds = new double[size * 6];
+        this.elementLeaf = new int[size];
+        this.order = new int[size];
+        for (int ii = 0; ii < size; ii++)
+        {
+            this.order[ii] = ii;
+            boundsFunction.apply(this.elements.get(ii))
+                          .copyTo(this.elementBounds, ii * 6);
+        }
+
+        int capacity = Math.max(1, 2 * size - 1);
+        this.nodeBounds = new double[capacity * 6];
+        this.nodeFirst = new int[capacity];
+        this.nodeSize = new int[capacity];
+        this.nodeRight = new int[capacity];
+        this.nodeParent = new int[capacity];
+        this.build();
+    }
+
+    /**
+     * Returns a new {@link BoundingVolumeHierarchy} over the given elements with the {@link BoundingBox}es returned by the given function
+     *
+     * @param elements
+     * @param boundsFunction
+     * @return
+     */
+    public static <E> BoundingVolumeHierarchy<E> of(List<E> elements, Function<E, BoundingBox> boundsFunction)
+    {
+        return new BoundingVolumeHierarchy<>(elements, boundsFunction);
+    }
+
+    /**
+     * Returns a new {@link BoundingVolumeHierarchy} over the given points
+     *
+     * @param points
+     * @return
+     */
+    public static <V extends Vector> BoundingVolumeHierarchy<V> ofPoints(List<V> points)
+    {
+        return new BoundingVolumeHierarchy<>(points, point -> BoundingBox.of(point, point));
+    }
+
+    private void build()
+    {
+        int size = this.elements.size();
+        double[] centroids = new double[size * 3];
+        for (int ii = 0; ii < size; ii++)
+        {
+            for (int axis = 0; axis < 3; axis++)
+            {
+                centroids[ii * 3 + axis] = (this.elementBounds[ii * 6 + axis] + this.elementBounds[ii * 6 + 3 + axis]) * 0.5;
+            }
+        }
+
+        int[] binCounts = new int[NUMBER_OF_BINS];
+        double[] binBounds = new double[NUMBER_OF_BINS * 6];
+        double[] rightAreas = new double[NUMBER_OF_BINS];
+        double[] accumulatedBounds = new double[6];
+        double[] centroidBounds = new double[6];
+
+        int[] stack = new int[64];
+        int stackSize = 0;
+        this.numberOfNodes = 1;
+        this.nodeFirst[0] = 0;
+        this.nodeSize[0] = size;
+        this.nodeParent[0] = -1;
+        stack[stackSize++] = 0;
+        while (stackSize > 0)
+        {
+            int node = stack[--stackSize];
+            int first = this.nodeFirst[node];
+            int count = this.nodeSize[node];
+            this.nodeRight[node] = -1;
+
+            clear(this.nodeBounds, node * 6);
+            clear(centroidBounds, 0);
+            for (int ii = first; ii < first + count; ii++)
+            {
+                int element = this.order[ii];
+                this.elementLeaf[element] = node;
+                BoundingBox.union(this.nodeBounds, node * 6, this.elementBounds, element * 6);
+                BoundingBox.include(centroidBounds, 0, centroids[element * 3], centroids[element * 3 + 1], centroids[element * 3 + 2]);
+            }
+            if (count <= MAX_LEAF_SIZE)
+            {
+                continue;
+            }
+
+            int bestAxis = -1;
+            int bestSplit = -1;
+            double bestCost = Double.POSITIVE_INFINITY;
+            for (int axis = 0; axis < 3; axis++)
+            {
+                double min = centroidBounds[axis];
+                double extent = centroidBounds[3 + axis] - min;
+                if (!(extent > 0.0))
+                {
+                    continue;
+                }
+
+                Arrays.fill(binCounts, 0);
+                for (int bin = 0; bin < NUMBER_OF_BINS; bin++)
+                {
+                    clear(binBounds, bin * 6);
+                }
+                for (int ii = first; ii < first + count; ii++)
+                {
+                    int element = this.order[ii];
+                    int bin = binIndex(centroids[element * 3 + axis], min, extent);
+                    binCounts[bin]++;
+                    BoundingBox.union(binBounds, bin * 6, this.elementBounds, element * 6);
+                }
+
+                clear(accumulatedBounds, 0);
+                for (int bin = NUMBER_OF_BINS - 1; bin > 0; bin--)
+                {
+                    BoundingBox.union(accumulatedBounds, 0, binBounds, bin * 6);
+                    rightAreas[bin] = BoundingBox.surfaceArea(accumulatedBounds, 0);
+                }
+                clear(accumulatedBounds, 0);
+                int leftCount = 0;
+                for (int split = 1; split < NUMBER_OF_BINS; split++)
+                {
+                    BoundingBox.union(accumulatedBounds, 0, binBounds, (split - 1) * 6);
+                    leftCount += binCounts[split - 1];
+                    int rightCount = count - leftCount;
+                    if (leftCount == 0 || rightCount == 0)
+                    {
+                        continue;
+                    }
+                    double cost = BoundingBox.surfaceArea(accumulatedBounds, 0) * leftCount + rightAreas[split] * rightCount;
+                    if (cost < bestCost)
+                    {
+                        bestCost = cost;
+                        bestAxis = axis;
+                        bestSplit = split;
+                    }
+                }
+            }
+
+            int middle;
+            if (bestAxis < 0)
+            {
+                middle = first + count / 2;
+            }
+            else
+            {
+                double min = centroidBounds[bestAxis];
+                double extent = centroidBounds[3 + bestAxis] - min;
+                middle = first;
+                for (int ii = first; ii < first + count; ii++)
+                {
+                    int element = this.order[ii];
+                    if (binIndex(centroids[element * 3 + bestAxis], min, extent) < bestSplit)
+                    {
+                        this.order[ii] = this.order[middle];
+                        this.order[middle] = element;
+                        middle++;
+                    }
+                }
+            }
+
+            int left = this.numberOfNodes++;
+            int right = this.numberOfNodes++;
+            this.nodeFirst[left] = first;
+            this.nodeSize[left] = middle - first;
+            this.nodeParent[left] = node;
+            this.nodeFirst[right] = middle;
+            this.nodeSize[right] = first + count - middle;
+            this.nodeParent[right] = node;
+            this.nodeFirst[node] = left;
+            this.nodeSize[node] = count;
+            this.nodeRight[node] = right;
+
+            if (stackSize + 2 > stack.length)
+            {
+                stack = Arrays.copyOf(stack, stack.length * 2);
+            }
+            stack[stackSize++] = right;
+            stack[stackSize++] = left;
+        }
+    }
+
+    private static int binIndex(double centroid, double min, double extent)
+    {
+        int retval = (int) ((centroid - min) / extent * NUMBER_OF_BINS);
+        return Math.min(NUMBER_OF_BINS - 1, Math.max(0, retval));
+    }
+
+    private static void clear(double[] bounds, int offset)
+    {
+        Arrays.fill(bounds, offset, offset + 3, Double.POSITIVE_INFINITY);
+        Arrays.fill(bounds, offset + 3, offset + 6, Double.NEGATIVE_INFINITY);
+    }
+
+    private boolean isLeaf(int node)
+    {
+        return this.nodeRight[node] < 0;
+    }
+
+    private void updateNodeBounds(int node)
+    {
+        clear(this.nodeBounds, node * 6);
+        if (this.isLeaf(node))
+        {
+            int first = this.nodeFirst[node];
+            for (int ii = first; ii < first + this.nodeSize[node]; ii++)
+            {
+                BoundingBox.union(this.nodeBounds, node * 6, this.elementBounds, this.order[ii] * 6);
+            }
+        }
+        else
+        {
+            BoundingBox.union(this.nodeBounds, node * 6, this.nodeBounds, this.nodeFirst[node] * 6);
+            BoundingBox.union(this.nodeBounds, node * 6, this.nodeBounds, this.nodeRight[node] * 6);
+        }
+    }
+
+    /**
+     * Reads the {@link BoundingBox}es of all elements again and updates the bounds of all nodes bottom up, keeping the tree structure
+     *
+     * @return this
+     */
+    public BoundingVolumeHierarchy<E> refit()
+    {
+        for (int ii = 0; ii < this.elements.size(); ii++)
+        {
+            this.boundsFunction.apply(this.elements.get(ii))
+                               .copyTo(this.elementBounds, ii * 6);
+        }
+        for (int node = this.numberOfNodes - 1; node >= 0; node--)
+        {
+            this.updateNodeBounds(node);
+        }
+        return this;
+    }
+
+    /**
+     * Reads the {@link BoundingBox} of the element at the given index of the original element {@link List} again and updates the bounds of
+     * its leaf and all ancestors
+     *
+     * @param index
+     * @return this
+     */
+    public BoundingVolumeHierarchy<E> refit(int index)
+    {
+        this.boundsFunction.apply(this.elements.get(index))
+                           .copyTo(this.elementBounds, index * 6);
+        for (int node = this.elementLeaf[index]; node >= 0; node = this.nodeParent[node])
+        {
+            this.updateNodeBounds(node);
+        }
+        return this;
+    }
+
+    /**
+     * Returns all elements whose {@link BoundingBox} overlaps the given {@link BoundingBox}
+     *
+     * @param box
+     * @return
+     */
+    public List<E> overlapping(BoundingBox box)
+    {
+        List<E> retval = new ArrayList<>();
+        this.forEachOverlapping(box, retval::add);
+        return retval;
+    }
+
+    /**
+     * Similar to {@link #overlapping(BoundingBox)} but passes the elements to the given {@link Consumer}
+     *
+     * @param box
+     * @param consumer
+     */
+    public void forEachOverlapping(BoundingBox box, Consumer<E> consumer)
+    {
+        if (this.elements.isEmpty())
+        {
+            return;
+        }
+        double[] bounds = new double[6];
+        box.copyTo(bounds, 0);
+
+        int[] stack = new int[64];
+        int stackSize = 0;
+        stack[stackSize++] = 0;
+        while (stackSize > 0)
+        {
+            int node = stack[--stackSize];
+            if (!BoundingBox.overlaps(this.nodeBounds, node * 6, bounds, 0))
+            {
+                continue;
+            }
+            if (this.isLeaf(node))
+            {
+                int first = this.nodeFirst[node];
+                for (int ii = first; ii < first + this.nodeSize[node]; ii++)
+                {
+                    int element = this.order[ii];
+                    if (BoundingBox.overlaps(this.elementBounds, element * 6, bounds, 0))
+                    {
+                        consumer.accept(this.elements.get(element));
+                    }
+                }
+            }
+            else
+            {
+                if (stackSize + 2 > stack.length)
+                {
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                }
+                stack[stackSize++] = this.nodeRight[node];
+                stack[stackSize++] = this.nodeFirst[node];
+            }
+        }
+    }
+
+    /**
+     * Returns all elements whose {@link BoundingBox} is hit by the ray from the origin in the given direction within the maximum distance
+     *
+     * @param origin
+     * @param direction
+     * @param maxDistance
+     * @return
+     */
+    public List<E> rayCast(Vector origin, Vector direction, double maxDistance)
+    {
+        List<E> retval = new ArrayList<>();
+        if (this.elements.isEmpty())
+        {
+            return retval;
+        }
+        double ox = origin.getX();
+        double oy = origin.getY();
+        double oz = origin.getZ();
+        double length = direction.absolute();
+        double inverseDx = length / direction.getX();
+        double inverseDy = length / direction.getY();
+        double inverseDz = length / direction.getZ();
+
+        int[] stack = new int[64];
+        int stackSize = 0;
+        stack[stackSize++] = 0;
+        while (stackSize > 0)
+        {
+            int node = stack[--stackSize];
+            if (BoundingBox.intersectRay(this.nodeBounds, node * 6, ox, oy, oz, inverseDx, inverseDy, inverseDz,
+                                         maxDistance) == Double.POSITIVE_INFINITY)
+            {
+                continue;
+            }
+            if (this.isLeaf(node))
+            {
+                int first = this.nodeFirst[node];
+                for (int ii = first; ii < first + this.nodeSize[node]; ii++)
+                {
+                    int element = this.order[ii];
+                    if (BoundingBox.intersectRay(this.elementBounds, element * 6, ox, oy, oz, inverseDx, inverseDy, inverseDz,
+                                                 maxDistance) != Double.POSITIVE_INFINITY)
+                    {
+                        retval.add(this.elements.get(element));
+                    }
+                }
+            }
+            else
+            {
+                if (stackSize + 2 > stack.length)
+                {
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                }
+                stack[stackSize++] = this.nodeRight[node];
+                stack[stackSize++] = this.nodeFirst[node];
+            }
+        }
+        return retval;
+    }
+
+    /**
+     * Returns all elements whose {@link BoundingBox} is hit by the segment between the given points
+     *
+     * @param from
+     * @param to
+     * @return
+     */
+    public List<E> segmentCast(Vector from, Vector to)
+    {
+        Vector direction = to.subtract(from);
+        return this.rayCast(from, direction, direction.absolute());
+    }
+
+    /**
+     * Returns the closest element hit by the ray from the origin in the given direction
+     *
+     * @see #nearestHit(Vector, Vector, double, RayIntersection)
+     * @param origin
+     * @param direction
+     * @param intersection
+     * @return
+     */
+    public Optional<Hit<E>> nearestHit(Vector origin, Vector direction, RayIntersection<E> intersection)
+    {
+        return this.nearestHit(origin, direction, Double.POSITIVE_INFINITY, intersection);
+    }
+
+    /**
+     * Returns the closest element hit by the ray from the origin in the given direction within the maximum distance. Nodes are visited
+     * front to back and skipped, if they are farther away than the closest hit found so far.
+     *
+     * @param origin
+     * @param direction
+     * @param maxDistance
+     * @param intersection
+     * @return
+     */
+    public Optional<Hit<E>> nearestHit(Vector origin, Vector direction, double maxDistance, RayIntersection<E> intersection)
+    {
+        if (this.elements.isEmpty())
+        {
+            return Optional.empty();
+        }
+        double ox = origin.getX();
+        double oy = origin.getY();
+        double oz = origin.getZ();
+        Vector normalizedDirection = direction.as3DVector()
+                                              .normVector();
+        double inverseDx = 1.0 / normalizedDirection.getX();
+        double inverseDy = 1.0 / normalizedDirection.getY();
+        double inverseDz = 1.0 / normalizedDirection.getZ();
+
+        int closestElement = -1;
+        double closestDistance = maxDistance;
+
+        int[] stack = new int[64];
+        double[] stackDistances = new double[64];
+        int stackSize = 0;
+        double rootDistance = BoundingBox.intersectRay(this.nodeBounds, 0, ox, oy, oz, inverseDx, inverseDy, inverseDz, maxDistance);
+        if (rootDistance != Double.POSITIVE_INFINITY)
+        {
+            stack[stackSize] = 0;
+            stackDistances[stackSize++] = rootDistance;
+        }
+        while (stackSize > 0)
+        {
+            int node = stack[--stackSize];
+            if (stackDistances[stackSize] > closestDistance)
+            {
+                continue;
+            }
+            if (this.isLeaf(node))
+            {
+                int first = this.nodeFirst[node];
+                for (int ii = first; ii < first + this.nodeSize[node]; ii++)
+                {
+                    int element = this.order[ii];
+                    double distance = intersection.intersect(this.elements.get(element), origin, normalizedDirection);
+                    boolean isCloser = closestElement < 0 ? distance <= closestDistance : distance < closestDistance;
+                    if (distance >= 0.0 && distance != Double.POSITIVE_INFINITY && isCloser)
+                    {
+                        closestElement = element;
+                        closestDistance = distance;
+                    }
+                }
+            }
+            else
+            {
+                int near = this.nodeFirst[node];
+                int far = this.nodeRight[node];
+                double nearDistance = BoundingBox.intersectRay(this.nodeBounds, near * 6, ox, oy, oz, inverseDx, inverseDy, inverseDz,
+                                                               closestDistance);
+                double farDistance = BoundingBox.intersectRay(this.nodeBounds, far * 6, ox, oy, oz, inverseDx, inverseDy, inverseDz,
+                                                              closestDistance);
+                if (farDistance < nearDistance)
+                {
+                    int swap = near;
+                    near = far;
+                    far = swap;
+                    double distance = nearDistance;
+                    nearDistance = farDistance;
+                    farDistance = distance;
+                }
+
+                if (stackSize + 2 > stack.length)
+                {
+                    stack = Arrays.copyOf(stack, stack.length * 2);
+                    stackDistances = Arrays.copyOf(stackDistances, stackDistances.length * 2);
+                }
+                if (farDistance != Double.POSITIVE_INFINITY)
+                {
+                    stack[stackSize] = far;
+                    stackDistances[stackSize++] = farDistance;
+                }
+                if (nearDistance != Double.POSITIVE_INFINITY)
+                {
+                    stack[stackSize] = near;
+                    stackDistances[stackSize++] = nearDistance;
+                }
+            }
+        }
+
+        if (closestElement < 0)
+        {
+            return Optional.empty();
+        }
+        Vector point = origin.as3DVector()
+                             .add(normalizedDirection.multiply(closestDistance));
+        return Optional.of(new Hit<>(this.elements.get(closestElement), closestDistance, point));
+    }
+
+    /**
+     * Returns the {@link BoundingBox} around all elements
+     *
+     * @return
+     */
+    public BoundingBox getBoundingBox()
+    {
+        return this.elements.isEmpty() ? BoundingBox.EMPTY : BoundingBox.of(this.nodeBounds, 0);
+    }
+
+    public int size()
+    {
+        return this.elements.size();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "BoundingVolumeHierarchy [size=" + this.elements.size() + ", nodes=" + this.numberOfNodes + "]";
+    }
+
+}
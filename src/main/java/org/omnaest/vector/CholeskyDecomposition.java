@@ -0,0 +1,137 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+/**
+ * Cholesky decomposition A = L * L<sup>T</sup> of a symmetric positive definite {@link Matrix}
+ *
+ * @see Matrix#choleskyDecomposition()
+ * @see <a href="https://en.wikipedia.org/wiki/Cholesky_decomposition">wikipedia</a>
+ * @author Omnaest
+ */
+public class CholeskyDecomposition
+{
+    private double[][] l;
+
+    protected CholeskyDecomposition(double[][] l)
+    {
+        super();
+        this.l = l;
+    }
+
+    /**
+     * Returns the {@link CholeskyDecomposition} of the given {@link Matrix}
+     *
+     * @param matrix
+     * @return
+     * @throws IllegalStateException
+     *             if the {@link Matrix} is not symmetric positive definite
+     */
+    public static CholeskyDecomposition of(Matrix matrix)
+    {
+        int dimension = matrix.getRowCount();
+        if (dimension != matrix.getColumnCount())
+        {
+            throw new IllegalStateException("Matrix must be square");
+        }
+
+        double[][] a = matrix.toArray();
+        double[][] l = new double[dimension][dimension];
+        for (int jj = 0; jj < dimension; jj++)
+        {
+            double[] rowJ = l[jj];
+            double sum = 0.0;
+            for (int kk = 0; kk < jj; kk++)
+            {
+                if (a[kk][jj] != a[jj][kk])
+                {
+                    throw new IllegalStateException("Matrix must be symmetric");
+                }
+                double value = (a[jj][kk] - DenseKernels.dot(l[kk], 0, rowJ, 0, kk)) / l[kk][kk];
+                rowJ[kk] = value;
+                sum += value * value;
+            }
+            double diagonal = a[jj][jj] - sum;
+            if (diagonal <= 0.0)
+            {
+                throw new IllegalStateException("Matrix must be positive definite");
+            }
+            rowJ[jj] = Math.sqrt(diagonal);
+        }
+        return new CholeskyDecomposition(l);
+    }
+
+    /**
+     * Returns the lower triangular {@link Matrix} L
+     *
+     * @return
+     */
+    public TriangularMatrix getL()
+    {
+        return TriangularMatrix.lower(new Matrix(this.l));
+    }
+
+    /**
+     * Returns the determinant, which is the squared product of the diagonal of L
+     *
+     * @return
+     */
+    public double determinant()
+    {
+        double retval = 1.0;
+        for (int ii = 0; ii < this.l.length; ii++)
+        {
+            retval *= this.l[ii][ii];
+        }
+        return retval * retval;
+    }
+
+    /**
+     * Returns the x with A * x = b by forward and backward substitution
+     *
+     * @param b
+     * @return
+     */
+    public Vector solve(Vector b)
+    {
+        int dimension = this.l.length;
+        double[] x = new double[dimension];
+        for (int ii = 0; ii < dimension; ii++)
+        {
+            x[ii] = (b.getCoordinate(ii) - DenseKernels.dot(this.l[ii], 0, x, 0, ii)) / this.l[ii][ii];
+        }
+        for (int ii = dimension - 1; ii >= 0; ii--)
+        {
+            double sum = x[ii];
+            for (int kk = ii + 1; kk < dimension; kk++)
+            {
+                sum -= this.l[kk][ii] * x[kk];
+            }
+            x[ii] = sum / this.l[ii][ii];
+        }
+        return new Vector(x);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "CholeskyDecomposition [dimension=" + this.l.length + "]";
+    }
+
+}
@@ -0,0 +1,246 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+import java.util.function.Consumer;
+import java.util.stream.Collector;
+
+/**
+ * Single pass accumulator of the mean and covariance of a stream of {@link Vector}s, using the numerically stable update of Welford.<br>
+ * <br>
+ * Accumulators of different threads can be merged using {@link #combine(CovarianceAccumulator)}, which makes it usable as
+ * {@link Collector} of parallel streams:<br>
+ *
+ * <pre>
+ * CovarianceAccumulator accumulator = vectors.parallelStream()
+ *                                            .collect(CovarianceAccumulator.collector());
+ * </pre>
+ *
+ * The dimension is determined by the first {@link Vector}, shorter {@link Vector}s are padded with 0.
+ *
+ * @see <a href="https://en.wikipedia.org/wiki/Algorithms_for_calculating_variance">wikipedia</a>
+ * @see PrincipalComponentAnalysis
+ * @author Omnaest
+ */
+public class CovarianceAccumulator implements Consumer<Vector>
+{
+    private int      dimension = -1;
+    private long     count     = 0;
+    private double[] mean;
+    private double[] comoments;
+    private double[] delta;
+
+    public CovarianceAccumulator()
+    {
+        super();
+    }
+
+    public CovarianceAccumulator(int dimension)
+    {
+        super();
+        this.initialize(dimension);
+    }
+
+    /**
+     * Returns a {@link Collector} which accumulates a stream of {@link Vector}s
+     *
+     * @return
+     */
+    public static Collector<Vector, CovarianceAccumulator, CovarianceAccumulator> collector()
+    {
+        return Collector.of(CovarianceAccumulator::new, CovarianceAccumulator::accept, CovarianceAccumulator::combine,
+                            Collector.Characteristics.IDENTITY_FINISH);
+    }
+
+    @Override
+    public void accept(Vector vector)
+    {
+        if (this.dimension < 0)
+        {
+            this.initialize(vector.getDimension());
+        }
+        for (int ii = 0; ii < this.dimension; ii++)
+        {
+            this.delta[ii] = vector.getCoordinate(ii);
+        }
+        this.acceptDelta();
+    }
+
+    /**
+     * Accepts a sample given as coordinates
+     *
+     * @param coordinates
+     */
+    public void accept(double... coordinates)
+    {
+        if (this.dimension < 0)
+        {
+            this.initialize(coordinates.length);
+        }
+        for (int ii = 0; ii < this.dimension; ii++)
+        {
+            this.delta[ii] = ii < coordinates.length ? coordinates[ii] : 0.0;
+        }
+        this.acceptDelta();
+    }
+
+    /**
+     * Expects the sample within the delta array, x - mean(n-1) is multiplied with x - mean(n) and added to the comoments
+     */
+    private void acceptDelta()
+    {
+        this.count++;
+        int dimension = this.dimension;
+        for (int ii = 0; ii < dimension; ii++)
+        {
+            double value = this.delta[ii];
+            this.delta[ii] = value - this.mean[ii];
+            this.mean[ii] += this.delta[ii] / this.count;
+        }
+        for (int ii = 0; ii < dimension; ii++)
+        {
+            double deltaI = this.delta[ii];
+            if (deltaI != 0.0)
+            {
+                int rowOffset = ii * dimension;
+                for (int jj = ii; jj < dimension; jj++)
+                {
+                    double updatedDeltaJ = this.delta[jj] * (this.count - 1) / this.count;
+                    this.comoments[rowOffset + jj] += deltaI * updatedDeltaJ;
+                }
+            }
+        }
+    }
+
+    /**
+     * Merges the samples of the other {@link CovarianceAccumulator} into this one
+     *
+     * @param other
+     * @return this
+     */
+    public CovarianceAccumulator combine(CovarianceAccumulator other)
+    {
+        if (other.count == 0)
+        {
+            return this;
+        }
+        if (this.count == 0)
+        {
+            this.initialize(other.dimension);
+            this.count = other.count;
+            System.arraycopy(other.mean, 0, this.mean, 0, this.dimension);
+            System.arraycopy(other.comoments, 0, this.comoments, 0, this.comoments.length);
+            return this;
+        }
+        if (this.dimension != other.dimension)
+        {
+            throw new IllegalArgumentException("Accumulators must have the same dimension");
+        }
+
+        long count = this.count + other.count;
+        double factor = (double) this.count * other.count / count;
+        for (int ii = 0; ii < this.dimension; ii++)
+        {
+            this.delta[ii] = other.mean[ii] - this.mean[ii];
+        }
+        for (int ii = 0; ii < this.dimension; ii++)
+        {
+            int rowOffset = ii * this.dimension;
+            for (int jj = ii; jj < this.dimension; jj++)
+            {
+                this.comoments[rowOffset + jj] += other.comoments[rowOffset + jj] + this.delta[ii] * this.delta[jj] * factor;
+            }
+        }
+        for (int ii = 0; ii < this.dimension; ii++)
+        {
+            this.mean[ii] += this.delta[ii] * other.count / count;
+        }
+        this.count = count;
+        return this;
+    }
+
+    private void initialize(int dimension)
+    {
+        this.dimension = dimension;
+        this.mean = new double[dimension];
+        this.comoments = new double[dimension * dimension];
+        this.delta = new double[dimension];
+    }
+
+    public long getCount()
+    {
+        return this.count;
+    }
+
+    public int getDimension()
+    {
+        return Math.max(0, this.dimension);
+    }
+
+    public Vector getMean()
+    {
+        return new Vector(this.mean != null ? this.mean.clone() : new double[0]);
+    }
+
+    /**
+     * Returns the sample covariance {@link Matrix}, normalized by n-1
+     *
+     * @see #getPopulationCovariance()
+     * @return
+     */
+    public Matrix getCovariance()
+    {
+        return new Matrix(this.getCovarianceData(this.count - 1));
+    }
+
+    /**
+     * Returns the population covariance {@link Matrix}, normalized by n
+     *
+     * @see #getCovariance()
+     * @return
+     */
+    public Matrix getPopulationCovariance()
+    {
+        return new Matrix(this.getCovarianceData(this.count));
+    }
+
+    double[][] getCovarianceData(long normalization)
+    {
+        int dimension = this.getDimension();
+        double[][] retval = new double[dimension][dimension];
+        double factor = normalization > 0 ? 1.0 / normalization : 0.0;
+        for (int ii = 0; ii < dimension; ii++)
+        {
+            for (int jj = ii; jj < dimension; jj++)
+            {
+                double value = this.comoments[ii * dimension + jj] * factor;
+                retval[ii][jj] = value;
+                retval[jj][ii] = value;
+            }
+        }
+        return retval;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "CovarianceAccumulator [dimension=" + this.getDimension() + ", count=" + this.count + "]";
+    }
+
+}
@@ -0,0 +1,475 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import org.omnaest.vector.VectorMetrics.Operation;
+
+/**
+ * Primitive kernels working on row major packed double arrays or arrays of rows. Used internally by the bulk operations of this package.
+ *
+ * @author Omnaest
+ */
+final class DenseKernels
+{
+    /**
+     * Number of left hand rows processed together, so that each loaded right hand value is reused from a register
+     */
+    static final int ROW_BLOCK_SIZE = 4;
+
+    private static final int  MULTIPLY_ROW_BLOCK_SIZE    = 32;
+    private static final int  MULTIPLY_SHARED_BLOCK_SIZE = 256;
+    private static final long PARALLEL_THRESHOLD         = 1L << 18;
+
+    private DenseKernels()
+    {
+        super();
+    }
+
+    /**
+     * Calculates the dot products between the rows [leftFrom, leftTo) of the left array and the rows [rightFrom, rightTo) of the right array.
+     * The result is written row major into the given result array with a row length of (rightTo - rightFrom).
+     *
+     * @param left
+     * @param leftFrom
+     * @param leftTo
+     * @param right
+     * @param rightFrom
+     * @param rightTo
+     * @param dimension
+     *            row length of both arrays
+     * @param result
+     */
+    static void dotProducts(double[] left, int leftFrom, int leftTo, double[] right, int rightFrom, int rightTo, int dimension, double[] result)
+    {
+        int resultRowLength = rightTo - rightFrom;
+        int ii = leftFrom;
+        for (; ii + ROW_BLOCK_SIZE <= leftTo; ii += ROW_BLOCK_SIZE)
+        {
+            int offset0 = ii * dimension;
+            int offset1 = offset0 + dimension;
+            int offset2 = offset1 + dimension;
+            int offset3 = offset2 + dimension;
+            int resultOffset = (ii - leftFrom) * resultRowLength;
+            for (int jj = rightFrom; jj < rightTo; jj++)
+            {
+                int rightOffset = jj * dimension;
+                double sum0 = 0.0;
+                double sum1 = 0.0;
+                double sum2 = 0.0;
+                double sum3 = 0.0;
+                for (int dd = 0; dd < dimension; dd++)
+                {
+                    double value = right[rightOffset + dd];
+                    sum0 += left[offset0 + dd] * value;
+                    sum1 += left[offset1 + dd] * value;
+                    sum2 += left[offset2 + dd] * value;
+                    sum3 += left[offset3 + dd] * value;
+                }
+                int column = resultOffset + jj - rightFrom;
+                result[column] = sum0;
+                result[column + resultRowLength] = sum1;
+                result[column + 2 * resultRowLength] = sum2;
+                result[column + 3 * resultRowLength] = sum3;
+            }
+        }
+        for (; ii < leftTo; ii++)
+        {
+            int offset = ii * dimension;
+            int resultOffset = (ii - leftFrom) * resultRowLength;
+            for (int jj = rightFrom; jj < rightTo; jj++)
+            {
+                result[resultOffset + jj - rightFrom] = dot(left, offset, right, jj * dimension, dimension);
+            }
+        }
+    }
+
+    /**
+     * Returns the product of the given matrices given as arrays of rows. Blocks of rows of the left matrix are processed in parallel, each
+     * block accumulates the products in i-k-j order over blocks of the shared dimension, so the innermost loop runs over contiguous rows.
+     *
+     * @param left
+     * @param right
+     * @return
+     */
+    static double[][] multiply(double[][] left, double[][] right)
+    {
+        int columns = right.length > 0 ? right[0].length : 0;
+        double[][] result = new double[left.length][columns];
+        multiply(left, right, result);
+        return result;
+    }
+
+    /**
+     * Similar to {@link #multiply(double[][], double[][])} but writes the product into the given result array, which must not be one of
+     * the factors
+     *
+     * @param left
+     * @param right
+     * @param result
+     */
+    static void multiply(double[][] left, double[][] right, double[][] result)
+    {
+        int rows = left.length;
+        int shared = right.length;
+        int columns = shared > 0 ? right[0].length : 0;
+        if (rows > 0 && left[0].length != shared)
+        {
+            throw new IllegalArgumentException("x dimension of A must be equal to y dimension of B");
+        }
+
+        long start = VectorMetrics.start();
+        for (double[] resultRow : result)
+        {
+            Arrays.fill(resultRow, 0.0);
+        }
+        int numberOfRowBlocks = (rows + MULTIPLY_ROW_BLOCK_SIZE - 1) / MULTIPLY_ROW_BLOCK_SIZE;
+        IntStream stream = IntStream.range(0, numberOfRowBlocks);
+        if ((long) rows * shared * columns >= PARALLEL_THRESHOLD)
+        {
+            stream = stream.parallel();
+        }
+        stream.forEach(block ->
+        {
+            int rowFrom = block * MULTIPLY_ROW_BLOCK_SIZE;
+            int rowTo = Math.min(rows, rowFrom + MULTIPLY_ROW_BLOCK_SIZE);
+            for (int sharedFrom = 0; sharedFrom < shared; sharedFrom += MULTIPLY_SHARED_BLOCK_SIZE)
+            {
+                int sharedTo = Math.min(shared, sharedFrom + MULTIPLY_SHARED_BLOCK_SIZE);
+                for (int ii = rowFrom; ii < rowTo; ii++)
+                {
+                    double[] leftRow = left[ii];
+                    double[] resultRow = result[ii];
+                    for (int kk = sharedFrom; kk < sharedTo; kk++)
+                    {
+                        double value = leftRow[kk];
+                        double[] rightRow = right[kk];
+                        for (int jj = 0; jj < columns; jj++)
+                        {
+                            resultRow[jj] += value * rightRow[jj];
+                        }
+                    }
+                }
+            }
+        });
+        VectorMetrics.record(Operation.DENSE_KERNEL_MULTIPLY, start, 2L * rows * shared * columns, (long) rows * shared + (long) shared * columns);
+    }
+
+    static double[][] transpose(double[][] matrix)
+    {
+        int rows = matrix.length;
+        int columns = rows > 0 ? matrix[0].length : 0;
+        double[][] result = new double[columns][rows];
+        for (int ii = 0; ii < rows; ii++)
+        {
+            for (int jj = 0; jj < columns; jj++)
+            {
+                result[jj][ii] = matrix[ii][jj];
+            }
+        }
+        return result;
+    }
+
+    static double dot(double[] left, int leftOffset, double[] right, int rightOffset, int length)
+    {
+        double sum = 0.0;
+        for (int ii = 0; ii < length; ii++)
+        {
+            sum += left[leftOffset + ii] * right[rightOffset + ii];
+        }
+        return sum;
+    }
+
+    /**
+     * Returns the determinant of the given square matrix by Gaussian elimination with partial pivoting. The given array is overwritten.
+     *
+     * @param matrix
+     * @return
+     */
+    static double determinant(double[][] matrix)
+    {
+        int dimension = matrix.length;
+        double retval = 1.0;
+        for (int kk = 0; kk < dimension; kk++)
+        {
+            int pivot = pivot(matrix, kk);
+            if (matrix[pivot][kk] == 0.0)
+            {
+                return 0.0;
+            }
+            if (pivot != kk)
+            {
+                swap(matrix, pivot, kk);
+                retval = -retval;
+            }
+            retval *= matrix[kk][kk];
+            eliminate(matrix, kk, null);
+        }
+        return retval;
+    }
+
+    /**
+     * Returns the x with A * x = b by Gaussian elimination with partial pivoting. The given arrays are overwritten.
+     *
+     * @param matrix
+     * @param b
+     * @return
+     * @throws IllegalStateException
+     *             if the matrix is singular
+     */
+    static double[] solve(double[][] matrix, double[] b)
+    {
+        int dimension = matrix.length;
+        for (int kk = 0; kk < dimension; kk++)
+        {
+            int pivot = pivot(matrix, kk);
+            if (matrix[pivot][kk] == 0.0)
+            {
+                throw new IllegalStateException("Matrix is singular");
+            }
+            swap(matrix, pivot, kk);
+            double value = b[pivot];
+            b[pivot] = b[kk];
+            b[kk] = value;
+            eliminate(matrix, kk, b);
+        }
+        double[] x = new double[dimension];
+        for (int ii = dimension - 1; ii >= 0; ii--)
+        {
+            x[ii] = (b[ii] - dot(matrix[ii], ii + 1, x, ii + 1, dimension - ii - 1)) / matrix[ii][ii];
+        }
+        return x;
+    }
+
+    /**
+     * Overwrites the given right hand sides B, which is a matrix of rows, with the X of A * X = B by Gaussian elimination with partial
+     * pivoting. The given matrix A is overwritten as well.
+     *
+     * @param matrix
+     * @param rightHandSides
+     * @throws IllegalStateException
+     *             if the matrix is singular
+     */
+    static void solveInPlace(double[][] matrix, double[][] rightHandSides)
+    {
+        int dimension = matrix.length;
+        for (int kk = 0; kk < dimension; kk++)
+        {
+            int pivot = pivot(matrix, kk);
+            if (matrix[pivot][kk] == 0.0)
+            {
+                throw new IllegalStateException("Matrix is singular");
+            }
+            swap(matrix, pivot, kk);
+            swap(rightHandSides, pivot, kk);
+
+            double[] pivotRow = matrix[kk];
+            double[] pivotRightHandSide = rightHandSides[kk];
+            for (int ii = kk + 1; ii < dimension; ii++)
+            {
+                double[] row = matrix[ii];
+                double factor = row[kk] / pivotRow[kk];
+                if (factor != 0.0)
+                {
+                    for (int jj = kk + 1; jj < dimension; jj++)
+                    {
+                        row[jj] -= factor * pivotRow[jj];
+                    }
+                    double[] rightHandSide = rightHandSides[ii];
+                    for (int jj = 0; jj < rightHandSide.length; jj++)
+                    {
+                        rightHandSide[jj] -= factor * pivotRightHandSide[jj];
+                    }
+                }
+                row[kk] = 0.0;
+            }
+        }
+        for (int ii = dimension - 1; ii >= 0; ii--)
+        {
+            double[] row = matrix[ii];
+            double[] rightHandSide = rightHandSides[ii];
+            for (int kk = ii + 1; kk < dimension; kk++)
+            {
+                double factor = row[kk];
+                if (factor != 0.0)
+                {
+                    double[] solvedRow = rightHandSides[kk];
+                    for (int jj = 0; jj < rightHandSide.length; jj++)
+                    {
+                        rightHandSide[jj] -= factor * solvedRow[jj];
+                    }
+                }
+            }
+            double scale = 1.0 / row[ii];
+            for (int jj = 0; jj < rightHandSide.length; jj++)
+            {
+                rightHandSide[jj] *= scale;
+            }
+        }
+    }
+
+    /**
+     * Returns the inverse of the given square matrix by Gauss-Jordan elimination with partial pivoting. The given array is overwritten.
+     *
+     * @param matrix
+     * @return
+     * @throws IllegalStateException
+     *             if the matrix is singular
+     */
+    static double[][] inverse(double[][] matrix)
+    {
+        return inverse(matrix, null);
+    }
+
+    /**
+     * Similar to {@link #inverse(double[][])} but also writes the determinant, which is the signed product of the pivots, into the first
+     * element of the given array, if it is not null
+     *
+     * @param matrix
+     * @param determinant
+     * @return
+     * @throws IllegalStateException
+     *             if the matrix is singular
+     */
+    static double[][] inverse(double[][] matrix, double[] determinant)
+    {
+        int dimension = matrix.length;
+        double product = 1.0;
+        double[][] retval = new double[dimension][dimension];
+        for (int ii = 0; ii < dimension; ii++)
+        {
+            retval[ii][ii] = 1.0;
+        }
+        for (int kk = 0; kk < dimension; kk++)
+        {
+            int pivot = pivot(matrix, kk);
+            if (matrix[pivot][kk] == 0.0)
+            {
+                throw new IllegalStateException("Matrix is singular");
+            }
+            if (pivot != kk)
+            {
+                swap(matrix, pivot, kk);
+                swap(retval, pivot, kk);
+                product = -product;
+            }
+
+            double[] pivotRow = matrix[kk];
+            product *= pivotRow[kk];
+            double[] inversePivotRow = retval[kk];
+            double scale = 1.0 / pivotRow[kk];
+            for (int jj = 0; jj < dimension; jj++)
+            {
+                pivotRow[jj] *= scale;
+                inversePivotRow[jj] *= scale;
+            }
+            for (int ii = 0; ii < dimension; ii++)
+            {
+                double factor = matrix[ii][kk];
+                if (ii != kk && factor != 0.0)
+                {
+                    double[] row = matrix[ii];
+                    double[] inverseRow = retval[ii];
+                    for (int jj = 0; jj < dimension; jj++)
+                    {
+                        row[jj] -= factor * pivotRow[jj];
+                        inverseRow[jj] -= factor * inversePivotRow[jj];
+                    }
+                }
+            }
+        }
+        if (determinant != null)
+        {
+            determinant[0] = product;
+        }
+        return retval;
+    }
+
+    private static int pivot(double[][] matrix, int column)
+    {
+        int retval = column;
+        for (int ii = column + 1; ii < matrix.length; ii++)
+        {
+            if (Math.abs(matrix[ii][column]) > Math.abs(matrix[retval][column]))
+            {
+                retval = ii;
+            }
+        }
+        return retval;
+    }
+
+    private static void swap(double[][] matrix, int row1, int row2)
+    {
+        double[] row = matrix[row1];
+        matrix[row1] = matrix[row2];
+        matrix[row2] = row;
+    }
+
+    private static void eliminate(double[][] matrix, int kk, double[] b)
+    {
+        double[] pivotRow = matrix[kk];
+        for (int ii = kk + 1; ii < matrix.length; ii++)
+        {
+            double[] row = matrix[ii];
+            double factor = row[kk] / pivotRow[kk];
+            if (factor != 0.0)
+            {
+                for (int jj = kk + 1; jj < row.length; jj++)
+                {
+                    row[jj] -= factor * pivotRow[jj];
+                }
+                if (b != null)
+                {
+                    b[ii] -= factor * b[kk];
+                }
+            }
+            row[kk] = 0.0;
+        }
+    }
+
+    /**
+     * Packs the given {@link Vector}s row major into a single array with the given row length. Missing coordinates are filled with 0.
+     *
+     * @param vectors
+     * @param dimension
+     * @return
+     */
+    static double[] pack(Vector[] vectors, int dimension)
+    {
+        double[] packed = new double[vectors.length * dimension];
+        for (int ii = 0; ii < vectors.length; ii++)
+        {
+            double[] coordinates = vectors[ii].getCoordinates();
+            System.arraycopy(coordinates, 0, packed, ii * dimension, Math.min(dimension, coordinates.length));
+        }
+        return packed;
+    }
+
+    static int maxDimension(Vector[] vectors)
+    {
+        int dimension = 0;
+        for (Vector vector : vectors)
+        {
+            dimension = Math.max(dimension, vector.getDimension());
+        }
+        return dimension;
+    }
+}
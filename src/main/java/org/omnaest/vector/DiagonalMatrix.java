@@ -0,0 +1,214 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+import java.util.Arrays;
+
+/**
+ * Square {@link Matrix} which only stores its diagonal
+ *
+ * @see Matrix#identity(int)
+ * @author Omnaest
+ */
+public class DiagonalMatrix extends StructuredMatrix
+{
+    private double[] diagonal;
+
+    protected DiagonalMatrix(double... diagonal)
+    {
+        super(diagonal.length);
+        this.diagonal = diagonal;
+    }
+
+    /**
+     * Returns a {@link DiagonalMatrix} of a copy of the given diagonal values
+     *
+     * @param diagonal
+     * @return
+     */
+    public static DiagonalMatrix of(double... diagonal)
+    {
+        return new DiagonalMatrix(diagonal.clone());
+    }
+
+    /**
+     * Returns the identity {@link Matrix} in the given dimension
+     *
+     * @param dimension
+     * @return
+     */
+    public static DiagonalMatrix identity(int dimension)
+    {
+        double[] diagonal = new double[dimension];
+        Arrays.fill(diagonal, 1.0);
+        return new DiagonalMatrix(diagonal);
+    }
+
+    /**
+     * Returns a copy of the diagonal
+     *
+     * @return
+     */
+    public double[] getDiagonal()
+    {
+        return this.diagonal.clone();
+    }
+
+    @Override
+    protected double getRaw(int x, int y)
+    {
+        return x == y ? this.diagonal[x] : 0.0;
+    }
+
+    @Override
+    public void apply(double[] input, double[] output)
+    {
+        for (int ii = 0; ii < this.dimension; ii++)
+        {
+            output[ii] = this.diagonal[ii] * input[ii];
+        }
+    }
+
+    @Override
+    public void applyTransposed(double[] input, double[] output)
+    {
+        this.apply(input, output);
+    }
+
+    @Override
+    public DiagonalMatrix multiply(double scalar)
+    {
+        double[] retval = new double[this.dimension];
+        for (int ii = 0; ii < this.dimension; ii++)
+        {
+            retval[ii] = this.diagonal[ii] * scalar;
+        }
+        return new DiagonalMatrix(retval);
+    }
+
+    /**
+     * Scales the rows of the given {@link Matrix}, the product of two {@link DiagonalMatrix}s is again a {@link DiagonalMatrix}
+     */
+    @Override
+    public Matrix multiply(Matrix matrixB)
+    {
+        if (matrixB instanceof DiagonalMatrix)
+        {
+            double[] other = ((DiagonalMatrix) matrixB).diagonal;
+            if (other.length != this.dimension)
+            {
+                throw new IllegalArgumentException("x dimension of A must be equal to y dimension of B");
+            }
+            double[] retval = new double[this.dimension];
+            for (int ii = 0; ii < this.dimension; ii++)
+            {
+                retval[ii] = this.diagonal[ii] * other[ii];
+            }
+            return new DiagonalMatrix(retval);
+        }
+        if (matrixB instanceof StructuredMatrix)
+        {
+            return super.multiply(matrixB);
+        }
+        if (matrixB.getRowCount() != this.dimension)
+        {
+            throw new IllegalArgumentException("x dimension of A must be equal to y dimension of B");
+        }
+        double[][] data = matrixB.toArray();
+        for (int ii = 0; ii < this.dimension; ii++)
+        {
+            double factor = this.diagonal[ii];
+            double[] row = data[ii];
+            for (int jj = 0; jj < row.length; jj++)
+            {
+                row[jj] *= factor;
+            }
+        }
+        return new Matrix(data);
+    }
+
+    /**
+     * Scales the columns of the given {@link Matrix}
+     */
+    @Override
+    protected Matrix multiplyFromLeft(Matrix left)
+    {
+        if (left.getColumnCount() != this.dimension)
+        {
+            throw new IllegalArgumentException("x dimension of A must be equal to y dimension of B");
+        }
+        double[][] data = left.toArray();
+        for (double[] row : data)
+        {
+            for (int jj = 0; jj < this.dimension; jj++)
+            {
+                row[jj] *= this.diagonal[jj];
+            }
+        }
+        return new Matrix(data);
+    }
+
+    @Override
+    public Vector solve(Vector b)
+    {
+        double[] x = new double[this.dimension];
+        for (int ii = 0; ii < this.dimension; ii++)
+        {
+            if (this.diagonal[ii] == 0.0)
+            {
+                throw new IllegalStateException("Matrix is singular");
+            }
+            x[ii] = b.getCoordinate(ii) / this.diagonal[ii];
+        }
+        return new Vector(x);
+    }
+
+    @Override
+    public double determinant()
+    {
+        double retval = 1.0;
+        for (double value : this.diagonal)
+        {
+            retval *= value;
+        }
+        return retval;
+    }
+
+    @Override
+    public DiagonalMatrix inverse()
+    {
+        double[] retval = new double[this.dimension];
+        for (int ii = 0; ii < this.dimension; ii++)
+        {
+            if (this.diagonal[ii] == 0.0)
+            {
+                throw new IllegalStateException("Matrix is singular");
+            }
+            retval[ii] = 1.0 / this.diagonal[ii];
+        }
+        return new DiagonalMatrix(retval);
+    }
+
+    @Override
+    protected DiagonalMatrix transposed()
+    {
+        return this;
+    }
+
+}
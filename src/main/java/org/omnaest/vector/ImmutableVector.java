@@ -0,0 +1,154 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+/**
+ * Immutable {@link Vector}, which keeps a defensive copy of its coordinates and lazily caches its length, squared length, hash code and
+ * normalized form.<br>
+ * <br>
+ * The caches are filled without locking: concurrent threads may compute a value more than once, but always see either no cached value or
+ * a fully initialized one. Hash code and lengths use the racy single check idiom, the lengths via a holder with final fields as doubles
+ * are not written atomically. The normalized form uses a volatile field.
+ *
+ * @see Vector#asImmutableVector()
+ * @author Omnaest
+ */
+public final class ImmutableVector extends Vector
+{
+    private int                      hash;
+    private Length                   length;
+    private volatile ImmutableVector normVector;
+
+    private static final class Length
+    {
+        private final double squared;
+        private final double absolute;
+
+        private Length(double squared)
+        {
+            super();
+            this.squared = squared;
+            this.absolute = Math.sqrt(squared);
+        }
+    }
+
+    private ImmutableVector(double[] coordinates)
+    {
+        super(coordinates);
+    }
+
+    /**
+     * Returns a new {@link ImmutableVector} with a copy of the given coordinates
+     *
+     * @param coordinates
+     * @return
+     */
+    public static ImmutableVector of(double... coordinates)
+    {
+        return new ImmutableVector(coordinates.clone());
+    }
+
+    /**
+     * Returns the given {@link Vector} as {@link ImmutableVector}, which is a copy, if the given {@link Vector} is not already immutable
+     *
+     * @param vector
+     * @return
+     */
+    public static ImmutableVector of(Vector vector)
+    {
+        if (vector instanceof ImmutableVector)
+        {
+            return (ImmutableVector) vector;
+        }
+        return new ImmutableVector(vector.coordinates.clone());
+    }
+
+    /**
+     * Returns a copy of the coordinates
+     */
+    @Override
+    public double[] getCoordinates()
+    {
+        return this.coordinates.clone();
+    }
+
+    @Override
+    public ImmutableVector asImmutableVector()
+    {
+        return this;
+    }
+
+    private Length length()
+    {
+        Length retval = this.length;
+        if (retval == null)
+        {
+            retval = new Length(super.absoluteSquared());
+            this.length = retval;
+        }
+        return retval;
+    }
+
+    @Override
+    public double absolute()
+    {
+        return this.length().absolute;
+    }
+
+    @Override
+    public double absoluteSquared()
+    {
+        return this.length().squared;
+    }
+
+    @Override
+    public ImmutableVector normVector()
+    {
+        ImmutableVector retval = this.normVector;
+        if (retval == null)
+        {
+            retval = ImmutableVector.of(super.normVector());
+            this.normVector = retval;
+        }
+        return retval;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int retval = this.hash;
+        if (retval == 0)
+        {
+            retval = super.hashCode();
+            this.hash = retval;
+        }
+        return retval;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (obj instanceof ImmutableVector && ((ImmutableVector) obj).hashCode() != this.hashCode())
+        {
+            return false;
+        }
+        return super.equals(obj);
+    }
+
+}
@@ -0,0 +1,224 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+import java.util.Arrays;
+
+/**
+ * ILU(0) factorization stored in compressed sparse rows. The unit lower triangular L and the upper triangular U share the same storage.
+ *
+ * @see Preconditioner#incompleteLU(Matrix)
+ * @author Omnaest
+ */
+final class IncompleteLU implements Preconditioner
+{
+    private int[]    rowStart;
+    private int[]    columnIndices;
+    private double[] values;
+    private int[]    diagonalIndices;
+
+    private IncompleteLU(int[] rowStart, int[] columnIndices, double[] values, int[] diagonalIndices)
+    {
+        super();
+        this.rowStart = rowStart;
+        this.columnIndices = columnIndices;
+        this.values = values;
+        this.diagonalIndices = diagonalIndices;
+    }
+
+    static IncompleteLU of(Matrix matrix)
+    {
+        int dimension = matrix.getRowCount();
+        if (dimension != matrix.getColumnCount())
+        {
+            throw new IllegalStateException("Matrix must be square");
+        }
+
+        double[][] data = matrix.toArray();
+        int[] rowStart = new int[dimension + 1];
+        for (int ii = 0; ii < dimension; ii++)
+        {
+            int nonZeros = 0;
+            for (int jj = 0; jj < dimension; jj++)
+            {
+                if (data[ii][jj] != 0.0 || ii == jj)
+                {
+                    nonZeros++;
+                }
+            }
+            rowStart[ii + 1] = rowStart[ii] + nonZeros;
+        }
+
+        int[] columnIndices = new int[rowStart[dimension]];
+        double[] values = new double[rowStart[dimension]];
+        int[] diagonalIndices = new int[dimension];
+        for (int ii = 0, index = 0; ii < dimension; ii++)
+        {
+            for (int jj = 0; jj < dimension; jj++)
+            {
+                if (data[ii][jj] != 0.0 || ii == jj)
+                {
+                    if (ii == jj)
+                    {
+                        diagonalIndices[ii] = index;
+                    }
+                    columnIndices[index] = jj;
+                    values[index++] = data[ii][jj];
+                }
+            }
+        }
+
+        return factorize(rowStart, columnIndices, values, diagonalIndices);
+    }
+
+    /**
+     * Returns the ILU(0) factorization of the square matrix given in compressed sparse rows. The column indices of each row have to be
+     * strictly ascending, a missing diagonal entry is treated as explicit zero. The given arrays are not modified.
+     */
+    static IncompleteLU of(int[] rowPointers, int[] columnIndices, double[] values)
+    {
+        int dimension = rowPointers.length - 1;
+        if (dimension < 0 || rowPointers[0] != 0 || rowPointers[dimension] > Math.min(columnIndices.length, values.length))
+        {
+            throw new IllegalArgumentException("Row pointers do not match the column indices and values");
+        }
+
+        int missingDiagonals = 0;
+        for (int ii = 0; ii < dimension; ii++)
+        {
+            if (rowPointers[ii + 1] < rowPointers[ii])
+            {
+                throw new IllegalArgumentException("Row pointers must not decrease");
+            }
+            boolean hasDiagonal = false;
+            for (int index = rowPointers[ii]; index < rowPointers[ii + 1]; index++)
+            {
+                int column = columnIndices[index];
+                if (column < 0 || column >= dimension || (index > rowPointers[ii] && column <= columnIndices[index - 1]))
+                {
+                    throw new IllegalArgumentException("Column indices must be strictly ascending within [0," + dimension + ") per row");
+                }
+                hasDiagonal |= column == ii;
+            }
+            if (!hasDiagonal)
+            {
+                missingDiagonals++;
+            }
+        }
+
+        int[] rowStart = new int[dimension + 1];
+        int[] factorColumnIndices = new int[rowPointers[dimension] + missingDiagonals];
+        double[] factorValues = new double[factorColumnIndices.length];
+        int[] diagonalIndices = new int[dimension];
+        for (int ii = 0, index = 0; ii < dimension; ii++)
+        {
+            rowStart[ii] = index;
+            boolean hasDiagonal = false;
+            for (int source = rowPointers[ii]; source < rowPointers[ii + 1]; source++)
+            {
+                int column = columnIndices[source];
+                if (!hasDiagonal && column >= ii)
+                {
+                    diagonalIndices[ii] = index;
+                    hasDiagonal = true;
+                    if (column > ii)
+                    {
+                        factorColumnIndices[index++] = ii;
+                    }
+                }
+                factorColumnIndices[index] = column;
+                factorValues[index++] = values[source];
+            }
+            if (!hasDiagonal)
+            {
+                diagonalIndices[ii] = index;
+                factorColumnIndices[index++] = ii;
+            }
+            rowStart[ii + 1] = index;
+        }
+        return factorize(rowStart, factorColumnIndices, factorValues, diagonalIndices);
+    }
+
+    private static IncompleteLU factorize(int[] rowStart, int[] columnIndices, double[] values, int[] diagonalIndices)
+    {
+        int dimension = diagonalIndices.length;
+        int[] position = new int[dimension];
+        Arrays.fill(position, -1);
+        for (int ii = 0; ii < dimension; ii++)
+        {
+            for (int index = rowStart[ii]; index < rowStart[ii + 1]; index++)
+            {
+                position[columnIndices[index]] = index;
+            }
+            for (int index = rowStart[ii]; index < diagonalIndices[ii]; index++)
+            {
+                int kk = columnIndices[index];
+                double pivot = values[diagonalIndices[kk]];
+                if (pivot == 0.0)
+                {
+                    throw new IllegalStateException("Zero pivot in incomplete LU factorization");
+                }
+                double factor = values[index] / pivot;
+                values[index] = factor;
+                for (int upperIndex = diagonalIndices[kk] + 1; upperIndex < rowStart[kk + 1]; upperIndex++)
+                {
+                    int target = position[columnIndices[upperIndex]];
+                    if (target >= 0)
+                    {
+                        values[target] -= factor * values[upperIndex];
+                    }
+                }
+            }
+            if (values[diagonalIndices[ii]] == 0.0)
+            {
+                throw new IllegalStateException("Zero pivot in incomplete LU factorization");
+            }
+            for (int index = rowStart[ii]; index < rowStart[ii + 1]; index++)
+            {
+                position[columnIndices[index]] = -1;
+            }
+        }
+        return new IncompleteLU(rowStart, columnIndices, values, diagonalIndices);
+    }
+
+    @Override
+    public void apply(double[] input, double[] output)
+    {
+        int dimension = this.diagonalIndices.length;
+        for (int ii = 0; ii < dimension; ii++)
+        {
+            double sum = input[ii];
+            for (int index = this.rowStart[ii]; index < this.diagonalIndices[ii]; index++)
+            {
+                sum -= this.values[index] * output[this.columnIndices[index]];
+            }
+            output[ii] = sum;
+        }
+        for (int ii = dimension - 1; ii >= 0; ii--)
+        {
+            double sum = output[ii];
+            for (int index = this.diagonalIndices[ii] + 1; index < this.rowStart[ii + 1]; index++)
+            {
+                sum -= this.values[index] * output[this.columnIndices[index]];
+            }
+            output[ii] = sum / this.values[this.diagonalIndices[ii]];
+        }
+    }
+
+}
@@ -0,0 +1,349 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+/**
+ * Maintains the inverse and the determinant of a square {@link Matrix} A under low rank updates A + u * v<sup>T</sup> in O(n<sup>2</sup>)
+ * per rank instead of O(n<sup>3</sup>) for a new inversion.<br>
+ * <br>
+ * Rank one updates use the Sherman-Morrison formula and the matrix determinant lemma, rank k updates A + U * V<sup>T</sup> the Woodbury
+ * identity and the generalized determinant lemma. Since the rounding errors of the updates accumulate, the inverse and determinant are
+ * computed again from the updated {@link Matrix} after a configurable number of updates, or on {@link #refresh()}.<br>
+ * <br>
+ * Example:<br>
+ *
+ * <pre>
+ * IncrementalInverse inverse = IncrementalInverse.of(Matrix.identity(n).multiply(lambda));
+ * for (Vector x : samples)
+ * {
+ *     inverse.update(x, x);
+ * }
+ * Matrix covarianceInverse = inverse.getInverse();
+ * </pre>
+ *
+ * @see Matrix#incrementalInverse()
+ * @see <a href="https://en.wikipedia.org/wiki/Sherman%E2%80%93Morrison_formula">wikipedia</a>
+ * @author Omnaest
+ */
+public class IncrementalInverse
+{
+    /**
+     * Default number of updates after which the inverse and determinant are computed again from scratch
+     */
+    public static final int DEFAULT_REFRESH_INTERVAL = 100;
+
+    private int        dimension;
+    private int        refreshInterval;
+    private double[][] matrix;
+    private double[][] inverse;
+    private double     determinant;
+    private int        updatesSinceRefresh = 0;
+    private long       updateCount         = 0;
+
+    protected IncrementalInverse(double[][] matrix, int refreshInterval)
+    {
+        super();
+        this.dimension = matrix.length;
+        this.refreshInterval = refreshInterval;
+        this.matrix = matrix;
+        this.refresh();
+    }
+
+    /**
+     * Returns a new {@link IncrementalInverse} of the given {@link Matrix}, which is refreshed every
+     * {@value #DEFAULT_REFRESH_INTERVAL} updates
+     *
+     * @param matrix
+     * @return
+     * @throws IllegalStateException
+     *             if the {@link Matrix} is not square or singular
+     */
+    public static IncrementalInverse of(Matrix matrix)
+    {
+        return of(matrix, DEFAULT_REFRESH_INTERVAL);
+    }
+
+    /**
+     * Similar to {@link #of(Matrix)} with the given number of updates after which the inverse and determinant are computed again from
+     * scratch. An interval of 0 disables the periodic refresh.
+     *
+     * @param matrix
+     * @param refreshInterval
+     * @return
+     */
+    public static IncrementalInverse of(Matrix matrix, int refreshInterval)
+    {
+        if (matrix.getRowCount() != matrix.getColumnCount())
+        {
+            throw new IllegalStateException("Matrix must be square");
+        }
+        return new IncrementalInverse(matrix.toArray(), refreshInterval);
+    }
+
+    /**
+     * Computes the inverse and determinant again from the current {@link Matrix}, which discards the accumulated rounding errors of the
+     * updates
+     *
+     * @return this
+     * @throws IllegalStateException
+     *             if the {@link Matrix} is singular
+     */
+    public IncrementalInverse refresh()
+    {
+        double[] determinant = new double[1];
+        this.inverse = DenseKernels.inverse(copy(this.matrix), determinant);
+        this.determinant = determinant[0];
+        this.updatesSinceRefresh = 0;
+        return this;
+    }
+
+    private static double[][] copy(double[][] matrix)
+    {
+        double[][] retval = new double[matrix.length][];
+        for (int ii = 0; ii < matrix.length; ii++)
+        {
+            retval[ii] = matrix[ii].clone();
+        }
+        return retval;
+    }
+
+    /**
+     * Applies the rank one update A + u * v<sup>T</sup>
+     *
+     * @param u
+     * @param v
+     * @return this
+     * @throws IllegalStateException
+     *             if the updated {@link Matrix} is singular
+     */
+    public IncrementalInverse update(Vector u, Vector v)
+    {
+        int n = this.dimension;
+        double[] uValues = coordinates(u, n);
+        double[] vValues = coordinates(v, n);
+
+        double[] w = new double[n];
+        double[] z = new double[n];
+        for (int ii = 0; ii < n; ii++)
+        {
+            double[] inverseRow = this.inverse[ii];
+            w[ii] = DenseKernels.dot(inverseRow, 0, uValues, 0, n);
+            double vValue = vValues[ii];
+            if (vValue != 0.0)
+            {
+                for (int jj = 0; jj < n; jj++)
+                {
+                    z[jj] += vValue * inverseRow[jj];
+                }
+            }
+        }
+        double denominator = 1.0 + DenseKernels.dot(vValues, 0, w, 0, n);
+        if (denominator == 0.0)
+        {
+            throw new IllegalStateException("Matrix is singular");
+        }
+
+        for (int ii = 0; ii < n; ii++)
+        {
+            double[] inverseRow = this.inverse[ii];
+            double[] row = this.matrix[ii];
+            double factor = w[ii] / denominator;
+            double uValue = uValues[ii];
+            for (int jj = 0; jj < n; jj++)
+            {
+                inverseRow[jj] -= factor * z[jj];
+                row[jj] += uValue * vValues[jj];
+            }
+        }
+        this.determinant *= denominator;
+        return this.afterUpdate();
+    }
+
+    /**
+     * Applies the rank k update A + U * V<sup>T</sup>, where U and V are n x k {@link Matrix}es
+     *
+     * @param u
+     * @param v
+     * @return this
+     * @throws IllegalStateException
+     *             if the updated {@link Matrix} is singular
+     */
+    public IncrementalInverse update(Matrix u, Matrix v)
+    {
+        int n = this.dimension;
+        int k = u.getColumnCount();
+        if (u.getRowCount() != n || v.getRowCount() != n || v.getColumnCount() != k)
+        {
+            throw new IllegalArgumentException("Update matrices must be n x k with the same k");
+        }
+        double[][] uColumns = DenseKernels.transpose(u.toArray());
+        double[][] vColumns = DenseKernels.transpose(v.toArray());
+
+        double[][] w = new double[k][n];
+        double[][] z = new double[k][n];
+        for (int ii = 0; ii < n; ii++)
+        {
+            double[] inverseRow = this.inverse[ii];
+            for (int ll = 0; ll < k; ll++)
+            {
+                w[ll][ii] = DenseKernels.dot(inverseRow, 0, uColumns[ll], 0, n);
+                double vValue = vColumns[ll][ii];
+                if (vValue != 0.0)
+                {
+                    double[] zRow = z[ll];
+                    for (int jj = 0; jj < n; jj++)
+                    {
+                        zRow[jj] += vValue * inverseRow[jj];
+                    }
+                }
+            }
+        }
+
+        double[][] capacitance = new double[k][k];
+        for (int ll = 0; ll < k; ll++)
+        {
+            for (int mm = 0; mm < k; mm++)
+            {
+                capacitance[ll][mm] = (ll == mm ? 1.0 : 0.0) + DenseKernels.dot(vColumns[ll], 0, w[mm], 0, n);
+            }
+        }
+        double[] determinant = new double[1];
+        double[][] capacitanceInverse = DenseKernels.inverse(capacitance, determinant);
+        double capacitanceDeterminant = determinant[0];
+
+        double[] factors = new double[k];
+        for (int ii = 0; ii < n; ii++)
+        {
+            for (int mm = 0; mm < k; mm++)
+            {
+                double factor = 0.0;
+                for (int ll = 0; ll < k; ll++)
+                {
+                    factor += w[ll][ii] * capacitanceInverse[ll][mm];
+                }
+                factors[mm] = factor;
+            }
+            double[] inverseRow = this.inverse[ii];
+            double[] row = this.matrix[ii];
+            for (int ll = 0; ll < k; ll++)
+            {
+                double factor = factors[ll];
+                double[] zRow = z[ll];
+                double uValue = uColumns[ll][ii];
+                double[] vColumn = vColumns[ll];
+                for (int jj = 0; jj < n; jj++)
+                {
+                    inverseRow[jj] -= factor * zRow[jj];
+                    row[jj] += uValue * vColumn[jj];
+                }
+            }
+        }
+        this.determinant *= capacitanceDeterminant;
+        return this.afterUpdate();
+    }
+
+    private static double[] coordinates(Vector vector, int dimension)
+    {
+        if (vector.getDimension() > dimension)
+        {
+            throw new IllegalArgumentException("Vector must not have more dimensions than the matrix");
+        }
+        double[] retval = new double[dimension];
+        for (int ii = 0; ii < vector.getDimension(); ii++)
+        {
+            retval[ii] = vector.getCoordinate(ii);
+        }
+        return retval;
+    }
+
+    private IncrementalInverse afterUpdate()
+    {
+        this.updateCount++;
+        this.updatesSinceRefresh++;
+        if (this.refreshInterval > 0 && this.updatesSinceRefresh >= this.refreshInterval)
+        {
+            this.refresh();
+        }
+        return this;
+    }
+
+    /**
+     * Returns the x with A * x = b using the current inverse
+     *
+     * @param b
+     * @return
+     */
+    public Vector solve(Vector b)
+    {
+        double[] bValues = coordinates(b, this.dimension);
+        double[] x = new double[this.dimension];
+        for (int ii = 0; ii < this.dimension; ii++)
+        {
+            x[ii] = DenseKernels.dot(this.inverse[ii], 0, bValues, 0, this.dimension);
+        }
+        return new Vector(x);
+    }
+
+    /**
+     * Returns the current inverse of A
+     *
+     * @return
+     */
+    public Matrix getInverse()
+    {
+        return new Matrix(copy(this.inverse));
+    }
+
+    /**
+     * Returns the current determinant of A
+     *
+     * @return
+     */
+    public double getDeterminant()
+    {
+        return this.determinant;
+    }
+
+    /**
+     * Returns the current, updated {@link Matrix} A
+     *
+     * @return
+     */
+    public Matrix getMatrix()
+    {
+        return new Matrix(copy(this.matrix));
+    }
+
+    /**
+     * Returns the total number of updates
+     *
+     * @return
+     */
+    public long getUpdateCount()
+    {
+        return this.updateCount;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "IncrementalInverse [dimension=" + this.dimension + ", updateCount=" + this.updateCount + "]";
+    }
+
+}
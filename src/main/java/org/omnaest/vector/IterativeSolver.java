@@ -0,0 +1,600 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Krylov subspace solvers for large linear systems A * x = b, which only need the application of A as {@link LinearOperator}.<br>
+ * <br>
+ * Available are the conjugate gradient method for symmetric positive definite operators, BiCGSTAB and restarted GMRES for general square
+ * operators. All solvers stop as soon as the residual |b - A * x| is not larger than the tolerance times |b|.<br>
+ * <br>
+ * Example:<br>
+ *
+ * <pre>
+ * IterativeSolver.Result result = IterativeSolver.builder()
+ *                                                .withTolerance(1E-8)
+ *                                                .withPreconditioner(Preconditioner.jacobi(matrix))
+ *                                                .build()
+ *                                                .conjugateGradient(matrix, b);
+ * Vector x = result.getSolution();
+ * </pre>
+ *
+ * @see LinearOperator
+ * @see Preconditioner
+ * @see <a href="https://en.wikipedia.org/wiki/Krylov_subspace">wikipedia</a>
+ * @author Omnaest
+ */
+public class IterativeSolver
+{
+    private double             tolerance;
+    private int                maxIterations;
+    private int                restart;
+    private Preconditioner     preconditioner;
+    private Consumer<Progress> progressListener;
+
+    protected IterativeSolver(double tolerance, int maxIterations, int restart, Preconditioner preconditioner, Consumer<Progress> progressListener)
+    {
+        super();
+        this.tolerance = tolerance;
+        this.maxIterations = maxIterations;
+        this.restart = restart;
+        this.preconditioner = preconditioner;
+        this.progressListener = progressListener;
+    }
+
+    public static interface Builder
+    {
+        /**
+         * Relative tolerance of the residual norm compared to the norm of b. Default is 1E-10.
+         *
+         * @param tolerance
+         * @return
+         */
+        Builder withTolerance(double tolerance);
+
+        /**
+         * Default is 1000
+         *
+         * @param maxIterations
+         * @return
+         */
+        Builder withMaxIterations(int maxIterations);
+
+        /**
+         * Number of iterations after which GMRES is restarted. Default is 30.
+         *
+         * @param restart
+         * @return
+         */
+        Builder withRestart(int restart);
+
+        /**
+         * Default is {@link Preconditioner#identity()}
+         *
+         * @param preconditioner
+         * @return
+         */
+        Builder withPreconditioner(Preconditioner preconditioner);
+
+        /**
+         * The given listener is called after each iteration with the current residual norm
+         *
+         * @param progressListener
+         * @return
+         */
+        Builder withProgressListener(Consumer<Progress> progressListener);
+
+        IterativeSolver build();
+    }
+
+    public static Builder builder()
+    {
+        return new Builder()
+        {
+            private double             tolerance        = 0.0000000001;
+            private int                maxIterations    = 1000;
+            private int                restart          = 30;
+            private Preconditioner     preconditioner   = Preconditioner.identity();
+            private Consumer<Progress> progressListener = progress ->
+                                                        {
+                                                        };
+
+            @Override
+            public Builder withTolerance(double tolerance)
+            {
+                this.tolerance = tolerance;
+                return this;
+            }
+
+            @Override
+            public Builder withMaxIterations(int maxIterations)
+            {
+                this.maxIterations = maxIterations;
+                return this;
+            }
+
+            @Override
+            public Builder withRestart(int restart)
+            {
+                if (restart < 1)
+                {
+                    throw new IllegalArgumentException("Restart must be at least 1");
+                }
+                this.restart = restart;
+                return this;
+            }
+
+            @Override
+            public Builder withPreconditioner(Preconditioner preconditioner)
+            {
+                this.preconditioner = preconditioner;
+                return this;
+            }
+
+            @Override
+            public Builder withProgressListener(Consumer<Progress> progressListener)
+            {
+                this.progressListener = progressListener;
+                return this;
+            }
+
+            @Override
+            public IterativeSolver build()
+            {
+                return new IterativeSolver(this.tolerance, this.maxIterations, this.restart, this.preconditioner, this.progressListener);
+            }
+        };
+    }
+
+    /**
+     * Residual of a single iteration
+     *
+     * @author Omnaest
+     */
+    public static class Progress
+    {
+        private int    iteration;
+        private double residualNorm;
+
+        public Progress(int iteration, double residualNorm)
+        {
+            super();
+            this.iteration = iteration;
+            this.residualNorm = residualNorm;
+        }
+
+        /**
+         * Returns the iteration, starting with 1
+         *
+         * @return
+         */
+        public int getIteration()
+        {
+            return this.iteration;
+        }
+
+        /**
+         * Returns the norm of the residual b - A * x
+         *
+         * @return
+         */
+        public double getResidualNorm()
+        {
+            return this.residualNorm;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Progress [iteration=" + this.iteration + ", residualNorm=" + this.residualNorm + "]";
+        }
+
+    }
+
+    public static class Result
+    {
+        private double[] solution;
+        private double   residualNorm;
+        private int      iterations;
+        private boolean  converged;
+
+        protected Result(double[] solution, double residualNorm, int iterations, boolean converged)
+        {
+            super();
+            this.solution = solution;
+            this.residualNorm = residualNorm;
+            this.iterations = iterations;
+            this.converged = converged;
+        }
+
+        public Vector getSolution()
+        {
+            return new Vector(this.solution.clone());
+        }
+
+        public double getResidualNorm()
+        {
+            return this.residualNorm;
+        }
+
+        public int getIterations()
+        {
+            return this.iterations;
+        }
+
+        public boolean isConverged()
+        {
+            return this.converged;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Result [residualNorm=" + this.residualNorm + ", iterations=" + this.iterations + ", converged=" + this.converged + "]";
+        }
+
+    }
+
+    /**
+     * Solves A * x = b with the preconditioned conjugate gradient method. The {@link LinearOperator} and the {@link Preconditioner} must be
+     * symmetric positive definite.
+     *
+     * @see <a href="https://en.wikipedia.org/wiki/Conjugate_gradient_method">wikipedia</a>
+     * @param operator
+     * @param b
+     * @return
+     */
+    public Result conjugateGradient(LinearOperator operator, Vector b)
+    {
+        return this.conjugateGradient(operator, b, null);
+    }
+
+    /**
+     * Similar to {@link #conjugateGradient(LinearOperator, Vector)} but starts with the given initial guess
+     *
+     * @param operator
+     * @param b
+     * @param initialGuess
+     * @return
+     */
+    public Result conjugateGradient(LinearOperator operator, Vector b, Vector initialGuess)
+    {
+        int dimension = dimensionOf(operator);
+        double[] rhs = toArray(b, dimension);
+        double[] x = toArray(initialGuess, dimension);
+        double threshold = this.tolerance * norm(rhs);
+
+        double[] r = residual(operator, rhs, x);
+        double residualNorm = norm(r);
+        if (residualNorm <= threshold)
+        {
+            return new Result(x, residualNorm, 0, true);
+        }
+
+        double[] z = new double[dimension];
+        double[] operatorP = new double[dimension];
+        this.preconditioner.apply(r, z);
+        double[] p = z.clone();
+        double rz = dot(r, z);
+        for (int iteration = 1; iteration <= this.maxIterations; iteration++)
+        {
+            operator.apply(p, operatorP);
+            double alpha = rz / dot(p, operatorP);
+            axpy(alpha, p, x);
+            axpy(-alpha, operatorP, r);
+            residualNorm = norm(r);
+            this.progressListener.accept(new Progress(iteration, residualNorm));
+            if (residualNorm <= threshold)
+            {
+                return new Result(x, residualNorm, iteration, true);
+            }
+
+            this.preconditioner.apply(r, z);
+            double rzNext = dot(r, z);
+            double beta = rzNext / rz;
+            rz = rzNext;
+            for (int ii = 0; ii < dimension; ii++)
+            {
+                p[ii] = z[ii] + beta * p[ii];
+            }
+        }
+        return new Result(x, residualNorm, this.maxIterations, false);
+    }
+
+    /**
+     * Solves A * x = b with the right preconditioned stabilized biconjugate gradient method for general square {@link LinearOperator}s
+     *
+     * @see <a href="https://en.wikipedia.org/wiki/Biconjugate_gradient_stabilized_method">wikipedia</a>
+     * @param operator
+     * @param b
+     * @return
+     */
+    public Result biCGStab(LinearOperator operator, Vector b)
+    {
+        return this.biCGStab(operator, b, null);
+    }
+
+    /**
+     * Similar to {@link #biCGStab(LinearOperator, Vector)} but starts with the given initial guess
+     *
+     * @param operator
+     * @param b
+     * @param initialGuess
+     * @return
+     */
+    public Result biCGStab(LinearOperator operator, Vector b, Vector initialGuess)
+    {
+        int dimension = dimensionOf(operator);
+        double[] rhs = toArray(b, dimension);
+        double[] x = toArray(initialGuess, dimension);
+        double threshold = this.tolerance * norm(rhs);
+
+        double[] r = residual(operator, rhs, x);
+        double residualNorm = norm(r);
+        if (residualNorm <= threshold)
+        {
+            return new Result(x, residualNorm, 0, true);
+        }
+
+        double[] shadow = r.clone();
+        double[] p = new double[dimension];
+        double[] v = new double[dimension];
+        double[] preconditionedP = new double[dimension];
+        double[] preconditionedS = new double[dimension];
+        double[] t = new double[dimension];
+        double rho = 1.0;
+        double alpha = 1.0;
+        double omega = 1.0;
+        for (int iteration = 1; iteration <= this.maxIterations; iteration++)
+        {
+            double rhoNext = dot(shadow, r);
+            if (rhoNext == 0.0)
+            {
+                return new Result(x, residualNorm, iteration - 1, false);
+            }
+            double beta = (rhoNext / rho) * (alpha / omega);
+            rho = rhoNext;
+            for (int ii = 0; ii < dimension; ii++)
+            {
+                p[ii] = r[ii] + beta * (p[ii] - omega * v[ii]);
+            }
+
+            this.preconditioner.apply(p, preconditionedP);
+            operator.apply(preconditionedP, v);
+            alpha = rho / dot(shadow, v);
+            axpy(alpha, preconditionedP, x);
+            axpy(-alpha, v, r);
+            residualNorm = norm(r);
+            if (residualNorm <= threshold)
+            {
+                this.progressListener.accept(new Progress(iteration, residualNorm));
+                return new Result(x, residualNorm, iteration, true);
+            }
+
+            this.preconditioner.apply(r, preconditionedS);
+            operator.apply(preconditionedS, t);
+            double tt = dot(t, t);
+            omega = tt == 0.0 ? 0.0 : dot(t, r) / tt;
+            axpy(omega, preconditionedS, x);
+            axpy(-omega, t, r);
+            residualNorm = norm(r);
+            this.progressListener.accept(new Progress(iteration, residualNorm));
+            if (residualNorm <= threshold)
+            {
+                return new Result(x, residualNorm, iteration, true);
+            }
+            if (omega == 0.0)
+            {
+                return new Result(x, residualNorm, iteration, false);
+            }
+        }
+        return new Result(x, residualNorm, this.maxIterations, false);
+    }
+
+    /**
+     * Solves A * x = b with the right preconditioned restarted GMRES method for general square {@link LinearOperator}s
+     *
+     * @see Builder#withRestart(int)
+     * @see <a href="https://en.wikipedia.org/wiki/Generalized_minimal_residual_method">wikipedia</a>
+     * @param operator
+     * @param b
+     * @return
+     */
+    public Result gmres(LinearOperator operator, Vector b)
+    {
+        return this.gmres(operator, b, null);
+    }
+
+    /**
+     * Similar to {@link #gmres(LinearOperator, Vector)} but starts with the given initial guess
+     *
+     * @param operator
+     * @param b
+     * @param initialGuess
+     * @return
+     */
+    public Result gmres(LinearOperator operator, Vector b, Vector initialGuess)
+    {
+        int dimension = dimensionOf(operator);
+        double[] rhs = toArray(b, dimension);
+        double[] x = toArray(initialGuess, dimension);
+        double threshold = this.tolerance * norm(rhs);
+
+        int restart = Math.min(this.restart, dimension);
+        double[][] basis = new double[restart + 1][];
+        double[][] hessenberg = new double[restart + 1][restart];
+        double[] cos = new double[restart];
+        double[] sin = new double[restart];
+        double[] g = new double[restart + 1];
+        double[] preconditioned = new double[dimension];
+        double[] correction = new double[dimension];
+
+        int iteration = 0;
+        double residualNorm = Double.NaN;
+        while (true)
+        {
+            double[] r = residual(operator, rhs, x);
+            residualNorm = norm(r);
+            if (residualNorm <= threshold)
+            {
+                return new Result(x, residualNorm, iteration, true);
+            }
+            if (iteration >= this.maxIterations)
+            {
+                return new Result(x, residualNorm, iteration, false);
+            }
+
+            scale(1.0 / residualNorm, r);
+            basis[0] = r;
+            Arrays.fill(g, 0.0);
+            g[0] = residualNorm;
+
+            int size = 0;
+            while (size < restart && iteration < this.maxIterations)
+            {
+                iteration++;
+                double[] w = basis[size + 1] != null ? basis[size + 1] : new double[dimension];
+                this.preconditioner.apply(basis[size], preconditioned);
+                operator.apply(preconditioned, w);
+                for (int ii = 0; ii <= size; ii++)
+                {
+                    double h = dot(w, basis[ii]);
+                    hessenberg[ii][size] = h;
+                    axpy(-h, basis[ii], w);
+                }
+                double subDiagonal = norm(w);
+                hessenberg[size + 1][size] = subDiagonal;
+                if (subDiagonal != 0.0)
+                {
+                    scale(1.0 / subDiagonal, w);
+                }
+                basis[size + 1] = w;
+
+                for (int ii = 0; ii < size; ii++)
+                {
+                    double upper = hessenberg[ii][size];
+                    double lower = hessenberg[ii + 1][size];
+                    hessenberg[ii][size] = cos[ii] * upper + sin[ii] * lower;
+                    hessenberg[ii + 1][size] = -sin[ii] * upper + cos[ii] * lower;
+                }
+                double diagonal = hessenberg[size][size];
+                double radius = Math.hypot(diagonal, subDiagonal);
+                cos[size] = radius == 0.0 ? 1.0 : diagonal / radius;
+                sin[size] = radius == 0.0 ? 0.0 : subDiagonal / radius;
+                hessenberg[size][size] = radius;
+                hessenberg[size + 1][size] = 0.0;
+                g[size + 1] = -sin[size] * g[size];
+                g[size] = cos[size] * g[size];
+                size++;
+
+                residualNorm = Math.abs(g[size]);
+                this.progressListener.accept(new Progress(iteration, residualNorm));
+                if (residualNorm <= threshold || subDiagonal == 0.0)
+                {
+                    break;
+                }
+            }
+
+            double[] y = new double[size];
+            for (int ii = size - 1; ii >= 0; ii--)
+            {
+                double sum = g[ii];
+                for (int jj = ii + 1; jj < size; jj++)
+                {
+                    sum -= hessenberg[ii][jj] * y[jj];
+                }
+                y[ii] = hessenberg[ii][ii] == 0.0 ? 0.0 : sum / hessenberg[ii][ii];
+            }
+            Arrays.fill(correction, 0.0);
+            for (int ii = 0; ii < size; ii++)
+            {
+                axpy(y[ii], basis[ii], correction);
+            }
+            this.preconditioner.apply(correction, preconditioned);
+            axpy(1.0, preconditioned, x);
+        }
+    }
+
+    private static int dimensionOf(LinearOperator operator)
+    {
+        int dimension = operator.getRowCount();
+        if (dimension != operator.getColumnCount())
+        {
+            throw new IllegalStateException("Operator must be square");
+        }
+        return dimension;
+    }
+
+    private static double[] toArray(Vector vector, int dimension)
+    {
+        double[] retval = new double[dimension];
+        if (vector != null)
+        {
+            System.arraycopy(vector.getCoordinates(), 0, retval, 0, Math.min(dimension, vector.getDimension()));
+        }
+        return retval;
+    }
+
+    private static double[] residual(LinearOperator operator, double[] b, double[] x)
+    {
+        double[] retval = new double[b.length];
+        operator.apply(x, retval);
+        for (int ii = 0; ii < b.length; ii++)
+        {
+            retval[ii] = b[ii] - retval[ii];
+        }
+        return retval;
+    }
+
+    private static double dot(double[] left, double[] right)
+    {
+        return DenseKernels.dot(left, 0, right, 0, left.length);
+    }
+
+    private static double norm(double[] vector)
+    {
+        return Math.sqrt(dot(vector, vector));
+    }
+
+    private static void axpy(double factor, double[] x, double[] y)
+    {
+        for (int ii = 0; ii < x.length; ii++)
+        {
+            y[ii] += factor * x[ii];
+        }
+    }
+
+    private static void scale(double factor, double[] vector)
+    {
+        for (int ii = 0; ii < vector.length; ii++)
+        {
+            vector[ii] *= factor;
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "IterativeSolver [tolerance=" + this.tolerance + ", maxIterations=" + this.maxIterations + ", restart=" + this.restart + "]";
+    }
+
+}
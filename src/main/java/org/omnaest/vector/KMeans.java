@@ -0,0 +1,581 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * k-means clustering of {@link Vector}s with k-means++ initialization and an optional mini batch mode.<br>
+ * <br>
+ * The points are packed into primitive storage and the assignment steps run in parallel. Partial sums are reduced in a fixed order, so
+ * the same seed always results in the same clustering, independent of the number of threads.<br>
+ * <br>
+ * Example:<br>
+ *
+ * <pre>
+ * KMeans.Result result = KMeans.builder()
+ *                              .withNumberOfClusters(5)
+ *                              .withSeed(42)
+ *                              .build()
+ *                              .cluster(points);
+ * </pre>
+ *
+ * @see <a href="https://en.wikipedia.org/wiki/K-means_clustering">wikipedia</a>
+ * @author Omnaest
+ */
+public class KMeans
+{
+    private static final int CHUNK_SIZE = 4096;
+
+    private int                numberOfClusters;
+    private int                maxIterations;
+    private double             tolerance;
+    private long               seed;
+    private int                miniBatchSize;
+    private Consumer<Progress> progressListener;
+
+    protected KMeans(int numberOfClusters, int maxIterations, double tolerance, long seed, int miniBatchSize, Consumer<Progress> progressListener)
+    {
+        super();
+        this.numberOfClusters = numberOfClusters;
+        this.maxIterations = maxIterations;
+        this.tolerance = tolerance;
+        this.seed = seed;
+        this.miniBatchSize = miniBatchSize;
+        this.progressListener = progressListener;
+    }
+
+    public static interface Builder
+    {
+        Builder withNumberOfClusters(int numberOfClusters);
+
+        /**
+         * Default is 100
+         *
+         * @param maxIterations
+         * @return
+         */
+        Builder withMaxIterations(int maxIterations);
+
+        /**
+         * The clustering is converged, if no centroid moves further than the given tolerance within an iteration. Default is 1E-9.
+         *
+         * @param tolerance
+         * @return
+         */
+        Builder withTolerance(double tolerance);
+
+        Builder withSeed(long seed);
+
+        /**
+         * Enables the mini batch mode, which only uses the given number of randomly drawn points per iteration. A value of 0 disables the
+         * mini batch mode, which is the default.
+         *
+         * @param miniBatchSize
+         * @return
+         */
+        Builder withMiniBatchSize(int miniBatchSize);
+
+        /**
+         * The given listener is called after each iteration
+         *
+         * @param progressListener
+         * @return
+         */
+        Builder withProgressListener(Consumer<Progress> progressListener);
+
+        KMeans build();
+    }
+
+    public static Builder builder()
+    {
+        return new Builder()
+        {
+            private int                numberOfClusters = 2;
+            private int                maxIterations    = 100;
+            private double             tolerance        = 0.000000001;
+            private long               seed             = 0;
+            private int                miniBatchSize    = 0;
+            private Consumer<Progress> progressListener = progress ->
+                                                        {
+                                                        };
+
+            @Override
+            public Builder withNumberOfClusters(int numberOfClusters)
+            {
+                if (numberOfClusters < 1)
+                {
+                    throw new IllegalArgumentException("Number of clusters must be at least 1");
+                }
+                this.numberOfClusters = numberOfClusters;
+                return this;
+            }
+
+            @Override
+            public Builder withMaxIterations(int maxIterations)
+            {
+                this.maxIterations = maxIterations;
+                return this;
+            }
+
+            @Override
+            public Builder withTolerance(double tolerance)
+            {
+                this.tolerance = tolerance;
+                return this;
+            }
+
+            @Override
+            public Builder withSeed(long seed)
+            {
+                this.seed = seed;
+                return this;
+            }
+
+            @Override
+            public Builder withMiniBatchSize(int miniBatchSize)
+            {
+                this.miniBatchSize = miniBatchSize;
+                return this;
+            }
+
+            @Override
+            public Builder withProgressListener(Consumer<Progress> progressListener)
+            {
+                this.progressListener = progressListener;
+                return this;
+            }
+
+            @Override
+            public KMeans build()
+            {
+                return new KMeans(this.numberOfClusters, this.maxIterations, this.tolerance, this.seed, this.miniBatchSize, this.progressListener);
+            }
+        };
+    }
+
+    /**
+     * Metrics of a single iteration
+     *
+     * @author Omnaest
+     */
+    public static class Progress
+    {
+        private int    iteration;
+        private double inertia;
+        private double maxCentroidShift;
+
+        public Progress(int iteration, double inertia, double maxCentroidShift)
+        {
+            super();
+            this.iteration = iteration;
+            this.inertia = inertia;
+            this.maxCentroidShift = maxCentroidShift;
+        }
+
+        /**
+         * Returns the iteration, starting with 1
+         *
+         * @return
+         */
+        public int getIteration()
+        {
+            return this.iteration;
+        }
+
+        /**
+         * Returns the sum of squared distances of the points to their centroid. In mini batch mode only the points of the batch are
+         * considered.
+         *
+         * @return
+         */
+        public double getInertia()
+        {
+            return this.inertia;
+        }
+
+        /**
+         * Returns the largest distance a centroid has been moved within the iteration
+         *
+         * @return
+         */
+        public double getMaxCentroidShift()
+        {
+            return this.maxCentroidShift;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Progress [iteration=" + this.iteration + ", inertia=" + this.inertia + ", maxCentroidShift=" + this.maxCentroidShift + "]";
+        }
+
+    }
+
+    /**
+     * Result of a clustering
+     *
+     * @author Omnaest
+     */
+    public static class Result
+    {
+        private int      dimension;
+        private double[] centroids;
+        private int[]    assignments;
+        private double   inertia;
+        private int      iterations;
+        private boolean  converged;
+
+        protected Result(int dimension, double[] centroids, int[] assignments, double inertia, int iterations, boolean converged)
+        {
+            super();
+            this.dimension = dimension;
+            this.centroids = centroids;
+            this.assignments = assignments;
+            this.inertia = inertia;
+            this.iterations = iterations;
+            this.converged = converged;
+        }
+
+        public Vector[] getCentroids()
+        {
+            int numberOfClusters = this.centroids.length / Math.max(1, this.dimension);
+            Vector[] retval = new Vector[numberOfClusters];
+            for (int cc = 0; cc < numberOfClusters; cc++)
+            {
+                retval[cc] = new Vector(Arrays.copyOfRange(this.centroids, cc * this.dimension, (cc + 1) * this.dimension));
+            }
+            return retval;
+        }
+
+        /**
+         * Returns the centroids packed row major into a single array
+         *
+         * @return
+         */
+        double[] getPackedCentroids()
+        {
+            return this.centroids;
+        }
+
+        /**
+         * Returns the index of the cluster for each point
+         *
+         * @return
+         */
+        public int[] getAssignments()
+        {
+            return this.assignments;
+        }
+
+        public double getInertia()
+        {
+            return this.inertia;
+        }
+
+        public int getIterations()
+        {
+            return this.iterations;
+        }
+
+        public boolean isConverged()
+        {
+            return this.converged;
+        }
+
+        /**
+         * Returns the index of the closest centroid to the given {@link Vector}
+         *
+         * @param vector
+         * @return
+         */
+        public int assign(Vector vector)
+        {
+            double[] point = DenseKernels.pack(new Vector[] { vector }, this.dimension);
+            return closestCentroid(this.centroids, this.centroids.length / this.dimension, point, 0, this.dimension);
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Result [numberOfClusters=" + this.centroids.length / Math.max(1, this.dimension) + ", inertia=" + this.inertia + ", iterations="
+                    + this.iterations + ", converged=" + this.converged + "]";
+        }
+
+    }
+
+    public Result cluster(Vector... points)
+    {
+        int dimension = DenseKernels.maxDimension(points);
+        return this.cluster(DenseKernels.pack(points, dimension), dimension);
+    }
+
+    /**
+     * Clusters the points packed row major into the given array
+     *
+     * @param points
+     * @param dimension
+     * @return
+     */
+    public Result cluster(double[] points, int dimension)
+    {
+        int numberOfPoints = dimension > 0 ? points.length / dimension : 0;
+        if (numberOfPoints < this.numberOfClusters)
+        {
+            throw new IllegalArgumentException("Number of points must be at least the number of clusters");
+        }
+
+        Random random = new Random(this.seed);
+        double[] centroids = this.initializeCentroids(points, numberOfPoints, dimension, random);
+        int[] assignments = new int[numberOfPoints];
+        long[] miniBatchCounts = new long[this.numberOfClusters];
+
+        boolean converged = false;
+        int iteration = 0;
+        while (!converged && iteration < this.maxIterations)
+        {
+            iteration++;
+            double[] previousCentroids = centroids.clone();
+            double inertia = this.miniBatchSize > 0 ? this.updateMiniBatch(points, numberOfPoints, dimension, centroids, miniBatchCounts, random)
+                    : this.updateFullBatch(points, numberOfPoints, dimension, centroids, assignments);
+
+            double maxCentroidShift = 0.0;
+            for (int cc = 0; cc < this.numberOfClusters; cc++)
+            {
+                double squaredShift = squaredDistance(centroids, cc * dimension, previousCentroids, cc * dimension, dimension);
+                maxCentroidShift = Math.max(maxCentroidShift, Math.sqrt(squaredShift));
+            }
+            converged = maxCentroidShift <= this.tolerance;
+            this.progressListener.accept(new Progress(iteration, inertia, maxCentroidShift));
+        }
+
+        double inertia = this.assign(points, numberOfPoints, dimension, centroids, assignments);
+        return new Result(dimension, centroids, assignments, inertia, iteration, converged);
+    }
+
+    /**
+     * k-means++ seeding, drawing each further centroid with a probability proportional to the squared distance to the closest chosen one
+     */
+    private double[] initializeCentroids(double[] points, int numberOfPoints, int dimension, Random random)
+    {
+        double[] centroids = new double[this.numberOfClusters * dimension];
+        int first = random.nextInt(numberOfPoints);
+        System.arraycopy(points, first * dimension, centroids, 0, dimension);
+
+        double[] minSquaredDistances = new double[numberOfPoints];
+        Arrays.fill(minSquaredDistances, Double.POSITIVE_INFINITY);
+        for (int cc = 1; cc < this.numberOfClusters; cc++)
+        {
+            int centroidOffset = (cc - 1) * dimension;
+            IntStream.range(0, numberOfPoints)
+                     .parallel()
+                     .forEach(ii -> minSquaredDistances[ii] = Math.min(minSquaredDistances[ii],
+                                                                      squaredDistance(points, ii * dimension, centroids, centroidOffset, dimension)));
+
+            double total = 0.0;
+            for (double value : minSquaredDistances)
+            {
+                total += value;
+            }
+            int chosen = numberOfPoints - 1;
+            double threshold = random.nextDouble() * total;
+            for (int ii = 0; ii < numberOfPoints; ii++)
+            {
+                threshold -= minSquaredDistances[ii];
+                if (threshold < 0.0)
+                {
+                    chosen = ii;
+                    break;
+                }
+            }
+            System.arraycopy(points, chosen * dimension, centroids, cc * dimension, dimension);
+        }
+        return centroids;
+    }
+
+    private double updateFullBatch(double[] points, int numberOfPoints, int dimension, double[] centroids, int[] assignments)
+    {
+        int numberOfClusters = this.numberOfClusters;
+        int numberOfChunks = (numberOfPoints + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        List<PartialSums> partials = IntStream.range(0, numberOfChunks)
+                                              .parallel()
+                                              .mapToObj(chunk ->
+                                              {
+                                                  PartialSums partial = new PartialSums(numberOfClusters, dimension);
+                                                  int to = Math.min(numberOfPoints, (chunk + 1) * CHUNK_SIZE);
+                                                  for (int ii = chunk * CHUNK_SIZE; ii < to; ii++)
+                                                  {
+                                                      int closest = closestCentroid(centroids, numberOfClusters, points, ii * dimension, dimension);
+                                                      assignments[ii] = closest;
+                                                      partial.add(closest, points, ii * dimension,
+                                                                  squaredDistance(points, ii * dimension, centroids, closest * dimension, dimension));
+                                                  }
+                                                  return partial;
+                                              })
+                                              .collect(Collectors.toList());
+
+        PartialSums total = new PartialSums(numberOfClusters, dimension);
+        for (PartialSums partial : partials)
+        {
+            total.merge(partial);
+        }
+        for (int cc = 0; cc < numberOfClusters; cc++)
+        {
+            if (total.counts[cc] > 0)
+            {
+                for (int dd = 0; dd < dimension; dd++)
+                {
+                    centroids[cc * dimension + dd] = total.sums[cc * dimension + dd] / total.counts[cc];
+                }
+            }
+        }
+        return total.inertia;
+    }
+
+    /**
+     * Mini batch update with per centroid learning rates
+     *
+     * @see <a href="https://dl.acm.org/doi/10.1145/1772690.1772862">Sculley, Web-scale k-means clustering</a>
+     */
+    private double updateMiniBatch(double[] points, int numberOfPoints, int dimension, double[] centroids, long[] counts, Random random)
+    {
+        int batchSize = Math.min(this.miniBatchSize, numberOfPoints);
+        int[] batch = new int[batchSize];
+        for (int ii = 0; ii < batchSize; ii++)
+        {
+            batch[ii] = random.nextInt(numberOfPoints);
+        }
+
+        int[] batchAssignments = new int[batchSize];
+        IntStream.range(0, batchSize)
+                 .parallel()
+                 .forEach(ii -> batchAssignments[ii] = closestCentroid(centroids, this.numberOfClusters, points, batch[ii] * dimension, dimension));
+
+        double inertia = 0.0;
+        for (int ii = 0; ii < batchSize; ii++)
+        {
+            int centroid = batchAssignments[ii];
+            int pointOffset = batch[ii] * dimension;
+            inertia += squaredDistance(points, pointOffset, centroids, centroid * dimension, dimension);
+            double learningRate = 1.0 / ++counts[centroid];
+            for (int dd = 0; dd < dimension; dd++)
+            {
+                int index = centroid * dimension + dd;
+                centroids[index] += learningRate * (points[pointOffset + dd] - centroids[index]);
+            }
+        }
+        return inertia;
+    }
+
+    private double assign(double[] points, int numberOfPoints, int dimension, double[] centroids, int[] assignments)
+    {
+        int numberOfChunks = (numberOfPoints + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        double[] inertias = new double[numberOfChunks];
+        IntStream.range(0, numberOfChunks)
+                 .parallel()
+                 .forEach(chunk ->
+                 {
+                     int to = Math.min(numberOfPoints, (chunk + 1) * CHUNK_SIZE);
+                     double inertia = 0.0;
+                     for (int ii = chunk * CHUNK_SIZE; ii < to; ii++)
+                     {
+                         int closest = closestCentroid(centroids, this.numberOfClusters, points, ii * dimension, dimension);
+                         assignments[ii] = closest;
+                         inertia += squaredDistance(points, ii * dimension, centroids, closest * dimension, dimension);
+                     }
+                     inertias[chunk] = inertia;
+                 });
+
+        double retval = 0.0;
+        for (double inertia : inertias)
+        {
+            retval += inertia;
+        }
+        return retval;
+    }
+
+    private static class PartialSums
+    {
+        private double[] sums;
+        private long[]   counts;
+        private double   inertia;
+
+        public PartialSums(int numberOfClusters, int dimension)
+        {
+            this.sums = new double[numberOfClusters * dimension];
+            this.counts = new long[numberOfClusters];
+        }
+
+        public void add(int centroid, double[] points, int offset, double squaredDistance)
+        {
+            int dimension = this.sums.length / this.counts.length;
+            for (int dd = 0; dd < dimension; dd++)
+            {
+                this.sums[centroid * dimension + dd] += points[offset + dd];
+            }
+            this.counts[centroid]++;
+            this.inertia += squaredDistance;
+        }
+
+        public void merge(PartialSums other)
+        {
+            for (int ii = 0; ii < this.sums.length; ii++)
+            {
+                this.sums[ii] += other.sums[ii];
+            }
+            for (int ii = 0; ii < this.counts.length; ii++)
+            {
+                this.counts[ii] += other.counts[ii];
+            }
+            this.inertia += other.inertia;
+        }
+    }
+
+    static int closestCentroid(double[] centroids, int numberOfCentroids, double[] points, int offset, int dimension)
+    {
+        int retval = 0;
+        double minimum = Double.POSITIVE_INFINITY;
+        for (int cc = 0; cc < numberOfCentroids; cc++)
+        {
+            double squaredDistance = squaredDistance(centroids, cc * dimension, points, offset, dimension);
+            if (squaredDistance < minimum)
+            {
+                minimum = squaredDistance;
+                retval = cc;
+            }
+        }
+        return retval;
+    }
+
+    private static double squaredDistance(double[] left, int leftOffset, double[] right, int rightOffset, int dimension)
+    {
+        double retval = 0.0;
+        for (int dd = 0; dd < dimension; dd++)
+        {
+            double delta = left[leftOffset + dd] - right[rightOffset + dd];
+            retval += delta * delta;
+        }
+        return retval;
+    }
+}
@@ -0,0 +1,252 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+import java.util.stream.IntStream;
+
+/**
+ * Immutable line through a point along a direction, which answers closest point queries for many points at once.<br>
+ * <br>
+ * The normalized direction is computed once, so the batch methods run over points given as packed x,y,z coordinates without any
+ * allocation. The results are equal to {@link Vector#closestDistanceToLine(Vector, Vector)} and
+ * {@link Vector#closestDirectionToLine(Vector, Vector)}, including a direction of zero length, where the distance to the point on the line
+ * is returned.<br>
+ * <br>
+ * Example:<br>
+ *
+ * <pre>
+ * Line line = Line.of(Vector.of(0, 0, 0), Vector.of(1, 1, 0));
+ * double[] distances = new double[points.length / 3];
+ * line.distancesParallel(points, distances);
+ * </pre>
+ *
+ * @author Omnaest
+ */
+public class Line
+{
+    private static final int CHUNK_SIZE = 4096;
+
+    private final double px;
+    private final double py;
+    private final double pz;
+    private final double nx;
+    private final double ny;
+    private final double nz;
+
+    protected Line(Vector pointOnLine, Vector direction)
+    {
+        super();
+        this.px = pointOnLine.getX();
+        this.py = pointOnLine.getY();
+        this.pz = pointOnLine.getZ();
+
+        double length = direction.absolute();
+        boolean hasDirection = length > 0.000000001 || length < -0.000000001;
+        double scale = hasDirection ? 1.0 / length : 0.0;
+        this.nx = direction.getX() * scale;
+        this.ny = direction.getY() * scale;
+        this.nz = direction.getZ() * scale;
+    }
+
+    /**
+     * Returns a new {@link Line} through the given point along the given direction. 2D {@link Vector}s are treated as lying in the x-y
+     * plane.
+     *
+     * @param pointOnLine
+     * @param direction
+     * @return
+     */
+    public static Line of(Vector pointOnLine, Vector direction)
+    {
+        return new Line(pointOnLine, direction);
+    }
+
+    /**
+     * Returns the distance of the given point to this {@link Line}
+     *
+     * @param point
+     * @return
+     */
+    public double distanceTo(Vector point)
+    {
+        return this.distanceTo(point.getX(), point.getY(), point.getZ());
+    }
+
+    private double distanceTo(double x, double y, double z)
+    {
+        double dx = this.px - x;
+        double dy = this.py - y;
+        double dz = this.pz - z;
+        double projection = dx * this.nx + dy * this.ny + dz * this.nz;
+        dx -= this.nx * projection;
+        dy -= this.ny * projection;
+        dz -= this.nz * projection;
+        return Math.sqrt(dx * dx + dy * dy + dz * dz);
+    }
+
+    /**
+     * Writes the distance of each point given as packed x,y,z coordinates to this {@link Line} into the given distances array, which needs
+     * one element per point
+     *
+     * @param points
+     * @param distances
+     */
+    public void distances(double[] points, double[] distances)
+    {
+        this.distances(points, distances, 0, points.length / 3);
+    }
+
+    /**
+     * Similar to {@link #distances(double[], double[])} but processes chunks of points in parallel
+     *
+     * @param points
+     * @param distances
+     */
+    public void distancesParallel(double[] points, double[] distances)
+    {
+        forEachChunkParallel(points.length / 3, (fromPoint, toPoint) -> this.distances(points, distances, fromPoint, toPoint));
+    }
+
+    private void distances(double[] points, double[] distances, int fromPoint, int toPoint)
+    {
+        for (int ii = fromPoint; ii < toPoint; ii++)
+        {
+            distances[ii] = this.distanceTo(points[ii * 3], points[ii * 3 + 1], points[ii * 3 + 2]);
+        }
+    }
+
+    /**
+     * Writes the direction from each point given as packed x,y,z coordinates to its closest point on this {@link Line} into the given
+     * directions array as packed x,y,z coordinates. Points and directions can be the same array.
+     *
+     * @see Vector#closestDirectionToLine(Vector, Vector)
+     * @param points
+     * @param directions
+     */
+    public void closestDirections(double[] points, double[] directions)
+    {
+        this.closestDirections(points, directions, 0, points.length / 3);
+    }
+
+    /**
+     * Similar to {@link #closestDirections(double[], double[])} but processes chunks of points in parallel
+     *
+     * @param points
+     * @param directions
+     */
+    public void closestDirectionsParallel(double[] points, double[] directions)
+    {
+        forEachChunkParallel(points.length / 3, (fromPoint, toPoint) -> this.closestDirections(points, directions, fromPoint, toPoint));
+    }
+
+    private void closestDirections(double[] points, double[] directions, int fromPoint, int toPoint)
+    {
+        for (int ii = fromPoint * 3; ii < toPoint * 3; ii += 3)
+        {
+            double dx = this.px - points[ii];
+            double dy = this.py - points[ii + 1];
+            double dz = this.pz - points[ii + 2];
+            double projection = dx * this.nx + dy * this.ny + dz * this.nz;
+            directions[ii] = dx - this.nx * projection;
+            directions[ii + 1] = dy - this.ny * projection;
+            directions[ii + 2] = dz - this.nz * projection;
+        }
+    }
+
+    /**
+     * Writes the distances of each point given as packed x,y,z coordinates to each of the given {@link Line}s into the given distances
+     * array, which holds the distances of all points to the first {@link Line}, followed by those to the second {@link Line} and so on.
+     * Chunks of points are processed in parallel.
+     *
+     * @param lines
+     * @param points
+     * @param distances
+     */
+    public static void distancesParallel(Line[] lines, double[] points, double[] distances)
+    {
+        int numberOfPoints = points.length / 3;
+        forEachChunkParallel(numberOfPoints, (fromPoint, toPoint) ->
+        {
+            for (int jj = 0; jj < lines.length; jj++)
+            {
+                Line line = lines[jj];
+                int offset = jj * numberOfPoints;
+                for (int ii = fromPoint; ii < toPoint; ii++)
+                {
+                    distances[offset + ii] = line.distanceTo(points[ii * 3], points[ii * 3 + 1], points[ii * 3 + 2]);
+                }
+            }
+        });
+    }
+
+    /**
+     * Writes the index of the closest of the given {@link Line}s for each point given as packed x,y,z coordinates into the given line
+     * indices array and the distance to that {@link Line} into the given distances array. Chunks of points are processed in parallel.
+     *
+     * @param lines
+     * @param points
+     * @param lineIndices
+     * @param distances
+     */
+    public static void closestLinesParallel(Line[] lines, double[] points, int[] lineIndices, double[] distances)
+    {
+        forEachChunkParallel(points.length / 3, (fromPoint, toPoint) ->
+        {
+            for (int ii = fromPoint; ii < toPoint; ii++)
+            {
+                double x = points[ii * 3];
+                double y = points[ii * 3 + 1];
+                double z = points[ii * 3 + 2];
+                int closestLine = -1;
+                double closestDistance = Double.POSITIVE_INFINITY;
+                for (int jj = 0; jj < lines.length; jj++)
+                {
+                    double distance = lines[jj].distanceTo(x, y, z);
+                    if (distance < closestDistance)
+                    {
+                        closestLine = jj;
+                        closestDistance = distance;
+                    }
+                }
+                lineIndices[ii] = closestLine;
+                distances[ii] = closestDistance;
+            }
+        });
+    }
+
+    private static interface ChunkOperation
+    {
+        public void apply(int fromPoint, int toPoint);
+    }
+
+    private static void forEachChunkParallel(int numberOfPoints, ChunkOperation operation)
+    {
+        int numberOfChunks = (numberOfPoints + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        IntStream.range(0, numberOfChunks)
+                 .parallel()
+                 .forEach(chunk -> operation.apply(chunk * CHUNK_SIZE, Math.min(numberOfPoints, (chunk + 1) * CHUNK_SIZE)));
+    }
+
+    @Override
+    public String toString()
+    {
+        return "Line [point=(" + this.px + ", " + this.py + ", " + this.pz + "), direction=(" + this.nx + ", " + this.ny + ", " + this.nz + ")]";
+    }
+
+}
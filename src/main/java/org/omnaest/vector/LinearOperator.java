@@ -0,0 +1,103 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+/**
+ * A linear map which is only defined by its application to a {@link Vector}, so that large or sparse operators do not need to be stored
+ * as dense {@link Matrix}.<br>
+ * <br>
+ * {@link Matrix} implements this interface, other operators can be given as lambda via {@link #of(int, Application)}.
+ *
+ * @see IterativeSolver
+ * @see SymmetricEigenDecomposition#topK(LinearOperator, int)
+ * @author Omnaest
+ */
+public interface LinearOperator
+{
+    public int getRowCount();
+
+    public int getColumnCount();
+
+    /**
+     * Writes the result of this operator applied to the input into the output array. Input and output are never the same array.
+     *
+     * @param input
+     *            array with {@link #getColumnCount()} values
+     * @param output
+     *            array with {@link #getRowCount()} values
+     */
+    public void apply(double[] input, double[] output);
+
+    /**
+     * Returns the result of this operator applied to the given {@link Vector}
+     *
+     * @param vector
+     * @return
+     */
+    public default Vector apply(Vector vector)
+    {
+        double[] input = new double[this.getColumnCount()];
+        System.arraycopy(vector.getCoordinates(), 0, input, 0, Math.min(input.length, vector.getDimension()));
+        double[] output = new double[this.getRowCount()];
+        this.apply(input, output);
+        return new Vector(output);
+    }
+
+    /**
+     * Application of a square {@link LinearOperator}
+     *
+     * @author Omnaest
+     */
+    @FunctionalInterface
+    public static interface Application
+    {
+        public void apply(double[] input, double[] output);
+    }
+
+    /**
+     * Returns a square {@link LinearOperator} with the given dimension
+     *
+     * @param dimension
+     * @param application
+     * @return
+     */
+    public static LinearOperator of(int dimension, Application application)
+    {
+        return new LinearOperator()
+        {
+            @Override
+            public int getRowCount()
+            {
+                return dimension;
+            }
+
+            @Override
+            public int getColumnCount()
+            {
+                return dimension;
+            }
+
+            @Override
+            public void apply(double[] input, double[] output)
+            {
+                application.apply(input, output);
+            }
+        };
+    }
+}
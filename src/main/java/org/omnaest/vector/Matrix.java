@@ -25,12 +25,14 @@ import java.util.Locale;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
+import org.omnaest.vector.VectorMetrics.Operation;
+
 /**
  * @see Vector
  * @see #builder()
  * @author Omnaest
  */
-public class Matrix
+public class Matrix implements LinearOperator
 {
 	protected static final Matrix NULL = new Matrix(new double[0][0]);
 
@@ -42,6 +44,17 @@ public class Matrix
 		this.data = data;
 	}
 
+	/**
+	 * Constructor for subclasses which keep their own storage and override all methods accessing the dense values
+	 *
+	 * @see StructuredMatrix
+	 */
+	protected Matrix()
+	{
+		super();
+		this.data = null;
+	}
+
 	public Matrix(Vector vector)
 	{
 		super();
@@ -57,19 +70,21 @@ public class Matrix
 
 	public Vector multiply(Vector vector)
 	{
-		Matrix matrixB = new Matrix(vector);
-		Matrix result = this.multiply(matrixB);
-		int dimensionY = result.getDimensions()[1];
-		double[] coordinates = new double[dimensionY];
-		for (int ii = 0; ii < dimensionY; ii++)
+		if (this.getColumnCount() != vector.getDimension())
 		{
-			coordinates[ii] = result.getRaw(0, ii);
+			throw new IllegalArgumentException("x dimension of A must be equal to y dimension of B");
 		}
+		long start = VectorMetrics.start();
+		double[] coordinates = new double[this.getRowCount()];
+		this.apply(vector.getCoordinates(), coordinates);
+		long elements = (long) coordinates.length * vector.getDimension();
+		VectorMetrics.record(Operation.MATRIX_VECTOR_MULTIPLY, start, 2 * elements, elements);
 		return new Vector(coordinates);
 	}
 
 	public Matrix multiply(double scalar)
 	{
+		long start = VectorMetrics.start();
 		Matrix matrix = Matrix	.builder()
 								.addRows(this.getRows())
 								.build();
@@ -82,11 +97,18 @@ public class Matrix
 			}
 		}
 
+		long elements = (long) this.getRowCount() * this.getColumnCount();
+		VectorMetrics.record(Operation.MATRIX_SCALAR_MULTIPLY, start, elements, elements);
 		return matrix;
 	}
 
 	public Matrix multiply(Matrix matrixB)
 	{
+		if (matrixB instanceof StructuredMatrix)
+		{
+			return ((StructuredMatrix) matrixB).multiplyFromLeft(this);
+		}
+
 		int[] dimensionsA = this.getDimensions();
 		int[] dimensionsB = matrixB.getDimensions();
 
@@ -95,6 +117,7 @@ public class Matrix
 			throw new IllegalArgumentException("x dimension of A must be equal to y dimension of B");
 		}
 
+		long start = VectorMetrics.start();
 		int freeDimension = dimensionsA[0];
 
 		double[][] data2 = new double[dimensionsA[1]][dimensionsB[0]];
@@ -115,6 +138,8 @@ public class Matrix
 			}
 		}
 
+		VectorMetrics.record(	Operation.MATRIX_MULTIPLY, start, 2L * dimensionsA[1] * dimensionsB[0] * freeDimension,
+								(long) dimensionsA[1] * freeDimension + (long) freeDimension * dimensionsB[0]);
 		return new Matrix(data2);
 	}
 
@@ -149,14 +174,190 @@ public class Matrix
 		return new int[] { this.data[0].length, this.data.length };
 	}
 
+	@Override
 	public int getRowCount()
 	{
-		return this.getDimensions()[1];
+		return this.data.length;
 	}
 
+	@Override
 	public int getColumnCount()
 	{
-		return this.getDimensions()[0];
+		return this.data[0].length;
+	}
+
+	@Override
+	public void apply(double[] input, double[] output)
+	{
+		int columns = this.getColumnCount();
+		for (int ii = 0; ii < this.data.length; ii++)
+		{
+			output[ii] = DenseKernels.dot(this.data[ii], 0, input, 0, columns);
+		}
+	}
+
+	/**
+	 * Returns a copy of the values as array of rows
+	 *
+	 * @return
+	 */
+	public double[][] toArray()
+	{
+		double[][] retval = new double[this.data.length][];
+		for (int ii = 0; ii < this.data.length; ii++)
+		{
+			retval[ii] = Arrays.copyOf(this.data[ii], this.data[ii].length);
+		}
+		return retval;
+	}
+
+	/**
+	 * Returns the {@link SymmetricEigenDecomposition} of this {@link Matrix}. Only the lower triangle is used, so this {@link Matrix} is
+	 * expected to be symmetric.
+	 *
+	 * @see SymmetricEigenDecomposition#topK(Matrix, int)
+	 * @return
+	 */
+	public SymmetricEigenDecomposition symmetricEigenDecomposition()
+	{
+		return SymmetricEigenDecomposition.of(this);
+	}
+
+	/**
+	 * Returns the {@link SingularValueDecomposition} of this {@link Matrix}
+	 *
+	 * @see SingularValueDecomposition#randomized(Matrix, int)
+	 * @return
+	 */
+	public SingularValueDecomposition singularValueDecomposition()
+	{
+		return SingularValueDecomposition.of(this);
+	}
+
+	/**
+	 * Returns the Moore-Penrose pseudo inverse, which in contrast to {@link #inverse()} exists for singular and non square matrices
+	 *
+	 * @see SingularValueDecomposition#pseudoInverse()
+	 * @return
+	 */
+	public Matrix pseudoInverse()
+	{
+		return this	.singularValueDecomposition()
+					.pseudoInverse();
+	}
+
+	/**
+	 * Returns the numerical rank of this {@link Matrix}
+	 *
+	 * @see SingularValueDecomposition#rank()
+	 * @return
+	 */
+	public int rank()
+	{
+		return this	.singularValueDecomposition()
+					.rank();
+	}
+
+	/**
+	 * Similar to {@link #multiply(Matrix)} but uses the Strassen-Winograd algorithm for large matrices, which needs less operations at the
+	 * cost of a weaker, norm wise error bound. Matrices with a dimension of at most 256 are multiplied with the standard kernel.
+	 *
+	 * @see StrassenWinograd
+	 * @param matrixB
+	 * @return
+	 */
+	public Matrix multiplyStrassen(Matrix matrixB)
+	{
+		return this.multiplyStrassen(matrixB, StrassenWinograd.DEFAULT_CUTOFF);
+	}
+
+	/**
+	 * Similar to {@link #multiplyStrassen(Matrix)} with the given block dimension below which the standard kernel is used
+	 *
+	 * @param matrixB
+	 * @param cutoff
+	 * @return
+	 */
+	public Matrix multiplyStrassen(Matrix matrixB, int cutoff)
+	{
+		return new Matrix(StrassenWinograd.multiply(this.toArray(), matrixB.toArray(), cutoff));
+	}
+
+	/**
+	 * Returns this square {@link Matrix} to the power of the given exponent by exponentiation by squaring. An exponent of 0 returns the
+	 * identity, a negative exponent the power of the inverse.
+	 *
+	 * @param exponent
+	 * @return
+	 */
+	public Matrix power(int exponent)
+	{
+		if (this.getRowCount() != this.getColumnCount())
+		{
+			throw new IllegalStateException("Matrix must be square");
+		}
+		double[][] base = exponent < 0 ? DenseKernels.inverse(this.toArray()) : this.toArray();
+		return new Matrix(MatrixFunctions.power(base, Math.abs((long) exponent)));
+	}
+
+	/**
+	 * Returns the matrix exponential e<sup>A</sup> of this square {@link Matrix} by scaling and squaring with Pade approximants
+	 *
+	 * @see <a href="https://en.wikipedia.org/wiki/Matrix_exponential">wikipedia</a>
+	 * @return
+	 */
+	public Matrix exp()
+	{
+		if (this.getRowCount() != this.getColumnCount())
+		{
+			throw new IllegalStateException("Matrix must be square");
+		}
+		return new Matrix(MatrixFunctions.exp(this.toArray()));
+	}
+
+	/**
+	 * Returns an {@link IncrementalInverse} of this square {@link Matrix}, which keeps the inverse and determinant up to date under rank one
+	 * and rank k updates
+	 *
+	 * @return
+	 */
+	public IncrementalInverse incrementalInverse()
+	{
+		return IncrementalInverse.of(this);
+	}
+
+	/**
+	 * Returns the Householder {@link QRDecomposition} of this {@link Matrix}
+	 *
+	 * @return
+	 */
+	public QRDecomposition qrDecomposition()
+	{
+		return QRDecomposition.of(this);
+	}
+
+	/**
+	 * Returns the {@link CholeskyDecomposition} of this symmetric positive definite {@link Matrix}
+	 *
+	 * @return
+	 */
+	public CholeskyDecomposition choleskyDecomposition()
+	{
+		return CholeskyDecomposition.of(this);
+	}
+
+	/**
+	 * Returns the x which minimizes |A * x - b| in the least squares sense, where A is this {@link Matrix}
+	 *
+	 * @see QRDecomposition#solve(Vector)
+	 * @see StreamingQRDecomposition
+	 * @param b
+	 * @return
+	 */
+	public Vector leastSquares(Vector b)
+	{
+		return this	.qrDecomposition()
+					.solve(b);
 	}
 
 	@Override
@@ -209,44 +410,100 @@ public class Matrix
 
 	public double determinant()
 	{
-		return this.determinantOf(this);
+		long start = VectorMetrics.start();
+		double retval = this.determinantOf(this);
+		int dimension = this.getRowCount();
+		VectorMetrics.record(Operation.DETERMINANT, start, determinantFlops(dimension), (long) dimension * dimension);
+		return retval;
 	}
 
-	protected double determinantOf(Matrix matrix)
+	/**
+	 * Returns the number of floating point operations of the cofactor expansion of {@link #determinantOf(Matrix)}, which grows with n!
+	 * and is capped at {@link Long#MAX_VALUE}
+	 */
+	private static long determinantFlops(int dimension)
 	{
-		//
-		double retval = 0.0;
+		double retval = dimension >= 2 ? 3 : 0;
+		for (int ii = 3; ii <= dimension; ii++)
+		{
+			retval = ii * (retval + 2);
+		}
+		return (long) Math.min(retval, Long.MAX_VALUE);
+	}
 
-		//
+	/**
+	 * Returns the determinant of the given {@link Matrix} by cofactor expansion along the first column. Metrics are only recorded by the
+	 * calling {@link #determinant()}, not for each minor.
+	 */
+	protected double determinantOf(Matrix matrix)
+	{
 		int dimension = matrix.getRowCount();
 		if (dimension != matrix.getColumnCount())
 		{
 			throw new IllegalStateException("Matrix must be square");
 		}
+		try (ScratchArena arena = ScratchArena.open())
+		{
+			double[][] data = arena.matrix(dimension, dimension);
+			for (int y = 0; y < dimension; y++)
+			{
+				for (int x = 0; x < dimension; x++)
+				{
+					data[y][x] = matrix.getRaw(x, y);
+				}
+			}
+			return determinantOf(data, minorBuffers(dimension, arena));
+		}
+	}
+
+	/**
+	 * Returns one buffer from the {@link ScratchArena} for the minors of each level of the cofactor expansion of a {@link Matrix} with the
+	 * given dimension, so the expansion itself does not allocate
+	 */
+	private static double[][][] minorBuffers(int dimension, ScratchArena arena)
+	{
+		double[][][] retval = new double[Math.max(0, dimension)][][];
+		for (int ii = 2; ii < dimension; ii++)
+		{
+			retval[ii] = arena.matrix(ii, ii);
+		}
+		return retval;
+	}
+
+	/**
+	 * Cofactor expansion along the first column, where the rows of each minor follow cyclically after the expanded row. Compared to the
+	 * ordered minor this cyclic shift by ii rows combines with the cofactor sign to (-1)^(ii*(n-1)), so the terms alternate only for even
+	 * dimensions.
+	 */
+	private static double determinantOf(double[][] matrix, double[][][] minorBuffers)
+	{
+		double retval = 0.0;
+		int dimension = matrix.length;
 		if (dimension > 2)
 		{
+			double[][] minor = minorBuffers[dimension - 1];
 			for (int ii = 0; ii < dimension; ii++)
 			{
-				double factor = matrix.getRaw(0, ii);
-				double determinant = matrix	.getSubMatrixModulo(1, ii + 1, dimension - 1, dimension - 1 + ii)
-											.determinant();
-				retval += factor * determinant;
+				for (int y = 0; y < dimension - 1; y++)
+				{
+					System.arraycopy(matrix[(ii + 1 + y) % dimension], 1, minor[y], 0, dimension - 1);
+				}
+				double sign = dimension % 2 == 0 && ii % 2 == 1 ? -1.0 : 1.0;
+				retval += sign * matrix[ii][0] * determinantOf(minor, minorBuffers);
 			}
 		}
 		else if (dimension == 2)
 		{
-			retval = matrix.getRaw(0, 0) * matrix.getRaw(1, 1) - matrix.getRaw(1, 0) * matrix.getRaw(0, 1);
+			retval = matrix[0][0] * matrix[1][1] - matrix[0][1] * matrix[1][0];
 		}
 		else if (dimension == 1)
 		{
-			retval = matrix.getRaw(0, 0);
+			retval = matrix[0][0];
 		}
 		else
 		{
 			throw new IllegalArgumentException("Matrix dimension has to be at least 2");
 		}
-
-		//
 		return retval;
 	}
 
@@ -259,7 +516,7 @@ public class Matrix
 		{
 			for (int y = 0; y < dimensions[1]; y++)
 			{
-				data[x][y] = this.data[y][x];
+				data[x][y] = this.getRaw(x, y);
 			}
 		}
 
@@ -295,7 +552,13 @@ public class Matrix
 	 */
 	private Vector getRow(int i)
 	{
-		return new Vector(Arrays.copyOf(this.data[i - 1], this.data[i - 1].length));
+		int columns = this.getColumnCount();
+		double[] row = new double[columns];
+		for (int jj = 0; jj < columns; jj++)
+		{
+			row[jj] = this.getRaw(jj, i - 1);
+		}
+		return new Vector(row);
 	}
 
 	/**
@@ -366,6 +629,7 @@ public class Matrix
 			@Override
 			public Matrix build()
 			{
+				long start = VectorMetrics.start();
 				Matrix retval = Matrix.NULL;
 
 				if (!this.columns.isEmpty())
@@ -377,6 +641,7 @@ public class Matrix
 					retval = new Matrix(this.rows.toArray(new double[0][0]));
 				}
 
+				VectorMetrics.record(Operation.BUILDER_BUILD, start, 0, this.rows.size() + this.columns.size());
 				return retval;
 			}
 
@@ -431,27 +696,60 @@ public class Matrix
 	 */
 	public Matrix adjunct()
 	{
-		Matrix retval = Matrix	.builder()
-								.addRows(this.getRows())
-								.build();
-		for (int ii = 1; ii <= this.getRowCount(); ii++)
+		int rows = this.getRowCount();
+		int columns = this.getColumnCount();
+		if (rows != columns)
 		{
-			for (int jj = 1; jj <= this.getColumnCount(); jj++)
+			throw new IllegalStateException("Matrix must be square");
+		}
+		double[][] data = new double[columns][rows];
+		try (ScratchArena arena = ScratchArena.open())
+		{
+			double[][][] minorBuffers = minorBuffers(rows - 1, arena);
+			double[][] minor = arena.matrix(rows - 1, columns - 1);
+			for (int ii = 0; ii < rows; ii++)
 			{
-				double sign = Math.pow(-1, ii + jj);
-				double determinant = this	.reducedByRowAndColumn(ii, jj)
-											.determinant();
-				retval.setValue(ii, jj, sign * determinant);
+				for (int jj = 0; jj < columns; jj++)
+				{
+					for (int y = 0; y < rows - 1; y++)
+					{
+						for (int x = 0; x < columns - 1; x++)
+						{
+							minor[y][x] = this.getRaw(x < jj ? x : x + 1, y < ii ? y : y + 1);
+						}
+					}
+					double sign = (ii + jj) % 2 == 0 ? 1.0 : -1.0;
+					data[jj][ii] = sign * determinantOf(minor, minorBuffers);
+				}
 			}
 		}
 
-		return retval.transposed();
+		return new Matrix(data);
 	}
 
+	/**
+	 * Returns the inverse as adjunct divided by the determinant. Metrics are recorded once for the whole inversion, including the
+	 * determinants of all minors.
+	 * 
+	 * @return
+	 */
 	public Matrix inverse()
 	{
-		return this	.adjunct()
-					.multiply(1.0 / this.determinant());
+		long start = VectorMetrics.start();
+		double[][] data = this	.adjunct()
+								.toArray();
+		double factor = 1.0 / this.determinantOf(this);
+		for (double[] row : data)
+		{
+			for (int jj = 0; jj < row.length; jj++)
+			{
+				row[jj] *= factor;
+			}
+		}
+		int rows = this.getRowCount();
+		long elements = (long) rows * this.getColumnCount();
+		VectorMetrics.record(Operation.INVERSE, start, elements * determinantFlops(rows - 1) + determinantFlops(rows) + elements, elements);
+		return new Matrix(data);
 	}
 
 	/**
@@ -483,7 +781,7 @@ public class Matrix
 	{
 		final int prime = 31;
 		int result = 1;
-		result = prime * result + Arrays.deepHashCode(this.data);
+		result = prime * result + Arrays.deepHashCode(this.data != null ? this.data : this.toArray());
 		return result;
 	}
 
@@ -498,20 +796,20 @@ public class Matrix
 		{
 			return false;
 		}
-		if (this.getClass() != obj.getClass())
+		if (!(obj instanceof Matrix))
 		{
 			return false;
 		}
 		Matrix other = (Matrix) obj;
-		if (!Arrays.deepEquals(this.data, other.data))
+		if (this.data != null && other.data != null)
 		{
-			return false;
+			return Arrays.deepEquals(this.data, other.data);
 		}
-		return true;
+		return Arrays.deepEquals(this.toArray(), other.toArray());
 	}
 
 	/**
-	 * Returns a identity matrix in the given dimension.<br>
+	 * Returns a identity matrix in the given dimension, which only stores its diagonal.<br>
 	 * <br>
 	 * Example:<br>
 	 * 
@@ -521,21 +819,13 @@ public class Matrix
 	 * 0 0 1
 	 * </pre>
 	 * 
+	 * @see DiagonalMatrix#identity(int)
 	 * @param dimension
 	 * @return
 	 */
 	public static Matrix identity(int dimension)
 	{
-		Builder builder = Matrix.builder();
-
-		for (int ii = 0; ii < dimension; ii++)
-		{
-			double[] row = new double[dimension];
-			row[ii] = 1.0;
-			builder.addRow(row);
-		}
-
-		return builder.build();
+		return DiagonalMatrix.identity(dimension);
 	}
 
 	/**
@@ -546,6 +836,7 @@ public class Matrix
 	 */
 	public Matrix add(Matrix other)
 	{
+		long start = VectorMetrics.start();
 		Matrix retval = Matrix.clone(this);
 		for (int ii = 1; ii <= this.getRowCount(); ii++)
 		{
@@ -554,6 +845,8 @@ public class Matrix
 				retval.setValue(ii, jj, this.getValue(ii, jj) + other.getValue(ii, jj));
 			}
 		}
+		long elements = (long) this.getRowCount() * this.getColumnCount();
+		VectorMetrics.record(Operation.MATRIX_ADD, start, elements, elements);
 		return retval;
 	}
 
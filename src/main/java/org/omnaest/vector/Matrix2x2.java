@@ -0,0 +1,203 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+/**
+ * Immutable 2x2 {@link Matrix} with field storage and fully unrolled operations, e.g. for 2D transformations.<br>
+ * <br>
+ * Operations with another {@link Matrix2x2} return a {@link Matrix2x2} again, while operations with a general {@link Matrix} fall back to the
+ * generic implementation.
+ *
+ * @author Omnaest
+ */
+public final class Matrix2x2 extends Matrix
+{
+    private final double m00, m01;
+    private final double m10, m11;
+
+    /**
+     * Creates a new {@link Matrix2x2} from the given values in row major order
+     */
+    public Matrix2x2(double m00, double m01,
+                     double m10, double m11)
+    {
+        super();
+        this.m00 = m00;
+        this.m01 = m01;
+        this.m10 = m10;
+        this.m11 = m11;
+    }
+
+    public static Matrix2x2 identity()
+    {
+        return new Matrix2x2(1.0, 0.0,
+                             0.0, 1.0);
+    }
+
+    /**
+     * Returns the given {@link Matrix} as {@link Matrix2x2}
+     *
+     * @param matrix
+     * @return
+     * @throws IllegalArgumentException
+     *             if the {@link Matrix} is not 2x2
+     */
+    public static Matrix2x2 of(Matrix matrix)
+    {
+        if (matrix instanceof Matrix2x2)
+        {
+            return (Matrix2x2) matrix;
+        }
+        if (matrix.getRowCount() != 2 || matrix.getColumnCount() != 2)
+        {
+            throw new IllegalArgumentException("Matrix must have 2 rows and 2 columns");
+        }
+        return new Matrix2x2(matrix.getRaw(0, 0), matrix.getRaw(1, 0),
+                             matrix.getRaw(0, 1), matrix.getRaw(1, 1));
+    }
+
+    @Override
+    protected double getRaw(int x, int y)
+    {
+        switch (y * 2 + x)
+        {
+            case 0:
+                return this.m00;
+            case 1:
+                return this.m01;
+            case 2:
+                return this.m10;
+            case 3:
+                return this.m11;
+            default:
+                throw new IndexOutOfBoundsException("Index x=" + x + ", y=" + y + " is outside of the 2x2 matrix");
+        }
+    }
+
+    @Override
+    public int[] getDimensions()
+    {
+        return new int[] { 2, 2 };
+    }
+
+    @Override
+    public int getRowCount()
+    {
+        return 2;
+    }
+
+    @Override
+    public int getColumnCount()
+    {
+        return 2;
+    }
+
+    @Override
+    public double[][] toArray()
+    {
+        return new double[][] { { this.m00, this.m01 },
+                                { this.m10, this.m11 } };
+    }
+
+    @Override
+    public void apply(double[] input, double[] output)
+    {
+        double x = input[0];
+        double y = input[1];
+        output[0] = this.m00 * x + this.m01 * y;
+        output[1] = this.m10 * x + this.m11 * y;
+    }
+
+    @Override
+    public Vector multiply(Vector vector)
+    {
+        if (vector.getDimension() != 2)
+        {
+            throw new IllegalArgumentException("x dimension of A must be equal to y dimension of B");
+        }
+        double[] coordinates = vector.getCoordinates();
+        double x = coordinates[0];
+        double y = coordinates[1];
+        return new Vector(this.m00 * x + this.m01 * y,
+                          this.m10 * x + this.m11 * y);
+    }
+
+    @Override
+    public Matrix multiply(Matrix matrixB)
+    {
+        if (matrixB instanceof Matrix2x2)
+        {
+            return this.multiply((Matrix2x2) matrixB);
+        }
+        return super.multiply(matrixB);
+    }
+
+    public Matrix2x2 multiply(Matrix2x2 other)
+    {
+        return new Matrix2x2(this.m00 * other.m00 + this.m01 * other.m10,
+                             this.m00 * other.m01 + this.m01 * other.m11,
+                             this.m10 * other.m00 + this.m11 * other.m10,
+                             this.m10 * other.m01 + this.m11 * other.m11);
+    }
+
+    @Override
+    public Matrix2x2 multiply(double scalar)
+    {
+        return new Matrix2x2(this.m00 * scalar, this.m01 * scalar,
+                             this.m10 * scalar, this.m11 * scalar);
+    }
+
+    @Override
+    public Matrix add(Matrix other)
+    {
+        if (other instanceof Matrix2x2)
+        {
+            return this.add((Matrix2x2) other);
+        }
+        return super.add(other);
+    }
+
+    public Matrix2x2 add(Matrix2x2 other)
+    {
+        return new Matrix2x2(this.m00 + other.m00, this.m01 + other.m01,
+                             this.m10 + other.m10, this.m11 + other.m11);
+    }
+
+    @Override
+    public Matrix2x2 transposed()
+    {
+        return new Matrix2x2(this.m00, this.m10,
+                             this.m01, this.m11);
+    }
+
+    @Override
+    public double determinant()
+    {
+        return this.m00 * this.m11 - this.m01 * this.m10;
+    }
+
+    @Override
+    public Matrix2x2 inverse()
+    {
+        double factor = 1.0 / this.determinant();
+        return new Matrix2x2(this.m11 * factor, -this.m01 * factor,
+                             -this.m10 * factor, this.m00 * factor);
+    }
+
+}
@@ -0,0 +1,247 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+/**
+ * Immutable 3x3 {@link Matrix} with field storage and fully unrolled operations, e.g. for rotations and 2D homogeneous transformations.<br>
+ * <br>
+ * Operations with another {@link Matrix3x3} return a {@link Matrix3x3} again, while operations with a general {@link Matrix} fall back to the
+ * generic implementation.
+ *
+ * @author Omnaest
+ */
+public final class Matrix3x3 extends Matrix
+{
+    private final double m00, m01, m02;
+    private final double m10, m11, m12;
+    private final double m20, m21, m22;
+
+    /**
+     * Creates a new {@link Matrix3x3} from the given values in row major order
+     */
+    public Matrix3x3(double m00, double m01, double m02,
+                     double m10, double m11, double m12,
+                     double m20, double m21, double m22)
+    {
+        super();
+        this.m00 = m00;
+        this.m01 = m01;
+        this.m02 = m02;
+        this.m10 = m10;
+        this.m11 = m11;
+        this.m12 = m12;
+        this.m20 = m20;
+        this.m21 = m21;
+        this.m22 = m22;
+    }
+
+    public static Matrix3x3 identity()
+    {
+        return new Matrix3x3(1.0, 0.0, 0.0,
+                             0.0, 1.0, 0.0,
+                             0.0, 0.0, 1.0);
+    }
+
+    /**
+     * Returns the given {@link Matrix} as {@link Matrix3x3}
+     *
+     * @param matrix
+     * @return
+     * @throws IllegalArgumentException
+     *             if the {@link Matrix} is not 3x3
+     */
+    public static Matrix3x3 of(Matrix matrix)
+    {
+        if (matrix instanceof Matrix3x3)
+        {
+            return (Matrix3x3) matrix;
+        }
+        if (matrix.getRowCount() != 3 || matrix.getColumnCount() != 3)
+        {
+            throw new IllegalArgumentException("Matrix must have 3 rows and 3 columns");
+        }
+        return new Matrix3x3(matrix.getRaw(0, 0), matrix.getRaw(1, 0), matrix.getRaw(2, 0),
+                             matrix.getRaw(0, 1), matrix.getRaw(1, 1), matrix.getRaw(2, 1),
+                             matrix.getRaw(0, 2), matrix.getRaw(1, 2), matrix.getRaw(2, 2));
+    }
+
+    @Override
+    protected double getRaw(int x, int y)
+    {
+        switch (y * 3 + x)
+        {
+            case 0:
+                return this.m00;
+            case 1:
+                return this.m01;
+            case 2:
+                return this.m02;
+            case 3:
+                return this.m10;
+            case 4:
+                return this.m11;
+            case 5:
+                return this.m12;
+            case 6:
+                return this.m20;
+            case 7:
+                return this.m21;
+            case 8:
+                return this.m22;
+            default:
+                throw new IndexOutOfBoundsException("Index x=" + x + ", y=" + y + " is outside of the 3x3 matrix");
+        }
+    }
+
+    @Override
+    public int[] getDimensions()
+    {
+        return new int[] { 3, 3 };
+    }
+
+    @Override
+    public int getRowCount()
+    {
+        return 3;
+    }
+
+    @Override
+    public int getColumnCount()
+    {
+        return 3;
+    }
+
+    @Override
+    public double[][] toArray()
+    {
+        return new double[][] { { this.m00, this.m01, this.m02 },
+                                { this.m10, this.m11, this.m12 },
+                                { this.m20, this.m21, this.m22 } };
+    }
+
+    @Override
+    public void apply(double[] input, double[] output)
+    {
+        double x = input[0];
+        double y = input[1];
+        double z = input[2];
+        output[0] = this.m00 * x + this.m01 * y + this.m02 * z;
+        output[1] = this.m10 * x + this.m11 * y + this.m12 * z;
+        output[2] = this.m20 * x + this.m21 * y + this.m22 * z;
+    }
+
+    @Override
+    public Vector multiply(Vector vector)
+    {
+        if (vector.getDimension() != 3)
+        {
+            throw new IllegalArgumentException("x dimension of A must be equal to y dimension of B");
+        }
+        double[] coordinates = vector.getCoordinates();
+        double x = coordinates[0];
+        double y = coordinates[1];
+        double z = coordinates[2];
+        return new Vector(this.m00 * x + this.m01 * y + this.m02 * z,
+                          this.m10 * x + this.m11 * y + this.m12 * z,
+                          this.m20 * x + this.m21 * y + this.m22 * z);
+    }
+
+    @Override
+    public Matrix multiply(Matrix matrixB)
+    {
+        if (matrixB instanceof Matrix3x3)
+        {
+            return this.multiply((Matrix3x3) matrixB);
+        }
+        return super.multiply(matrixB);
+    }
+
+    public Matrix3x3 multiply(Matrix3x3 other)
+    {
+        return new Matrix3x3(this.m00 * other.m00 + this.m01 * other.m10 + this.m02 * other.m20,
+                             this.m00 * other.m01 + this.m01 * other.m11 + this.m02 * other.m21,
+                             this.m00 * other.m02 + this.m01 * other.m12 + this.m02 * other.m22,
+                             this.m10 * other.m00 + this.m11 * other.m10 + this.m12 * other.m20,
+                             this.m10 * other.m01 + this.m11 * other.m11 + this.m12 * other.m21,
+                             this.m10 * other.m02 + this.m11 * other.m12 + this.m12 * other.m22,
+                             this.m20 * other.m00 + this.m21 * other.m10 + this.m22 * other.m20,
+                             this.m20 * other.m01 + this.m21 * other.m11 + this.m22 * other.m21,
+                             this.m20 * other.m02 + this.m21 * other.m12 + this.m22 * other.m22);
+    }
+
+    @Override
+    public Matrix3x3 multiply(double scalar)
+    {
+        return new Matrix3x3(this.m00 * scalar, this.m01 * scalar, this.m02 * scalar,
+                             this.m10 * scalar, this.m11 * scalar, this.m12 * scalar,
+                             this.m20 * scalar, this.m21 * scalar, this.m22 * scalar);
+    }
+
+    @Override
+    public Matrix add(Matrix other)
+    {
+        if (other instanceof Matrix3x3)
+        {
+            return this.add((Matrix3x3) other);
+        }
+        return super.add(other);
+    }
+
+    public Matrix3x3 add(Matrix3x3 other)
+    {
+        return new Matrix3x3(this.m00 + other.m00, this.m01 + other.m01, this.m02 + other.m02,
+                             this.m10 + other.m10, this.m11 + other.m11, this.m12 + other.m12,
+                             this.m20 + other.m20, this.m21 + other.m21, this.m22 + other.m22);
+    }
+
+    @Override
+    public Matrix3x3 transposed()
+    {
+        return new Matrix3x3(this.m00, this.m10, this.m20,
+                             this.m01, this.m11, this.m21,
+                             this.m02, this.m12, this.m22);
+    }
+
+    @Override
+    public double determinant()
+    {
+        return this.m00 * (this.m11 * this.m22 - this.m12 * this.m21)
+                + this.m01 * (this.m12 * this.m20 - this.m10 * this.m22)
+                + this.m02 * (this.m10 * this.m21 - this.m11 * this.m20);
+    }
+
+    @Override
+    public Matrix3x3 inverse()
+    {
+        double c00 = this.m11 * this.m22 - this.m12 * this.m21;
+        double c01 = this.m12 * this.m20 - this.m10 * this.m22;
+        double c02 = this.m10 * this.m21 - this.m11 * this.m20;
+        double factor = 1.0 / (this.m00 * c00 + this.m01 * c01 + this.m02 * c02);
+        double i01 = this.m02 * this.m21 - this.m01 * this.m22;
+        double i02 = this.m01 * this.m12 - this.m02 * this.m11;
+        double i11 = this.m00 * this.m22 - this.m02 * this.m20;
+        double i12 = this.m02 * this.m10 - this.m00 * this.m12;
+        double i21 = this.m01 * this.m20 - this.m00 * this.m21;
+        double i22 = this.m00 * this.m11 - this.m01 * this.m10;
+        return new Matrix3x3(c00 * factor, i01 * factor, i02 * factor,
+                             c01 * factor, i11 * factor, i12 * factor,
+                             c02 * factor, i21 * factor, i22 * factor);
+    }
+
+}
@@ -0,0 +1,308 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+/**
+ * Immutable 4x4 {@link Matrix} with field storage and fully unrolled operations, e.g. for 3D homogeneous transformations.<br>
+ * <br>
+ * Operations with another {@link Matrix4x4} return a {@link Matrix4x4} again, while operations with a general {@link Matrix} fall back to the
+ * generic implementation.
+ *
+ * @author Omnaest
+ */
+public final class Matrix4x4 extends Matrix
+{
+    private final double m00, m01, m02, m03;
+    private final double m10, m11, m12, m13;
+    private final double m20, m21, m22, m23;
+    private final double m30, m31, m32, m33;
+
+    /**
+     * Creates a new {@link Matrix4x4} from the given values in row major order
+     */
+    public Matrix4x4(double m00, double m01, double m02, double m03,
+                     double m10, double m11, double m12, double m13,
+                     double m20, double m21, double m22, double m23,
+                     double m30, double m31, double m32, double m33)
+    {
+        super();
+        this.m00 = m00;
+        this.m01 = m01;
+        this.m02 = m02;
+        this.m03 = m03;
+        this.m10 = m10;
+        this.m11 = m11;
+        this.m12 = m12;
+        this.m13 = m13;
+        this.m20 = m20;
+        this.m21 = m21;
+        this.m22 = m22;
+        this.m23 = m23;
+        this.m30 = m30;
+        this.m31 = m31;
+        this.m32 = m32;
+        this.m33 = m33;
+    }
+
+    public static Matrix4x4 identity()
+    {
+        return new Matrix4x4(1.0, 0.0, 0.0, 0.0,
+                             0.0, 1.0, 0.0, 0.0,
+                             0.0, 0.0, 1.0, 0.0,
+                             0.0, 0.0, 0.0, 1.0);
+    }
+
+    /**
+     * Returns the given {@link Matrix} as {@link Matrix4x4}
+     *
+     * @param matrix
+     * @return
+     * @throws IllegalArgumentException
+     *             if the {@link Matrix} is not 4x4
+     */
+    public static Matrix4x4 of(Matrix matrix)
+    {
+        if (matrix instanceof Matrix4x4)
+        {
+            return (Matrix4x4) matrix;
+        }
+        if (matrix.getRowCount() != 4 || matrix.getColumnCount() != 4)
+        {
+            throw new IllegalArgumentException("Matrix must have 4 rows and 4 columns");
+        }
+        return new Matrix4x4(matrix.getRaw(0, 0), matrix.getRaw(1, 0), matrix.getRaw(2, 0), matrix.getRaw(3, 0),
+                             matrix.getRaw(0, 1), matrix.getRaw(1, 1), matrix.getRaw(2, 1), matrix.getRaw(3, 1),
+                             matrix.getRaw(0, 2), matrix.getRaw(1, 2), matrix.getRaw(2, 2), matrix.getRaw(3, 2),
+                             matrix.getRaw(0, 3), matrix.getRaw(1, 3), matrix.getRaw(2, 3), matrix.getRaw(3, 3));
+    }
+
+    @Override
+    protected double getRaw(int x, int y)
+    {
+        switch (y * 4 + x)
+        {
+            case 0:
+                return this.m00;
+            case 1:
+                return this.m01;
+            case 2:
+                return this.m02;
+            case 3:
+                return this.m03;
+            case 4:
+                return this.m10;
+            case 5:
+                return this.m11;
+            case 6:
+                return this.m12;
+            case 7:
+                return this.m13;
+            case 8:
+                return this.m20;
+            case 9:
+                return this.m21;
+            case 10:
+                return this.m22;
+            case 11:
+                return this.m23;
+            case 12:
+                return this.m30;
+            case 13:
+                return this.m31;
+            case 14:
+                return this.m32;
+            case 15:
+                return this.m33;
+            default:
+                throw new IndexOutOfBoundsException("Index x=" + x + ", y=" + y + " is outside of the 4x4 matrix");
+        }
+    }
+
+    @Override
+    public int[] getDimensions()
+    {
+        return new int[] { 4, 4 };
+    }
+
+    @Override
+    public int getRowCount()
+    {
+        return 4;
+    }
+
+    @Override
+    public int getColumnCount()
+    {
+        return 4;
+    }
+
+    @Override
+    public double[][] toArray()
+    {
+        return new double[][] { { this.m00, this.m01, this.m02, this.m03 },
+                                { this.m10, this.m11, this.m12, this.m13 },
+                                { this.m20, this.m21, this.m22, this.m23 },
+                                { this.m30, this.m31, this.m32, this.m33 } };
+    }
+
+    @Override
+    public void apply(double[] input, double[] output)
+    {
+        double x = input[0];
+        double y = input[1];
+        double z = input[2];
+        double w = input[3];
+        output[0] = this.m00 * x + this.m01 * y + this.m02 * z + this.m03 * w;
+        output[1] = this.m10 * x + this.m11 * y + this.m12 * z + this.m13 * w;
+        output[2] = this.m20 * x + this.m21 * y + this.m22 * z + this.m23 * w;
+        output[3] = this.m30 * x + this.m31 * y + this.m32 * z + this.m33 * w;
+    }
+
+    @Override
+    public Vector multiply(Vector vector)
+    {
+        if (vector.getDimension() != 4)
+        {
+            throw new IllegalArgumentException("x dimension of A must be equal to y dimension of B");
+        }
+        double[] coordinates = vector.getCoordinates();
+        double x = coordinates[0];
+        double y = coordinates[1];
+        double z = coordinates[2];
+        double w = coordinates[3];
+        return new Vector(this.m00 * x + this.m01 * y + this.m02 * z + this.m03 * w,
+                          this.m10 * x + this.m11 * y + this.m12 * z + this.m13 * w,
+                          this.m20 * x + this.m21 * y + this.m22 * z + this.m23 * w,
+                          this.m30 * x + this.m31 * y + this.m32 * z + this.m33 * w);
+    }
+
+    @Override
+    public Matrix multiply(Matrix matrixB)
+    {
+        if (matrixB instanceof Matrix4x4)
+        {
+            return this.multiply((Matrix4x4) matrixB);
+        }
+        return super.multiply(matrixB);
+    }
+
+    public Matrix4x4 multiply(Matrix4x4 other)
+    {
+        return new Matrix4x4(this.m00 * other.m00 + this.m01 * other.m10 + this.m02 * other.m20 + this.m03 * other.m30,
+                             this.m00 * other.m01 + this.m01 * other.m11 + this.m02 * other.m21 + this.m03 * other.m31,
+                             this.m00 * other.m02 + this.m01 * other.m12 + this.m02 * other.m22 + this.m03 * other.m32,
+                             this.m00 * other.m03 + this.m01 * other.m13 + this.m02 * other.m23 + this.m03 * other.m33,
+                             this.m10 * other.m00 + this.m11 * other.m10 + this.m12 * other.m20 + this.m13 * other.m30,
+                             this.m10 * other.m01 + this.m11 * other.m11 + this.m12 * other.m21 + this.m13 * other.m31,
+                             this.m10 * other.m02 + this.m11 * other.m12 + this.m12 * other.m22 + this.m13 * other.m32,
+                             this.m10 * other.m03 + this.m11 * other.m13 + this.m12 * other.m23 + this.m13 * other.m33,
+                             this.m20 * other.m00 + this.m21 * other.m10 + this.m22 * other.m20 + this.m23 * other.m30,
+                             this.m20 * other.m01 + this.m21 * other.m11 + this.m22 * other.m21 + this.m23 * other.m31,
+                             this.m20 * other.m02 + this.m21 * other.m12 + this.m22 * other.m22 + this.m23 * other.m32,
+                             this.m20 * other.m03 + this.m21 * other.m13 + this.m22 * other.m23 + this.m23 * other.m33,
+                             this.m30 * other.m00 + this.m31 * other.m10 + this.m32 * other.m20 + this.m33 * other.m30,
+                             this.m30 * other.m01 + this.m31 * other.m11 + this.m32 * other.m21 + this.m33 * other.m31,
+                             this.m30 * other.m02 + this.m31 * other.m12 + this.m32 * other.m22 + this.m33 * other.m32,
+                             this.m30 * other.m03 + this.m31 * other.m13 + this.m32 * other.m23 + this.m33 * other.m33);
+    }
+
+    @Override
+    public Matrix4x4 multiply(double scalar)
+    {
+        return new Matrix4x4(this.m00 * scalar, this.m01 * scalar, this.m02 * scalar, this.m03 * scalar,
+                             this.m10 * scalar, this.m11 * scalar, this.m12 * scalar, this.m13 * scalar,
+                             this.m20 * scalar, this.m21 * scalar, this.m22 * scalar, this.m23 * scalar,
+                             this.m30 * scalar, this.m31 * scalar, this.m32 * scalar, this.m33 * scalar);
+    }
+
+    @Override
+    public Matrix add(Matrix other)
+    {
+        if (other instanceof Matrix4x4)
+        {
+            return this.add((Matrix4x4) other);
+        }
+        return super.add(other);
+    }
+
+    public Matrix4x4 add(Matrix4x4 other)
+    {
+        return new Matrix4x4(this.m00 + other.m00, this.m01 + other.m01, this.m02 + other.m02, this.m03 + other.m03,
+                             this.m10 + other.m10, this.m11 + other.m11, this.m12 + other.m12, this.m13 + other.m13,
+                             this.m20 + other.m20, this.m21 + other.m21, this.m22 + other.m22, this.m23 + other.m23,
+                             this.m30 + other.m30, this.m31 + other.m31, this.m32 + other.m32, this.m33 + other.m33);
+    }
+
+    @Override
+    public Matrix4x4 transposed()
+    {
+        return new Matrix4x4(this.m00, this.m10, this.m20, this.m30,
+                             this.m01, this.m11, this.m21, this.m31,
+                             this.m02, this.m12, this.m22, this.m32,
+                             this.m03, this.m13, this.m23, this.m33);
+    }
+
+    /**
+     * Uses the 2x2 sub determinants of the upper and lower two rows
+     */
+    @Override
+    public double determinant()
+    {
+        double s0 = this.m00 * this.m11 - this.m10 * this.m01;
+        double s1 = this.m00 * this.m12 - this.m10 * this.m02;
+        double s2 = this.m00 * this.m13 - this.m10 * this.m03;
+        double s3 = this.m01 * this.m12 - this.m11 * this.m02;
+        double s4 = this.m01 * this.m13 - this.m11 * this.m03;
+        double s5 = this.m02 * this.m13 - this.m12 * this.m03;
+        double c5 = this.m22 * this.m33 - this.m32 * this.m23;
+        double c4 = this.m21 * this.m33 - this.m31 * this.m23;
+        double c3 = this.m21 * this.m32 - this.m31 * this.m22;
+        double c2 = this.m20 * this.m33 - this.m30 * this.m23;
+        double c1 = this.m20 * this.m32 - this.m30 * this.m22;
+        double c0 = this.m20 * this.m31 - this.m30 * this.m21;
+        return s0 * c5 - s1 * c4 + s2 * c3 + s3 * c2 - s4 * c1 + s5 * c0;
+    }
+
+    @Override
+    public Matrix4x4 inverse()
+    {
+        double s0 = this.m00 * this.m11 - this.m10 * this.m01;
+        double s1 = this.m00 * this.m12 - this.m10 * this.m02;
+        double s2 = this.m00 * this.m13 - this.m10 * this.m03;
+        double s3 = this.m01 * this.m12 - this.m11 * this.m02;
+        double s4 = this.m01 * this.m13 - this.m11 * this.m03;
+        double s5 = this.m02 * this.m13 - this.m12 * this.m03;
+        double c5 = this.m22 * this.m33 - this.m32 * this.m23;
+        double c4 = this.m21 * this.m33 - this.m31 * this.m23;
+        double c3 = this.m21 * this.m32 - this.m31 * this.m22;
+        double c2 = this.m20 * this.m33 - this.m30 * this.m23;
+        double c1 = this.m20 * this.m32 - this.m30 * this.m22;
+        double c0 = this.m20 * this.m31 - this.m30 * this.m21;
+        double factor = 1.0 / (s0 * c5 - s1 * c4 + s2 * c3 + s3 * c2 - s4 * c1 + s5 * c0);
+        return new Matrix4x4((this.m11 * c5 - this.m12 * c4 + this.m13 * c3) * factor, (-this.m01 * c5 + this.m02 * c4 - this.m03 * c3) * factor,
+                             (this.m31 * s5 - this.m32 * s4 + this.m33 * s3) * factor, (-this.m21 * s5 + this.m22 * s4 - this.m23 * s3) * factor,
+                             (-this.m10 * c5 + this.m12 * c2 - this.m13 * c1) * factor, (this.m00 * c5 - this.m02 * c2 + this.m03 * c1) * factor,
+                             (-this.m30 * s5 + this.m32 * s2 - this.m33 * s1) * factor, (this.m20 * s5 - this.m22 * s2 + this.m23 * s1) * factor,
+                             (this.m10 * c4 - this.m11 * c2 + this.m13 * c0) * factor, (-this.m00 * c4 + this.m01 * c2 - this.m03 * c0) * factor,
+                             (this.m30 * s4 - this.m31 * s2 + this.m33 * s0) * factor, (-this.m20 * s4 + this.m21 * s2 - this.m23 * s0) * factor,
+                             (-this.m10 * c3 + this.m11 * c1 - this.m12 * c0) * factor, (this.m00 * c3 - this.m01 * c1 + this.m02 * c0) * factor,
+                             (-this.m30 * s3 + this.m31 * s1 - this.m32 * s0) * factor, (this.m20 * s3 - this.m21 * s1 + this.m22 * s0) * factor);
+    }
+
+}
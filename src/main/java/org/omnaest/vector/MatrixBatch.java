@@ -0,0 +1,478 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * Determinants, adjuncts, inverses and solutions of linear systems for many small square matrices at once.<br>
+ * <br>
+ * The matrices are packed contiguously into a single array, each one row major with dimension * dimension values, and the results are
+ * written into output arrays in the same layout. The dimensions 2, 3 and 4 use closed formulas with straight line code and no allocation,
+ * other dimensions use Gaussian elimination with partial pivoting. The parallel variants process chunks of matrices on the common
+ * {@link java.util.concurrent.ForkJoinPool}.<br>
+ * <br>
+ * Singular matrices do not cause an exception, but lead to non finite values in the inverses and solutions, which can be recognized by
+ * their determinant of 0.<br>
+ * <br>
+ * Example:<br>
+ *
+ * <pre>
+ * double[] matrices = ...; // 9 values per 3x3 matrix
+ * double[] determinants = new double[matrices.length / 9];
+ * MatrixBatch.determinantsParallel(3, matrices, determinants);
+ * </pre>
+ *
+ * @see Matrix3x3
+ * @see Matrix4x4
+ * @author Omnaest
+ */
+public final class MatrixBatch
+{
+    private static final int CHUNK_SIZE = 4096;
+
+    private MatrixBatch()
+    {
+        super();
+    }
+
+    private static interface ChunkOperation
+    {
+        public void apply(int fromMatrix, int toMatrix);
+    }
+
+    private static int numberOfMatrices(int dimension, double[] matrices)
+    {
+        if (dimension < 1)
+        {
+            throw new IllegalArgumentException("Dimension must be positive");
+        }
+        return matrices.length / (dimension * dimension);
+    }
+
+    private static void forEachChunkParallel(int numberOfMatrices, ChunkOperation operation)
+    {
+        int numberOfChunks = (numberOfMatrices + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        IntStream.range(0, numberOfChunks)
+                 .parallel()
+                 .forEach(chunk -> operation.apply(chunk * CHUNK_SIZE, Math.min(numberOfMatrices, (chunk + 1) * CHUNK_SIZE)));
+    }
+
+    /**
+     * Writes the determinant of each of the packed matrices into the given determinants array, which needs one element per matrix
+     *
+     * @param dimension
+     * @param matrices
+     * @param determinants
+     */
+    public static void determinants(int dimension, double[] matrices, double[] determinants)
+    {
+        determinants(dimension, matrices, determinants, 0, numberOfMatrices(dimension, matrices));
+    }
+
+    /**
+     * Similar to {@link #determinants(int, double[], double[])} but processes chunks of matrices in parallel
+     *
+     * @param dimension
+     * @param matrices
+     * @param determinants
+     */
+    public static void determinantsParallel(int dimension, double[] matrices, double[] determinants)
+    {
+        forEachChunkParallel(numberOfMatrices(dimension, matrices),
+                             (fromMatrix, toMatrix) -> determinants(dimension, matrices, determinants, fromMatrix, toMatrix));
+    }
+
+    private static void determinants(int dimension, double[] matrices, double[] determinants, int fromMatrix, int toMatrix)
+    {
+        int size = dimension * dimension;
+        switch (dimension)
+        {
+            case 2:
+                for (int ii = fromMatrix; ii < toMatrix; ii++)
+                {
+                    int offset = ii * size;
+                    determinants[ii] = matrices[offset] * matrices[offset + 3] - matrices[offset + 1] * matrices[offset + 2];
+                }
+                break;
+            case 3:
+                for (int ii = fromMatrix; ii < toMatrix; ii++)
+                {
+                    determinants[ii] = determinant3x3(matrices, ii * size);
+                }
+                break;
+            case 4:
+                for (int ii = fromMatrix; ii < toMatrix; ii++)
+                {
+                    determinants[ii] = determinant4x4(matrices, ii * size);
+                }
+                break;
+            default:
+                double[][] scratch = new double[dimension][dimension];
+                for (int ii = fromMatrix; ii < toMatrix; ii++)
+                {
+                    unpack(matrices, ii * size, scratch);
+                    determinants[ii] = DenseKernels.determinant(scratch);
+                }
+        }
+    }
+
+    private static double determinant3x3(double[] m, int offset)
+    {
+        double a = m[offset];
+        double b = m[offset + 1];
+        double c = m[offset + 2];
+        double d = m[offset + 3];
+        double e = m[offset + 4];
+        double f = m[offset + 5];
+        double g = m[offset + 6];
+        double h = m[offset + 7];
+        double i = m[offset + 8];
+        return a * (e * i - f * h) + b * (f * g - d * i) + c * (d * h - e * g);
+    }
+
+    /**
+     * Uses the 2x2 sub determinants of the upper and lower two rows
+     */
+    private static double determinant4x4(double[] m, int offset)
+    {
+        double s0 = m[offset] * m[offset + 5] - m[offset + 4] * m[offset + 1];
+        double s1 = m[offset] * m[offset + 6] - m[offset + 4] * m[offset + 2];
+        double s2 = m[offset] * m[offset + 7] - m[offset + 4] * m[offset + 3];
+        double s3 = m[offset + 1] * m[offset + 6] - m[offset + 5] * m[offset + 2];
+        double s4 = m[offset + 1] * m[offset + 7] - m[offset + 5] * m[offset + 3];
+        double s5 = m[offset + 2] * m[offset + 7] - m[offset + 6] * m[offset + 3];
+        double c5 = m[offset + 10] * m[offset + 15] - m[offset + 14] * m[offset + 11];
+        double c4 = m[offset + 9] * m[offset + 15] - m[offset + 13] * m[offset + 11];
+        double c3 = m[offset + 9] * m[offset + 14] - m[offset + 13] * m[offset + 10];
+        double c2 = m[offset + 8] * m[offset + 15] - m[offset + 12] * m[offset + 11];
+        double c1 = m[offset + 8] * m[offset + 14] - m[offset + 12] * m[offset + 10];
+        double c0 = m[offset + 8] * m[offset + 13] - m[offset + 12] * m[offset + 9];
+        return s0 * c5 - s1 * c4 + s2 * c3 + s3 * c2 - s4 * c1 + s5 * c0;
+    }
+
+    /**
+     * Writes the adjunct of each of the packed matrices into the given adjuncts array, which has the same layout as the matrices
+     *
+     * @see Matrix#adjunct()
+     * @param dimension
+     * @param matrices
+     * @param adjuncts
+     */
+    public static void adjuncts(int dimension, double[] matrices, double[] adjuncts)
+    {
+        adjuncts(dimension, matrices, adjuncts, 0, numberOfMatrices(dimension, matrices), false);
+    }
+
+    /**
+     * Similar to {@link #adjuncts(int, double[], double[])} but processes chunks of matrices in parallel
+     *
+     * @param dimension
+     * @param matrices
+     * @param adjuncts
+     */
+    public static void adjunctsParallel(int dimension, double[] matrices, double[] adjuncts)
+    {
+        forEachChunkParallel(numberOfMatrices(dimension, matrices),
+                             (fromMatrix, toMatrix) -> adjuncts(dimension, matrices, adjuncts, fromMatrix, toMatrix, false));
+    }
+
+    /**
+     * Writes the inverse of each of the packed matrices into the given inverses array, which has the same layout as the matrices. Matrices
+     * and inverses can be the same array.
+     *
+     * @param dimension
+     * @param matrices
+     * @param inverses
+     */
+    public static void inverses(int dimension, double[] matrices, double[] inverses)
+    {
+        adjuncts(dimension, matrices, inverses, 0, numberOfMatrices(dimension, matrices), true);
+    }
+
+    /**
+     * Similar to {@link #inverses(int, double[], double[])} but processes chunks of matrices in parallel
+     *
+     * @param dimension
+     * @param matrices
+     * @param inverses
+     */
+    public static void inversesParallel(int dimension, double[] matrices, double[] inverses)
+    {
+        forEachChunkParallel(numberOfMatrices(dimension, matrices),
+                             (fromMatrix, toMatrix) -> adjuncts(dimension, matrices, inverses, fromMatrix, toMatrix, true));
+    }
+
+    /**
+     * Writes the adjuncts, or with invert set the inverses, which are the adjuncts divided by the determinant
+     */
+    private static void adjuncts(int dimension, double[] matrices, double[] target, int fromMatrix, int toMatrix, boolean invert)
+    {
+        int size = dimension * dimension;
+        switch (dimension)
+        {
+            case 2:
+                for (int ii = fromMatrix; ii < toMatrix; ii++)
+                {
+                    adjunct2x2(matrices, ii * size, target, invert);
+                }
+                break;
+            case 3:
+                for (int ii = fromMatrix; ii < toMatrix; ii++)
+                {
+                    adjunct3x3(matrices, ii * size, target, invert);
+                }
+                break;
+            case 4:
+                for (int ii = fromMatrix; ii < toMatrix; ii++)
+                {
+                    adjunct4x4(matrices, ii * size, target, invert);
+                }
+                break;
+            default:
+                double[][] scratch = new double[dimension][dimension];
+                for (int ii = fromMatrix; ii < toMatrix; ii++)
+                {
+                    adjunctNxN(dimension, matrices, ii * size, target, invert, scratch);
+                }
+        }
+    }
+
+    private static void adjunct2x2(double[] m, int offset, double[] target, boolean invert)
+    {
+        double a = m[offset];
+        double b = m[offset + 1];
+        double c = m[offset + 2];
+        double d = m[offset + 3];
+        double factor = invert ? 1.0 / (a * d - b * c) : 1.0;
+        target[offset] = d * factor;
+        target[offset + 1] = -b * factor;
+        target[offset + 2] = -c * factor;
+        target[offset + 3] = a * factor;
+    }
+
+    private static void adjunct3x3(double[] m, int offset, double[] target, boolean invert)
+    {
+        double a = m[offset];
+        double b = m[offset + 1];
+        double c = m[offset + 2];
+        double d = m[offset + 3];
+        double e = m[offset + 4];
+        double f = m[offset + 5];
+        double g = m[offset + 6];
+        double h = m[offset + 7];
+        double i = m[offset + 8];
+        double c00 = e * i - f * h;
+        double c01 = f * g - d * i;
+        double c02 = d * h - e * g;
+        double factor = invert ? 1.0 / (a * c00 + b * c01 + c * c02) : 1.0;
+        target[offset] = c00 * factor;
+        target[offset + 1] = (c * h - b * i) * factor;
+        target[offset + 2] = (b * f - c * e) * factor;
+        target[offset + 3] = c01 * factor;
+        target[offset + 4] = (a * i - c * g) * factor;
+        target[offset + 5] = (c * d - a * f) * factor;
+        target[offset + 6] = c02 * factor;
+        target[offset + 7] = (b * g - a * h) * factor;
+        target[offset + 8] = (a * e - b * d) * factor;
+    }
+
+    /**
+     * Uses the 2x2 sub determinants of the upper and lower two rows
+     */
+    private static void adjunct4x4(double[] m, int offset, double[] target, boolean invert)
+    {
+        double m00 = m[offset];
+        double m01 = m[offset + 1];
+        double m02 = m[offset + 2];
+        double m03 = m[offset + 3];
+        double m10 = m[offset + 4];
+        double m11 = m[offset + 5];
+        double m12 = m[offset + 6];
+        double m13 = m[offset + 7];
+        double m20 = m[offset + 8];
+        double m21 = m[offset + 9];
+        double m22 = m[offset + 10];
+        double m23 = m[offset + 11];
+        double m30 = m[offset + 12];
+        double m31 = m[offset + 13];
+        double m32 = m[offset + 14];
+        double m33 = m[offset + 15];
+        double s0 = m00 * m11 - m10 * m01;
+        double s1 = m00 * m12 - m10 * m02;
+        double s2 = m00 * m13 - m10 * m03;
+        double s3 = m01 * m12 - m11 * m02;
+        double s4 = m01 * m13 - m11 * m03;
+        double s5 = m02 * m13 - m12 * m03;
+        double c5 = m22 * m33 - m32 * m23;
+        double c4 = m21 * m33 - m31 * m23;
+        double c3 = m21 * m32 - m31 * m22;
+        double c2 = m20 * m33 - m30 * m23;
+        double c1 = m20 * m32 - m30 * m22;
+        double c0 = m20 * m31 - m30 * m21;
+        double factor = invert ? 1.0 / (s0 * c5 - s1 * c4 + s2 * c3 + s3 * c2 - s4 * c1 + s5 * c0) : 1.0;
+        target[offset] = (m11 * c5 - m12 * c4 + m13 * c3) * factor;
+        target[offset + 1] = (-m01 * c5 + m02 * c4 - m03 * c3) * factor;
+        target[offset + 2] = (m31 * s5 - m32 * s4 + m33 * s3) * factor;
+        target[offset + 3] = (-m21 * s5 + m22 * s4 - m23 * s3) * factor;
+        target[offset + 4] = (-m10 * c5 + m12 * c2 - m13 * c1) * factor;
+        target[offset + 5] = (m00 * c5 - m02 * c2 + m03 * c1) * factor;
+        target[offset + 6] = (-m30 * s5 + m32 * s2 - m33 * s1) * factor;
+        target[offset + 7] = (m20 * s5 - m22 * s2 + m23 * s1) * factor;
+        target[offset + 8] = (m10 * c4 - m11 * c2 + m13 * c0) * factor;
+        target[offset + 9] = (-m00 * c4 + m01 * c2 - m03 * c0) * factor;
+        target[offset + 10] = (m30 * s4 - m31 * s2 + m33 * s0) * factor;
+        target[offset + 11] = (-m20 * s4 + m21 * s2 - m23 * s0) * factor;
+        target[offset + 12] = (-m10 * c3 + m11 * c1 - m12 * c0) * factor;
+        target[offset + 13] = (m00 * c3 - m01 * c1 + m02 * c0) * factor;
+        target[offset + 14] = (-m30 * s3 + m31 * s1 - m32 * s0) * factor;
+        target[offset + 15] = (m20 * s3 - m21 * s1 + m22 * s0) * factor;
+    }
+
+    /**
+     * Computes the adjunct entry wise from the determinants of the minors, or the inverse by Gauss-Jordan elimination
+     */
+    private static void adjunctNxN(int dimension, double[] matrices, int offset, double[] target, boolean invert, double[][] scratch)
+    {
+        if (invert)
+        {
+            unpack(matrices, offset, scratch);
+            double[][] inverse;
+            try
+            {
+                inverse = DenseKernels.inverse(scratch);
+            }
+            catch (IllegalStateException e)
+            {
+                Arrays.fill(target, offset, offset + dimension * dimension, Double.NaN);
+                return;
+            }
+            for (int ii = 0; ii < dimension; ii++)
+            {
+                System.arraycopy(inverse[ii], 0, target, offset + ii * dimension, dimension);
+            }
+            return;
+        }
+
+        double[] adjunct = new double[dimension * dimension];
+        if (dimension == 1)
+        {
+            adjunct[0] = 1.0;
+        }
+        else
+        {
+            double[][] minor = new double[dimension - 1][dimension - 1];
+            for (int ii = 0; ii < dimension; ii++)
+            {
+                for (int jj = 0; jj < dimension; jj++)
+                {
+                    for (int y = 0; y < dimension - 1; y++)
+                    {
+                        for (int x = 0; x < dimension - 1; x++)
+                        {
+                            minor[y][x] = matrices[offset + (y < ii ? y : y + 1) * dimension + (x < jj ? x : x + 1)];
+                        }
+                    }
+                    double sign = (ii + jj) % 2 == 0 ? 1.0 : -1.0;
+                    adjunct[jj * dimension + ii] = sign * DenseKernels.determinant(minor);
+                }
+            }
+        }
+        System.arraycopy(adjunct, 0, target, offset, adjunct.length);
+    }
+
+    /**
+     * Writes the solution x of A * x = b for each of the packed matrices A and the packed right hand sides b with dimension values each into
+     * the given solutions array, which has the same layout as the right hand sides
+     *
+     * @param dimension
+     * @param matrices
+     * @param rightHandSides
+     * @param solutions
+     */
+    public static void solve(int dimension, double[] matrices, double[] rightHandSides, double[] solutions)
+    {
+        solve(dimension, matrices, rightHandSides, solutions, 0, numberOfMatrices(dimension, matrices));
+    }
+
+    /**
+     * Similar to {@link #solve(int, double[], double[], double[])} but processes chunks of matrices in parallel
+     *
+     * @param dimension
+     * @param matrices
+     * @param rightHandSides
+     * @param solutions
+     */
+    public static void solveParallel(int dimension, double[] matrices, double[] rightHandSides, double[] solutions)
+    {
+        forEachChunkParallel(numberOfMatrices(dimension, matrices),
+                             (fromMatrix, toMatrix) -> solve(dimension, matrices, rightHandSides, solutions, fromMatrix, toMatrix));
+    }
+
+    private static void solve(int dimension, double[] matrices, double[] rightHandSides, double[] solutions, int fromMatrix, int toMatrix)
+    {
+        int size = dimension * dimension;
+        if (dimension >= 2 && dimension <= 4)
+        {
+            double[] inverse = new double[size];
+            double[] x = new double[dimension];
+            for (int ii = fromMatrix; ii < toMatrix; ii++)
+            {
+                System.arraycopy(matrices, ii * size, inverse, 0, size);
+                adjuncts(dimension, inverse, inverse, 0, 1, true);
+                int offset = ii * dimension;
+                for (int row = 0; row < dimension; row++)
+                {
+                    x[row] = DenseKernels.dot(inverse, row * dimension, rightHandSides, offset, dimension);
+                }
+                System.arraycopy(x, 0, solutions, offset, dimension);
+            }
+        }
+        else
+        {
+            double[][] scratch = new double[dimension][dimension];
+            double[] b = new double[dimension];
+            for (int ii = fromMatrix; ii < toMatrix; ii++)
+            {
+                unpack(matrices, ii * size, scratch);
+                int offset = ii * dimension;
+                System.arraycopy(rightHandSides, offset, b, 0, dimension);
+                try
+                {
+                    System.arraycopy(DenseKernels.solve(scratch, b), 0, solutions, offset, dimension);
+                }
+                catch (IllegalStateException e)
+                {
+                    Arrays.fill(solutions, offset, offset + dimension, Double.NaN);
+                }
+            }
+        }
+    }
+
+    private static void unpack(double[] matrices, int offset, double[][] target)
+    {
+        int dimension = target.length;
+        for (int ii = 0; ii < dimension; ii++)
+        {
+            System.arraycopy(matrices, offset + ii * dimension, target[ii], 0, dimension);
+        }
+    }
+
+}
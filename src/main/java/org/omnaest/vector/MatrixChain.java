@@ -0,0 +1,292 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lazy product of a chain of {@link Matrix}es, which is evaluated in the order with the least number of scalar multiplications.<br>
+ * <br>
+ * The optimal parenthesization is found by dynamic programming over the dimensions of the chain in O(k<sup>3</sup>) for k {@link Matrix}es.
+ * For chains with very different shapes, e.g. tall times wide times tall, this can be orders of magnitude cheaper than the left to right
+ * evaluation of {@link Matrix#multiply(Matrix)}. The order is planned once on creation. Intermediate products are taken from the
+ * {@link ScratchArena} and a buffer is reused by later products of the same shape as soon as its product has been consumed, so repeated
+ * evaluations only allocate the final result.<br>
+ * <br>
+ * Example:<br>
+ *
+ * <pre>
+ * Matrix product = MatrixChain.of(a)
+ *                             .multiply(b)
+ *                             .multiply(c)
+ *                             .evaluate();
+ * </pre>
+ *
+ * @author Omnaest
+ */
+public class MatrixChain
+{
+    private final List<Matrix> matrices;
+
+    private final int[]  dimensions;
+    private final long[] costs;
+    private final int[]  splits;
+
+    protected MatrixChain(List<Matrix> matrices)
+    {
+        super();
+        this.matrices = matrices;
+
+        int size = matrices.size();
+        this.dimensions = new int[size + 1];
+        for (int ii = 0; ii < size; ii++)
+        {
+            this.dimensions[ii] = matrices.get(ii)
+                                          .getRowCount();
+        }
+        this.dimensions[size] = matrices.get(size - 1)
+                                        .getColumnCount();
+
+        this.costs = new long[size * size];
+        this.splits = new int[size * size];
+        for (int length = 2; length <= size; length++)
+        {
+            for (int ii = 0; ii + length <= size; ii++)
+            {
+                int jj = ii + length - 1;
+                long bestCost = Long.MAX_VALUE;
+                for (int kk = ii; kk < jj; kk++)
+                {
+                    long cost = this.costs[ii * size + kk] + this.costs[(kk + 1) * size + jj]
+                            + (long) this.dimensions[ii] * this.dimensions[kk + 1] * this.dimensions[jj + 1];
+                    if (cost < bestCost)
+                    {
+                        bestCost = cost;
+                        this.splits[ii * size + jj] = kk;
+                    }
+                }
+                this.costs[ii * size + jj] = bestCost;
+            }
+        }
+    }
+
+    /**
+     * Returns a new {@link MatrixChain} of the given {@link Matrix}es
+     *
+     * @param matrices
+     * @return
+     */
+    public static MatrixChain of(Matrix... matrices)
+    {
+        return of(Arrays.asList(matrices));
+    }
+
+    /**
+     * Returns a new {@link MatrixChain} of the given {@link Matrix}es
+     *
+     * @param matrices
+     * @return
+     * @throws IllegalArgumentException
+     *             if the chain is empty or the dimensions of neighbouring {@link Matrix}es do not match
+     */
+    public static MatrixChain of(List<Matrix> matrices)
+    {
+        if (matrices.isEmpty())
+        {
+            throw new IllegalArgumentException("Chain must contain at least one matrix");
+        }
+        for (int ii = 1; ii < matrices.size(); ii++)
+        {
+            if (matrices.get(ii - 1)
+                        .getColumnCount() != matrices.get(ii)
+                                                     .getRowCount())
+            {
+                throw new IllegalArgumentException("x dimension of A must be equal to y dimension of B");
+            }
+        }
+        return new MatrixChain(new ArrayList<>(matrices));
+    }
+
+    /**
+     * Returns the product of the given {@link Matrix}es evaluated in the optimal order
+     *
+     * @param matrices
+     * @return
+     */
+    public static Matrix product(Matrix... matrices)
+    {
+        return of(matrices).evaluate();
+    }
+
+    /**
+     * Returns a new {@link MatrixChain}, which appends the given {@link Matrix} to this chain
+     *
+     * @param matrix
+     * @return
+     */
+    public MatrixChain multiply(Matrix matrix)
+    {
+        List<Matrix> matrices = new ArrayList<>(this.matrices);
+        matrices.add(matrix);
+        return of(matrices);
+    }
+
+    /**
+     * Returns the number of scalar multiplications of the optimal evaluation order
+     *
+     * @return
+     */
+    public long getCost()
+    {
+        int size = this.matrices.size();
+        return this.costs[size - 1];
+    }
+
+    /**
+     * Returns the number of scalar multiplications of the left to right evaluation
+     *
+     * @return
+     */
+    public long getLeftToRightCost()
+    {
+        long retval = 0;
+        for (int ii = 1; ii < this.matrices.size(); ii++)
+        {
+            retval += (long) this.dimensions[0] * this.dimensions[ii] * this.dimensions[ii + 1];
+        }
+        return retval;
+    }
+
+    /**
+     * Returns the optimal evaluation order, e.g. "(A1 (A2 A3))"
+     *
+     * @return
+     */
+    public String getParenthesization()
+    {
+        StringBuilder retval = new StringBuilder();
+        this.appendParenthesization(0, this.matrices.size() - 1, retval);
+        return retval.toString();
+    }
+
+    private void appendParenthesization(int from, int to, StringBuilder builder)
+    {
+        if (from == to)
+        {
+            builder.append("A")
+                   .append(from + 1);
+        }
+        else
+        {
+            int split = this.splits[from * this.matrices.size() + to];
+            builder.append("(");
+            this.appendParenthesization(from, split, builder);
+            builder.append(" ");
+            this.appendParenthesization(split + 1, to, builder);
+            builder.append(")");
+        }
+    }
+
+    /**
+     * Returns the product of the chain evaluated in the optimal order
+     *
+     * @return
+     */
+    public Matrix evaluate()
+    {
+        int size = this.matrices.size();
+        if (size == 1)
+        {
+            return this.matrices.get(0);
+        }
+
+        double[][][] operands = new double[size][][];
+        for (int ii = 0; ii < size; ii++)
+        {
+            operands[ii] = this.matrices.get(ii)
+                                        .toArray();
+        }
+        try (ScratchArena arena = ScratchArena.open())
+        {
+            return new Matrix(this.evaluate(0, size - 1, operands, arena, new HashMap<>()));
+        }
+    }
+
+    /**
+     * Evaluates the sub chain from the first to the last given index. Buffers of consumed intermediate products are put into the given
+     * released buffers by shape and taken from there by later products, e.g. a right nested chain ping-pongs between two buffers.
+     */
+    private double[][] evaluate(int from, int to, double[][][] operands, ScratchArena arena, Map<Long, ArrayDeque<double[][]>> releasedBuffers)
+    {
+        if (from == to)
+        {
+            return operands[from];
+        }
+        int size = this.matrices.size();
+        int split = this.splits[from * size + to];
+        double[][] left = this.evaluate(from, split, operands, arena, releasedBuffers);
+        double[][] right = this.evaluate(split + 1, to, operands, arena, releasedBuffers);
+        int rows = this.dimensions[from];
+        int columns = this.dimensions[to + 1];
+        boolean isResult = from == 0 && to == size - 1;
+        double[][] retval;
+        if (isResult)
+        {
+            retval = new double[rows][columns];
+        }
+        else
+        {
+            ArrayDeque<double[][]> buffers = releasedBuffers.get(key(rows, columns));
+            retval = buffers != null && !buffers.isEmpty() ? buffers.pop() : arena.matrix(rows, columns);
+        }
+        DenseKernels.multiply(left, right, retval);
+        if (from != split)
+        {
+            this.release(from, split, left, releasedBuffers);
+        }
+        if (split + 1 != to)
+        {
+            this.release(split + 1, to, right, releasedBuffers);
+        }
+        return retval;
+    }
+
+    private void release(int from, int to, double[][] buffer, Map<Long, ArrayDeque<double[][]>> releasedBuffers)
+    {
+        releasedBuffers.computeIfAbsent(key(this.dimensions[from], this.dimensions[to + 1]), key -> new ArrayDeque<>())
+                       .push(buffer);
+    }
+
+    private static long key(int rows, int columns)
+    {
+        return ((long) rows << 32) | (columns & 0xffffffffL);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "MatrixChain [size=" + this.matrices.size() + ", parenthesization=" + this.getParenthesization() + "]";
+    }
+
+}
@@ -0,0 +1,238 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+import java.util.Arrays;
+
+/**
+ * Powers and the exponential of square matrices given as arrays of rows. The intermediate products are computed into double buffers taken
+ * from the {@link ScratchArena}, so only the result is allocated. Buffers of large matrices exceed the pooling limits of the
+ * {@link ScratchArena} and are released to the garbage collector afterwards, instead of being retained by the calling thread.
+ *
+ * @see Matrix#power(int)
+ * @see Matrix#exp()
+ * @author Omnaest
+ */
+final class MatrixFunctions
+{
+    /**
+     * Largest 1-norms for which the Pade approximants of degree 3, 5, 7, 9 and 13 reach double precision, see Higham, "The scaling and
+     * squaring method for the matrix exponential revisited", 2005
+     */
+    private static final double[] THETA = new double[] { 1.495585217958292e-2, 2.539398330063230e-1, 9.504178996162932e-1,
+            2.097847961257068e0, 5.371920351148152e0 };
+
+    private static final double[][] PADE_COEFFICIENTS = new double[][] { { 120, 60, 12, 1 }, { 30240, 15120, 3360, 420, 30, 1 },
+            { 17297280, 8648640, 1995840, 277200, 25200, 1512, 56, 1 },
+            { 17643225600.0, 8821612800.0, 2075673600, 302702400, 30270240, 2162160, 110880, 3960, 90, 1 },
+            { 64764752532480000.0, 32382376266240000.0, 7771770303897600.0, 1187353796428800.0, 129060195264000.0, 10559470521600.0,
+                    670442572800.0, 33522128640.0, 1323241920, 40840800, 960960, 16380, 182, 1 } };
+
+    private MatrixFunctions()
+    {
+        super();
+    }
+
+    /**
+     * Returns the given matrix to the power of the given non negative exponent by exponentiation by squaring, which needs
+     * O(log(exponent)) matrix multiplications
+     *
+     * @param matrix
+     * @param exponent
+     * @return
+     */
+    static double[][] power(double[][] matrix, long exponent)
+    {
+        int dimension = matrix.length;
+        double[][] retval = new double[dimension][dimension];
+        try (ScratchArena arena = ScratchArena.open())
+        {
+            double[][] base = arena.matrix(dimension, dimension);
+            double[][] baseBuffer = arena.matrix(dimension, dimension);
+            double[][] result = arena.matrix(dimension, dimension);
+            double[][] resultBuffer = arena.matrix(dimension, dimension);
+            copy(matrix, base);
+            setIdentity(result);
+
+            boolean isIdentity = true;
+            while (exponent > 0)
+            {
+                if ((exponent & 1) != 0)
+                {
+                    if (isIdentity)
+                    {
+                        copy(base, result);
+                        isIdentity = false;
+                    }
+                    else
+                    {
+                        DenseKernels.multiply(result, base, resultBuffer);
+                        double[][] swap = result;
+                        result = resultBuffer;
+                        resultBuffer = swap;
+                    }
+                }
+                exponent >>= 1;
+                if (exponent > 0)
+                {
+                    DenseKernels.multiply(base, base, baseBuffer);
+                    double[][] swap = base;
+                    base = baseBuffer;
+                    baseBuffer = swap;
+                }
+            }
+            copy(result, retval);
+        }
+        return retval;
+    }
+
+    /**
+     * Returns the exponential of the given matrix by scaling and squaring with a diagonal Pade approximant of degree 3, 5, 7, 9 or 13,
+     * chosen by the 1-norm of the matrix
+     *
+     * @param matrix
+     * @return
+     */
+    static double[][] exp(double[][] matrix)
+    {
+        int dimension = matrix.length;
+        double norm = norm1(matrix);
+        if (Double.isNaN(norm) || Double.isInfinite(norm))
+        {
+            throw new IllegalArgumentException("Matrix must only contain finite values");
+        }
+
+        int degreeIndex = 0;
+        while (degreeIndex < THETA.length - 1 && norm > THETA[degreeIndex])
+        {
+            degreeIndex++;
+        }
+        int squarings = 0;
+        if (norm > THETA[degreeIndex])
+        {
+            squarings = (int) Math.ceil(Math.log(norm / THETA[degreeIndex]) / Math.log(2.0));
+        }
+        double scale = Math.scalb(1.0, -squarings);
+        double[] coefficients = PADE_COEFFICIENTS[degreeIndex];
+        int numberOfEvenPowers = (coefficients.length + 1) / 2;
+
+        double[][] retval = new double[dimension][dimension];
+        try (ScratchArena arena = ScratchArena.open())
+        {
+            double[][] scaled = arena.matrix(dimension, dimension);
+            for (int ii = 0; ii < dimension; ii++)
+            {
+                for (int jj = 0; jj < dimension; jj++)
+                {
+                    scaled[ii][jj] = matrix[ii][jj] * scale;
+                }
+            }
+
+            double[][][] evenPowers = new double[numberOfEvenPowers][][];
+            evenPowers[0] = arena.matrix(dimension, dimension);
+            setIdentity(evenPowers[0]);
+            if (numberOfEvenPowers > 1)
+            {
+                evenPowers[1] = arena.matrix(dimension, dimension);
+                DenseKernels.multiply(scaled, scaled, evenPowers[1]);
+            }
+            for (int ii = 2; ii < numberOfEvenPowers; ii++)
+            {
+                evenPowers[ii] = arena.matrix(dimension, dimension);
+                DenseKernels.multiply(evenPowers[ii - 1], evenPowers[1], evenPowers[ii]);
+            }
+
+            double[][] odd = arena.matrix(dimension, dimension);
+            double[][] even = arena.matrix(dimension, dimension);
+            for (int kk = 0; kk < coefficients.length; kk++)
+            {
+                double[][] target = kk % 2 == 0 ? even : odd;
+                double[][] power = evenPowers[kk / 2];
+                double coefficient = coefficients[kk];
+                for (int ii = 0; ii < dimension; ii++)
+                {
+                    for (int jj = 0; jj < dimension; jj++)
+                    {
+                        target[ii][jj] += coefficient * power[ii][jj];
+                    }
+                }
+            }
+            double[][] u = arena.matrix(dimension, dimension);
+            DenseKernels.multiply(scaled, odd, u);
+
+            double[][] denominator = arena.matrix(dimension, dimension);
+            double[][] numerator = arena.matrix(dimension, dimension);
+            for (int ii = 0; ii < dimension; ii++)
+            {
+                for (int jj = 0; jj < dimension; jj++)
+                {
+                    denominator[ii][jj] = even[ii][jj] - u[ii][jj];
+                    numerator[ii][jj] = even[ii][jj] + u[ii][jj];
+                }
+            }
+            DenseKernels.solveInPlace(denominator, numerator);
+            double[][] result = numerator;
+
+            double[][] buffer = arena.matrix(dimension, dimension);
+            for (int ii = 0; ii < squarings; ii++)
+            {
+                DenseKernels.multiply(result, result, buffer);
+                double[][] swap = result;
+                result = buffer;
+                buffer = swap;
+            }
+            copy(result, retval);
+        }
+        return retval;
+    }
+
+    private static double norm1(double[][] matrix)
+    {
+        int dimension = matrix.length;
+        double retval = 0.0;
+        for (int jj = 0; jj < dimension; jj++)
+        {
+            double sum = 0.0;
+            for (int ii = 0; ii < dimension; ii++)
+            {
+                sum += Math.abs(matrix[ii][jj]);
+            }
+            retval = Math.max(retval, sum);
+        }
+        return retval;
+    }
+
+    private static void copy(double[][] source, double[][] target)
+    {
+        for (int ii = 0; ii < source.length; ii++)
+        {
+            System.arraycopy(source[ii], 0, target[ii], 0, source[ii].length);
+        }
+    }
+
+    private static void setIdentity(double[][] matrix)
+    {
+        for (int ii = 0; ii < matrix.length; ii++)
+        {
+            Arrays.fill(matrix[ii], 0.0);
+            matrix[ii][ii] = 1.0;
+        }
+    }
+
+}
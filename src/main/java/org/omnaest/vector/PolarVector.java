@@ -1,32 +1,129 @@
 package org.omnaest.vector;
 
+import java.util.stream.IntStream;
+
+/**
+ * Spherical representation of a {@link Vector} with the radius r, the polar angle theta against the z axis within [0, pi] and the
+ * azimuthal angle phi within (-pi, pi].<br>
+ * <br>
+ * The spherical coordinates are stored, so the getters and {@link #addTheta(double)}, {@link #addPhi(double)} and
+ * {@link #setRadius(double)} do not need any conversion. The cartesian {@link Vector} is computed lazily on the first call of
+ * {@link #asCartesianVector()}.<br>
+ * <br>
+ * For bulk data see {@link #toSpherical(double[], double[])} and {@link #toCartesian(double[], double[])}.
+ *
+ * @author Omnaest
+ */
 public class PolarVector
 {
-    private Vector vector;
+    private static final int CHUNK_SIZE = 4096;
+    private static final double TWO_PI = 2 * Math.PI;
+
+    private final double    radius;
+    private final double    theta;
+    private final double    phi;
+    private volatile Vector vector;
 
     protected PolarVector(Vector vector)
     {
         super();
+        this.radius = vector.absolute();
+        this.theta = this.radius > 0.0 ? Math.acos(vector.getZ() / this.radius) : 0.0;
+        this.phi = Math.atan2(vector.getY(), vector.getX());
+        this.vector = vector;
+    }
+
+    private PolarVector(double radius, double theta, double phi, Vector vector)
+    {
+        super();
+        this.radius = radius;
+        this.theta = theta;
+        this.phi = phi;
         this.vector = vector;
     }
 
+    protected PolarVector(double radius, double theta, double phi)
+    {
+        super();
+        if (radius < 0.0)
+        {
+            radius = -radius;
+            theta = Math.PI - theta;
+            phi += Math.PI;
+        }
+        theta = normalizeAngle(theta);
+        if (theta < 0.0)
+        {
+            theta = -theta;
+            phi += Math.PI;
+        }
+        this.radius = radius;
+        this.theta = theta;
+        this.phi = normalizeAngle(phi);
+    }
+
+    /**
+     * Returns a new {@link PolarVector} with the given radius and angles in radians
+     *
+     * @param radius
+     * @param theta
+     *            polar angle against the z axis
+     * @param phi
+     *            azimuthal angle against the x axis within the x-y plane
+     * @return
+     */
+    public static PolarVector of(double radius, double theta, double phi)
+    {
+        return new PolarVector(radius, theta, phi);
+    }
+
+    /**
+     * Similar to {@link #of(double, double, double)} with angles in degree
+     *
+     * @param radius
+     * @param theta
+     * @param phi
+     * @return
+     */
+    public static PolarVector ofDegree(double radius, double theta, double phi)
+    {
+        return new PolarVector(radius, Math.toRadians(theta), Math.toRadians(phi));
+    }
+
+    /**
+     * Returns the given angle normalized to (-pi, pi]
+     */
+    private static double normalizeAngle(double angle)
+    {
+        if (angle > Math.PI || angle <= -Math.PI)
+        {
+            angle -= TWO_PI * Math.floor((angle + Math.PI) / TWO_PI);
+            if (angle <= -Math.PI)
+            {
+                angle += TWO_PI;
+            }
+        }
+        return angle;
+    }
+
     public double getRadius()
     {
-        return Math.sqrt(this.vector.getCoordinatesStream()
-                                    .map(v -> v * v)
-                                    .sum());
+        return this.radius;
     }
 
     public PolarVector setRadius(double radius)
     {
-        return this.vector.normVector()
-                          .multiply(radius)
-                          .asPolarVector();
+        Vector vector = this.vector;
+        if (vector != null && this.radius > 0.0 && radius >= 0.0)
+        {
+            return new PolarVector(radius, this.theta, this.phi, vector.multiply(radius / this.radius));
+        }
+        return new PolarVector(radius, this.theta, this.phi);
     }
 
     public double getTheta()
     {
-        return Math.acos(this.vector.getZ() / this.getRadius());
+        return this.theta;
     }
 
     public double getThetaInDegree()
@@ -36,7 +133,7 @@ public class PolarVector
 
     public double getPhi()
     {
-        return Math.atan2(this.vector.getY(), this.vector.getX());
+        return this.phi;
     }
 
     public double getPhiInDegree()
@@ -51,12 +148,7 @@ public class PolarVector
 
     public PolarVector addTheta(double thetaDelta)
     {
-        double theta = this.getTheta() + thetaDelta;
-        double x = this.getRadius() * Math.sin(theta) * Math.cos(this.getPhi());
-        double y = this.getRadius() * Math.sin(theta) * Math.sin(this.getPhi());
-        double z = this.getRadius() * Math.cos(theta);
-        return Vector.of(x, y, z)
-                     .asPolarVector();
+        return new PolarVector(this.radius, this.theta + thetaDelta, this.phi);
     }
 
     public PolarVector addPhiInDegree(double phiDelta)
@@ -66,23 +158,107 @@ public class PolarVector
 
     public PolarVector addPhi(double phiDelta)
     {
-        double phi = this.getPhi() + phiDelta;
-        double x = this.getRadius() * Math.sin(this.getTheta()) * Math.cos(phi);
-        double y = this.getRadius() * Math.sin(this.getTheta()) * Math.sin(phi);
-        double z = this.getRadius() * Math.cos(this.getTheta());
-        return Vector.of(x, y, z)
-                     .asPolarVector();
+        return new PolarVector(this.radius, this.theta, this.phi + phiDelta);
     }
 
     public Vector asCartesianVector()
     {
-        return this.vector;
+        Vector retval = this.vector;
+        if (retval == null)
+        {
+            double sinTheta = Math.sin(this.theta);
+            retval = Vector.of(this.radius * sinTheta * Math.cos(this.phi), this.radius * sinTheta * Math.sin(this.phi),
+                               this.radius * Math.cos(this.theta));
+            this.vector = retval;
+        }
+        return retval;
+    }
+
+    /**
+     * Converts the points given as packed x,y,z coordinates into packed r,theta,phi coordinates. Source and target can be the same array.
+     * Points at the origin get the angles 0.
+     *
+     * @param cartesian
+     * @param spherical
+     */
+    public static void toSpherical(double[] cartesian, double[] spherical)
+    {
+        toSpherical(cartesian, spherical, 0, cartesian.length / 3);
+    }
+
+    /**
+     * Similar to {@link #toSpherical(double[], double[])} but converts chunks of points in parallel
+     *
+     * @param cartesian
+     * @param spherical
+     */
+    public static void toSphericalParallel(double[] cartesian, double[] spherical)
+    {
+        int numberOfPoints = cartesian.length / 3;
+        int numberOfChunks = (numberOfPoints + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        IntStream.range(0, numberOfChunks)
+                 .parallel()
+                 .forEach(chunk -> toSpherical(cartesian, spherical, chunk * CHUNK_SIZE, Math.min(numberOfPoints, (chunk + 1) * CHUNK_SIZE)));
+    }
+
+    private static void toSpherical(double[] cartesian, double[] spherical, int fromPoint, int toPoint)
+    {
+        for (int ii = fromPoint * 3; ii < toPoint * 3; ii += 3)
+        {
+            double x = cartesian[ii];
+            double y = cartesian[ii + 1];
+            double z = cartesian[ii + 2];
+            double radius = Math.sqrt(x * x + y * y + z * z);
+            spherical[ii] = radius;
+            spherical[ii + 1] = radius > 0.0 ? Math.acos(z / radius) : 0.0;
+            spherical[ii + 2] = Math.atan2(y, x);
+        }
+    }
+
+    /**
+     * Converts the points given as packed r,theta,phi coordinates into packed x,y,z coordinates. Source and target can be the same array.
+     *
+     * @param spherical
+     * @param cartesian
+     */
+    public static void toCartesian(double[] spherical, double[] cartesian)
+    {
+        toCartesian(spherical, cartesian, 0, spherical.length / 3);
+    }
+
+    /**
+     * Similar to {@link #toCartesian(double[], double[])} but converts chunks of points in parallel
+     *
+     * @param spherical
+     * @param cartesian
+     */
+    public static void toCartesianParallel(double[] spherical, double[] cartesian)
+    {
+        int numberOfPoints = spherical.length / 3;
+        int numberOfChunks = (numberOfPoints + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        IntStream.range(0, numberOfChunks)
+                 .parallel()
+                 .forEach(chunk -> toCartesian(spherical, cartesian, chunk * CHUNK_SIZE, Math.min(numberOfPoints, (chunk + 1) * CHUNK_SIZE)));
+    }
+
+    private static void toCartesian(double[] spherical, double[] cartesian, int fromPoint, int toPoint)
+    {
+        for (int ii = fromPoint * 3; ii < toPoint * 3; ii += 3)
+        {
+            double radius = spherical[ii];
+            double theta = spherical[ii + 1];
+            double phi = spherical[ii + 2];
+            double radiusSinTheta = radius * Math.sin(theta);
+            cartesian[ii] = radiusSinTheta * Math.cos(phi);
+            cartesian[ii + 1] = radiusSinTheta * Math.sin(phi);
+            cartesian[ii + 2] = radius * Math.cos(theta);
+        }
     }
 
     @Override
     public String toString()
     {
-        return "PolarVector [vector=" + this.vector + "]";
+        return "PolarVector [radius=" + this.radius + ", theta=" + this.theta + ", phi=" + this.phi + "]";
     }
 
 }
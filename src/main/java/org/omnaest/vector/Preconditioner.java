@@ -0,0 +1,129 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+/**
+ * Approximation M<sup>-1</sup> of the inverse of a {@link LinearOperator} A, which is applied by the {@link IterativeSolver} to improve the
+ * convergence.
+ *
+ * @see IterativeSolver.Builder#withPreconditioner(Preconditioner)
+ * @see <a href="https://en.wikipedia.org/wiki/Preconditioner">wikipedia</a>
+ * @author Omnaest
+ */
+@FunctionalInterface
+public interface Preconditioner
+{
+    /**
+     * Writes M<sup>-1</sup> * input into the output array. Input and output are never the same array.
+     *
+     * @param input
+     * @param output
+     */
+    public void apply(double[] input, double[] output);
+
+    /**
+     * Returns a {@link Preconditioner} which does not change the input
+     *
+     * @return
+     */
+    public static Preconditioner identity()
+    {
+        return (input, output) -> System.arraycopy(input, 0, output, 0, output.length);
+    }
+
+    /**
+     * Returns the Jacobi {@link Preconditioner} which divides by the given diagonal of A
+     *
+     * @param diagonal
+     * @return
+     * @throws IllegalArgumentException
+     *             if the diagonal contains a zero
+     */
+    public static Preconditioner jacobi(double[] diagonal)
+    {
+        double[] inverseDiagonal = new double[diagonal.length];
+        for (int ii = 0; ii < diagonal.length; ii++)
+        {
+            if (diagonal[ii] == 0.0)
+            {
+                throw new IllegalArgumentException("Diagonal must not contain zero values");
+            }
+            inverseDiagonal[ii] = 1.0 / diagonal[ii];
+        }
+        return (input, output) ->
+        {
+            for (int ii = 0; ii < inverseDiagonal.length; ii++)
+            {
+                output[ii] = input[ii] * inverseDiagonal[ii];
+            }
+        };
+    }
+
+    /**
+     * Returns the Jacobi {@link Preconditioner} for the diagonal of the given {@link Matrix}
+     *
+     * @param matrix
+     * @return
+     */
+    public static Preconditioner jacobi(Matrix matrix)
+    {
+        double[] diagonal = new double[Math.min(matrix.getRowCount(), matrix.getColumnCount())];
+        for (int ii = 0; ii < diagonal.length; ii++)
+        {
+            diagonal[ii] = matrix.getValue(ii + 1, ii + 1);
+        }
+        return jacobi(diagonal);
+    }
+
+    /**
+     * Returns the incomplete LU factorization ILU(0) of the given square {@link Matrix}, which keeps the sparsity pattern of the
+     * {@link Matrix}
+     *
+     * @see <a href="https://en.wikipedia.org/wiki/Incomplete_LU_factorization">wikipedia</a>
+     * @param matrix
+     * @return
+     * @throws IllegalStateException
+     *             if a zero pivot occurs
+     */
+    public static Preconditioner incompleteLU(Matrix matrix)
+    {
+        return IncompleteLU.of(matrix);
+    }
+
+    /**
+     * Returns the incomplete LU factorization ILU(0) of the square matrix given in compressed sparse rows, without creating a dense
+     * {@link Matrix}. The entries of row i are at the positions [rowPointers[i], rowPointers[i+1]) of the column indices and values, with
+     * strictly ascending column indices per row.
+     *
+     * @see #incompleteLU(Matrix)
+     * @param rowPointers
+     *            dimension + 1 offsets into the column indices and values
+     * @param columnIndices
+     * @param values
+     * @return
+     * @throws IllegalArgumentException
+     *             if the arrays do not describe a valid square matrix
+     * @throws IllegalStateException
+     *             if a zero pivot occurs
+     */
+    public static Preconditioner incompleteLU(int[] rowPointers, int[] columnIndices, double[] values)
+    {
+        return IncompleteLU.of(rowPointers, columnIndices, values);
+    }
+}
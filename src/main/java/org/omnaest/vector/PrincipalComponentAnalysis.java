@@ -0,0 +1,164 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Principal component analysis based on the covariance of a {@link CovarianceAccumulator}, so the data {@link Matrix} is never
+ * materialized. The components are determined by the {@link SymmetricEigenDecomposition} of the covariance {@link Matrix}.<br>
+ * <br>
+ * Example:<br>
+ *
+ * <pre>
+ * List&lt;Component&gt; components = PrincipalComponentAnalysis.of(vectors.parallelStream()
+ *                                                                 .collect(CovarianceAccumulator.collector()))
+ *                                                        .getTopComponents(3);
+ * </pre>
+ *
+ * @see <a href="https://en.wikipedia.org/wiki/Principal_component_analysis">wikipedia</a>
+ * @author Omnaest
+ */
+public class PrincipalComponentAnalysis
+{
+    private Vector     mean;
+    private double[][] covariance;
+    private double     totalVariance;
+
+    protected PrincipalComponentAnalysis(Vector mean, double[][] covariance)
+    {
+        super();
+        this.mean = mean;
+        this.covariance = covariance;
+        for (int ii = 0; ii < covariance.length; ii++)
+        {
+            this.totalVariance += covariance[ii][ii];
+        }
+    }
+
+    public static PrincipalComponentAnalysis of(CovarianceAccumulator accumulator)
+    {
+        return new PrincipalComponentAnalysis(accumulator.getMean(), accumulator.getCovarianceData(accumulator.getCount() - 1));
+    }
+
+    /**
+     * A single principal component
+     *
+     * @author Omnaest
+     */
+    public static class Component
+    {
+        private Vector direction;
+        private double variance;
+        private double explainedVarianceRatio;
+
+        public Component(Vector direction, double variance, double explainedVarianceRatio)
+        {
+            super();
+            this.direction = direction;
+            this.variance = variance;
+            this.explainedVarianceRatio = explainedVarianceRatio;
+        }
+
+        /**
+         * Returns the normalized direction of the component
+         *
+         * @return
+         */
+        public Vector getDirection()
+        {
+            return this.direction;
+        }
+
+        /**
+         * Returns the variance along the direction, which is the eigenvalue of the covariance {@link Matrix}
+         *
+         * @return
+         */
+        public double getVariance()
+        {
+            return this.variance;
+        }
+
+        /**
+         * Returns the share of the total variance in the range [0,1]
+         *
+         * @return
+         */
+        public double getExplainedVarianceRatio()
+        {
+            return this.explainedVarianceRatio;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Component [direction=" + this.direction + ", variance=" + this.variance + "]";
+        }
+
+    }
+
+    /**
+     * Returns the k components with the largest variance, ordered by descending variance
+     *
+     * @param k
+     * @return
+     */
+    public List<Component> getTopComponents(int k)
+    {
+        SymmetricEigenDecomposition decomposition = SymmetricEigenDecomposition.topK(new Matrix(this.covariance), k);
+
+        List<Component> retval = new ArrayList<>(decomposition.size());
+        for (int ii = 0; ii < decomposition.size(); ii++)
+        {
+            retval.add(this.newComponent(decomposition.getEigenVector(ii), decomposition.getEigenValue(ii)));
+        }
+        return retval;
+    }
+
+    private Component newComponent(Vector direction, double variance)
+    {
+        return new Component(direction, variance, this.totalVariance > 0.0 ? variance / this.totalVariance : 0.0);
+    }
+
+    /**
+     * Projects the given {@link Vector} onto the given components after subtracting the mean
+     *
+     * @param vector
+     * @param components
+     * @return
+     */
+    public Vector project(Vector vector, List<Component> components)
+    {
+        Vector centered = vector.subtract(this.mean);
+        double[] coordinates = new double[components.size()];
+        for (int ii = 0; ii < coordinates.length; ii++)
+        {
+            coordinates[ii] = centered.multiplyScalar(components.get(ii)
+                                                                .getDirection());
+        }
+        return new Vector(coordinates);
+    }
+
+    public Vector getMean()
+    {
+        return this.mean;
+    }
+}
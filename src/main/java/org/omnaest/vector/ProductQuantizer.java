@@ -0,0 +1,354 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+/**
+ * Product quantization of {@link Vector}s. The dimensions are split into subspaces and each subspace is encoded as the index of its
+ * closest centroid within a trained codebook, so a {@link Vector} is stored with a single byte per subspace.<br>
+ * <br>
+ * Dot products and distances against a query are calculated by table lookups using a {@link DistanceTable}.<br>
+ * <br>
+ * Example:<br>
+ *
+ * <pre>
+ * ProductQuantizer quantizer = ProductQuantizer.builder()
+ *                                              .withNumberOfSubspaces(96)
+ *                                              .train(samples);
+ * byte[] codes = quantizer.encodeAll(vectors);
+ * double distance = quantizer.prepare(query)
+ *                            .distance(codes, 0);
+ * </pre>
+ *
+ * @see <a href="https://en.wikipedia.org/wiki/Vector_quantization">wikipedia</a>
+ * @see ScalarQuantizer
+ * @author Omnaest
+ */
+public class ProductQuantizer
+{
+    private int        dimension;
+    private int        subspaceDimension;
+    private int        numberOfCentroids;
+    private double[][] codebooks;
+
+    protected ProductQuantizer(int dimension, int subspaceDimension, int numberOfCentroids, double[][] codebooks)
+    {
+        super();
+        this.dimension = dimension;
+        this.subspaceDimension = subspaceDimension;
+        this.numberOfCentroids = numberOfCentroids;
+        this.codebooks = codebooks;
+    }
+
+    public static interface Builder
+    {
+        /**
+         * Number of subspaces, which equals the number of bytes per code. Must be positive, default is 8.
+         *
+         * @param numberOfSubspaces
+         * @return
+         */
+        Builder withNumberOfSubspaces(int numberOfSubspaces);
+
+        /**
+         * Number of centroids per subspace in the range [1,256]. Default is 256.
+         *
+         * @param numberOfCentroids
+         * @return
+         */
+        Builder withNumberOfCentroids(int numberOfCentroids);
+
+        /**
+         * Maximum number of iterations of the codebook training per subspace. Default is 25.
+         *
+         * @param iterations
+         * @return
+         */
+        Builder withIterations(int iterations);
+
+        Builder withSeed(long seed);
+
+        ProductQuantizer train(Vector... samples);
+    }
+
+    public static Builder builder()
+    {
+        return new Builder()
+        {
+            private int  numberOfSubspaces = 8;
+            private int  numberOfCentroids = 256;
+            private int  iterations        = 25;
+            private long seed              = 0;
+
+            @Override
+            public Builder withNumberOfSubspaces(int numberOfSubspaces)
+            {
+                if (numberOfSubspaces < 1)
+                {
+                    throw new IllegalArgumentException("Number of subspaces must be positive");
+                }
+                this.numberOfSubspaces = numberOfSubspaces;
+                return this;
+            }
+
+            @Override
+            public Builder withNumberOfCentroids(int numberOfCentroids)
+            {
+                if (numberOfCentroids < 1 || numberOfCentroids > 256)
+                {
+                    throw new IllegalArgumentException("Number of centroids must be within [1,256]");
+                }
+                this.numberOfCentroids = numberOfCentroids;
+                return this;
+            }
+
+            @Override
+            public Builder withIterations(int iterations)
+            {
+                this.iterations = iterations;
+                return this;
+            }
+
+            @Override
+            public Builder withSeed(long seed)
+            {
+                this.seed = seed;
+                return this;
+            }
+
+            @Override
+            public ProductQuantizer train(Vector... samples)
+            {
+                if (samples.length == 0)
+                {
+                    throw new IllegalArgumentException("At least one sample vector is required");
+                }
+
+                int dimension = DenseKernels.maxDimension(samples);
+                int subspaceDimension = (dimension + this.numberOfSubspaces - 1) / this.numberOfSubspaces;
+                int numberOfCentroids = Math.min(this.numberOfCentroids, samples.length);
+
+                double[][] codebooks = new double[this.numberOfSubspaces][];
+                for (int ss = 0; ss < this.numberOfSubspaces; ss++)
+                {
+                    double[] subspaceSamples = new double[samples.length * subspaceDimension];
+                    for (int ii = 0; ii < samples.length; ii++)
+                    {
+                        for (int dd = 0; dd < subspaceDimension; dd++)
+                        {
+                            subspaceSamples[ii * subspaceDimension + dd] = samples[ii].getCoordinate(ss * subspaceDimension + dd);
+                        }
+                    }
+                    codebooks[ss] = KMeans.builder()
+                                          .withNumberOfClusters(numberOfCentroids)
+                                          .withMaxIterations(this.iterations)
+                                          .withSeed(this.seed + ss)
+                                          .build()
+                                          .cluster(subspaceSamples, subspaceDimension)
+                                          .getPackedCentroids();
+                }
+                return new ProductQuantizer(dimension, subspaceDimension, numberOfCentroids, codebooks);
+            }
+        };
+    }
+
+    public int getDimension()
+    {
+        return this.dimension;
+    }
+
+    /**
+     * Returns the number of bytes of a single code, which is the number of subspaces
+     *
+     * @return
+     */
+    public int getCodeSize()
+    {
+        return this.codebooks.length;
+    }
+
+    public byte[] encode(Vector vector)
+    {
+        byte[] code = new byte[this.getCodeSize()];
+        this.encode(vector, code, 0);
+        return code;
+    }
+
+    /**
+     * Encodes the given {@link Vector}s into a single packed array of {@link #getCodeSize()} bytes per {@link Vector}
+     *
+     * @param vectors
+     * @return
+     */
+    public byte[] encodeAll(Vector... vectors)
+    {
+        byte[] codes = new byte[vectors.length * this.getCodeSize()];
+        for (int ii = 0; ii < vectors.length; ii++)
+        {
+            this.encode(vectors[ii], codes, ii * this.getCodeSize());
+        }
+        return codes;
+    }
+
+    public void encode(Vector vector, byte[] codes, int offset)
+    {
+        double[] subspace = new double[this.subspaceDimension];
+        for (int ss = 0; ss < this.codebooks.length; ss++)
+        {
+            for (int dd = 0; dd < this.subspaceDimension; dd++)
+            {
+                subspace[dd] = vector.getCoordinate(ss * this.subspaceDimension + dd);
+            }
+            codes[offset + ss] = (byte) KMeans.closestCentroid(this.codebooks[ss], this.numberOfCentroids, subspace, 0, this.subspaceDimension);
+        }
+    }
+
+    public Vector decode(byte[] code)
+    {
+        return this.decode(code, 0);
+    }
+
+    public Vector decode(byte[] codes, int offset)
+    {
+        double[] coordinates = new double[this.dimension];
+        for (int ss = 0; ss < this.codebooks.length; ss++)
+        {
+            int centroidOffset = (codes[offset + ss] & 0xFF) * this.subspaceDimension;
+            for (int dd = 0; dd < this.subspaceDimension && ss * this.subspaceDimension + dd < this.dimension; dd++)
+            {
+                coordinates[ss * this.subspaceDimension + dd] = this.codebooks[ss][centroidOffset + dd];
+            }
+        }
+        return new Vector(coordinates);
+    }
+
+    /**
+     * Returns the approximated dot product between the encoded {@link Vector} and the query
+     *
+     * @param code
+     * @param query
+     * @return
+     */
+    public double dotProduct(byte[] code, Vector query)
+    {
+        return this.prepare(query)
+                   .dotProduct(code, 0);
+    }
+
+    /**
+     * Returns the approximated euclidean distance between the encoded {@link Vector} and the query
+     *
+     * @param code
+     * @param query
+     * @return
+     */
+    public double distance(byte[] code, Vector query)
+    {
+        return this.prepare(query)
+                   .distance(code, 0);
+    }
+
+    /**
+     * Returns the {@link DistanceTable} for the given query {@link Vector}, which should be reused for scanning many codes
+     *
+     * @param query
+     * @return
+     */
+    public DistanceTable prepare(Vector query)
+    {
+        return new DistanceTable(query);
+    }
+
+    /**
+     * Precalculated dot products and squared distances between a query and all centroids of all subspaces
+     *
+     * @author Omnaest
+     */
+    public class DistanceTable
+    {
+        private double[] dotProducts;
+        private double[] squaredDistances;
+        private double   remainingSquaredNorm;
+
+        protected DistanceTable(Vector query)
+        {
+            int numberOfSubspaces = ProductQuantizer.this.codebooks.length;
+            int subspaceDimension = ProductQuantizer.this.subspaceDimension;
+            int numberOfCentroids = ProductQuantizer.this.numberOfCentroids;
+            this.dotProducts = new double[numberOfSubspaces * numberOfCentroids];
+            this.squaredDistances = new double[numberOfSubspaces * numberOfCentroids];
+            for (int ss = 0; ss < numberOfSubspaces; ss++)
+            {
+                double[] codebook = ProductQuantizer.this.codebooks[ss];
+                for (int cc = 0; cc < numberOfCentroids; cc++)
+                {
+                    double dotProduct = 0.0;
+                    double squaredDistance = 0.0;
+                    for (int dd = 0; dd < subspaceDimension; dd++)
+                    {
+                        double value = query.getCoordinate(ss * subspaceDimension + dd);
+                        double centroidValue = codebook[cc * subspaceDimension + dd];
+                        dotProduct += value * centroidValue;
+                        squaredDistance += (value - centroidValue) * (value - centroidValue);
+                    }
+                    this.dotProducts[ss * numberOfCentroids + cc] = dotProduct;
+                    this.squaredDistances[ss * numberOfCentroids + cc] = squaredDistance;
+                }
+            }
+            for (int dd = numberOfSubspaces * subspaceDimension; dd < query.getDimension(); dd++)
+            {
+                this.remainingSquaredNorm += query.getCoordinate(dd) * query.getCoordinate(dd);
+            }
+        }
+
+        public double dotProduct(byte[] codes, int offset)
+        {
+            return this.sum(this.dotProducts, codes, offset);
+        }
+
+        public double squaredDistance(byte[] codes, int offset)
+        {
+            return this.remainingSquaredNorm + this.sum(this.squaredDistances, codes, offset);
+        }
+
+        public double distance(byte[] codes, int offset)
+        {
+            return Math.sqrt(this.squaredDistance(codes, offset));
+        }
+
+        private double sum(double[] table, byte[] codes, int offset)
+        {
+            int numberOfSubspaces = ProductQuantizer.this.codebooks.length;
+            int numberOfCentroids = ProductQuantizer.this.numberOfCentroids;
+            double retval = 0.0;
+            for (int ss = 0; ss < numberOfSubspaces; ss++)
+            {
+                retval += table[ss * numberOfCentroids + (codes[offset + ss] & 0xFF)];
+            }
+            return retval;
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ProductQuantizer [dimension=" + this.dimension + ", numberOfSubspaces=" + this.codebooks.length + ", numberOfCentroids="
+                + this.numberOfCentroids + "]";
+    }
+
+}
@@ -0,0 +1,210 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+/**
+ * Householder QR decomposition A = Q * R of a {@link Matrix} with m rows and n columns, m &gt;= n.<br>
+ * <br>
+ * The Householder vectors are kept column wise in a working copy, so each reflection runs over contiguous memory.
+ *
+ * @see Matrix#qrDecomposition()
+ * @see Matrix#leastSquares(Vector)
+ * @see StreamingQRDecomposition
+ * @see <a href="https://en.wikipedia.org/wiki/QR_decomposition">wikipedia</a>
+ * @author Omnaest
+ */
+public class QRDecomposition
+{
+    private int        rows;
+    private int        columns;
+    private double[][] householderColumns;
+    private double[]   rDiagonal;
+
+    protected QRDecomposition(double[][] householderColumns, double[] rDiagonal, int rows)
+    {
+        super();
+        this.rows = rows;
+        this.columns = householderColumns.length;
+        this.householderColumns = householderColumns;
+        this.rDiagonal = rDiagonal;
+    }
+
+    /**
+     * Returns the {@link QRDecomposition} of the given {@link Matrix}
+     *
+     * @param matrix
+     * @return
+     * @throws IllegalStateException
+     *             if the {@link Matrix} has less rows than columns
+     */
+    public static QRDecomposition of(Matrix matrix)
+    {
+        int rows = matrix.getRowCount();
+        int columns = matrix.getColumnCount();
+        if (rows < columns)
+        {
+            throw new IllegalStateException("Matrix must have at least as many rows as columns");
+        }
+
+        double[][] qr = DenseKernels.transpose(matrix.toArray());
+        double[] rDiagonal = new double[columns];
+        for (int kk = 0; kk < columns; kk++)
+        {
+            double[] column = qr[kk];
+            double norm = Math.sqrt(DenseKernels.dot(column, kk, column, kk, rows - kk));
+            if (norm != 0.0)
+            {
+                if (column[kk] < 0)
+                {
+                    norm = -norm;
+                }
+                for (int ii = kk; ii < rows; ii++)
+                {
+                    column[ii] /= norm;
+                }
+                column[kk] += 1.0;
+
+                for (int jj = kk + 1; jj < columns; jj++)
+                {
+                    reflect(column, kk, qr[jj], rows);
+                }
+            }
+            rDiagonal[kk] = -norm;
+        }
+        return new QRDecomposition(qr, rDiagonal, rows);
+    }
+
+    /**
+     * Applies the Householder reflection stored in the given column, starting at index k, to the target array
+     */
+    private static void reflect(double[] householder, int k, double[] target, int length)
+    {
+        double sum = DenseKernels.dot(householder, k, target, k, length - k);
+        double factor = -sum / householder[k];
+        for (int ii = k; ii < length; ii++)
+        {
+            target[ii] += factor * householder[ii];
+        }
+    }
+
+    /**
+     * Returns true, if R has no diagonal value which is zero relative to the largest diagonal value
+     *
+     * @return
+     */
+    public boolean isFullRank()
+    {
+        double max = 0.0;
+        for (double value : this.rDiagonal)
+        {
+            max = Math.max(max, Math.abs(value));
+        }
+        double tolerance = max * this.rows * Math.ulp(1.0);
+        for (double value : this.rDiagonal)
+        {
+            if (Math.abs(value) <= tolerance)
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the upper triangular n x n {@link Matrix} R
+     *
+     * @return
+     */
+    public TriangularMatrix getR()
+    {
+        double[][] data = new double[this.columns][this.columns];
+        for (int ii = 0; ii < this.columns; ii++)
+        {
+            data[ii][ii] = this.rDiagonal[ii];
+            for (int jj = ii + 1; jj < this.columns; jj++)
+            {
+                data[ii][jj] = this.householderColumns[jj][ii];
+            }
+        }
+        return TriangularMatrix.upper(new Matrix(data));
+    }
+
+    /**
+     * Returns the m x n {@link Matrix} Q with orthonormal columns
+     *
+     * @return
+     */
+    public Matrix getQ()
+    {
+        double[][] qColumns = new double[this.columns][this.rows];
+        for (int kk = this.columns - 1; kk >= 0; kk--)
+        {
+            qColumns[kk][kk] = 1.0;
+            double[] householder = this.householderColumns[kk];
+            if (householder[kk] != 0.0)
+            {
+                for (int jj = kk; jj < this.columns; jj++)
+                {
+                    reflect(householder, kk, qColumns[jj], this.rows);
+                }
+            }
+        }
+        return new Matrix(DenseKernels.transpose(qColumns));
+    }
+
+    /**
+     * Returns the x which minimizes |A * x - b| in the least squares sense
+     *
+     * @param b
+     * @return
+     */
+    public Vector solve(Vector b)
+    {
+        if (!this.isFullRank())
+        {
+            throw new IllegalStateException("Matrix is rank deficient");
+        }
+
+        double[] x = new double[this.rows];
+        System.arraycopy(b.getCoordinates(), 0, x, 0, Math.min(this.rows, b.getDimension()));
+        for (int kk = 0; kk < this.columns; kk++)
+        {
+            reflect(this.householderColumns[kk], kk, x, this.rows);
+        }
+        for (int kk = this.columns - 1; kk >= 0; kk--)
+        {
+            x[kk] /= this.rDiagonal[kk];
+            for (int ii = 0; ii < kk; ii++)
+            {
+                x[ii] -= x[kk] * this.householderColumns[kk][ii];
+            }
+        }
+
+        double[] retval = new double[this.columns];
+        System.arraycopy(x, 0, retval, 0, this.columns);
+        return new Vector(retval);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "QRDecomposition [rows=" + this.rows + ", columns=" + this.columns + "]";
+    }
+
+}
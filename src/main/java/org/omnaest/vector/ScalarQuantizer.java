@@ -0,0 +1,260 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+/**
+ * Int8 scalar quantization of {@link Vector}s. Each coordinate is mapped linearly from the trained [min,max] range of its dimension onto
+ * a single byte, which reduces the storage of a double coordinate by a factor of 8.<br>
+ * <br>
+ * Dot products and distances against a query are calculated directly on the codes without decoding them.
+ *
+ * @see #train(Vector...)
+ * @see ProductQuantizer
+ * @author Omnaest
+ */
+public class ScalarQuantizer
+{
+    private static final int LEVELS = 255;
+
+    private double[] minimums;
+    private double[] scales;
+
+    protected ScalarQuantizer(double[] minimums, double[] scales)
+    {
+        super();
+        this.minimums = minimums;
+        this.scales = scales;
+    }
+
+    /**
+     * Determines the value range of each dimension from the given sample {@link Vector}s
+     *
+     * @param samples
+     * @return
+     */
+    public static ScalarQuantizer train(Vector... samples)
+    {
+        if (samples.length == 0)
+        {
+            throw new IllegalArgumentException("At least one sample vector is required");
+        }
+
+        int dimension = DenseKernels.maxDimension(samples);
+        double[] minimums = new double[dimension];
+        double[] maximums = new double[dimension];
+        for (int dd = 0; dd < dimension; dd++)
+        {
+            minimums[dd] = Double.POSITIVE_INFINITY;
+            maximums[dd] = Double.NEGATIVE_INFINITY;
+        }
+        for (Vector sample : samples)
+        {
+            for (int dd = 0; dd < dimension; dd++)
+            {
+                double value = sample.getCoordinate(dd);
+                minimums[dd] = Math.min(minimums[dd], value);
+                maximums[dd] = Math.max(maximums[dd], value);
+            }
+        }
+
+        double[] scales = new double[dimension];
+        for (int dd = 0; dd < dimension; dd++)
+        {
+            scales[dd] = (maximums[dd] - minimums[dd]) / LEVELS;
+        }
+        return new ScalarQuantizer(minimums, scales);
+    }
+
+    public int getDimension()
+    {
+        return this.minimums.length;
+    }
+
+    /**
+     * Returns the number of bytes of a single code
+     *
+     * @return
+     */
+    public int getCodeSize()
+    {
+        return this.minimums.length;
+    }
+
+    public byte[] encode(Vector vector)
+    {
+        byte[] code = new byte[this.getCodeSize()];
+        this.encode(vector, code, 0);
+        return code;
+    }
+
+    /**
+     * Encodes the given {@link Vector}s into a single packed array of {@link #getCodeSize()} bytes per {@link Vector}
+     *
+     * @param vectors
+     * @return
+     */
+    public byte[] encodeAll(Vector... vectors)
+    {
+        byte[] codes = new byte[vectors.length * this.getCodeSize()];
+        for (int ii = 0; ii < vectors.length; ii++)
+        {
+            this.encode(vectors[ii], codes, ii * this.getCodeSize());
+        }
+        return codes;
+    }
+
+    /**
+     * Writes the code of the given {@link Vector} into the codes array starting at the given offset. Values outside of the trained range are
+     * clamped.
+     *
+     * @param vector
+     * @param codes
+     * @param offset
+     */
+    public void encode(Vector vector, byte[] codes, int offset)
+    {
+        for (int dd = 0; dd < this.minimums.length; dd++)
+        {
+            double level = this.scales[dd] > 0.0 ? (vector.getCoordinate(dd) - this.minimums[dd]) / this.scales[dd] : 0.0;
+            long rounded = Math.round(Math.max(0.0, Math.min(LEVELS, level)));
+            codes[offset + dd] = (byte) (rounded - 128);
+        }
+    }
+
+    public Vector decode(byte[] code)
+    {
+        return this.decode(code, 0);
+    }
+
+    public Vector decode(byte[] codes, int offset)
+    {
+        double[] coordinates = new double[this.minimums.length];
+        for (int dd = 0; dd < coordinates.length; dd++)
+        {
+            coordinates[dd] = this.decodeValue(codes[offset + dd], dd);
+        }
+        return new Vector(coordinates);
+    }
+
+    /**
+     * Returns the approximated dot product between the encoded {@link Vector} and the query
+     *
+     * @param code
+     * @param query
+     * @return
+     */
+    public double dotProduct(byte[] code, Vector query)
+    {
+        return this.prepare(query)
+                   .dotProduct(code, 0);
+    }
+
+    /**
+     * Returns the approximated euclidean distance between the encoded {@link Vector} and the query
+     *
+     * @param code
+     * @param query
+     * @return
+     */
+    public double distance(byte[] code, Vector query)
+    {
+        return this.prepare(query)
+                   .distance(code, 0);
+    }
+
+    /**
+     * Prepares the given query {@link Vector} for scanning many codes
+     *
+     * @param query
+     * @return
+     */
+    public Query prepare(Vector query)
+    {
+        return new Query(query);
+    }
+
+    /**
+     * A query {@link Vector} prepared for the dot product and distance calculation against codes of the {@link ScalarQuantizer}
+     *
+     * @author Omnaest
+     */
+    public class Query
+    {
+        private double   dotProductOffset;
+        private double[] weights;
+        private double[] coordinates;
+        private double   remainingSquaredNorm;
+
+        protected Query(Vector query)
+        {
+            int dimension = ScalarQuantizer.this.getDimension();
+            this.coordinates = new double[dimension];
+            this.weights = new double[dimension];
+            for (int dd = 0; dd < dimension; dd++)
+            {
+                double value = query.getCoordinate(dd);
+                this.coordinates[dd] = value;
+                this.weights[dd] = ScalarQuantizer.this.scales[dd] * value;
+                this.dotProductOffset += (ScalarQuantizer.this.minimums[dd] + 128 * ScalarQuantizer.this.scales[dd]) * value;
+            }
+            for (int dd = dimension; dd < query.getDimension(); dd++)
+            {
+                this.remainingSquaredNorm += query.getCoordinate(dd) * query.getCoordinate(dd);
+            }
+        }
+
+        public double dotProduct(byte[] codes, int offset)
+        {
+            double retval = this.dotProductOffset;
+            for (int dd = 0; dd < this.weights.length; dd++)
+            {
+                retval += this.weights[dd] * codes[offset + dd];
+            }
+            return retval;
+        }
+
+        public double squaredDistance(byte[] codes, int offset)
+        {
+            double retval = this.remainingSquaredNorm;
+            for (int dd = 0; dd < this.coordinates.length; dd++)
+            {
+                double delta = ScalarQuantizer.this.decodeValue(codes[offset + dd], dd) - this.coordinates[dd];
+                retval += delta * delta;
+            }
+            return retval;
+        }
+
+        public double distance(byte[] codes, int offset)
+        {
+            return Math.sqrt(this.squaredDistance(codes, offset));
+        }
+    }
+
+    private double decodeValue(byte code, int dimension)
+    {
+        return this.minimums[dimension] + this.scales[dimension] * (code + 128);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ScalarQuantizer [dimension=" + this.getDimension() + "]";
+    }
+
+}
@@ -0,0 +1,258 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Thread local arena of reusable temporary coordinate arrays and matrix arrays for compound operations, which would otherwise allocate
+ * many short lived {@link Vector}s and {@link Matrix}es.<br>
+ * <br>
+ * Arrays are borrowed within a scope, which is opened by {@link #open()} and closed by {@link #close()}. Closing returns all arrays
+ * borrowed since the matching {@link #open()} to the arena, so they must not be used afterwards. Scopes can be nested, e.g. by library
+ * operations called within a user scope. Each {@link #open()} returns its own scope, which must be closed exactly once and only while it is
+ * the innermost open scope of its {@link Thread}.<br>
+ * <br>
+ * The pool of each {@link Thread} is bounded: arrays with more than {@value #MAX_POOLED_ARRAY_LENGTH} values are never pooled, and at most
+ * {@value #MAX_POOLED_VALUES} values are kept in total. Arrays beyond these limits are left to the garbage collector.
+ * {@link #clear()} drops all pooled arrays of the current {@link Thread}.<br>
+ * <br>
+ * Example:<br>
+ *
+ * <pre>
+ * try (ScratchArena arena = ScratchArena.open())
+ * {
+ *     double[] delta = arena.vector(3);
+ *     double[][] jacobian = arena.matrix(3, 3);
+ *     ...
+ * }
+ * </pre>
+ *
+ * @author Omnaest
+ */
+public final class ScratchArena implements AutoCloseable
+{
+    static final int MAX_POOLED_ARRAY_LENGTH = 1 << 16;
+    static final int MAX_POOLED_VALUES       = 1 << 20;
+
+    private static final ThreadLocal<Pool> POOL = ThreadLocal.withInitial(Pool::new);
+
+    /**
+     * Pooled arrays of a {@link Thread} and the arrays borrowed by all of its open scopes
+     */
+    private static class Pool
+    {
+        private Thread                             owner        = Thread.currentThread();
+        private Map<Integer, ArrayDeque<double[]>> vectorPool   = new HashMap<>();
+        private Map<Long, ArrayDeque<double[][]>>  matrixPool   = new HashMap<>();
+        private List<Object>                       borrowed     = new ArrayList<>();
+        private int                                scopeDepth   = 0;
+        private long                               pooledValues = 0;
+    }
+
+    private Pool    pool;
+    private int     scopeDepth;
+    private int     mark;
+    private boolean isClosed = false;
+
+    private ScratchArena(Pool pool, int scopeDepth, int mark)
+    {
+        super();
+        this.pool = pool;
+        this.scopeDepth = scopeDepth;
+        this.mark = mark;
+    }
+
+    /**
+     * Opens a new scope of the {@link ScratchArena} of the current {@link Thread}
+     *
+     * @return
+     */
+    public static ScratchArena open()
+    {
+        Pool pool = POOL.get();
+        return new ScratchArena(pool, ++pool.scopeDepth, pool.borrowed.size());
+    }
+
+    /**
+     * Returns a zero filled array of the given length, which is valid until the current scope is closed
+     *
+     * @param dimension
+     * @return
+     */
+    public double[] vector(int dimension)
+    {
+        this.assertOpen();
+        ArrayDeque<double[]> pooled = this.pool.vectorPool.get(dimension);
+        double[] retval;
+        if (pooled == null)
+        {
+            retval = new double[dimension];
+        }
+        else
+        {
+            retval = pooled.pop();
+            if (pooled.isEmpty())
+            {
+                this.pool.vectorPool.remove(dimension);
+            }
+            this.pool.pooledValues -= dimension;
+            Arrays.fill(retval, 0.0);
+        }
+        this.pool.borrowed.add(retval);
+        return retval;
+    }
+
+    /**
+     * Returns a zero filled array of rows, which is valid until the current scope is closed
+     *
+     * @param rows
+     * @param columns
+     * @return
+     */
+    public double[][] matrix(int rows, int columns)
+    {
+        this.assertOpen();
+        long key = key(rows, columns);
+        ArrayDeque<double[][]> pooled = this.pool.matrixPool.get(key);
+        double[][] retval;
+        if (pooled == null)
+        {
+            retval = new double[rows][columns];
+        }
+        else
+        {
+            retval = pooled.pop();
+            if (pooled.isEmpty())
+            {
+                this.pool.matrixPool.remove(key);
+            }
+            this.pool.pooledValues -= (long) rows * columns;
+            for (double[] row : retval)
+            {
+                Arrays.fill(row, 0.0);
+            }
+        }
+        this.pool.borrowed.add(retval);
+        return retval;
+    }
+
+    /**
+     * Closes this scope and returns all arrays borrowed within it to the arena
+     *
+     * @throws IllegalStateException
+     *             if this scope is already closed or an inner scope is still open
+     */
+    @Override
+    public void close()
+    {
+        this.assertOpen();
+        this.isClosed = true;
+        this.pool.scopeDepth--;
+        for (int ii = this.pool.borrowed.size() - 1; ii >= this.mark; ii--)
+        {
+            Object array = this.pool.borrowed.remove(ii);
+            if (array instanceof double[])
+            {
+                double[] vector = (double[]) array;
+                if (this.isPoolable(vector.length))
+                {
+                    this.pool.vectorPool.computeIfAbsent(vector.length, length -> new ArrayDeque<>())
+                                   .push(vector);
+                    this.pool.pooledValues += vector.length;
+                }
+            }
+            else
+            {
+                double[][] matrix = (double[][]) array;
+                long values = matrix.length > 0 ? (long) matrix.length * matrix[0].length : 0;
+                if (matrix.length > 0 && this.isPoolable(values))
+                {
+                    this.pool.matrixPool.computeIfAbsent(key(matrix.length, matrix[0].length), key -> new ArrayDeque<>())
+                                   .push(matrix);
+                    this.pool.pooledValues += values;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns true, if an array with the given number of values can be pooled within the limits. Matrix arrays without rows are not pooled,
+     * since their column count is unknown.
+     */
+    private boolean isPoolable(long values)
+    {
+        return values <= MAX_POOLED_ARRAY_LENGTH && this.pool.pooledValues + values <= MAX_POOLED_VALUES;
+    }
+
+    /**
+     * Drops all pooled arrays of the {@link ScratchArena} of the current {@link Thread}. Arrays borrowed by open scopes stay valid and are
+     * returned to the pool on {@link #close()} as usual.
+     */
+    public static void clear()
+    {
+        Pool pool = POOL.get();
+        pool.vectorPool.clear();
+        pool.matrixPool.clear();
+        pool.pooledValues = 0;
+    }
+
+    /**
+     * Returns the number of values held by the pooled arrays of the current {@link Thread}
+     *
+     * @return
+     */
+    static long getPooledValues()
+    {
+        return POOL.get().pooledValues;
+    }
+
+    private void assertOpen()
+    {
+        if (this.pool.owner != Thread.currentThread())
+        {
+            throw new IllegalStateException("ScratchArena must only be used by the thread which opened it");
+        }
+        if (this.isClosed)
+        {
+            throw new IllegalStateException("ScratchArena scope is already closed");
+        }
+        if (this.scopeDepth != this.pool.scopeDepth)
+        {
+            throw new IllegalStateException("ScratchArena scope must be the innermost open scope");
+        }
+    }
+
+    private static long key(int rows, int columns)
+    {
+        return ((long) rows << 32) | columns;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ScratchArena [scopeDepth=" + this.scopeDepth + ", isClosed=" + this.isClosed + ", borrowed=" + this.pool.borrowed.size() + "]";
+    }
+
+}
@@ -0,0 +1,759 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Singular value decomposition A = U * S * V<sup>T</sup> of a {@link Matrix} with m rows and n columns.<br>
+ * <br>
+ * {@link #of(Matrix)} calculates the thin decomposition by Golub-Kahan bidiagonalization followed by implicit shifted QR iterations.
+ * {@link #randomized(Matrix, int)} determines only the k largest singular triplets by projecting onto a randomized range approximation,
+ * which uses parallel blocked multiplies and is intended for large matrices.<br>
+ * <br>
+ * The singular values are ordered descending.
+ *
+ * @see Matrix#singularValueDecomposition()
+ * @see Matrix#pseudoInverse()
+ * @see <a href="https://en.wikipedia.org/wiki/Singular_value_decomposition">wikipedia</a>
+ * @author Omnaest
+ */
+public class SingularValueDecomposition
+{
+    private static final double EPSILON = Math.ulp(1.0);
+    private static final double TINY    = Math.pow(2.0, -966.0);
+
+    private int        rows;
+    private int        columns;
+    private double[][] u;
+    private double[]   singularValues;
+    private double[][] v;
+
+    /**
+     * @param rows
+     * @param columns
+     * @param u
+     *            m x r matrix of left singular vectors as columns
+     * @param singularValues
+     *            r descending singular values
+     * @param v
+     *            n x r matrix of right singular vectors as columns
+     */
+    protected SingularValueDecomposition(int rows, int columns, double[][] u, double[] singularValues, double[][] v)
+    {
+        super();
+        this.rows = rows;
+        this.columns = columns;
+        this.u = u;
+        this.singularValues = singularValues;
+        this.v = v;
+    }
+
+    /**
+     * Returns the thin singular value decomposition of the given {@link Matrix}
+     *
+     * @param matrix
+     * @return
+     */
+    public static SingularValueDecomposition of(Matrix matrix)
+    {
+        return of(matrix.toArray());
+    }
+
+    private static SingularValueDecomposition of(double[][] data)
+    {
+        int rows = data.length;
+        int columns = rows > 0 ? data[0].length : 0;
+        if (rows < columns)
+        {
+            SingularValueDecomposition transposed = decompose(DenseKernels.transpose(data));
+            return new SingularValueDecomposition(rows, columns, transposed.v, transposed.singularValues, transposed.u);
+        }
+        return decompose(data);
+    }
+
+    /**
+     * Returns the k largest singular triplets of the given {@link Matrix} using a randomized range finder with an oversampling of 10 and 2
+     * power iterations
+     *
+     * @see #randomized(Matrix, int, int, int, long)
+     * @param matrix
+     * @param k
+     * @return
+     */
+    public static SingularValueDecomposition randomized(Matrix matrix, int k)
+    {
+        return randomized(matrix, k, 10, 2, 0);
+    }
+
+    /**
+     * Returns the k largest singular triplets of the given {@link Matrix} using a randomized range finder.<br>
+     * <br>
+     * The range of A is sampled by multiplying with a gaussian random matrix of k + oversampling columns, refined by the given number of
+     * power iterations and orthonormalized. A is then projected onto this range and the small projected {@link Matrix} is decomposed
+     * exactly.
+     *
+     * @see <a href="https://arxiv.org/abs/0909.4061">Halko, Martinsson, Tropp: Finding structure with randomness</a>
+     * @param matrix
+     * @param k
+     * @param oversampling
+     * @param powerIterations
+     * @param seed
+     * @return
+     */
+    public static SingularValueDecomposition randomized(Matrix matrix, int k, int oversampling, int powerIterations, long seed)
+    {
+        double[][] a = matrix.toArray();
+        int rows = a.length;
+        int columns = rows > 0 ? a[0].length : 0;
+        k = Math.min(k, Math.min(rows, columns));
+        int samples = Math.min(k + oversampling, Math.min(rows, columns));
+
+        Random random = new Random(seed);
+        double[][] omega = new double[columns][samples];
+        for (double[] row : omega)
+        {
+            for (int jj = 0; jj < samples; jj++)
+            {
+                row[jj] = random.nextGaussian();
+            }
+        }
+
+        double[][] q = orthonormalizeColumns(DenseKernels.multiply(a, omega));
+        if (powerIterations > 0)
+        {
+            double[][] aTransposed = DenseKernels.transpose(a);
+            for (int iteration = 0; iteration < powerIterations; iteration++)
+            {
+                double[][] z = orthonormalizeColumns(DenseKernels.multiply(aTransposed, q));
+                q = orthonormalizeColumns(DenseKernels.multiply(a, z));
+            }
+        }
+
+        double[][] b = DenseKernels.multiply(DenseKernels.transpose(q), a);
+        SingularValueDecomposition small = of(b);
+        double[][] u = DenseKernels.multiply(q, small.u);
+        return new SingularValueDecomposition(rows, columns, u, small.singularValues, small.v).truncated(k);
+    }
+
+    /**
+     * Modified Gram-Schmidt with reorthogonalization on the columns of the given matrix
+     */
+    private static double[][] orthonormalizeColumns(double[][] matrix)
+    {
+        double[][] columns = DenseKernels.transpose(matrix);
+        for (int jj = 0; jj < columns.length; jj++)
+        {
+            double[] column = columns[jj];
+            for (int pass = 0; pass < 2; pass++)
+            {
+                for (int ii = 0; ii < jj; ii++)
+                {
+                    double projection = DenseKernels.dot(columns[ii], 0, column, 0, column.length);
+                    for (int rr = 0; rr < column.length; rr++)
+                    {
+                        column[rr] -= projection * columns[ii][rr];
+                    }
+                }
+            }
+            double norm = Math.sqrt(DenseKernels.dot(column, 0, column, 0, column.length));
+            double factor = norm > EPSILON ? 1.0 / norm : 0.0;
+            for (int rr = 0; rr < column.length; rr++)
+            {
+                column[rr] *= factor;
+            }
+        }
+        return DenseKernels.transpose(columns);
+    }
+
+    /**
+     * Golub-Kahan-Reinsch decomposition of a matrix with at least as many rows as columns. The given array is used as working copy.
+     */
+    private static SingularValueDecomposition decompose(double[][] a)
+    {
+        int m = a.length;
+        int n = m > 0 ? a[0].length : 0;
+        if (n == 0)
+        {
+            return new SingularValueDecomposition(m, 0, new double[m][0], new double[0], new double[0][0]);
+        }
+        int nu = Math.min(m, n);
+        double[] s = new double[Math.min(m + 1, n)];
+        double[][] u = new double[m][nu];
+        double[][] v = new double[n][n];
+        double[] e = new double[n];
+        double[] work = new double[m];
+
+        // reduce to bidiagonal form, storing the diagonal in s and the super diagonal in e
+        int nct = Math.min(m - 1, n);
+        int nrt = Math.max(0, Math.min(n - 2, m));
+        for (int kk = 0; kk < Math.max(nct, nrt); kk++)
+        {
+            if (kk < nct)
+            {
+                s[kk] = 0;
+                for (int ii = kk; ii < m; ii++)
+                {
+                    s[kk] = Math.hypot(s[kk], a[ii][kk]);
+                }
+                if (s[kk] != 0.0)
+                {
+                    if (a[kk][kk] < 0.0)
+                    {
+                        s[kk] = -s[kk];
+                    }
+                    for (int ii = kk; ii < m; ii++)
+                    {
+                        a[ii][kk] /= s[kk];
+                    }
+                    a[kk][kk] += 1.0;
+                }
+                s[kk] = -s[kk];
+            }
+            for (int jj = kk + 1; jj < n; jj++)
+            {
+                if (kk < nct && s[kk] != 0.0)
+                {
+                    double t = 0;
+                    for (int ii = kk; ii < m; ii++)
+                    {
+                        t += a[ii][kk] * a[ii][jj];
+                    }
+                    t = -t / a[kk][kk];
+                    for (int ii = kk; ii < m; ii++)
+                    {
+                        a[ii][jj] += t * a[ii][kk];
+                    }
+                }
+                e[jj] = a[kk][jj];
+            }
+            if (kk < nct)
+            {
+                for (int ii = kk; ii < m; ii++)
+                {
+                    u[ii][kk] = a[ii][kk];
+                }
+            }
+            if (kk < nrt)
+            {
+                e[kk] = 0;
+                for (int ii = kk + 1; ii < n; ii++)
+                {
+                    e[kk] = Math.hypot(e[kk], e[ii]);
+                }
+                if (e[kk] != 0.0)
+                {
+                    if (e[kk + 1] < 0.0)
+                    {
+                        e[kk] = -e[kk];
+                    }
+                    for (int ii = kk + 1; ii < n; ii++)
+                    {
+                        e[ii] /= e[kk];
+                    }
+                    e[kk + 1] += 1.0;
+                }
+                e[kk] = -e[kk];
+                if (kk + 1 < m && e[kk] != 0.0)
+                {
+                    for (int ii = kk + 1; ii < m; ii++)
+                    {
+                        work[ii] = 0.0;
+                    }
+                    for (int jj = kk + 1; jj < n; jj++)
+                    {
+                        for (int ii = kk + 1; ii < m; ii++)
+                        {
+                            work[ii] += e[jj] * a[ii][jj];
+                        }
+                    }
+                    for (int jj = kk + 1; jj < n; jj++)
+                    {
+                        double t = -e[jj] / e[kk + 1];
+                        for (int ii = kk + 1; ii < m; ii++)
+                        {
+                            a[ii][jj] += t * work[ii];
+                        }
+                    }
+                }
+                for (int ii = kk + 1; ii < n; ii++)
+                {
+                    v[ii][kk] = e[ii];
+                }
+            }
+        }
+
+        // set up the final bidiagonal matrix of order p
+        int p = Math.min(n, m + 1);
+        if (nct < n)
+        {
+            s[nct] = a[nct][nct];
+        }
+        if (m < p)
+        {
+            s[p - 1] = 0.0;
+        }
+        if (nrt + 1 < p)
+        {
+            e[nrt] = a[nrt][p - 1];
+        }
+        if (p > 0)
+        {
+            e[p - 1] = 0.0;
+        }
+
+        // generate u
+        for (int jj = nct; jj < nu; jj++)
+        {
+            for (int ii = 0; ii < m; ii++)
+            {
+                u[ii][jj] = 0.0;
+            }
+            u[jj][jj] = 1.0;
+        }
+        for (int kk = nct - 1; kk >= 0; kk--)
+        {
+            if (s[kk] != 0.0)
+            {
+                for (int jj = kk + 1; jj < nu; jj++)
+                {
+                    double t = 0;
+                    for (int ii = kk; ii < m; ii++)
+                    {
+                        t += u[ii][kk] * u[ii][jj];
+                    }
+                    t = -t / u[kk][kk];
+                    for (int ii = kk; ii < m; ii++)
+                    {
+                        u[ii][jj] += t * u[ii][kk];
+                    }
+                }
+                for (int ii = kk; ii < m; ii++)
+                {
+                    u[ii][kk] = -u[ii][kk];
+                }
+                u[kk][kk] = 1.0 + u[kk][kk];
+                for (int ii = 0; ii < kk - 1; ii++)
+                {
+                    u[ii][kk] = 0.0;
+                }
+            }
+            else
+            {
+                for (int ii = 0; ii < m; ii++)
+                {
+                    u[ii][kk] = 0.0;
+                }
+                u[kk][kk] = 1.0;
+            }
+        }
+
+        // generate v
+        for (int kk = n - 1; kk >= 0; kk--)
+        {
+            if (kk < nrt && e[kk] != 0.0)
+            {
+                for (int jj = kk + 1; jj < nu; jj++)
+                {
+                    double t = 0;
+                    for (int ii = kk + 1; ii < n; ii++)
+                    {
+                        t += v[ii][kk] * v[ii][jj];
+                    }
+                    t = -t / v[kk + 1][kk];
+                    for (int ii = kk + 1; ii < n; ii++)
+                    {
+                        v[ii][jj] += t * v[ii][kk];
+                    }
+                }
+            }
+            for (int ii = 0; ii < n; ii++)
+            {
+                v[ii][kk] = 0.0;
+            }
+            v[kk][kk] = 1.0;
+        }
+
+        // implicit shifted QR iterations on the bidiagonal matrix
+        int pp = p - 1;
+        while (p > 0)
+        {
+            int kk;
+            int kase;
+
+            // kase 1: s[p-1] is negligible, kase 2: s[kk] is negligible, kase 3: QR step, kase 4: e[p-2] is negligible, converged
+            for (kk = p - 2; kk >= 0; kk--)
+            {
+                if (Math.abs(e[kk]) <= TINY + EPSILON * (Math.abs(s[kk]) + Math.abs(s[kk + 1])))
+                {
+                    e[kk] = 0.0;
+                    break;
+                }
+            }
+            if (kk == p - 2)
+            {
+                kase = 4;
+            }
+            else
+            {
+                int ks;
+                for (ks = p - 1; ks > kk; ks--)
+                {
+                    double t = (ks != p ? Math.abs(e[ks]) : 0.0) + (ks != kk + 1 ? Math.abs(e[ks - 1]) : 0.0);
+                    if (Math.abs(s[ks]) <= TINY + EPSILON * t)
+                    {
+                        s[ks] = 0.0;
+                        break;
+                    }
+                }
+                if (ks == kk)
+                {
+                    kase = 3;
+                }
+                else if (ks == p - 1)
+                {
+                    kase = 1;
+                }
+                else
+                {
+                    kase = 2;
+                    kk = ks;
+                }
+            }
+            kk++;
+
+            if (kase == 1)
+            {
+                double f = e[p - 2];
+                e[p - 2] = 0.0;
+                for (int jj = p - 2; jj >= kk; jj--)
+                {
+                    double t = Math.hypot(s[jj], f);
+                    double cs = s[jj] / t;
+                    double sn = f / t;
+                    s[jj] = t;
+                    if (jj != kk)
+                    {
+                        f = -sn * e[jj - 1];
+                        e[jj - 1] = cs * e[jj - 1];
+                    }
+                    rotateColumns(v, jj, p - 1, cs, sn);
+                }
+            }
+            else if (kase == 2)
+            {
+                double f = e[kk - 1];
+                e[kk - 1] = 0.0;
+                for (int jj = kk; jj < p; jj++)
+                {
+                    double t = Math.hypot(s[jj], f);
+                    double cs = s[jj] / t;
+                    double sn = f / t;
+                    s[jj] = t;
+                    f = -sn * e[jj];
+                    e[jj] = cs * e[jj];
+                    rotateColumns(u, jj, kk - 1, cs, sn);
+                }
+            }
+            else if (kase == 3)
+            {
+                double scale = Math.max(Math.max(Math.max(Math.max(Math.abs(s[p - 1]), Math.abs(s[p - 2])), Math.abs(e[p - 2])), Math.abs(s[kk])),
+                                        Math.abs(e[kk]));
+                double sp = s[p - 1] / scale;
+                double spm1 = s[p - 2] / scale;
+                double epm1 = e[p - 2] / scale;
+                double sk = s[kk] / scale;
+                double ek = e[kk] / scale;
+                double b = ((spm1 + sp) * (spm1 - sp) + epm1 * epm1) / 2.0;
+                double c = (sp * epm1) * (sp * epm1);
+                double shift = 0.0;
+                if (b != 0.0 || c != 0.0)
+                {
+                    shift = Math.sqrt(b * b + c);
+                    if (b < 0.0)
+                    {
+                        shift = -shift;
+                    }
+                    shift = c / (b + shift);
+                }
+                double f = (sk + sp) * (sk - sp) + shift;
+                double g = sk * ek;
+
+                for (int jj = kk; jj < p - 1; jj++)
+                {
+                    double t = Math.hypot(f, g);
+                    double cs = f / t;
+                    double sn = g / t;
+                    if (jj != kk)
+                    {
+                        e[jj - 1] = t;
+                    }
+                    f = cs * s[jj] + sn * e[jj];
+                    e[jj] = cs * e[jj] - sn * s[jj];
+                    g = sn * s[jj + 1];
+                    s[jj + 1] = cs * s[jj + 1];
+                    rotateColumns(v, jj, jj + 1, cs, sn);
+
+                    t = Math.hypot(f, g);
+                    cs = f / t;
+                    sn = g / t;
+                    s[jj] = t;
+                    f = cs * e[jj] + sn * s[jj + 1];
+                    s[jj + 1] = -sn * e[jj] + cs * s[jj + 1];
+                    g = sn * e[jj + 1];
+                    e[jj + 1] = cs * e[jj + 1];
+                    if (jj < m - 1)
+                    {
+                        rotateColumns(u, jj, jj + 1, cs, sn);
+                    }
+                }
+                e[p - 2] = f;
+            }
+            else
+            {
+                // make the singular value positive and move it to its sorted position
+                if (s[kk] <= 0.0)
+                {
+                    s[kk] = s[kk] < 0.0 ? -s[kk] : 0.0;
+                    for (int ii = 0; ii <= pp; ii++)
+                    {
+                        v[ii][kk] = -v[ii][kk];
+                    }
+                }
+                while (kk < pp && s[kk] < s[kk + 1])
+                {
+                    double t = s[kk];
+                    s[kk] = s[kk + 1];
+                    s[kk + 1] = t;
+                    if (kk < n - 1)
+                    {
+                        swapColumns(v, kk, kk + 1);
+                    }
+                    if (kk < m - 1)
+                    {
+                        swapColumns(u, kk, kk + 1);
+                    }
+                    kk++;
+                }
+                p--;
+            }
+        }
+
+        double[][] thinV = new double[n][];
+        for (int ii = 0; ii < n; ii++)
+        {
+            thinV[ii] = Arrays.copyOf(v[ii], nu);
+        }
+        return new SingularValueDecomposition(m, n, u, Arrays.copyOf(s, nu), thinV);
+    }
+
+    /**
+     * Applies the plane rotation [cs sn; -sn cs] to the columns jj and kk
+     */
+    private static void rotateColumns(double[][] matrix, int jj, int kk, double cs, double sn)
+    {
+        for (double[] row : matrix)
+        {
+            double t = cs * row[jj] + sn * row[kk];
+            row[kk] = -sn * row[jj] + cs * row[kk];
+            row[jj] = t;
+        }
+    }
+
+    private static void swapColumns(double[][] matrix, int jj, int kk)
+    {
+        for (double[] row : matrix)
+        {
+            double t = row[jj];
+            row[jj] = row[kk];
+            row[kk] = t;
+        }
+    }
+
+    private SingularValueDecomposition truncated(int k)
+    {
+        double[][] u = new double[this.rows][];
+        for (int ii = 0; ii < this.rows; ii++)
+        {
+            u[ii] = Arrays.copyOf(this.u[ii], k);
+        }
+        double[][] v = new double[this.columns][];
+        for (int ii = 0; ii < this.columns; ii++)
+        {
+            v[ii] = Arrays.copyOf(this.v[ii], k);
+        }
+        return new SingularValueDecomposition(this.rows, this.columns, u, Arrays.copyOf(this.singularValues, k), v);
+    }
+
+    /**
+     * Returns the singular values in descending order
+     *
+     * @return
+     */
+    public double[] getSingularValues()
+    {
+        return this.singularValues.clone();
+    }
+
+    /**
+     * Returns the {@link Matrix} with the left singular vectors as columns
+     *
+     * @return
+     */
+    public Matrix getU()
+    {
+        return new Matrix(copy(this.u));
+    }
+
+    /**
+     * Returns the diagonal {@link Matrix} of the singular values
+     *
+     * @return
+     */
+    public Matrix getS()
+    {
+        int size = this.singularValues.length;
+        double[][] data = new double[size][size];
+        for (int ii = 0; ii < size; ii++)
+        {
+            data[ii][ii] = this.singularValues[ii];
+        }
+        return new Matrix(data);
+    }
+
+    /**
+     * Returns the {@link Matrix} with the right singular vectors as columns
+     *
+     * @return
+     */
+    public Matrix getV()
+    {
+        return new Matrix(copy(this.v));
+    }
+
+    /**
+     * Returns the numerical rank, which is the number of singular values above max(m,n) * s[0] * ulp(1.0)
+     *
+     * @return
+     */
+    public int rank()
+    {
+        double tolerance = Math.max(this.rows, this.columns) * (this.singularValues.length > 0 ? this.singularValues[0] : 0.0) * EPSILON;
+        return this.rank(tolerance);
+    }
+
+    /**
+     * Returns the number of singular values above the given tolerance
+     *
+     * @param tolerance
+     * @return
+     */
+    public int rank(double tolerance)
+    {
+        int retval = 0;
+        for (double singularValue : this.singularValues)
+        {
+            if (singularValue > tolerance)
+            {
+                retval++;
+            }
+        }
+        return retval;
+    }
+
+    /**
+     * Returns the ratio of the largest to the smallest singular value, or {@link Double#NaN} if there are no singular values
+     *
+     * @return
+     */
+    public double getConditionNumber()
+    {
+        if (this.singularValues.length == 0)
+        {
+            return Double.NaN;
+        }
+        return this.singularValues[0] / this.singularValues[this.singularValues.length - 1];
+    }
+
+    /**
+     * Returns the Moore-Penrose pseudo inverse V * S<sup>+</sup> * U<sup>T</sup>, singular values below the {@link #rank()} tolerance are
+     * treated as 0
+     *
+     * @return
+     */
+    public Matrix pseudoInverse()
+    {
+        int rank = this.rank();
+        double[][] data = new double[this.columns][this.rows];
+        for (int ii = 0; ii < this.columns; ii++)
+        {
+            for (int kk = 0; kk < rank; kk++)
+            {
+                double factor = this.v[ii][kk] / this.singularValues[kk];
+                for (int jj = 0; jj < this.rows; jj++)
+                {
+                    data[ii][jj] += factor * this.u[jj][kk];
+                }
+            }
+        }
+        return new Matrix(data);
+    }
+
+    /**
+     * Returns the best approximation of rank k in the least squares sense, U<sub>k</sub> * S<sub>k</sub> * V<sub>k</sub><sup>T</sup>
+     *
+     * @param k
+     * @return
+     */
+    public Matrix lowRankApproximation(int k)
+    {
+        k = Math.min(k, this.singularValues.length);
+        double[][] data = new double[this.rows][this.columns];
+        for (int ii = 0; ii < this.rows; ii++)
+        {
+            for (int kk = 0; kk < k; kk++)
+            {
+                double factor = this.u[ii][kk] * this.singularValues[kk];
+                for (int jj = 0; jj < this.columns; jj++)
+                {
+                    data[ii][jj] += factor * this.v[jj][kk];
+                }
+            }
+        }
+        return new Matrix(data);
+    }
+
+    private static double[][] copy(double[][] data)
+    {
+        double[][] retval = new double[data.length][];
+        for (int ii = 0; ii < data.length; ii++)
+        {
+            retval[ii] = data[ii].clone();
+        }
+        return retval;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "SingularValueDecomposition [singularValues=" + Arrays.toString(this.singularValues) + "]";
+    }
+
+}
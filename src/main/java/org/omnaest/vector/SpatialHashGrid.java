@@ -0,0 +1,304 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * Uniform grid of {@link Vector}s hashed by their quantized x, y and z coordinates, which answers tolerance based equality and within
+ * radius queries in expected constant time per point by probing only the neighbouring cells.<br>
+ * <br>
+ * The cell size should be about the typical tolerance or radius of the queries. Larger tolerances are supported by probing more cells.
+ * Coordinates beyond z only take part in the final comparison, not in the hashing.<br>
+ * <br>
+ * The {@link #concurrent(double)} variant allows parallel {@link #add(Vector)} calls and queries. Its {@link #addIfAbsent(Vector, double)}
+ * is serialized to stay exact, since near equal points can fall into different cells. This only holds among
+ * {@link #addIfAbsent(Vector, double)} calls, a concurrent {@link #add(Vector)} is not serialized and can still insert a near duplicate.<br>
+ * <br>
+ * Example:<br>
+ *
+ * <pre>
+ * List&lt;Vector&gt; unique = SpatialHashGrid.deduplicate(points, 1E-6);
+ * </pre>
+ *
+ * @see Vector#equals(Vector, double)
+ * @author Omnaest
+ */
+public class SpatialHashGrid
+{
+    private static final long MAX_CELLS_PER_AXIS = 1L << 21;
+
+    private final double                        cellSize;
+    private final boolean                       concurrent;
+    private final Map<Long, Collection<Vector>> cells;
+    private final AtomicInteger                 size = new AtomicInteger();
+
+    protected SpatialHashGrid(double cellSize, boolean concurrent)
+    {
+        super();
+        if (!(cellSize > 0.0))
+        {
+            throw new IllegalArgumentException("Cell size must be positive");
+        }
+        this.cellSize = cellSize;
+        this.concurrent = concurrent;
+        this.cells = concurrent ? new ConcurrentHashMap<>() : new HashMap<>();
+    }
+
+    /**
+     * Returns a new {@link SpatialHashGrid} with the given cell size for use by a single thread
+     *
+     * @param cellSize
+     * @return
+     */
+    public static SpatialHashGrid of(double cellSize)
+    {
+        return new SpatialHashGrid(cellSize, false);
+    }
+
+    /**
+     * Returns a new {@link SpatialHashGrid} with the given cell size, which allows parallel inserts and queries
+     *
+     * @param cellSize
+     * @return
+     */
+    public static SpatialHashGrid concurrent(double cellSize)
+    {
+        return new SpatialHashGrid(cellSize, true);
+    }
+
+    /**
+     * Returns the given points without the ones, which are equal to a previous point within the given tolerance as defined by
+     * {@link Vector#equals(Vector, double)}. The order of the remaining points is kept. Since the tolerance is exclusive and also used as
+     * cell size, it must be positive.
+     *
+     * @param points
+     * @param delta
+     * @return
+     * @throws IllegalArgumentException
+     *             if the delta is not positive
+     */
+    public static List<Vector> deduplicate(Collection<? extends Vector> points, double delta)
+    {
+        if (!(delta > 0.0))
+        {
+            throw new IllegalArgumentException("Delta must be positive");
+        }
+        SpatialHashGrid grid = of(delta);
+        List<Vector> retval = new ArrayList<>();
+        for (Vector point : points)
+        {
+            if (grid.addIfAbsent(point, delta) == point)
+            {
+                retval.add(point);
+            }
+        }
+        return retval;
+    }
+
+    /**
+     * Packs 21 bits of each cell index into the key, so cells only share a key, if they are 2<sup>21</sup> cells apart
+     */
+    private long cellKey(long x, long y, long z)
+    {
+        return (x & 0x1FFFFFL) | (y & 0x1FFFFFL) << 21 | (z & 0x1FFFFFL) << 42;
+    }
+
+    private long cell(double coordinate)
+    {
+        return (long) Math.floor(coordinate / this.cellSize);
+    }
+
+    /**
+     * Adds the given point
+     *
+     * @param point
+     * @return this
+     */
+    public SpatialHashGrid add(Vector point)
+    {
+        long key = this.cellKey(this.cell(point.getX()), this.cell(point.getY()), this.cell(point.getZ()));
+        this.cells.computeIfAbsent(key, k -> this.concurrent ? new ConcurrentLinkedQueue<>() : new ArrayList<>())
+                  .add(point);
+        this.size.incrementAndGet();
+        return this;
+    }
+
+    /**
+     * Adds all given points
+     *
+     * @param points
+     * @return this
+     */
+    public SpatialHashGrid addAll(Collection<? extends Vector> points)
+    {
+        for (Vector point : points)
+        {
+            this.add(point);
+        }
+        return this;
+    }
+
+    /**
+     * Returns the point, which is equal to the given point within the given tolerance, or adds the given point and returns it, if there is
+     * none. For the {@link #concurrent(double)} variant this is atomic with respect to other {@link #addIfAbsent(Vector, double)} calls,
+     * but not to concurrent {@link #add(Vector)} calls.
+     *
+     * @param point
+     * @param delta
+     * @return
+     */
+    public Vector addIfAbsent(Vector point, double delta)
+    {
+        if (this.concurrent)
+        {
+            synchronized (this)
+            {
+                return this.addIfAbsentUnsynchronized(point, delta);
+            }
+        }
+        return this.addIfAbsentUnsynchronized(point, delta);
+    }
+
+    private Vector addIfAbsentUnsynchronized(Vector point, double delta)
+    {
+        Optional<Vector> existing = this.findEqual(point, delta);
+        if (existing.isPresent())
+        {
+            return existing.get();
+        }
+        this.add(point);
+        return point;
+    }
+
+    /**
+     * Returns any point, which is equal to the given point within the given tolerance as defined by {@link Vector#equals(Vector, double)}
+     *
+     * @param point
+     * @param delta
+     * @return
+     */
+    public Optional<Vector> findEqual(Vector point, double delta)
+    {
+        return Optional.ofNullable(this.findFirst(point, delta, candidate -> point.equals(candidate, delta)));
+    }
+
+    /**
+     * Returns all points within the given euclidean distance of the given center, including the border
+     *
+     * @param center
+     * @param radius
+     * @return
+     */
+    public List<Vector> withinRadius(Vector center, double radius)
+    {
+        List<Vector> retval = new ArrayList<>();
+        this.findFirst(center, radius, candidate ->
+        {
+            if (center.distanceTo(candidate) <= radius)
+            {
+                retval.add(candidate);
+            }
+            return false;
+        });
+        return retval;
+    }
+
+    /**
+     * Returns the first point within the cells overlapping the cube of the given half extent around the given point, which matches the
+     * given {@link Predicate}. If the cube spans more cells than are occupied, or so many cells that their keys would wrap, all occupied
+     * cells are scanned instead, so the given {@link Predicate} has to reject points outside of the cube itself.
+     */
+    private Vector findFirst(Vector point, double extent, Predicate<Vector> filter)
+    {
+        long fromX = this.cell(point.getX() - extent);
+        long toX = this.cell(point.getX() + extent);
+        long fromY = this.cell(point.getY() - extent);
+        long toY = this.cell(point.getY() + extent);
+        long fromZ = this.cell(point.getZ() - extent);
+        long toZ = this.cell(point.getZ() + extent);
+        double numberOfProbes = (toX - fromX + 1.0) * (toY - fromY + 1.0) * (toZ - fromZ + 1.0);
+        if (numberOfProbes > this.cells.size() || Math.max(toX - fromX, Math.max(toY - fromY, toZ - fromZ)) >= MAX_CELLS_PER_AXIS)
+        {
+            return this.findFirstInOccupiedCells(filter);
+        }
+        for (long xx = fromX; xx <= toX; xx++)
+        {
+            for (long yy = fromY; yy <= toY; yy++)
+            {
+                for (long zz = fromZ; zz <= toZ; zz++)
+                {
+                    Collection<Vector> cell = this.cells.get(this.cellKey(xx, yy, zz));
+                    if (cell != null)
+                    {
+                        for (Vector candidate : cell)
+                        {
+                            if (filter.test(candidate))
+                            {
+                                return candidate;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private Vector findFirstInOccupiedCells(Predicate<Vector> filter)
+    {
+        for (Collection<Vector> cell : this.cells.values())
+        {
+            for (Vector candidate : cell)
+            {
+                if (filter.test(candidate))
+                {
+                    return candidate;
+                }
+            }
+        }
+        return null;
+    }
+
+    public int size()
+    {
+        return this.size.get();
+    }
+
+    public double getCellSize()
+    {
+        return this.cellSize;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "SpatialHashGrid [cellSize=" + this.cellSize + ", size=" + this.size + ", cells=" + this.cells.size() + "]";
+    }
+
+}
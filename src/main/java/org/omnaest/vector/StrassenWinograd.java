@@ -0,0 +1,242 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Matrix multiplication by the Winograd variant of the Strassen algorithm, which needs 7 instead of 8 block products and 15 instead of 18
+ * block additions per recursion level, so O(n<sup>2.81</sup>) instead of O(n<sup>3</sup>) operations.<br>
+ * <br>
+ * The recursion stops as soon as a block dimension reaches the cutoff and continues with the blocked standard kernel. The dimensions are
+ * padded with zeros to a multiple of 2<sup>levels</sup> once at the beginning. The seven block products of the upper levels run as tasks
+ * on the common {@link ForkJoinPool}.<br>
+ * <br>
+ * Accuracy: the error of the standard multiplication is bounded element wise by about n * u * (|A| * |B|), with the unit roundoff u. The
+ * Strassen-Winograd error is only bounded norm wise by about c * n<sup>log2(18)</sup> * u * ||A|| * ||B||, so elements of C which are much
+ * smaller than the norms of A and B can lose relative accuracy, particularly for badly scaled matrices. For matrices of similar magnitude
+ * the observed error is typically only a few times larger than the standard one.
+ *
+ * @see Matrix#multiplyStrassen(Matrix)
+ * @see <a href="https://en.wikipedia.org/wiki/Strassen_algorithm">wikipedia</a>
+ * @author Omnaest
+ */
+final class StrassenWinograd
+{
+    /**
+     * Default block dimension below which the standard kernel is used
+     */
+    static final int DEFAULT_CUTOFF = 256;
+
+    /**
+     * Number of recursion levels whose block products are forked as parallel tasks
+     */
+    private static final int PARALLEL_LEVELS = 2;
+
+    private StrassenWinograd()
+    {
+        super();
+    }
+
+    /**
+     * Returns the product of the given matrices given as arrays of rows
+     *
+     * @param left
+     * @param right
+     * @param cutoff
+     *            block dimension below which the standard kernel is used
+     * @return
+     */
+    static double[][] multiply(double[][] left, double[][] right, int cutoff)
+    {
+        int rows = left.length;
+        int shared = right.length;
+        int columns = shared > 0 ? right[0].length : 0;
+        if (rows > 0 && left[0].length != shared)
+        {
+            throw new IllegalArgumentException("x dimension of A must be equal to y dimension of B");
+        }
+        if (cutoff < 1)
+        {
+            throw new IllegalArgumentException("Cutoff must be positive");
+        }
+
+        int levels = 0;
+        int minimumDimension = Math.min(rows, Math.min(shared, columns));
+        while ((minimumDimension >> levels) > cutoff)
+        {
+            levels++;
+        }
+        if (levels == 0)
+        {
+            return DenseKernels.multiply(left, right);
+        }
+
+        int paddedRows = padded(rows, levels);
+        int paddedShared = padded(shared, levels);
+        int paddedColumns = padded(columns, levels);
+        double[][] paddedLeft = paddedRows == rows && paddedShared == shared ? left : block(left, 0, 0, paddedRows, paddedShared);
+        double[][] paddedRight = paddedShared == shared && paddedColumns == columns ? right : block(right, 0, 0, paddedShared, paddedColumns);
+
+        double[][] product = ForkJoinPool.commonPool()
+                                         .invoke(new Product(paddedLeft, paddedRight, levels, 0));
+        return paddedRows == rows && paddedColumns == columns ? product : block(product, 0, 0, rows, columns);
+    }
+
+    private static int padded(int dimension, int levels)
+    {
+        int multiple = 1 << levels;
+        return (dimension + multiple - 1) / multiple * multiple;
+    }
+
+    private static class Product extends RecursiveTask<double[][]>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final double[][] left;
+        private final double[][] right;
+        private final int        levels;
+        private final int        depth;
+
+        private Product(double[][] left, double[][] right, int levels, int depth)
+        {
+            super();
+            this.left = left;
+            this.right = right;
+            this.levels = levels;
+            this.depth = depth;
+        }
+
+        @Override
+        protected double[][] compute()
+        {
+            if (this.levels == 0)
+            {
+                return DenseKernels.multiply(this.left, this.right);
+            }
+
+            int m = this.left.length / 2;
+            int k = this.right.length / 2;
+            int n = this.right[0].length / 2;
+
+            double[][] a11 = block(this.left, 0, 0, m, k);
+            double[][] a12 = block(this.left, 0, k, m, k);
+            double[][] a21 = block(this.left, m, 0, m, k);
+            double[][] a22 = block(this.left, m, k, m, k);
+            double[][] b11 = block(this.right, 0, 0, k, n);
+            double[][] b12 = block(this.right, 0, n, k, n);
+            double[][] b21 = block(this.right, k, 0, k, n);
+            double[][] b22 = block(this.right, k, n, k, n);
+
+            double[][] s1 = add(a21, a22, 1.0);
+            double[][] s2 = add(s1, a11, -1.0);
+            double[][] s3 = add(a11, a21, -1.0);
+            double[][] s4 = add(a12, s2, -1.0);
+            double[][] t1 = add(b12, b11, -1.0);
+            double[][] t2 = add(b22, t1, -1.0);
+            double[][] t3 = add(b22, b12, -1.0);
+            double[][] t4 = add(t2, b21, -1.0);
+
+            Product[] products = new Product[] { this.product(a11, b11), this.product(a12, b21), this.product(s4, b22), this.product(a22, t4),
+                    this.product(s1, t1), this.product(s2, t2), this.product(s3, t3) };
+            if (this.depth < PARALLEL_LEVELS)
+            {
+                ForkJoinTask.invokeAll(products);
+            }
+            else
+            {
+                for (Product product : products)
+                {
+                    product.invoke();
+                }
+            }
+            double[][] p1 = products[0].join();
+            double[][] p2 = products[1].join();
+            double[][] p3 = products[2].join();
+            double[][] p4 = products[3].join();
+            double[][] p5 = products[4].join();
+            double[][] p6 = products[5].join();
+            double[][] p7 = products[6].join();
+
+            double[][] u2 = add(p1, p6, 1.0);
+            double[][] u3 = add(u2, p7, 1.0);
+            double[][] u4 = add(u2, p5, 1.0);
+
+            double[][] retval = new double[2 * m][2 * n];
+            for (int ii = 0; ii < m; ii++)
+            {
+                double[] upperRow = retval[ii];
+                double[] lowerRow = retval[m + ii];
+                for (int jj = 0; jj < n; jj++)
+                {
+                    upperRow[jj] = p1[ii][jj] + p2[ii][jj];
+                    upperRow[n + jj] = u4[ii][jj] + p3[ii][jj];
+                    lowerRow[jj] = u3[ii][jj] - p4[ii][jj];
+                    lowerRow[n + jj] = u3[ii][jj] + p5[ii][jj];
+                }
+            }
+            return retval;
+        }
+
+        private Product product(double[][] left, double[][] right)
+        {
+            return new Product(left, right, this.levels - 1, this.depth + 1);
+        }
+    }
+
+    /**
+     * Returns a copy of the block with the given offset and size, filled with zeros beyond the given matrix
+     */
+    private static double[][] block(double[][] matrix, int rowOffset, int columnOffset, int rows, int columns)
+    {
+        double[][] retval = new double[rows][columns];
+        int availableRows = Math.max(0, Math.min(rows, matrix.length - rowOffset));
+        for (int ii = 0; ii < availableRows; ii++)
+        {
+            double[] row = matrix[rowOffset + ii];
+            int availableColumns = Math.max(0, Math.min(columns, row.length - columnOffset));
+            System.arraycopy(row, columnOffset, retval[ii], 0, availableColumns);
+        }
+        return retval;
+    }
+
+    /**
+     * Returns left + factor * right
+     */
+    private static double[][] add(double[][] left, double[][] right, double factor)
+    {
+        int rows = left.length;
+        int columns = left[0].length;
+        double[][] retval = new double[rows][columns];
+        for (int ii = 0; ii < rows; ii++)
+        {
+            double[] leftRow = left[ii];
+            double[] rightRow = right[ii];
+            double[] row = retval[ii];
+            for (int jj = 0; jj < columns; jj++)
+            {
+                row[jj] = leftRow[jj] + factor * rightRow[jj];
+            }
+        }
+        return retval;
+    }
+
+}
@@ -0,0 +1,235 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+/**
+ * Tall skinny QR decomposition for linear least squares problems with many more rows than columns.<br>
+ * <br>
+ * Rows are accepted one by one or in chunks and rotated into the n x n triangular factor R with Givens rotations, together with the
+ * transformed target values Q<sup>T</sup> * b. So the full design {@link Matrix} never has to be kept in memory, only O(n<sup>2</sup>)
+ * state.<br>
+ * <br>
+ * Independent instances fed by different threads can be merged with {@link #combine(StreamingQRDecomposition)}.<br>
+ * <br>
+ * Example:<br>
+ *
+ * <pre>
+ * StreamingQRDecomposition decomposition = new StreamingQRDecomposition(50);
+ * for (Chunk chunk : chunks)
+ * {
+ *     decomposition.accept(chunk.getRows(), chunk.getTargets());
+ * }
+ * Vector coefficients = decomposition.solve();
+ * </pre>
+ *
+ * @see QRDecomposition
+ * @author Omnaest
+ */
+public class StreamingQRDecomposition
+{
+    private int        columns;
+    private double[][] r;
+    private double[]   z;
+    private double[]   work;
+    private double     residualSumOfSquares = 0.0;
+    private long       count                = 0;
+
+    /**
+     * @param columns
+     *            number of columns of the design {@link Matrix}
+     */
+    public StreamingQRDecomposition(int columns)
+    {
+        super();
+        this.columns = columns;
+        this.r = new double[columns][columns];
+        this.z = new double[columns];
+        this.work = new double[columns];
+    }
+
+    /**
+     * Accepts a single row of the design {@link Matrix} and its target value
+     *
+     * @param row
+     * @param target
+     * @return this
+     */
+    public StreamingQRDecomposition accept(double[] row, double target)
+    {
+        System.arraycopy(row, 0, this.work, 0, Math.min(row.length, this.columns));
+        for (int ii = row.length; ii < this.columns; ii++)
+        {
+            this.work[ii] = 0.0;
+        }
+        double remainder = this.rotateIn(this.work, target);
+        this.residualSumOfSquares += remainder * remainder;
+        this.count++;
+        return this;
+    }
+
+    /**
+     * Accepts a chunk of rows of the design {@link Matrix} and the target values
+     *
+     * @param rows
+     * @param targets
+     * @return this
+     */
+    public StreamingQRDecomposition accept(Matrix rows, Vector targets)
+    {
+        return this.accept(rows.toArray(), targets.getCoordinates());
+    }
+
+    /**
+     * Accepts a chunk of rows of the design {@link Matrix} and the target values
+     *
+     * @param rows
+     * @param targets
+     * @return this
+     */
+    public StreamingQRDecomposition accept(double[][] rows, double[] targets)
+    {
+        for (int ii = 0; ii < rows.length; ii++)
+        {
+            this.accept(rows[ii], targets[ii]);
+        }
+        return this;
+    }
+
+    /**
+     * Merges the rows accepted by the other {@link StreamingQRDecomposition} into this one
+     *
+     * @param other
+     * @return this
+     */
+    public StreamingQRDecomposition combine(StreamingQRDecomposition other)
+    {
+        if (other.columns != this.columns)
+        {
+            throw new IllegalArgumentException("Decompositions must have the same number of columns");
+        }
+        for (int ii = 0; ii < this.columns; ii++)
+        {
+            System.arraycopy(other.r[ii], 0, this.work, 0, this.columns);
+            double remainder = this.rotateIn(this.work, other.z[ii]);
+            this.residualSumOfSquares += remainder * remainder;
+        }
+        this.residualSumOfSquares += other.residualSumOfSquares;
+        this.count += other.count;
+        return this;
+    }
+
+    /**
+     * Eliminates the given row against R with one Givens rotation per column and returns the remaining part of the target, which
+     * contributes to the residual
+     */
+    private double rotateIn(double[] row, double target)
+    {
+        for (int jj = 0; jj < this.columns; jj++)
+        {
+            double value = row[jj];
+            if (value == 0.0)
+            {
+                continue;
+            }
+            double[] rRow = this.r[jj];
+            double diagonal = rRow[jj];
+            double radius = Math.sqrt(diagonal * diagonal + value * value);
+            double cos = diagonal / radius;
+            double sin = value / radius;
+            rRow[jj] = radius;
+            for (int kk = jj + 1; kk < this.columns; kk++)
+            {
+                double rValue = rRow[kk];
+                double rowValue = row[kk];
+                rRow[kk] = cos * rValue + sin * rowValue;
+                row[kk] = -sin * rValue + cos * rowValue;
+            }
+            double zValue = this.z[jj];
+            this.z[jj] = cos * zValue + sin * target;
+            target = -sin * zValue + cos * target;
+        }
+        return target;
+    }
+
+    /**
+     * Returns the coefficients x which minimize |A * x - b| over all accepted rows
+     *
+     * @return
+     */
+    public Vector solve()
+    {
+        double[] x = new double[this.columns];
+        for (int ii = this.columns - 1; ii >= 0; ii--)
+        {
+            if (this.r[ii][ii] == 0.0)
+            {
+                throw new IllegalStateException("Matrix is rank deficient");
+            }
+            double sum = this.z[ii];
+            for (int kk = ii + 1; kk < this.columns; kk++)
+            {
+                sum -= this.r[ii][kk] * x[kk];
+            }
+            x[ii] = sum / this.r[ii][ii];
+        }
+        return new Vector(x);
+    }
+
+    /**
+     * Returns the upper triangular {@link Matrix} R
+     *
+     * @return
+     */
+    public Matrix getR()
+    {
+        double[][] data = new double[this.columns][];
+        for (int ii = 0; ii < this.columns; ii++)
+        {
+            data[ii] = this.r[ii].clone();
+        }
+        return new Matrix(data);
+    }
+
+    /**
+     * Returns the squared norm of the residual A * x - b of the least squares solution
+     *
+     * @return
+     */
+    public double getResidualSumOfSquares()
+    {
+        return this.residualSumOfSquares;
+    }
+
+    /**
+     * Returns the number of accepted rows
+     *
+     * @return
+     */
+    public long getCount()
+    {
+        return this.count;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "StreamingQRDecomposition [columns=" + this.columns + ", count=" + this.count + "]";
+    }
+
+}
@@ -0,0 +1,181 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+import java.util.function.UnaryOperator;
+
+/**
+ * Base of square {@link Matrix} types which only store their non trivial values and provide specialized kernels for their structure.<br>
+ * <br>
+ * {@link Matrix#multiply(Matrix)} of a dense {@link Matrix} dispatches to {@link #multiplyFromLeft(Matrix)}, so the cheaper kernel is
+ * used from both sides.
+ *
+ * @see DiagonalMatrix
+ * @see TriangularMatrix
+ * @see BandedMatrix
+ * @see SymmetricPackedMatrix
+ * @author Omnaest
+ */
+public abstract class StructuredMatrix extends Matrix
+{
+    protected int dimension;
+
+    protected StructuredMatrix(int dimension)
+    {
+        super();
+        this.dimension = dimension;
+    }
+
+    @Override
+    protected abstract double getRaw(int x, int y);
+
+    @Override
+    public abstract void apply(double[] input, double[] output);
+
+    /**
+     * Similar to {@link #apply(double[], double[])} but applies the transposed {@link Matrix}
+     *
+     * @param input
+     * @param output
+     */
+    public abstract void applyTransposed(double[] input, double[] output);
+
+    @Override
+    public abstract StructuredMatrix multiply(double scalar);
+
+    @Override
+    public int[] getDimensions()
+    {
+        return new int[] { this.dimension, this.dimension };
+    }
+
+    @Override
+    public int getRowCount()
+    {
+        return this.dimension;
+    }
+
+    @Override
+    public int getColumnCount()
+    {
+        return this.dimension;
+    }
+
+    @Override
+    public double[][] toArray()
+    {
+        double[][] retval = new double[this.dimension][this.dimension];
+        for (int ii = 0; ii < this.dimension; ii++)
+        {
+            for (int jj = 0; jj < this.dimension; jj++)
+            {
+                retval[ii][jj] = this.getRaw(jj, ii);
+            }
+        }
+        return retval;
+    }
+
+    @Override
+    public Matrix multiply(Matrix matrixB)
+    {
+        if (this.dimension != matrixB.getRowCount())
+        {
+            throw new IllegalArgumentException("x dimension of A must be equal to y dimension of B");
+        }
+        double[][] columns = DenseKernels.transpose(matrixB.toArray());
+        double[][] resultColumns = new double[columns.length][this.dimension];
+        for (int ii = 0; ii < columns.length; ii++)
+        {
+            this.apply(columns[ii], resultColumns[ii]);
+        }
+        return new Matrix(DenseKernels.transpose(resultColumns));
+    }
+
+    /**
+     * Returns left * this, which is used by {@link Matrix#multiply(Matrix)}
+     *
+     * @param left
+     * @return
+     */
+    protected Matrix multiplyFromLeft(Matrix left)
+    {
+        if (left.getColumnCount() != this.dimension)
+        {
+            throw new IllegalArgumentException("x dimension of A must be equal to y dimension of B");
+        }
+        double[][] rows = left.toArray();
+        double[][] data = new double[rows.length][this.dimension];
+        for (int ii = 0; ii < rows.length; ii++)
+        {
+            this.applyTransposed(rows[ii], data[ii]);
+        }
+        return new Matrix(data);
+    }
+
+    /**
+     * Returns the x with A * x = b
+     *
+     * @param b
+     * @return
+     * @throws IllegalStateException
+     *             if the {@link Matrix} is singular
+     */
+    public Vector solve(Vector b)
+    {
+        double[] rhs = new double[this.dimension];
+        System.arraycopy(b.getCoordinates(), 0, rhs, 0, Math.min(this.dimension, b.getDimension()));
+        return new Vector(DenseKernels.solve(this.toArray(), rhs));
+    }
+
+    @Override
+    public double determinant()
+    {
+        return DenseKernels.determinant(this.toArray());
+    }
+
+    /**
+     * Returns the inverse by a single Gauss-Jordan elimination of the dense values
+     */
+    @Override
+    public Matrix inverse()
+    {
+        return new Matrix(DenseKernels.inverse(this.toArray()));
+    }
+
+    /**
+     * Returns the inverse by solving for each column of the identity with the given solver, which should reuse a single factorization of
+     * this {@link Matrix}
+     *
+     * @param solver
+     *            returns the x with A * x = b for a given b
+     * @return
+     */
+    protected Matrix inverseByColumns(UnaryOperator<double[]> solver)
+    {
+        double[][] columns = new double[this.dimension][];
+        for (int ii = 0; ii < this.dimension; ii++)
+        {
+            double[] unit = new double[this.dimension];
+            unit[ii] = 1.0;
+            columns[ii] = solver.apply(unit);
+        }
+        return new Matrix(DenseKernels.transpose(columns));
+    }
+
+}
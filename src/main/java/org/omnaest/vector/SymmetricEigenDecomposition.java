@@ -0,0 +1,579 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Eigenvalues and eigenvectors of a symmetric {@link Matrix}.<br>
+ * <br>
+ * {@link #of(Matrix)} calculates the full decomposition by Householder tridiagonalization followed by the implicit QL algorithm.
+ * {@link #topK(Matrix, int)} uses the Lanczos iteration to determine only the largest eigenvalues of large matrices.<br>
+ * <br>
+ * Both work on a working copy of the values, the given {@link Matrix} is not modified. The eigenvalues are ordered descending.
+ *
+ * @see Matrix#symmetricEigenDecomposition()
+ * @see <a href="https://en.wikipedia.org/wiki/Eigendecomposition_of_a_matrix">wikipedia</a>
+ * @author Omnaest
+ */
+public class SymmetricEigenDecomposition
+{
+    private static final double EPSILON           = Math.ulp(1.0);
+    private static final double LANCZOS_TOLERANCE = 0.0000000001;
+
+    private double[]   eigenValues;
+    private double[][] eigenVectors;
+
+    /**
+     * @param eigenValues
+     *            descending eigenvalues
+     * @param eigenVectors
+     *            normalized eigenvectors in the order of the eigenvalues
+     */
+    protected SymmetricEigenDecomposition(double[] eigenValues, double[][] eigenVectors)
+    {
+        super();
+        this.eigenValues = eigenValues;
+        this.eigenVectors = eigenVectors;
+    }
+
+    /**
+     * Returns the full decomposition of the given symmetric {@link Matrix}
+     *
+     * @param matrix
+     * @return
+     */
+    public static SymmetricEigenDecomposition of(Matrix matrix)
+    {
+        int dimension = matrix.getRowCount();
+        if (dimension != matrix.getColumnCount())
+        {
+            throw new IllegalStateException("Matrix must be square");
+        }
+
+        double[][] vectors = matrix.toArray();
+        double[] diagonal = new double[dimension];
+        double[] offDiagonal = new double[dimension];
+        tridiagonalize(vectors, diagonal, offDiagonal);
+        diagonalize(diagonal, offDiagonal, vectors);
+        return sorted(diagonal, vectors, dimension);
+    }
+
+    /**
+     * Returns the k largest eigenvalues and their eigenvectors of the given symmetric {@link Matrix} using the Lanczos iteration with full
+     * reorthogonalization. The Krylov subspace is extended until the residuals of the k largest Ritz pairs are converged.<br>
+     * <br>
+     * For small matrices or a large k the full decomposition is used.
+     *
+     * @param matrix
+     * @param k
+     * @return
+     */
+    public static SymmetricEigenDecomposition topK(Matrix matrix, int k)
+    {
+        int dimension = matrix.getRowCount();
+        if (dimension != matrix.getColumnCount())
+        {
+            throw new IllegalStateException("Matrix must be square");
+        }
+        k = Math.min(k, dimension);
+        if (dimension <= 64 || 4 * k >= dimension)
+        {
+            return of(matrix).truncated(k);
+        }
+        return lanczos(k, dimension, matrix);
+    }
+
+    /**
+     * Returns the k largest eigenvalues and their eigenvectors of the given symmetric {@link LinearOperator} using the Lanczos iteration,
+     * which only needs the application of the operator to a {@link Vector}
+     *
+     * @see #topK(Matrix, int)
+     * @param operator
+     * @param k
+     * @return
+     */
+    public static SymmetricEigenDecomposition topK(LinearOperator operator, int k)
+    {
+        int dimension = operator.getRowCount();
+        if (dimension != operator.getColumnCount())
+        {
+            throw new IllegalStateException("Operator must be square");
+        }
+        return lanczos(Math.min(k, dimension), dimension, operator);
+    }
+
+    private static SymmetricEigenDecomposition lanczos(int k, int dimension, LinearOperator operator)
+    {
+        double[][] basis = new double[dimension][];
+        double[] alpha = new double[dimension];
+        double[] beta = new double[dimension];
+        Random random = new Random(dimension);
+
+        double[] current = randomUnitVector(dimension, random, basis, 0);
+        double[] next = new double[dimension];
+        double scale = 0.0;
+        for (int jj = 0; jj < dimension; jj++)
+        {
+            basis[jj] = current;
+            operator.apply(current, next);
+            alpha[jj] = dot(current, next);
+            axpy(-alpha[jj], current, next);
+            if (jj > 0)
+            {
+                axpy(-beta[jj - 1], basis[jj - 1], next);
+            }
+            for (int pass = 0; pass < 2; pass++)
+            {
+                for (int ii = 0; ii <= jj; ii++)
+                {
+                    axpy(-dot(basis[ii], next), basis[ii], next);
+                }
+            }
+            beta[jj] = Math.sqrt(dot(next, next));
+            scale = Math.max(scale, Math.abs(alpha[jj]) + beta[jj]);
+
+            int size = jj + 1;
+            boolean invariant = beta[jj] <= EPSILON * scale * dimension;
+            if (size >= k && (size == dimension || invariant || size % 8 == 0))
+            {
+                double[] diagonal = new double[size];
+                double[] offDiagonal = new double[size];
+                double[][] ritzVectors = new double[size][size];
+                for (int ii = 0; ii < size; ii++)
+                {
+                    diagonal[ii] = alpha[ii];
+                    offDiagonal[ii] = ii > 0 ? beta[ii - 1] : 0.0;
+                    ritzVectors[ii][ii] = 1.0;
+                }
+                diagonalize(diagonal, offDiagonal, ritzVectors);
+                SymmetricEigenDecomposition ritz = sorted(diagonal, ritzVectors, size).truncated(k);
+
+                boolean converged = true;
+                for (int ii = 0; ii < k && converged; ii++)
+                {
+                    double residual = Math.abs(beta[jj] * ritz.eigenVectors[ii][size - 1]);
+                    converged = residual <= LANCZOS_TOLERANCE * Math.max(1.0, Math.abs(ritz.eigenValues[0]));
+                }
+                if ((converged && !invariant) || size == dimension)
+                {
+                    double[][] eigenVectors = new double[k][dimension];
+                    for (int ii = 0; ii < k; ii++)
+                    {
+                        for (int bb = 0; bb < size; bb++)
+                        {
+                            axpy(ritz.eigenVectors[ii][bb], basis[bb], eigenVectors[ii]);
+                        }
+                    }
+                    return new SymmetricEigenDecomposition(ritz.eigenValues, eigenVectors);
+                }
+            }
+
+            if (jj + 1 < dimension)
+            {
+                if (invariant)
+                {
+                    beta[jj] = 0.0;
+                    current = randomUnitVector(dimension, random, basis, jj + 1);
+                }
+                else
+                {
+                    current = next.clone();
+                    scale(1.0 / beta[jj], current);
+                }
+            }
+        }
+        throw new IllegalStateException("Lanczos iteration did not terminate");
+    }
+
+    private static double[] randomUnitVector(int dimension, Random random, double[][] basis, int basisSize)
+    {
+        double[] retval = new double[dimension];
+        for (int ii = 0; ii < dimension; ii++)
+        {
+            retval[ii] = random.nextDouble() - 0.5;
+        }
+        for (int pass = 0; pass < 2; pass++)
+        {
+            for (int ii = 0; ii < basisSize; ii++)
+            {
+                axpy(-dot(basis[ii], retval), basis[ii], retval);
+            }
+        }
+        scale(1.0 / Math.sqrt(dot(retval, retval)), retval);
+        return retval;
+    }
+
+    /**
+     * Householder reduction of the symmetric matrix to tridiagonal form. On return the given matrix contains the accumulated orthogonal
+     * transformation.
+     *
+     * @param v
+     *            symmetric matrix, only the lower triangle is used
+     * @param d
+     *            receives the diagonal
+     * @param e
+     *            receives the sub diagonal in e[1..n-1]
+     */
+    private static void tridiagonalize(double[][] v, double[] d, double[] e)
+    {
+        int n = d.length;
+        if (n == 0)
+        {
+            return;
+        }
+        for (int jj = 0; jj < n; jj++)
+        {
+            d[jj] = v[n - 1][jj];
+        }
+
+        for (int ii = n - 1; ii > 0; ii--)
+        {
+            double scale = 0.0;
+            double h = 0.0;
+            for (int kk = 0; kk < ii; kk++)
+            {
+                scale += Math.abs(d[kk]);
+            }
+            if (scale == 0.0)
+            {
+                e[ii] = d[ii - 1];
+                for (int jj = 0; jj < ii; jj++)
+                {
+                    d[jj] = v[ii - 1][jj];
+                    v[ii][jj] = 0.0;
+                    v[jj][ii] = 0.0;
+                }
+            }
+            else
+            {
+                for (int kk = 0; kk < ii; kk++)
+                {
+                    d[kk] /= scale;
+                    h += d[kk] * d[kk];
+                }
+                double f = d[ii - 1];
+                double g = f > 0 ? -Math.sqrt(h) : Math.sqrt(h);
+                e[ii] = scale * g;
+                h -= f * g;
+                d[ii - 1] = f - g;
+                for (int jj = 0; jj < ii; jj++)
+                {
+                    e[jj] = 0.0;
+                }
+
+                for (int jj = 0; jj < ii; jj++)
+                {
+                    f = d[jj];
+                    v[jj][ii] = f;
+                    g = e[jj] + v[jj][jj] * f;
+                    for (int kk = jj + 1; kk <= ii - 1; kk++)
+                    {
+                        g += v[kk][jj] * d[kk];
+                        e[kk] += v[kk][jj] * f;
+                    }
+                    e[jj] = g;
+                }
+                f = 0.0;
+                for (int jj = 0; jj < ii; jj++)
+                {
+                    e[jj] /= h;
+                    f += e[jj] * d[jj];
+                }
+                double hh = f / (h + h);
+                for (int jj = 0; jj < ii; jj++)
+                {
+                    e[jj] -= hh * d[jj];
+                }
+                for (int jj = 0; jj < ii; jj++)
+                {
+                    f = d[jj];
+                    g = e[jj];
+                    for (int kk = jj; kk <= ii - 1; kk++)
+                    {
+                        v[kk][jj] -= f * e[kk] + g * d[kk];
+                    }
+                    d[jj] = v[ii - 1][jj];
+                    v[ii][jj] = 0.0;
+                }
+            }
+            d[ii] = h;
+        }
+
+        for (int ii = 0; ii < n - 1; ii++)
+        {
+            v[n - 1][ii] = v[ii][ii];
+            v[ii][ii] = 1.0;
+            double h = d[ii + 1];
+            if (h != 0.0)
+            {
+                for (int kk = 0; kk <= ii; kk++)
+                {
+                    d[kk] = v[kk][ii + 1] / h;
+                }
+                for (int jj = 0; jj <= ii; jj++)
+                {
+                    double g = 0.0;
+                    for (int kk = 0; kk <= ii; kk++)
+                    {
+                        g += v[kk][ii + 1] * v[kk][jj];
+                    }
+                    for (int kk = 0; kk <= ii; kk++)
+                    {
+                        v[kk][jj] -= g * d[kk];
+                    }
+                }
+            }
+            for (int kk = 0; kk <= ii; kk++)
+            {
+                v[kk][ii + 1] = 0.0;
+            }
+        }
+        for (int jj = 0; jj < n; jj++)
+        {
+            d[jj] = v[n - 1][jj];
+            v[n - 1][jj] = 0.0;
+        }
+        v[n - 1][n - 1] = 1.0;
+        e[0] = 0.0;
+    }
+
+    /**
+     * Implicit QL iterations on the symmetric tridiagonal matrix, accumulating the rotations into the columns of v
+     *
+     * @param d
+     *            diagonal, receives the unsorted eigenvalues
+     * @param e
+     *            sub diagonal in e[1..n-1], destroyed
+     * @param v
+     *            transformation of the tridiagonalization or the identity, receives the eigenvectors as columns
+     */
+    private static void diagonalize(double[] d, double[] e, double[][] v)
+    {
+        int n = d.length;
+        for (int ii = 1; ii < n; ii++)
+        {
+            e[ii - 1] = e[ii];
+        }
+        if (n > 0)
+        {
+            e[n - 1] = 0.0;
+        }
+
+        double f = 0.0;
+        double tst1 = 0.0;
+        for (int ll = 0; ll < n; ll++)
+        {
+            tst1 = Math.max(tst1, Math.abs(d[ll]) + Math.abs(e[ll]));
+            int mm = ll;
+            while (mm < n - 1 && Math.abs(e[mm]) > EPSILON * tst1)
+            {
+                mm++;
+            }
+
+            if (mm > ll)
+            {
+                do
+                {
+                    double g = d[ll];
+                    double p = (d[ll + 1] - g) / (2.0 * e[ll]);
+                    double r = Math.hypot(p, 1.0);
+                    if (p < 0)
+                    {
+                        r = -r;
+                    }
+                    d[ll] = e[ll] / (p + r);
+                    d[ll + 1] = e[ll] * (p + r);
+                    double dl1 = d[ll + 1];
+                    double h = g - d[ll];
+                    for (int ii = ll + 2; ii < n; ii++)
+                    {
+                        d[ii] -= h;
+                    }
+                    f += h;
+
+                    p = d[mm];
+                    double c = 1.0;
+                    double c2 = c;
+                    double c3 = c;
+                    double el1 = e[ll + 1];
+                    double s = 0.0;
+                    double s2 = 0.0;
+                    for (int ii = mm - 1; ii >= ll; ii--)
+                    {
+                        c3 = c2;
+                        c2 = c;
+                        s2 = s;
+                        g = c * e[ii];
+                        h = c * p;
+                        r = Math.hypot(p, e[ii]);
+                        e[ii + 1] = s * r;
+                        s = e[ii] / r;
+                        c = p / r;
+                        p = c * d[ii] - s * g;
+                        d[ii + 1] = h + s * (c * g + s * d[ii]);
+
+                        for (int kk = 0; kk < v.length; kk++)
+                        {
+                            double[] row = v[kk];
+                            h = row[ii + 1];
+                            row[ii + 1] = s * row[ii] + c * h;
+                            row[ii] = c * row[ii] - s * h;
+                        }
+                    }
+                    p = -s * s2 * c3 * el1 * e[ll] / dl1;
+                    e[ll] = s * p;
+                    d[ll] = c * p;
+                }
+                while (Math.abs(e[ll]) > EPSILON * tst1);
+            }
+            d[ll] += f;
+            e[ll] = 0.0;
+        }
+    }
+
+    /**
+     * Sorts the eigenvalues descending and transposes the eigenvector columns into rows
+     */
+    private static SymmetricEigenDecomposition sorted(double[] eigenValues, double[][] columns, int dimension)
+    {
+        int n = eigenValues.length;
+        Integer[] order = new Integer[n];
+        for (int ii = 0; ii < n; ii++)
+        {
+            order[ii] = ii;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(eigenValues[b], eigenValues[a]));
+
+        double[] sortedEigenValues = new double[n];
+        double[][] eigenVectors = new double[n][dimension];
+        for (int ii = 0; ii < n; ii++)
+        {
+            sortedEigenValues[ii] = eigenValues[order[ii]];
+            for (int jj = 0; jj < dimension; jj++)
+            {
+                eigenVectors[ii][jj] = columns[jj][order[ii]];
+            }
+        }
+        return new SymmetricEigenDecomposition(sortedEigenValues, eigenVectors);
+    }
+
+    private SymmetricEigenDecomposition truncated(int k)
+    {
+        double[] eigenValues = new double[k];
+        double[][] eigenVectors = new double[k][];
+        System.arraycopy(this.eigenValues, 0, eigenValues, 0, k);
+        System.arraycopy(this.eigenVectors, 0, eigenVectors, 0, k);
+        return new SymmetricEigenDecomposition(eigenValues, eigenVectors);
+    }
+
+    /**
+     * Returns the eigenvalues in descending order
+     *
+     * @return
+     */
+    public double[] getEigenValues()
+    {
+        return this.eigenValues.clone();
+    }
+
+    public double getEigenValue(int index)
+    {
+        return this.eigenValues[index];
+    }
+
+    /**
+     * Returns the normalized eigenvector to the eigenvalue with the given index
+     *
+     * @param index
+     * @return
+     */
+    public Vector getEigenVector(int index)
+    {
+        return new Vector(this.eigenVectors[index].clone());
+    }
+
+    public Vector[] getEigenVectors()
+    {
+        Vector[] retval = new Vector[this.eigenVectors.length];
+        for (int ii = 0; ii < retval.length; ii++)
+        {
+            retval[ii] = this.getEigenVector(ii);
+        }
+        return retval;
+    }
+
+    /**
+     * Returns the {@link Matrix} with the eigenvectors as columns
+     *
+     * @return
+     */
+    public Matrix getEigenVectorMatrix()
+    {
+        int dimension = this.eigenVectors.length > 0 ? this.eigenVectors[0].length : 0;
+        double[][] data = new double[dimension][this.eigenVectors.length];
+        for (int ii = 0; ii < this.eigenVectors.length; ii++)
+        {
+            for (int jj = 0; jj < dimension; jj++)
+            {
+                data[jj][ii] = this.eigenVectors[ii][jj];
+            }
+        }
+        return new Matrix(data);
+    }
+
+    /**
+     * Returns the number of eigenvalues
+     *
+     * @return
+     */
+    public int size()
+    {
+        return this.eigenValues.length;
+    }
+
+    private static double dot(double[] left, double[] right)
+    {
+        return DenseKernels.dot(left, 0, right, 0, left.length);
+    }
+
+    private static void axpy(double factor, double[] x, double[] y)
+    {
+        for (int ii = 0; ii < y.length; ii++)
+        {
+            y[ii] += factor * x[ii];
+        }
+    }
+
+    private static void scale(double factor, double[] vector)
+    {
+        for (int ii = 0; ii < vector.length; ii++)
+        {
+            vector[ii] *= factor;
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "SymmetricEigenDecomposition [eigenValues=" + Arrays.toString(this.eigenValues) + "]";
+    }
+
+}
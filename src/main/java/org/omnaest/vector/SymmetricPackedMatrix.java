@@ -0,0 +1,394 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+/**
+ * Symmetric square {@link Matrix} which stores only the lower triangle packed row by row into a single array of n * (n + 1) / 2 values.<br>
+ * <br>
+ * Solving, the determinant and the inverse use a packed LDL<sup>T</sup> decomposition with Bunch-Kaufman pivoting, which is computed once
+ * and then reused. D consists of 1x1 and 2x2 blocks, so indefinite matrices are decomposed stably as well. If the matrix is singular, the
+ * dense solver is used instead.
+ *
+ * @see <a href="https://en.wikipedia.org/wiki/Cholesky_decomposition#LDL_decomposition">wikipedia</a>
+ * @see <a href="https://www.netlib.org/lapack/explore-html/dsytf2.html">LAPACK dsytf2</a>
+ * @author Omnaest
+ */
+public class SymmetricPackedMatrix extends StructuredMatrix
+{
+    private double[] packed;
+
+    private volatile Decomposition decomposition;
+
+    /**
+     * Bunch-Kaufman growth bound (1 + sqrt(17)) / 8
+     */
+    private static final double ALPHA = (1.0 + Math.sqrt(17.0)) / 8.0;
+
+    /**
+     * Unit lower L and the block diagonal D of the LDL<sup>T</sup> decomposition sharing the packed layout. The pivots hold the row
+     * interchanged at each step, the pivot of both rows of a 2x2 block is stored as its bitwise complement. ldl is null if the matrix is
+     * singular.
+     */
+    private static class Decomposition
+    {
+        private double[] ldl;
+        private int[]    pivots;
+
+        public Decomposition(double[] ldl, int[] pivots)
+        {
+            super();
+            this.ldl = ldl;
+            this.pivots = pivots;
+        }
+    }
+
+    protected SymmetricPackedMatrix(int dimension, double[] packed)
+    {
+        super(dimension);
+        this.packed = packed;
+    }
+
+    /**
+     * Returns the {@link SymmetricPackedMatrix} of the lower triangle of the given square {@link Matrix}
+     *
+     * @param matrix
+     * @return
+     */
+    public static SymmetricPackedMatrix of(Matrix matrix)
+    {
+        int dimension = matrix.getRowCount();
+        if (dimension != matrix.getColumnCount())
+        {
+            throw new IllegalStateException("Matrix must be square");
+        }
+        double[] packed = new double[dimension * (dimension + 1) / 2];
+        for (int ii = 0, index = 0; ii < dimension; ii++)
+        {
+            for (int jj = 0; jj <= ii; jj++)
+            {
+                packed[index++] = matrix.getRaw(jj, ii);
+            }
+        }
+        return new SymmetricPackedMatrix(dimension, packed);
+    }
+
+    private static int indexOf(int row, int column)
+    {
+        return row * (row + 1) / 2 + column;
+    }
+
+    @Override
+    protected double getRaw(int x, int y)
+    {
+        return x <= y ? this.packed[indexOf(y, x)] : this.packed[indexOf(x, y)];
+    }
+
+    @Override
+    public void apply(double[] input, double[] output)
+    {
+        for (int ii = 0; ii < this.dimension; ii++)
+        {
+            output[ii] = 0.0;
+        }
+        for (int ii = 0; ii < this.dimension; ii++)
+        {
+            int rowStart = indexOf(ii, 0);
+            double value = input[ii];
+            double sum = 0.0;
+            for (int jj = 0; jj < ii; jj++)
+            {
+                double entry = this.packed[rowStart + jj];
+                sum += entry * input[jj];
+                output[jj] += entry * value;
+            }
+            output[ii] += sum + this.packed[rowStart + ii] * value;
+        }
+    }
+
+    @Override
+    public void applyTransposed(double[] input, double[] output)
+    {
+        this.apply(input, output);
+    }
+
+    @Override
+    public SymmetricPackedMatrix multiply(double scalar)
+    {
+        double[] retval = new double[this.packed.length];
+        for (int ii = 0; ii < retval.length; ii++)
+        {
+            retval[ii] = this.packed[ii] * scalar;
+        }
+        return new SymmetricPackedMatrix(this.dimension, retval);
+    }
+
+    private Decomposition getDecomposition()
+    {
+        Decomposition retval = this.decomposition;
+        if (retval == null)
+        {
+            retval = this.decompose();
+            this.decomposition = retval;
+        }
+        return retval;
+    }
+
+    /**
+     * Returns the packed index of the given entry of the lower or upper triangle
+     */
+    private static int symmetricIndexOf(int row, int column)
+    {
+        return row >= column ? indexOf(row, column) : indexOf(column, row);
+    }
+
+    private Decomposition decompose()
+    {
+        int size = this.dimension;
+        double[] ldl = this.packed.clone();
+        int[] pivots = new int[size];
+        int kk = 0;
+        while (kk < size)
+        {
+            double absoluteDiagonal = Math.abs(ldl[indexOf(kk, kk)]);
+            int maximumRow = kk;
+            double columnMaximum = 0.0;
+            for (int ii = kk + 1; ii < size; ii++)
+            {
+                double value = Math.abs(ldl[indexOf(ii, kk)]);
+                if (value > columnMaximum)
+                {
+                    columnMaximum = value;
+                    maximumRow = ii;
+                }
+            }
+            if (Math.max(absoluteDiagonal, columnMaximum) == 0.0)
+            {
+                return new Decomposition(null, null);
+            }
+
+            int pivot = kk;
+            boolean isBlock = false;
+            if (absoluteDiagonal < ALPHA * columnMaximum)
+            {
+                double rowMaximum = 0.0;
+                for (int jj = kk; jj < size; jj++)
+                {
+                    if (jj != maximumRow)
+                    {
+                        rowMaximum = Math.max(rowMaximum, Math.abs(ldl[symmetricIndexOf(maximumRow, jj)]));
+                    }
+                }
+                if (absoluteDiagonal * rowMaximum < ALPHA * columnMaximum * columnMaximum)
+                {
+                    pivot = maximumRow;
+                    isBlock = Math.abs(ldl[indexOf(maximumRow, maximumRow)]) < ALPHA * rowMaximum;
+                }
+            }
+
+            int interchanged = isBlock ? kk + 1 : kk;
+            if (pivot != interchanged)
+            {
+                for (int jj = kk; jj < size; jj++)
+                {
+                    if (jj != interchanged && jj != pivot)
+                    {
+                        swap(ldl, symmetricIndexOf(interchanged, jj), symmetricIndexOf(pivot, jj));
+                    }
+                }
+                swap(ldl, indexOf(interchanged, interchanged), indexOf(pivot, pivot));
+            }
+
+            if (isBlock)
+            {
+                pivots[kk] = ~pivot;
+                pivots[kk + 1] = ~pivot;
+                double offDiagonal = ldl[indexOf(kk + 1, kk)];
+                double second = ldl[indexOf(kk + 1, kk + 1)] / offDiagonal;
+                double first = ldl[indexOf(kk, kk)] / offDiagonal;
+                double scale = 1.0 / (second * first - 1.0) / offDiagonal;
+                for (int jj = kk + 2; jj < size; jj++)
+                {
+                    double valueOfFirst = ldl[indexOf(jj, kk)];
+                    double valueOfSecond = ldl[indexOf(jj, kk + 1)];
+                    double factorOfFirst = scale * (second * valueOfFirst - valueOfSecond);
+                    double factorOfSecond = scale * (first * valueOfSecond - valueOfFirst);
+                    for (int ii = jj; ii < size; ii++)
+                    {
+                        ldl[indexOf(ii, jj)] -= ldl[indexOf(ii, kk)] * factorOfFirst + ldl[indexOf(ii, kk + 1)] * factorOfSecond;
+                    }
+                    ldl[indexOf(jj, kk)] = factorOfFirst;
+                    ldl[indexOf(jj, kk + 1)] = factorOfSecond;
+                }
+                kk += 2;
+            }
+            else
+            {
+                pivots[kk] = pivot;
+                double reciprocal = 1.0 / ldl[indexOf(kk, kk)];
+                for (int jj = kk + 1; jj < size; jj++)
+                {
+                    double factor = reciprocal * ldl[indexOf(jj, kk)];
+                    for (int ii = jj; ii < size; ii++)
+                    {
+                        ldl[indexOf(ii, jj)] -= ldl[indexOf(ii, kk)] * factor;
+                    }
+                }
+                for (int ii = kk + 1; ii < size; ii++)
+                {
+                    ldl[indexOf(ii, kk)] *= reciprocal;
+                }
+                kk++;
+            }
+        }
+        return new Decomposition(ldl, pivots);
+    }
+
+    private static void swap(double[] values, int first, int second)
+    {
+        double value = values[first];
+        values[first] = values[second];
+        values[second] = value;
+    }
+
+    private double[] solve(Decomposition decomposition, double[] b)
+    {
+        int size = this.dimension;
+        double[] ldl = decomposition.ldl;
+        int[] pivots = decomposition.pivots;
+        double[] x = new double[size];
+        System.arraycopy(b, 0, x, 0, Math.min(size, b.length));
+
+        int kk = 0;
+        while (kk < size)
+        {
+            if (pivots[kk] >= 0)
+            {
+                swap(x, kk, pivots[kk]);
+                double value = x[kk];
+                for (int ii = kk + 1; ii < size; ii++)
+                {
+                    x[ii] -= ldl[indexOf(ii, kk)] * value;
+                }
+                x[kk] = value / ldl[indexOf(kk, kk)];
+                kk++;
+            }
+            else
+            {
+                swap(x, kk + 1, ~pivots[kk]);
+                double first = x[kk];
+                double second = x[kk + 1];
+                for (int ii = kk + 2; ii < size; ii++)
+                {
+                    x[ii] -= ldl[indexOf(ii, kk)] * first + ldl[indexOf(ii, kk + 1)] * second;
+                }
+                double offDiagonal = ldl[indexOf(kk + 1, kk)];
+                double diagonalOfFirst = ldl[indexOf(kk, kk)] / offDiagonal;
+                double diagonalOfSecond = ldl[indexOf(kk + 1, kk + 1)] / offDiagonal;
+                double denominator = diagonalOfFirst * diagonalOfSecond - 1.0;
+                first /= offDiagonal;
+                second /= offDiagonal;
+                x[kk] = (diagonalOfSecond * first - second) / denominator;
+                x[kk + 1] = (diagonalOfFirst * second - first) / denominator;
+                kk += 2;
+            }
+        }
+
+        kk = size - 1;
+        while (kk >= 0)
+        {
+            boolean isBlock = pivots[kk] < 0;
+            int first = isBlock ? kk - 1 : kk;
+            for (int jj = first; jj <= kk; jj++)
+            {
+                double sum = 0.0;
+                for (int ii = kk + 1; ii < size; ii++)
+                {
+                    sum += ldl[indexOf(ii, jj)] * x[ii];
+                }
+                x[jj] -= sum;
+            }
+            swap(x, kk, isBlock ? ~pivots[kk] : pivots[kk]);
+            kk = first - 1;
+        }
+        return x;
+    }
+
+    @Override
+    public Vector solve(Vector b)
+    {
+        Decomposition decomposition = this.getDecomposition();
+        if (decomposition.ldl == null)
+        {
+            return super.solve(b);
+        }
+        return new Vector(this.solve(decomposition, b.getCoordinates()));
+    }
+
+    /**
+     * Returns the product of the determinants of the 1x1 and 2x2 blocks of D of the LDL<sup>T</sup> decomposition. The symmetric
+     * interchanges do not change the sign.
+     */
+    @Override
+    public double determinant()
+    {
+        Decomposition decomposition = this.getDecomposition();
+        if (decomposition.ldl == null)
+        {
+            return super.determinant();
+        }
+
+        double[] ldl = decomposition.ldl;
+        double retval = 1.0;
+        for (int ii = 0; ii < this.dimension; ii++)
+        {
+            if (decomposition.pivots[ii] >= 0)
+            {
+                retval *= ldl[indexOf(ii, ii)];
+            }
+            else
+            {
+                double offDiagonal = ldl[indexOf(ii + 1, ii)];
+                retval *= ldl[indexOf(ii, ii)] * ldl[indexOf(ii + 1, ii + 1)] - offDiagonal * offDiagonal;
+                ii++;
+            }
+        }
+        return retval;
+    }
+
+    /**
+     * Returns the inverse, which is symmetric as well
+     */
+    @Override
+    public SymmetricPackedMatrix inverse()
+    {
+        Decomposition decomposition = this.getDecomposition();
+        if (decomposition.ldl == null)
+        {
+            return of(super.inverse());
+        }
+        return of(this.inverseByColumns(b -> this.solve(decomposition, b)));
+    }
+
+    @Override
+    protected SymmetricPackedMatrix transposed()
+    {
+        return this;
+    }
+
+}
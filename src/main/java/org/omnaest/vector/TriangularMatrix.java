@@ -0,0 +1,222 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+/**
+ * Square lower or upper triangular {@link Matrix}, which stores each row only from or up to the diagonal. Solving is done by forward or
+ * backward substitution in O(n<sup>2</sup>).
+ *
+ * @author Omnaest
+ */
+public class TriangularMatrix extends StructuredMatrix
+{
+    private boolean    lower;
+    private double[][] rows;
+
+    protected TriangularMatrix(boolean lower, double[][] rows)
+    {
+        super(rows.length);
+        this.lower = lower;
+        this.rows = rows;
+    }
+
+    /**
+     * Returns the lower triangle including the diagonal of the given square {@link Matrix}
+     *
+     * @param matrix
+     * @return
+     */
+    public static TriangularMatrix lower(Matrix matrix)
+    {
+        return of(matrix, true);
+    }
+
+    /**
+     * Returns the upper triangle including the diagonal of the given square {@link Matrix}
+     *
+     * @param matrix
+     * @return
+     */
+    public static TriangularMatrix upper(Matrix matrix)
+    {
+        return of(matrix, false);
+    }
+
+    private static TriangularMatrix of(Matrix matrix, boolean lower)
+    {
+        int dimension = matrix.getRowCount();
+        if (dimension != matrix.getColumnCount())
+        {
+            throw new IllegalStateException("Matrix must be square");
+        }
+        double[][] rows = new double[dimension][];
+        for (int ii = 0; ii < dimension; ii++)
+        {
+            int from = lower ? 0 : ii;
+            int to = lower ? ii + 1 : dimension;
+            rows[ii] = new double[to - from];
+            for (int jj = from; jj < to; jj++)
+            {
+                rows[ii][jj - from] = matrix.getRaw(jj, ii);
+            }
+        }
+        return new TriangularMatrix(lower, rows);
+    }
+
+    public boolean isLower()
+    {
+        return this.lower;
+    }
+
+    public boolean isUpper()
+    {
+        return !this.lower;
+    }
+
+    @Override
+    protected double getRaw(int x, int y)
+    {
+        if (this.lower)
+        {
+            return x <= y ? this.rows[y][x] : 0.0;
+        }
+        else
+        {
+            return x >= y ? this.rows[y][x - y] : 0.0;
+        }
+    }
+
+    private double getDiagonal(int ii)
+    {
+        return this.lower ? this.rows[ii][ii] : this.rows[ii][0];
+    }
+
+    @Override
+    public void apply(double[] input, double[] output)
+    {
+        for (int ii = 0; ii < this.dimension; ii++)
+        {
+            double[] row = this.rows[ii];
+            output[ii] = DenseKernels.dot(row, 0, input, this.lower ? 0 : ii, row.length);
+        }
+    }
+
+    @Override
+    public void applyTransposed(double[] input, double[] output)
+    {
+        for (int ii = 0; ii < this.dimension; ii++)
+        {
+            output[ii] = 0.0;
+        }
+        for (int ii = 0; ii < this.dimension; ii++)
+        {
+            double[] row = this.rows[ii];
+            double value = input[ii];
+            int offset = this.lower ? 0 : ii;
+            for (int jj = 0; jj < row.length; jj++)
+            {
+                output[offset + jj] += row[jj] * value;
+            }
+        }
+    }
+
+    @Override
+    public TriangularMatrix multiply(double scalar)
+    {
+        double[][] retval = new double[this.dimension][];
+        for (int ii = 0; ii < this.dimension; ii++)
+        {
+            retval[ii] = new double[this.rows[ii].length];
+            for (int jj = 0; jj < retval[ii].length; jj++)
+            {
+                retval[ii][jj] = this.rows[ii][jj] * scalar;
+            }
+        }
+        return new TriangularMatrix(this.lower, retval);
+    }
+
+    /**
+     * Returns the x with A * x = b by forward or backward substitution
+     */
+    @Override
+    public Vector solve(Vector b)
+    {
+        double[] x = new double[this.dimension];
+        for (int step = 0; step < this.dimension; step++)
+        {
+            int ii = this.lower ? step : this.dimension - 1 - step;
+            double diagonal = this.getDiagonal(ii);
+            if (diagonal == 0.0)
+            {
+                throw new IllegalStateException("Matrix is singular");
+            }
+            double[] row = this.rows[ii];
+            double sum = this.lower ? DenseKernels.dot(row, 0, x, 0, ii) : DenseKernels.dot(row, 1, x, ii + 1, row.length - 1);
+            x[ii] = (b.getCoordinate(ii) - sum) / diagonal;
+        }
+        return new Vector(x);
+    }
+
+    /**
+     * Returns the product of the diagonal
+     */
+    @Override
+    public double determinant()
+    {
+        double retval = 1.0;
+        for (int ii = 0; ii < this.dimension; ii++)
+        {
+            retval *= this.getDiagonal(ii);
+        }
+        return retval;
+    }
+
+    /**
+     * Returns the inverse, which is triangular as well, by substitution for each column of the identity
+     */
+    @Override
+    public TriangularMatrix inverse()
+    {
+        return of(this.inverseByColumns(b -> this.solve(new Vector(b))
+                                                 .getCoordinates()),
+                  this.lower);
+    }
+
+    @Override
+    protected TriangularMatrix transposed()
+    {
+        double[][] retval = new double[this.dimension][];
+        for (int jj = 0; jj < this.dimension; jj++)
+        {
+            retval[jj] = new double[this.lower ? this.dimension - jj : jj + 1];
+        }
+        for (int ii = 0; ii < this.dimension; ii++)
+        {
+            double[] row = this.rows[ii];
+            int offset = this.lower ? 0 : ii;
+            for (int jj = 0; jj < row.length; jj++)
+            {
+                int column = offset + jj;
+                retval[column][this.lower ? ii - column : ii] = row[jj];
+            }
+        }
+        return new TriangularMatrix(!this.lower, retval);
+    }
+
+}
@@ -0,0 +1,171 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+/**
+ * Sine and cosine of angles given in degree, as used by the rotations of {@link Vector} and {@link AffineTransform}.<br>
+ * <br>
+ * {@link #EXACT} delegates to {@link Math#sin(double)} and {@link Math#cos(double)}. The conversion to radians is rounded before the
+ * argument reduction, so its absolute error grows with the angle by about |angle| * 2E-18, e.g. 2E-12 at 1E6 degree.<br>
+ * {@link #FAST} reduces the angle to (-360, 360) by the floating point remainder, which is exact, looks up the sine and cosine of the
+ * nearest whole degree in a table of 360 entries and corrects them for the remaining offset of at most half a degree with the angle
+ * addition theorem and short Taylor polynomials. Compared to the sine and cosine of the exactly reduced angle the absolute error stays
+ * below 1E-15 for all finite angles, which is far below the 1E-9 typically needed for bulk rotations of measured points. Infinite and NaN
+ * angles return NaN.
+ *
+ * @see Vector#rotate(double, double, double, Trigonometry)
+ * @see AffineTransform#rotate(double, double, double, Trigonometry)
+ * @author Omnaest
+ */
+public enum Trigonometry
+{
+    EXACT
+    {
+        @Override
+        public double sin(double angle)
+        {
+            return Math.sin(angle / 180.0 * Math.PI);
+        }
+
+        @Override
+        public double cos(double angle)
+        {
+            return Math.cos(angle / 180.0 * Math.PI);
+        }
+
+        @Override
+        public void sinCos(double angle, double[] sinCos)
+        {
+            double radians = angle / 180.0 * Math.PI;
+            sinCos[0] = Math.sin(radians);
+            sinCos[1] = Math.cos(radians);
+        }
+    },
+    FAST
+    {
+        @Override
+        public double sin(double angle)
+        {
+            double reduced = angle % 360.0;
+            long rounded = Math.round(reduced);
+            int index = index(rounded);
+            double delta = (reduced - rounded) * RADIANS_PER_DEGREE;
+            return SIN[index] * cosOfSmall(delta) + COS[index] * sinOfSmall(delta);
+        }
+
+        @Override
+        public double cos(double angle)
+        {
+            double reduced = angle % 360.0;
+            long rounded = Math.round(reduced);
+            int index = index(rounded);
+            double delta = (reduced - rounded) * RADIANS_PER_DEGREE;
+            return COS[index] * cosOfSmall(delta) - SIN[index] * sinOfSmall(delta);
+        }
+
+        @Override
+        public void sinCos(double angle, double[] sinCos)
+        {
+            double reduced = angle % 360.0;
+            long rounded = Math.round(reduced);
+            int index = index(rounded);
+            double delta = (reduced - rounded) * RADIANS_PER_DEGREE;
+            double sinDelta = sinOfSmall(delta);
+            double cosDelta = cosOfSmall(delta);
+            sinCos[0] = SIN[index] * cosDelta + COS[index] * sinDelta;
+            sinCos[1] = COS[index] * cosDelta - SIN[index] * sinDelta;
+        }
+    };
+
+    private static final double   RADIANS_PER_DEGREE = Math.PI / 180.0;
+    private static final double[] SIN                = new double[360];
+    private static final double[] COS                = new double[360];
+
+    static
+    {
+        for (int ii = 0; ii < 360; ii++)
+        {
+            SIN[ii] = Math.sin(ii * RADIANS_PER_DEGREE);
+            COS[ii] = Math.cos(ii * RADIANS_PER_DEGREE);
+        }
+    }
+
+    /**
+     * Returns the sine of the given angle in degree
+     *
+     * @param angle
+     * @return
+     */
+    public abstract double sin(double angle);
+
+    /**
+     * Returns the cosine of the given angle in degree
+     *
+     * @param angle
+     * @return
+     */
+    public abstract double cos(double angle);
+
+    /**
+     * Writes the sine and cosine of the given angle in degree into the first two elements of the given array, sharing the argument
+     * reduction
+     *
+     * @param angle
+     * @param sinCos
+     */
+    public abstract void sinCos(double angle, double[] sinCos);
+
+    /**
+     * Returns the rotation {@link Matrix3x3} for {@link Vector#rotate(double, double, double)}, computing each sine and cosine pair once
+     */
+    Matrix3x3 rotationMatrix(double angleX, double angleY, double angleZ)
+    {
+        double[] sinCos = new double[2];
+        this.sinCos(angleX, sinCos);
+        double sinX = sinCos[0];
+        double cosX = sinCos[1];
+        this.sinCos(angleY, sinCos);
+        double sinY = sinCos[0];
+        double cosY = sinCos[1];
+        this.sinCos(angleZ, sinCos);
+        return Vector.rotationMatrix(sinX, cosX, sinY, cosY, sinCos[0], sinCos[1]);
+    }
+
+    /**
+     * Returns the table index within [0, 360) of the given whole degree
+     */
+    private static int index(long degree)
+    {
+        int retval = (int) (degree % 360);
+        return retval < 0 ? retval + 360 : retval;
+    }
+
+    private static double sinOfSmall(double x)
+    {
+        double x2 = x * x;
+        return x * (1.0 - x2 / 6.0 * (1.0 - x2 / 20.0));
+    }
+
+    private static double cosOfSmall(double x)
+    {
+        double x2 = x * x;
+        return 1.0 - x2 / 2.0 * (1.0 - x2 / 12.0 * (1.0 - x2 / 30.0));
+    }
+
+}
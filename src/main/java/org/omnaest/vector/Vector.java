@@ -22,6 +22,8 @@ import java.util.Arrays;
 import java.util.function.UnaryOperator;
 import java.util.stream.DoubleStream;
 
+import org.omnaest.vector.VectorMetrics.Operation;
+
 public class Vector
 {
     /**
@@ -191,24 +193,40 @@ public class Vector
     {
         int dimension = Math.max(this.getDimension(), vector.getDimension());
         double[] values = new double[dimension];
-        for (int ii = 0; ii < dimension; ii++)
+        try (ScratchArena arena = ScratchArena.open())
         {
-            double[] identityCoordinates = new double[dimension];
-            identityCoordinates[ii] = 1.0;
-            Vector identityVector = new Vector(identityCoordinates);
-            values[ii] = Matrix.builder()
-                               .addColumn(identityVector)
-                               .addColumn(this)
-                               .addColumn(vector)
-                               .build()
-                               .determinant();
+            double[][] columns = arena.matrix(dimension, 3);
+            for (int jj = 0; jj < dimension; jj++)
+            {
+                columns[jj][1] = jj < this.getDimension() ? this.coordinates[jj] : 0.0;
+                columns[jj][2] = jj < vector.getDimension() ? vector.coordinates[jj] : 0.0;
+            }
+            Matrix matrix = new Matrix(columns);
+            for (int ii = 0; ii < dimension; ii++)
+            {
+                for (int jj = 0; jj < dimension; jj++)
+                {
+                    columns[jj][0] = ii == jj ? 1.0 : 0.0;
+                }
+                values[ii] = matrix.determinant();
+            }
         }
         return new Vector(values);
     }
 
     public double absolute()
     {
-        return Math.sqrt(this.multiplyScalar(this));
+        return Math.sqrt(this.absoluteSquared());
+    }
+
+    /**
+     * Returns the squared length, which is the scalar product with itself
+     *
+     * @return
+     */
+    public double absoluteSquared()
+    {
+        return this.multiplyScalar(this);
     }
 
     public Vector normVector()
@@ -270,10 +288,22 @@ public class Vector
         return this.rotate(angleX, angleY, angleZ, extrinsic, passive);
     }
 
-    public Vector rotate(double angleX, double angleY, double angleZ, boolean extrinsic, boolean passive)
+    /**
+     * Similar to {@link #rotate(double, double, double)} but computes the sine and cosine of the angles with the given {@link Trigonometry}
+     *
+     * @param angleX
+     * @param angleY
+     * @param angleZ
+     * @param trigonometry
+     * @return
+     */
+    public Vector rotate(double angleX, double angleY, double angleZ, Trigonometry trigonometry)
     {
-        int dimension = this.getDimension();
+        return this.rotate(trigonometry.rotationMatrix(angleX, angleY, angleZ));
+    }
 
+    public Vector rotate(double angleX, double angleY, double angleZ, boolean extrinsic, boolean passive)
+    {
         UnaryOperator<Matrix> singleRotationMatrixModifier = m -> passive ? m.inverse() : m;
 
         //		List<UnaryOperator<Matrix>> rotations = extrinsic ? Arrays.asList((m) ->
@@ -306,24 +336,7 @@ public class Vector
         //											.reduce(Matrix::multiply)
         //											.get();
 
-        Vector ex = new Vector(1, 0, 0);
-        Matrix rotationMatrixX = this.getRotationMatrix(ex, angleX);
-        Matrix inverseRotationMatrixX = this.getRotationMatrix(ex, -angleX);
-
-        Vector ey = inverseRotationMatrixX.multiply(new Vector(0, 1, 0));
-        Matrix rotationMatrixY = this.getRotationMatrix(ey, angleY);
-        Matrix inverseRotationMatrixY = this.getRotationMatrix(ey, -angleY);
-
-        Vector ez = inverseRotationMatrixX.multiply(inverseRotationMatrixY)
-                                          .multiply(new Vector(0, 0, 1));
-        Matrix rotationMatrixZ = this.getRotationMatrix(ez, angleZ);
-        Matrix inverseRotationMatrixZ = this.getRotationMatrix(ez, -angleZ);
-
-        Matrix rotationMatrix = rotationMatrixX.multiply(rotationMatrixY)
-                                               .multiply(rotationMatrixZ);
-
-        Matrix reducedRotationMatrix = rotationMatrix.getSubMatrix(0, 0, dimension - 1, dimension - 1);
-        return reducedRotationMatrix.multiply(this);
+        return this.rotate(rotationMatrix(angleX, angleY, angleZ));
 
         //		double r = this.absolute();
         //		double gamma = Math.atan(Math.sqrt(this.getX() * this.getX() + this.getY() * this.getY()) / this.getZ());
@@ -335,6 +348,61 @@ public class Vector
         //		return new Vector(r * Math.sin(gamma) * Math.cos(teta), r * Math.sin(gamma) * Math.sin(teta), r * Math.cos(teta));
     }
 
+    private Vector rotate(Matrix3x3 rotationMatrix)
+    {
+        int dimension = this.getDimension();
+        long start = VectorMetrics.start();
+        Matrix reducedRotationMatrix = dimension == 3 ? rotationMatrix : rotationMatrix.getSubMatrix(0, 0, dimension - 1, dimension - 1);
+        double[] coordinates = new double[dimension];
+        reducedRotationMatrix.apply(this.getCoordinates(), coordinates);
+        VectorMetrics.record(Operation.VECTOR_ROTATE, start, 2L * dimension * dimension, dimension);
+        return new Vector(coordinates);
+    }
+
+    /**
+     * Returns the 3x3 rotation {@link Matrix} used by {@link #rotate(double, double, double)}
+     *
+     * @param angleX
+     * @param angleY
+     * @param angleZ
+     * @return
+     */
+    static Matrix3x3 rotationMatrix(double angleX, double angleY, double angleZ)
+    {
+        return Trigonometry.EXACT.rotationMatrix(angleX, angleY, angleZ);
+    }
+
+    /**
+     * Returns the 3x3 rotation {@link Matrix} used by {@link #rotate(double, double, double)} for the given sine and cosine values of the
+     * angles. The inverse rotations share the cosine and use the negated sine.
+     */
+    static Matrix3x3 rotationMatrix(double sinX, double cosX, double sinY, double cosY, double sinZ, double cosZ)
+    {
+        try (ScratchArena arena = ScratchArena.open())
+        {
+            double[] axis = arena.vector(3);
+            double[] temporary = arena.vector(3);
+
+            Matrix3x3 rotationMatrixX = getRotationMatrix(1, 0, 0, cosX, sinX);
+            Matrix3x3 inverseRotationMatrixX = getRotationMatrix(1, 0, 0, cosX, -sinX);
+
+            temporary[1] = 1.0;
+            inverseRotationMatrixX.apply(temporary, axis);
+            Matrix3x3 rotationMatrixY = getRotationMatrix(axis[0], axis[1], axis[2], cosY, sinY);
+            Matrix3x3 inverseRotationMatrixY = getRotationMatrix(axis[0], axis[1], axis[2], cosY, -sinY);
+
+            axis[0] = 0.0;
+            axis[1] = 0.0;
+            axis[2] = 1.0;
+            inverseRotationMatrixY.apply(axis, temporary);
+            inverseRotationMatrixX.apply(temporary, axis);
+            Matrix3x3 rotationMatrixZ = getRotationMatrix(axis[0], axis[1], axis[2], cosZ, sinZ);
+
+            return rotationMatrixX.multiply(rotationMatrixY)
+                                  .multiply(rotationMatrixZ);
+        }
+    }
+
     /**
      * A passive rotation around the given angles
      * 
@@ -381,11 +449,9 @@ public class Vector
         double z = this.getZ();
         double y = this.getY();
         double x = this.getX();
-        return Matrix.builder()
-                     .addRow(0, -z, y)
-                     .addRow(z, 0, -x)
-                     .addRow(-y, x, 0)
-                     .build();
+        return new Matrix3x3(0, -z, y,
+                             z, 0, -x,
+                             -y, x, 0);
     }
 
     public int getDimension()
@@ -393,16 +459,24 @@ public class Vector
         return this.coordinates.length;
     }
 
-    private Matrix getRotationMatrix(Vector u, double angleU)
+    static Matrix3x3 getRotationMatrix(Vector u, double angleU)
+    {
+        return getRotationMatrix(u.getX(), u.getY(), u.getZ(), angleU);
+    }
+
+    private static Matrix3x3 getRotationMatrix(double x, double y, double z, double angleU)
     {
         double cos = Math.cos(angleU / 180.0 * Math.PI);
         double sin = Math.sin(angleU / 180.0 * Math.PI);
-        return Matrix.identity(3)
-                     .multiply(cos)
-                     .add(u.crossProductMatrix()
-                           .multiply(sin))
-                     .add(u.multiply(1 - cos)
-                           .outerProduct(u));
+        return getRotationMatrix(x, y, z, cos, sin);
+    }
+
+    private static Matrix3x3 getRotationMatrix(double x, double y, double z, double cos, double sin)
+    {
+        double t = 1 - cos;
+        return new Matrix3x3(cos + t * x * x, t * x * y - sin * z, t * x * z + sin * y,
+                             t * y * x + sin * z, cos + t * y * y, t * y * z - sin * x,
+                             t * z * x - sin * y, t * z * y + sin * x, cos + t * z * z);
     }
 
     private Matrix getRotationMatrixX(double angleX)
@@ -441,6 +515,7 @@ public class Vector
     /**
      * Be aware that this calculation is limited to 2D and 3D Vectors
      *
+     * @see Line for many points against the same line
      * @param pointOnLine
      * @param lineDirection
      * @return
@@ -460,17 +535,39 @@ public class Vector
     /**
      * Be aware that this calculation is limited to 2D and 3D Vectors
      *
+     * @see Line for many points against the same line
      * @param pointOnLine
      * @param lineDirection
      * @return
      */
     public Vector closestDirectionToLine(Vector pointOnLine, Vector lineDirection)
     {
-        Vector a = pointOnLine;
-        Vector n = lineDirection.normVector();
-        Vector p = this;
-        Vector delta = a.subtract(p);
-        return delta.subtract(n.multiply(delta.multiplyScalar(n)));
+        double length = lineDirection.absolute();
+        boolean hasDirection = length > 0.000000001 || length < -0.000000001;
+        int directionDimension = hasDirection ? lineDirection.getDimension() : 2;
+        int deltaDimension = Math.max(pointOnLine.getDimension(), this.getDimension());
+        double[] retval = new double[Math.max(deltaDimension, directionDimension)];
+        try (ScratchArena arena = ScratchArena.open())
+        {
+            double[] n = arena.vector(retval.length);
+            double scale = 1.0 / length;
+            for (int ii = 0; hasDirection && ii < directionDimension; ii++)
+            {
+                n[ii] = lineDirection.coordinates[ii] * scale;
+            }
+
+            double projection = 0.0;
+            for (int ii = 0; ii < deltaDimension; ii++)
+            {
+                retval[ii] = pointOnLine.getCoordinate(ii) - this.getCoordinate(ii);
+                projection += retval[ii] * n[ii];
+            }
+            for (int ii = 0; ii < retval.length; ii++)
+            {
+                retval[ii] -= n[ii] * projection;
+            }
+        }
+        return new Vector(retval);
     }
 
     /**
@@ -534,7 +631,7 @@ public class Vector
         {
             return false;
         }
-        if (this.getClass() != obj.getClass())
+        if (!(obj instanceof Vector))
         {
             return false;
         }
@@ -759,7 +856,16 @@ public class Vector
 
     public boolean isZeroVector(double precision)
     {
-        return this.distanceTo(Vector.NULL) <= precision;
+        return this.absolute() <= precision;
+    }
 
+    /**
+     * Returns an {@link ImmutableVector} with a copy of the coordinates of this {@link Vector}
+     *
+     * @return
+     */
+    public ImmutableVector asImmutableVector()
+    {
+        return ImmutableVector.of(this);
     }
 }
@@ -0,0 +1,258 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Accumulator for the sum of many {@link Vector}s added by many threads, similar to {@link java.util.concurrent.atomic.DoubleAdder} for
+ * n-dimensional {@link Vector}s.<br>
+ * <br>
+ * Additions go into one of several cells, chosen per thread. If a cell is busy, the thread moves on to another one, so under contention
+ * the threads spread out over the cells instead of waiting for a single lock. Each cell keeps its values in its own array, padded by a
+ * cache line on both sides, and is guarded by a spin flag within a shared array, where the flags are two cache lines apart. So threads
+ * writing into different cells do not invalidate each other's cache lines, neither by their values nor by their locking.<br>
+ * <br>
+ * {@link #sum()} is not an atomic snapshot: additions which happen concurrently to the summation may or may not be included, but each
+ * single addition is either included completely or not at all.<br>
+ * <br>
+ * Example:<br>
+ *
+ * <pre>
+ * VectorAdder totalForce = new VectorAdder(3);
+ * particles.parallelStream()
+ *          .forEach(particle -&gt; totalForce.add(particle.getForce()));
+ * Vector sum = totalForce.sum();
+ * </pre>
+ *
+ * @author Omnaest
+ */
+public class VectorAdder
+{
+    private static final int                PADDING     = 8;
+    private static final int                FLAG_STRIDE = 16;
+    private static final int                NUMBER_OF_CELLS;
+    private static final ThreadLocal<int[]> CELL_HINT   = ThreadLocal.withInitial(() -> new int[] { mix(Thread.currentThread()
+                                                                                                              .getId()) });
+
+    static
+    {
+        int numberOfCells = 1;
+        while (numberOfCells < 2 * Runtime.getRuntime()
+                                          .availableProcessors())
+        {
+            numberOfCells <<= 1;
+        }
+        NUMBER_OF_CELLS = numberOfCells;
+    }
+
+    private final int                        dimension;
+    private final AtomicReferenceArray<Cell> cells = new AtomicReferenceArray<>(NUMBER_OF_CELLS);
+    private final AtomicLongArray            flags = new AtomicLongArray((NUMBER_OF_CELLS + 1) * FLAG_STRIDE);
+
+    private static final class Cell
+    {
+        private final double[] values;
+
+        private Cell(int dimension)
+        {
+            super();
+            this.values = new double[dimension + 2 * PADDING];
+        }
+    }
+
+    /**
+     * @param dimension
+     *            dimension of the added {@link Vector}s
+     */
+    public VectorAdder(int dimension)
+    {
+        super();
+        this.dimension = dimension;
+    }
+
+    private static int mix(long value)
+    {
+        value = (value ^ (value >>> 33)) * 0xFF51AFD7ED558CCDL;
+        value = (value ^ (value >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return (int) (value ^ (value >>> 33));
+    }
+
+    /**
+     * Adds the given {@link Vector}
+     *
+     * @param vector
+     * @return this
+     */
+    public VectorAdder add(Vector vector)
+    {
+        return this.add(vector.coordinates);
+    }
+
+    /**
+     * Adds the given coordinates
+     *
+     * @param coordinates
+     * @return this
+     */
+    public VectorAdder add(double[] coordinates)
+    {
+        if (coordinates.length != this.dimension)
+        {
+            throw new IllegalArgumentException("Vector must have the dimension of the adder");
+        }
+
+        int index = this.lockCell();
+        try
+        {
+            double[] values = this.getCell(index).values;
+            for (int ii = 0; ii < this.dimension; ii++)
+            {
+                values[PADDING + ii] += coordinates[ii];
+            }
+        }
+        finally
+        {
+            this.unlock(index);
+        }
+        return this;
+    }
+
+    /**
+     * Locks the cell of the current thread and returns its index. If it is held by another thread, the other cells are tried and the first
+     * free one becomes the cell of the current thread. If all cells are busy, it waits for the original cell.
+     */
+    private int lockCell()
+    {
+        int[] hint = CELL_HINT.get();
+        int mask = NUMBER_OF_CELLS - 1;
+        for (int ii = 0; ii < NUMBER_OF_CELLS; ii++)
+        {
+            int index = (hint[0] + ii) & mask;
+            if (this.tryLock(index))
+            {
+                hint[0] = index;
+                return index;
+            }
+        }
+        int index = hint[0] & mask;
+        this.lock(index);
+        return index;
+    }
+
+    private boolean tryLock(int index)
+    {
+        return this.flags.compareAndSet((index + 1) * FLAG_STRIDE, 0L, 1L);
+    }
+
+    private void lock(int index)
+    {
+        while (!this.tryLock(index))
+        {
+            Thread.yield();
+        }
+    }
+
+    private void unlock(int index)
+    {
+        this.flags.lazySet((index + 1) * FLAG_STRIDE, 0L);
+    }
+
+    private Cell getCell(int index)
+    {
+        Cell retval = this.cells.get(index);
+        if (retval == null)
+        {
+            this.cells.compareAndSet(index, null, new Cell(this.dimension));
+            retval = this.cells.get(index);
+        }
+        return retval;
+    }
+
+    /**
+     * Returns the current sum of all added {@link Vector}s
+     *
+     * @return
+     */
+    public Vector sum()
+    {
+        return new Vector(this.collect(false));
+    }
+
+    /**
+     * Similar to {@link #sum()} but resets each cell after it has been read
+     *
+     * @return
+     */
+    public Vector sumThenReset()
+    {
+        return new Vector(this.collect(true));
+    }
+
+    /**
+     * Resets the sum to zero
+     */
+    public void reset()
+    {
+        this.collect(true);
+    }
+
+    private double[] collect(boolean reset)
+    {
+        double[] retval = new double[this.dimension];
+        for (int ii = 0; ii < NUMBER_OF_CELLS; ii++)
+        {
+            Cell cell = this.cells.get(ii);
+            if (cell != null)
+            {
+                this.lock(ii);
+                try
+                {
+                    for (int jj = 0; jj < this.dimension; jj++)
+                    {
+                        retval[jj] += cell.values[PADDING + jj];
+                    }
+                    if (reset)
+                    {
+                        Arrays.fill(cell.values, 0.0);
+                    }
+                }
+                finally
+                {
+                    this.unlock(ii);
+                }
+            }
+        }
+        return retval;
+    }
+
+    public int getDimension()
+    {
+        return this.dimension;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "VectorAdder [sum=" + this.sum() + "]";
+    }
+
+}
@@ -0,0 +1,311 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+import java.lang.management.ManagementFactory;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Opt-in metrics of the hot {@link Vector} and {@link Matrix} operations, which count calls, floating point operations, processed elements
+ * and the cumulative time per {@link Operation}.<br>
+ * <br>
+ * The metrics are enabled by the system property {@value #SYSTEM_PROPERTY}=true. The flag is read once into a static final field, so
+ * for disabled metrics the JIT removes the instrumentation completely. Counters are striped {@link LongAdder}s, so concurrent callers do not
+ * contend on a single cache line.<br>
+ * <br>
+ * If enabled, the metrics are published as {@link VectorMetricsMXBean} under {@value #OBJECT_NAME}.<br>
+ * <br>
+ * Instrumentation of an operation:<br>
+ *
+ * <pre>
+ * long start = VectorMetrics.start();
+ * ...
+ * VectorMetrics.record(Operation.MATRIX_MULTIPLY, start, flops, elements);
+ * </pre>
+ *
+ * @author Omnaest
+ */
+public final class VectorMetrics
+{
+    public static final String  SYSTEM_PROPERTY = "org.omnaest.vector.metrics";
+    public static final String  OBJECT_NAME     = "org.omnaest.vector:type=VectorMetrics";
+    public static final boolean ENABLED         = Boolean.getBoolean(SYSTEM_PROPERTY);
+
+    public static enum Operation
+    {
+        MATRIX_MULTIPLY,
+        MATRIX_VECTOR_MULTIPLY,
+        MATRIX_SCALAR_MULTIPLY,
+        MATRIX_ADD,
+        DETERMINANT,
+        INVERSE,
+        BUILDER_BUILD,
+        VECTOR_ROTATE,
+        DENSE_KERNEL_MULTIPLY
+    }
+
+    private static final Map<Operation, Counters> COUNTERS = new EnumMap<>(Operation.class);
+
+    static
+    {
+        for (Operation operation : Operation.values())
+        {
+            COUNTERS.put(operation, new Counters());
+        }
+        if (ENABLED)
+        {
+            registerMBean();
+        }
+    }
+
+    private static class Counters
+    {
+        private final LongAdder calls    = new LongAdder();
+        private final LongAdder flops    = new LongAdder();
+        private final LongAdder elements = new LongAdder();
+        private final LongAdder nanos    = new LongAdder();
+    }
+
+    private VectorMetrics()
+    {
+        super();
+    }
+
+    /**
+     * Returns the start time for {@link #record(Operation, long, long, long)}, or 0 if the metrics are disabled
+     *
+     * @return
+     */
+    public static long start()
+    {
+        return ENABLED ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Records a single call of the given {@link Operation}, if the metrics are enabled
+     *
+     * @param operation
+     * @param start
+     *            from {@link #start()}
+     * @param flops
+     *            number of floating point operations
+     * @param elements
+     *            number of processed elements
+     */
+    public static void record(Operation operation, long start, long flops, long elements)
+    {
+        if (ENABLED)
+        {
+            add(operation, 1, flops, elements, System.nanoTime() - start);
+        }
+    }
+
+    static void add(Operation operation, long calls, long flops, long elements, long nanos)
+    {
+        Counters counters = COUNTERS.get(operation);
+        counters.calls.add(calls);
+        counters.flops.add(flops);
+        counters.elements.add(elements);
+        counters.nanos.add(nanos);
+    }
+
+    /**
+     * Immutable snapshot of the metrics of a single {@link Operation}
+     *
+     * @author Omnaest
+     */
+    public static class Statistic
+    {
+        private long calls;
+        private long flops;
+        private long elements;
+        private long nanos;
+
+        protected Statistic(long calls, long flops, long elements, long nanos)
+        {
+            super();
+            this.calls = calls;
+            this.flops = flops;
+            this.elements = elements;
+            this.nanos = nanos;
+        }
+
+        public long getCalls()
+        {
+            return this.calls;
+        }
+
+        public long getFlops()
+        {
+            return this.flops;
+        }
+
+        public long getElements()
+        {
+            return this.elements;
+        }
+
+        public long getNanos()
+        {
+            return this.nanos;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Statistic [calls=" + this.calls + ", flops=" + this.flops + ", elements=" + this.elements + ", nanos=" + this.nanos + "]";
+        }
+
+    }
+
+    public static Statistic get(Operation operation)
+    {
+        Counters counters = COUNTERS.get(operation);
+        return new Statistic(counters.calls.sum(), counters.flops.sum(), counters.elements.sum(), counters.nanos.sum());
+    }
+
+    /**
+     * Returns a {@link Statistic} for each {@link Operation}
+     *
+     * @return
+     */
+    public static Map<Operation, Statistic> getAll()
+    {
+        Map<Operation, Statistic> retval = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values())
+        {
+            retval.put(operation, get(operation));
+        }
+        return retval;
+    }
+
+    public static void reset()
+    {
+        for (Counters counters : COUNTERS.values())
+        {
+            counters.calls.reset();
+            counters.flops.reset();
+            counters.elements.reset();
+            counters.nanos.reset();
+        }
+    }
+
+    /**
+     * Registers the {@link VectorMetricsMXBean} at the platform {@link MBeanServer}, which is done automatically if the metrics are enabled
+     *
+     * @return
+     */
+    public static ObjectName registerMBean()
+    {
+        try
+        {
+            ObjectName objectName = new ObjectName(OBJECT_NAME);
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (!server.isRegistered(objectName))
+            {
+                server.registerMBean(new MXBean(), objectName);
+            }
+            return objectName;
+        }
+        catch (InstanceAlreadyExistsException e)
+        {
+            return null;
+        }
+        catch (JMException e)
+        {
+            throw new IllegalStateException("Unable to register the metrics MBean", e);
+        }
+    }
+
+    /**
+     * JMX view of the {@link VectorMetrics}, each attribute maps the {@link Operation} names to their value
+     *
+     * @author Omnaest
+     */
+    public static interface VectorMetricsMXBean
+    {
+        boolean isEnabled();
+
+        Map<String, Long> getCalls();
+
+        Map<String, Long> getFlops();
+
+        Map<String, Long> getElements();
+
+        Map<String, Long> getNanos();
+
+        void reset();
+    }
+
+    private static class MXBean implements VectorMetricsMXBean
+    {
+        @Override
+        public boolean isEnabled()
+        {
+            return ENABLED;
+        }
+
+        @Override
+        public Map<String, Long> getCalls()
+        {
+            return this.map(Statistic::getCalls);
+        }
+
+        @Override
+        public Map<String, Long> getFlops()
+        {
+            return this.map(Statistic::getFlops);
+        }
+
+        @Override
+        public Map<String, Long> getElements()
+        {
+            return this.map(Statistic::getElements);
+        }
+
+        @Override
+        public Map<String, Long> getNanos()
+        {
+            return this.map(Statistic::getNanos);
+        }
+
+        @Override
+        public void reset()
+        {
+            VectorMetrics.reset();
+        }
+
+        private Map<String, Long> map(Function<Statistic, Long> value)
+        {
+            Map<String, Long> retval = new LinkedHashMap<>();
+            getAll().forEach((operation, statistic) -> retval.put(operation.name(), value.apply(statistic)));
+            return retval;
+        }
+    }
+
+}
@@ -0,0 +1,550 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Bulk similarity and distance calculation between a set of query {@link Vector}s and a fixed corpus of {@link Vector}s.<br>
+ * <br>
+ * The corpus is packed into primitive storage and normalized once, the scores are then calculated using blocked dot product kernels in
+ * parallel.<br>
+ * <br>
+ * Example:<br>
+ *
+ * <pre>
+ * VectorSimilarity similarity = VectorSimilarity.of(corpus);
+ * List&lt;List&lt;Match&gt;&gt; matches = similarity.topKByCosineSimilarity(10, queries);
+ * </pre>
+ *
+ * @see Vector#determineAngle(Vector)
+ * @see Vector#distanceTo(Vector)
+ * @author Omnaest
+ */
+public class VectorSimilarity
+{
+    private static final int QUERY_TILE_SIZE  = 32;
+    private static final int CORPUS_TILE_SIZE = 1024;
+
+    private int      size;
+    private int      dimension;
+    private double[] corpus;
+    private double[] normalizedCorpus;
+    private double[] squaredNorms;
+
+    protected VectorSimilarity(Vector[] corpus)
+    {
+        super();
+        this.size = corpus.length;
+        this.dimension = DenseKernels.maxDimension(corpus);
+        this.corpus = DenseKernels.pack(corpus, this.dimension);
+        this.squaredNorms = new double[this.size];
+        this.normalizedCorpus = new double[this.corpus.length];
+        for (int ii = 0; ii < this.size; ii++)
+        {
+            int offset = ii * this.dimension;
+            double squaredNorm = DenseKernels.dot(this.corpus, offset, this.corpus, offset, this.dimension);
+            this.squaredNorms[ii] = squaredNorm;
+            double factor = inverseNorm(squaredNorm);
+            for (int dd = 0; dd < this.dimension; dd++)
+            {
+                this.normalizedCorpus[offset + dd] = this.corpus[offset + dd] * factor;
+            }
+        }
+    }
+
+    /**
+     * Returns a new {@link VectorSimilarity} for the given corpus {@link Vector}s
+     *
+     * @param corpus
+     * @return
+     */
+    public static VectorSimilarity of(Vector... corpus)
+    {
+        return new VectorSimilarity(corpus);
+    }
+
+    /**
+     * @see #of(Vector...)
+     * @param corpus
+     * @return
+     */
+    public static VectorSimilarity of(Collection<Vector> corpus)
+    {
+        return new VectorSimilarity(corpus.toArray(new Vector[corpus.size()]));
+    }
+
+    /**
+     * A single match of a top-k query, referencing the corpus {@link Vector} by its index
+     *
+     * @author Omnaest
+     */
+    public static class Match
+    {
+        private int    index;
+        private double score;
+
+        public Match(int index, double score)
+        {
+            super();
+            this.index = index;
+            this.score = score;
+        }
+
+        /**
+         * Returns the index of the matching {@link Vector} within the corpus
+         *
+         * @return
+         */
+        public int getIndex()
+        {
+            return this.index;
+        }
+
+        /**
+         * Returns the cosine similarity or the distance, depending on the query
+         *
+         * @return
+         */
+        public double getScore()
+        {
+            return this.score;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Match [index=" + this.index + ", score=" + this.score + "]";
+        }
+
+    }
+
+    /**
+     * Returns the number of {@link Vector}s within the corpus
+     *
+     * @return
+     */
+    public int size()
+    {
+        return this.size;
+    }
+
+    /**
+     * Returns the cosine similarities as {@link Matrix} with one row per query and one column per corpus {@link Vector}
+     *
+     * @param queries
+     * @return
+     */
+    public Matrix cosineSimilarityMatrix(Vector... queries)
+    {
+        double[][] result = new double[queries.length][this.size];
+        double[] packedQueries = this.packNormalized(queries);
+        this.tiles(queries.length)
+            .parallel()
+            .forEach(tile ->
+            {
+                Tile bounds = new Tile(tile, queries.length, this.size);
+                double[] scores = this.computeDotProducts(packedQueries, this.normalizedCorpus, bounds);
+                for (int ii = bounds.queryFrom; ii < bounds.queryTo; ii++)
+                {
+                    System.arraycopy(scores, (ii - bounds.queryFrom) * bounds.getCorpusCount(), result[ii], bounds.corpusFrom, bounds.getCorpusCount());
+                }
+            });
+        return new Matrix(result);
+    }
+
+    /**
+     * Returns the euclidean distances as {@link Matrix} with one row per query and one column per corpus {@link Vector}
+     *
+     * @param queries
+     * @return
+     */
+    public Matrix distanceMatrix(Vector... queries)
+    {
+        double[][] result = new double[queries.length][this.size];
+        double[] packedQueries = DenseKernels.pack(queries, this.dimension);
+        double[] querySquaredNorms = squaredNorms(queries);
+        this.tiles(queries.length)
+            .parallel()
+            .forEach(tile ->
+            {
+                Tile bounds = new Tile(tile, queries.length, this.size);
+                double[] scores = this.computeDotProducts(packedQueries, this.corpus, bounds);
+                int corpusCount = bounds.getCorpusCount();
+                for (int ii = bounds.queryFrom; ii < bounds.queryTo; ii++)
+                {
+                    int offset = (ii - bounds.queryFrom) * corpusCount;
+                    for (int jj = 0; jj < corpusCount; jj++)
+                    {
+                        result[ii][bounds.corpusFrom + jj] = this.toDistance(querySquaredNorms[ii], bounds.corpusFrom + jj, scores[offset + jj]);
+                    }
+                }
+            });
+        return new Matrix(result);
+    }
+
+    /**
+     * Returns for each query the k corpus {@link Vector}s with the highest cosine similarity, ordered by descending similarity
+     *
+     * @param k
+     * @param queries
+     * @return
+     */
+    public List<List<Match>> topKByCosineSimilarity(int k, Vector... queries)
+    {
+        double[] packedQueries = this.packNormalized(queries);
+        return this.topK(k, queries.length, bounds -> this.computeDotProducts(packedQueries, this.normalizedCorpus, bounds), false);
+    }
+
+    /**
+     * Returns for each query the k corpus {@link Vector}s with the smallest euclidean distance, ordered by ascending distance.<br>
+     * <br>
+     * The candidates are selected by the expanded form |q|<sup>2</sup> + |c|<sup>2</sup> - 2 * q * c, which suffers from cancellation for
+     * nearly identical {@link Vector}s. The returned k matches are re-ranked with their exact distances, but ties at the boundary of the
+     * top k can still be decided by the less precise value.
+     *
+     * @param k
+     * @param queries
+     * @return
+     */
+    public List<List<Match>> topKByDistance(int k, Vector... queries)
+    {
+        double[] packedQueries = DenseKernels.pack(queries, this.dimension);
+        double[] querySquaredNorms = squaredNorms(queries);
+        return this.rerankByExactDistance(this.topK(k, queries.length, bounds ->
+        {
+            double[] scores = this.computeDotProducts(packedQueries, this.corpus, bounds);
+            int corpusCount = bounds.getCorpusCount();
+            for (int ii = bounds.queryFrom; ii < bounds.queryTo; ii++)
+            {
+                int offset = (ii - bounds.queryFrom) * corpusCount;
+                for (int jj = 0; jj < corpusCount; jj++)
+                {
+                    scores[offset + jj] = this.toDistance(querySquaredNorms[ii], bounds.corpusFrom + jj, scores[offset + jj]);
+                }
+            }
+            return scores;
+        }, true), queries, packedQueries);
+    }
+
+    private static interface TileScorer
+    {
+        double[] score(Tile tile);
+    }
+
+    /**
+     * Reduces the corpus tiles of each query tile in parallel into one bounded {@link TopK} per query, so only the partials of the
+     * currently merged tiles, sized to their query tile, are alive at the same time
+     */
+    private List<List<Match>> topK(int k, int numberOfQueries, TileScorer scorer, boolean ascending)
+    {
+        if (k < 0)
+        {
+            throw new IllegalArgumentException("k must not be negative");
+        }
+
+        double sign = ascending ? -1.0 : 1.0;
+        int numberOfCorpusTiles = this.getNumberOfCorpusTiles();
+        List<TopK[]> queryTiles = IntStream.range(0, numberOfQueryTiles(numberOfQueries))
+                                           .parallel()
+                                           .mapToObj(queryTile -> IntStream.range(0, numberOfCorpusTiles)
+                                                                           .parallel()
+                                                                           .mapToObj(corpusTile -> new Tile(queryTile, corpusTile, numberOfQueries, this.size))
+                                                                           .map(bounds -> this.topK(k, bounds, scorer, sign))
+                                                                           .reduce(VectorSimilarity::merge)
+                                                                           .orElse(null))
+                                           .collect(Collectors.toList());
+
+        List<List<Match>> retval = new ArrayList<>(numberOfQueries);
+        for (int ii = 0; ii < numberOfQueries; ii++)
+        {
+            TopK[] queryTile = queryTiles.get(ii / QUERY_TILE_SIZE);
+            retval.add(queryTile != null ? queryTile[ii % QUERY_TILE_SIZE].toMatches(sign) : new ArrayList<>());
+        }
+        return retval;
+    }
+
+    private TopK[] topK(int k, Tile bounds, TileScorer scorer, double sign)
+    {
+        double[] scores = scorer.score(bounds);
+        int corpusCount = bounds.getCorpusCount();
+        TopK[] retval = new TopK[bounds.getQueryCount()];
+        for (int ii = 0; ii < retval.length; ii++)
+        {
+            TopK topK = new TopK(k);
+            int offset = ii * corpusCount;
+            for (int jj = 0; jj < corpusCount; jj++)
+            {
+                topK.offer(bounds.corpusFrom + jj, sign * scores[offset + jj]);
+            }
+            retval[ii] = topK;
+        }
+        return retval;
+    }
+
+    private static TopK[] merge(TopK[] left, TopK[] right)
+    {
+        for (int ii = 0; ii < left.length; ii++)
+        {
+            left[ii].offerAll(right[ii]);
+        }
+        return left;
+    }
+
+    /**
+     * Replaces the scores of the given matches by the exact distances and sorts them again, since the distances of the tiles are derived
+     * from |q|<sup>2</sup> + |c|<sup>2</sup> - 2 * q * c, which loses precision for nearly identical {@link Vector}s. Like
+     * {@link Vector#distanceTo(Vector)} and the tiles, query coordinates beyond the dimension of the corpus are compared against zeros.
+     */
+    private List<List<Match>> rerankByExactDistance(List<List<Match>> matches, Vector[] queries, double[] packedQueries)
+    {
+        for (int ii = 0; ii < matches.size(); ii++)
+        {
+            double[] coordinates = queries[ii].getCoordinates();
+            double exceedingSquaredNorm = 0.0;
+            for (int dd = this.dimension; dd < coordinates.length; dd++)
+            {
+                exceedingSquaredNorm += coordinates[dd] * coordinates[dd];
+            }
+
+            List<Match> queryMatches = matches.get(ii);
+            for (int jj = 0; jj < queryMatches.size(); jj++)
+            {
+                int index = queryMatches.get(jj)
+                                        .getIndex();
+                double squaredDistance = exceedingSquaredNorm;
+                for (int dd = 0; dd < this.dimension; dd++)
+                {
+                    double delta = packedQueries[ii * this.dimension + dd] - this.corpus[index * this.dimension + dd];
+                    squaredDistance += delta * delta;
+                }
+                queryMatches.set(jj, new Match(index, Math.sqrt(squaredDistance)));
+            }
+            queryMatches.sort(Comparator.comparingDouble(Match::getScore));
+        }
+        return matches;
+    }
+
+    private double toDistance(double querySquaredNorm, int corpusIndex, double dotProduct)
+    {
+        double squaredDistance = querySquaredNorm + this.squaredNorms[corpusIndex] - 2.0 * dotProduct;
+        return Math.sqrt(Math.max(0.0, squaredDistance));
+    }
+
+    private double[] computeDotProducts(double[] packedQueries, double[] packedCorpus, Tile tile)
+    {
+        double[] scores = new double[tile.getQueryCount() * tile.getCorpusCount()];
+        DenseKernels.dotProducts(packedQueries, tile.queryFrom, tile.queryTo, packedCorpus, tile.corpusFrom, tile.corpusTo, this.dimension, scores);
+        return scores;
+    }
+
+    private IntStream tiles(int numberOfQueries)
+    {
+        return IntStream.range(0, numberOfQueryTiles(numberOfQueries) * this.getNumberOfCorpusTiles());
+    }
+
+    private int getNumberOfCorpusTiles()
+    {
+        return (this.size + CORPUS_TILE_SIZE - 1) / CORPUS_TILE_SIZE;
+    }
+
+    private static int numberOfQueryTiles(int numberOfQueries)
+    {
+        return (numberOfQueries + QUERY_TILE_SIZE - 1) / QUERY_TILE_SIZE;
+    }
+
+    private double[] packNormalized(Vector[] queries)
+    {
+        double[] packed = DenseKernels.pack(queries, this.dimension);
+        for (int ii = 0; ii < queries.length; ii++)
+        {
+            double factor = inverseNorm(queries[ii].multiplyScalar(queries[ii]));
+            for (int dd = ii * this.dimension; dd < (ii + 1) * this.dimension; dd++)
+            {
+                packed[dd] *= factor;
+            }
+        }
+        return packed;
+    }
+
+    private static double[] squaredNorms(Vector[] vectors)
+    {
+        double[] retval = new double[vectors.length];
+        for (int ii = 0; ii < vectors.length; ii++)
+        {
+            retval[ii] = vectors[ii].multiplyScalar(vectors[ii]);
+        }
+        return retval;
+    }
+
+    /**
+     * Returns 1/|v| or 0 for (nearly) zero vectors, similar to {@link Vector#normVector()}
+     *
+     * @param squaredNorm
+     * @return
+     */
+    private static double inverseNorm(double squaredNorm)
+    {
+        double norm = Math.sqrt(squaredNorm);
+        return norm > 0.000000001 ? 1.0 / norm : 0.0;
+    }
+
+    private static class Tile
+    {
+        private int queryFrom;
+        private int queryTo;
+        private int corpusFrom;
+        private int corpusTo;
+
+        public Tile(int tile, int numberOfQueries, int corpusSize)
+        {
+            this(tile / ((corpusSize + CORPUS_TILE_SIZE - 1) / CORPUS_TILE_SIZE), tile % ((corpusSize + CORPUS_TILE_SIZE - 1) / CORPUS_TILE_SIZE),
+                 numberOfQueries, corpusSize);
+        }
+
+        public Tile(int queryTile, int corpusTile, int numberOfQueries, int corpusSize)
+        {
+            this.queryFrom = queryTile * QUERY_TILE_SIZE;
+            this.queryTo = Math.min(numberOfQueries, this.queryFrom + QUERY_TILE_SIZE);
+            this.corpusFrom = corpusTile * CORPUS_TILE_SIZE;
+            this.corpusTo = Math.min(corpusSize, this.corpusFrom + CORPUS_TILE_SIZE);
+        }
+
+        public int getQueryCount()
+        {
+            return this.queryTo - this.queryFrom;
+        }
+
+        public int getCorpusCount()
+        {
+            return this.corpusTo - this.corpusFrom;
+        }
+    }
+
+    /**
+     * Bounded min heap on primitive arrays keeping the k largest scores
+     */
+    private static class TopK
+    {
+        private int      capacity;
+        private int      size    = 0;
+        private int[]    indices;
+        private double[] scores;
+
+        public TopK(int capacity)
+        {
+            this.capacity = capacity;
+            this.indices = new int[capacity];
+            this.scores = new double[capacity];
+        }
+
+        public void offer(int index, double score)
+        {
+            if (this.size < this.capacity)
+            {
+                this.indices[this.size] = index;
+                this.scores[this.size] = score;
+                this.siftUp(this.size++);
+            }
+            else if (this.capacity > 0 && score > this.scores[0])
+            {
+                this.indices[0] = index;
+                this.scores[0] = score;
+                this.siftDown(0);
+            }
+        }
+
+        public void offerAll(TopK other)
+        {
+            for (int ii = 0; ii < other.size; ii++)
+            {
+                this.offer(other.indices[ii], other.scores[ii]);
+            }
+        }
+
+        public List<Match> toMatches(double sign)
+        {
+            List<Match> retval = new ArrayList<>(this.size);
+            while (this.size > 0)
+            {
+                retval.add(new Match(this.indices[0], sign * this.scores[0]));
+                this.size--;
+                this.indices[0] = this.indices[this.size];
+                this.scores[0] = this.scores[this.size];
+                this.siftDown(0);
+            }
+            Collections.reverse(retval);
+            return retval;
+        }
+
+        private void siftUp(int position)
+        {
+            while (position > 0)
+            {
+                int parent = (position - 1) / 2;
+                if (this.scores[position] >= this.scores[parent])
+                {
+                    break;
+                }
+                this.swap(position, parent);
+                position = parent;
+            }
+        }
+
+        private void siftDown(int position)
+        {
+            while (true)
+            {
+                int left = 2 * position + 1;
+                int right = left + 1;
+                int smallest = position;
+                if (left < this.size && this.scores[left] < this.scores[smallest])
+                {
+                    smallest = left;
+                }
+                if (right < this.size && this.scores[right] < this.scores[smallest])
+                {
+                    smallest = right;
+                }
+                if (smallest == position)
+                {
+                    break;
+                }
+                this.swap(position, smallest);
+                position = smallest;
+            }
+        }
+
+        private void swap(int ii, int jj)
+        {
+            int index = this.indices[ii];
+            this.indices[ii] = this.indices[jj];
+            this.indices[jj] = index;
+            double score = this.scores[ii];
+            this.scores[ii] = this.scores[jj];
+            this.scores[jj] = score;
+        }
+    }
+}
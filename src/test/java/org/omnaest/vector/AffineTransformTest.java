@@ -0,0 +1,98 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class AffineTransformTest
+{
+    @Test
+    public void testComposition() throws Exception
+    {
+        Vector point = new Vector(1, 2, 3);
+        AffineTransform transform = AffineTransform.identity()
+                                                   .scale(2.0, 3.0, 4.0)
+                                                   .rotate(10, 20, 30)
+                                                   .translate(-1, 5, 2);
+        Vector expected = new Vector(2, 6, 12).rotate(10, 20, 30)
+                                              .add(new Vector(-1, 5, 2));
+        assertEquals(0.0, transform.apply(point)
+                                   .distanceTo(expected),
+                     0.000000001);
+        assertEquals(0.0, transform.inverse()
+                                   .apply(transform.apply(point))
+                                   .distanceTo(point),
+                     0.000000001);
+        assertEquals(0.0, transform.applyToDirection(point)
+                                   .distanceTo(new Vector(2, 6, 12).rotate(10, 20, 30)),
+                     0.000000001);
+    }
+
+    @Test
+    public void testRotateAroundAxisAndShear() throws Exception
+    {
+        AffineTransform rotation = AffineTransform.identity()
+                                                  .rotate(new Vector(0, 0, 2), 90);
+        assertEquals(0.0, rotation.apply(new Vector(1, 0, 0))
+                                  .distanceTo(new Vector(0, 1, 0)),
+                     0.000000001);
+
+        AffineTransform shear = AffineTransform.identity()
+                                               .shear(1, 0, 0, 0, 0, 2);
+        assertEquals(new Vector(3, 2, 7), shear.apply(new Vector(1, 2, 3)));
+    }
+
+    @Test
+    public void testApplyToCoordinates() throws Exception
+    {
+        AffineTransform transform = AffineTransform.identity()
+                                                   .rotate(30, 0, 45)
+                                                   .translate(1, 1, 1);
+        Random random = new Random(1);
+        double[] coordinates = new double[3 * 10000];
+        for (int ii = 0; ii < coordinates.length; ii++)
+        {
+            coordinates[ii] = random.nextDouble();
+        }
+        double[] sequential = new double[coordinates.length];
+        transform.apply(coordinates, sequential);
+        double[] parallel = coordinates.clone();
+        transform.applyParallel(parallel, parallel);
+
+        for (int ii = 0; ii < coordinates.length; ii += 3)
+        {
+            Vector expected = transform.apply(new Vector(coordinates[ii], coordinates[ii + 1], coordinates[ii + 2]));
+            assertEquals(expected, new Vector(sequential[ii], sequential[ii + 1], sequential[ii + 2]));
+            assertEquals(expected, new Vector(parallel[ii], parallel[ii + 1], parallel[ii + 2]));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOfProjectiveMatrix() throws Exception
+    {
+        AffineTransform.of(new Matrix4x4(1, 0, 0, 0,
+                                         0, 1, 0, 0,
+                                         0, 0, 1, 0,
+                                         0, 0, 0.5, 1));
+    }
+}
@@ -0,0 +1,127 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class BandedMatrixTest
+{
+    private static final Matrix DENSE = Matrix.builder()
+                                              .addRow(4, 1, 2, 0, 0)
+                                              .addRow(1, 5, 1, 2, 0)
+                                              .addRow(0, 1, 6, 1, 2)
+                                              .addRow(0, 0, 1, 7, 1)
+                                              .addRow(0, 0, 0, 1, 8)
+                                              .build();
+
+    @Test
+    public void testOf() throws Exception
+    {
+        BandedMatrix banded = BandedMatrix.of(DENSE, 1, 2);
+        assertEquals(DENSE, banded);
+        assertEquals(DENSE.multiply(DENSE), banded.multiply(DENSE));
+        assertEquals(DENSE.multiply(DENSE), DENSE.multiply(banded));
+        assertEquals(DENSE.transposed(), banded.transposed());
+        assertEquals(6110.0, banded.determinant(), 0.000000001);
+
+        Vector x = new Vector(1, -2, 3, -4, 5);
+        assertEquals(0.0, banded.solve(DENSE.multiply(x))
+                                .distanceTo(x),
+                     0.000000001);
+    }
+
+    @Test
+    public void testTridiagonal() throws Exception
+    {
+        BandedMatrix tridiagonal = BandedMatrix.tridiagonal(new double[] { 1, 2 }, new double[] { 0, 3, 4 }, new double[] { 5, 6 });
+        assertEquals(Matrix.builder()
+                           .addRow(0, 5, 0)
+                           .addRow(1, 3, 6)
+                           .addRow(0, 2, 4)
+                           .build(),
+                     tridiagonal);
+        assertEquals(-20.0, tridiagonal.determinant(), 0.000000001);
+
+        Vector x = new Vector(1, 2, 3);
+        assertEquals(0.0, tridiagonal.solve(tridiagonal.multiply(x))
+                                     .distanceTo(x),
+                     0.000000001);
+    }
+
+    @Test
+    public void testInverse() throws Exception
+    {
+        BandedMatrix tridiagonal = BandedMatrix.tridiagonal(new double[] { 1, 2, 1 }, new double[] { 4, 5, 6, 7 }, new double[] { 3, 1, 2 });
+        assertIdentity(tridiagonal.multiply(tridiagonal.inverse()));
+
+        BandedMatrix zeroPivot = BandedMatrix.tridiagonal(new double[] { 1, 2 }, new double[] { 0, 3, 4 }, new double[] { 5, 6 });
+        assertIdentity(zeroPivot.multiply(zeroPivot.inverse()));
+    }
+
+    @Test
+    public void testTinyPivot() throws Exception
+    {
+        BandedMatrix tridiagonal = BandedMatrix.tridiagonal(new double[] { 1 }, new double[] { 1E-17, 1 }, new double[] { 1 });
+        assertEquals(0.0, tridiagonal.solve(new Vector(1, 2))
+                                     .distanceTo(new Vector(1, 1)),
+                     0.000000001);
+        assertEquals(-1.0, tridiagonal.determinant(), 0.000000001);
+        assertIdentity(tridiagonal.multiply(tridiagonal.inverse()));
+    }
+
+    @Test
+    public void testNotDiagonallyDominant() throws Exception
+    {
+        Random random = new Random(1);
+        int dimension = 9;
+        double[][] data = new double[dimension][dimension];
+        for (int ii = 0; ii < dimension; ii++)
+        {
+            for (int jj = Math.max(0, ii - 2); jj <= Math.min(dimension - 1, ii + 1); jj++)
+            {
+                data[ii][jj] = ii == jj ? 1E-3 * random.nextDouble() : random.nextDouble() - 0.5;
+            }
+        }
+        Matrix dense = new Matrix(data);
+        BandedMatrix banded = BandedMatrix.of(dense, 2, 1);
+
+        Vector x = new Vector(1, -2, 3, -4, 5, -6, 7, -8, 9);
+        assertEquals(0.0, banded.solve(dense.multiply(x))
+                                .distanceTo(x),
+                     0.000000001);
+        assertEquals(DenseKernels.determinant(dense.toArray()), banded.determinant(), 0.000000001);
+        assertIdentity(dense.multiply(banded.inverse()));
+    }
+
+    private static void assertIdentity(Matrix matrix)
+    {
+        double[][] data = matrix.toArray();
+        for (int ii = 0; ii < data.length; ii++)
+        {
+            for (int jj = 0; jj < data[ii].length; jj++)
+            {
+                assertEquals(ii == jj ? 1.0 : 0.0, data[ii][jj], 0.000000001);
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class BoundingBoxTest
+{
+
+    @Test
+    public void testAround() throws Exception
+    {
+        BoundingBox box = BoundingBox.around(Vector.of(1, 5, -2), Vector.of(-1, 2, 3), Vector.of(0, 0));
+        assertEquals(Vector.of(-1, 0, -2), box.getMin());
+        assertEquals(Vector.of(1, 5, 3), box.getMax());
+        assertEquals(Vector.of(0, 2.5, 0.5), box.getCenter());
+        assertEquals(2 * (2 * 5 + 5 * 5 + 5 * 2), box.getSurfaceArea(), 1E-12);
+        assertEquals(box, BoundingBox.of(Vector.of(1, 0, 3), Vector.of(-1, 5, -2)));
+    }
+
+    @Test
+    public void testUnionAndEmpty() throws Exception
+    {
+        assertTrue(BoundingBox.EMPTY.isEmpty());
+        assertEquals(0.0, BoundingBox.EMPTY.getSurfaceArea(), 0.0);
+
+        BoundingBox box = BoundingBox.of(Vector.of(0, 0, 0), Vector.of(1, 1, 1));
+        assertEquals(box, BoundingBox.EMPTY.union(box));
+        assertEquals(BoundingBox.of(Vector.of(0, 0, 0), Vector.of(3, 1, 1)), box.union(BoundingBox.of(Vector.of(2, 0, 0), Vector.of(3, 1, 1))));
+    }
+
+    @Test
+    public void testOverlapsAndContains() throws Exception
+    {
+        BoundingBox box = BoundingBox.of(Vector.of(0, 0, 0), Vector.of(1, 1, 1));
+        assertTrue(box.overlaps(BoundingBox.of(Vector.of(1, 1, 1), Vector.of(2, 2, 2))));
+        assertFalse(box.overlaps(BoundingBox.of(Vector.of(1.1, 0, 0), Vector.of(2, 1, 1))));
+        assertTrue(box.contains(Vector.of(0.5, 1, 0)));
+        assertFalse(box.contains(Vector.of(0.5, 1.5, 0)));
+        assertFalse(BoundingBox.EMPTY.overlaps(box));
+    }
+
+    @Test
+    public void testIntersectRay() throws Exception
+    {
+        BoundingBox box = BoundingBox.of(Vector.of(2, -1, -1), Vector.of(4, 1, 1));
+        assertEquals(2.0, box.intersectRay(Vector.of(0, 0, 0), Vector.of(5, 0, 0)), 1E-12);
+        assertEquals(0.0, box.intersectRay(Vector.of(3, 0, 0), Vector.of(0, 1, 0)), 0.0);
+        assertEquals(Double.POSITIVE_INFINITY, box.intersectRay(Vector.of(0, 0, 0), Vector.of(-1, 0, 0)), 0.0);
+        assertEquals(Double.POSITIVE_INFINITY, box.intersectRay(Vector.of(0, 2, 0), Vector.of(1, 0, 0)), 0.0);
+        assertEquals(2.0, box.intersectRay(Vector.of(0, 1, 0), Vector.of(1, 0, 0)), 0.0);
+        assertEquals(Math.sqrt(8), box.intersectRay(Vector.of(0, -2, 0), Vector.of(1, 1, 0)), 1E-12);
+    }
+
+}
@@ -0,0 +1,248 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+import org.omnaest.vector.BoundingVolumeHierarchy.Hit;
+import org.omnaest.vector.BoundingVolumeHierarchy.RayIntersection;
+
+public class BoundingVolumeHierarchyTest
+{
+    private static final double RADIUS = 0.5;
+
+    private static final RayIntersection<Vector> SPHERE_INTERSECTION = (center, origin, direction) ->
+    {
+        Vector delta = origin.subtract(center);
+        double b = delta.multiplyScalar(direction);
+        double c = delta.absoluteSquared() - RADIUS * RADIUS;
+        double discriminant = b * b - c;
+        if (discriminant < 0)
+        {
+            return Double.POSITIVE_INFINITY;
+        }
+        double distance = -b - Math.sqrt(discriminant);
+        return distance >= 0 ? distance : -b + Math.sqrt(discriminant);
+    };
+
+    private static List<Vector> randomPoints(Random random, int numberOfPoints)
+    {
+        List<Vector> retval = new ArrayList<>();
+        for (int ii = 0; ii < numberOfPoints; ii++)
+        {
+            retval.add(Vector.of(random.nextDouble() * 100, random.nextDouble() * 100, random.nextDouble() * 20));
+        }
+        return retval;
+    }
+
+    private static BoundingBox sphereBounds(Vector center)
+    {
+        return BoundingBox.of(center.subtract(Vector.of(RADIUS, RADIUS, RADIUS)), center.add(Vector.of(RADIUS, RADIUS, RADIUS)));
+    }
+
+    private static Optional<Hit<Vector>> nearestHitBruteForce(List<Vector> centers, Vector origin, Vector direction)
+    {
+        Vector normalizedDirection = direction.normVector();
+        Hit<Vector> retval = null;
+        for (Vector center : centers)
+        {
+            double distance = SPHERE_INTERSECTION.intersect(center, origin, normalizedDirection);
+            if (distance >= 0 && distance != Double.POSITIVE_INFINITY && (retval == null || distance < retval.getDistance()))
+            {
+                retval = new Hit<>(center, distance, null);
+            }
+        }
+        return Optional.ofNullable(retval);
+    }
+
+    @Test
+    public void testOverlapping() throws Exception
+    {
+        Random random = new Random(1);
+        List<Vector> points = randomPoints(random, 5000);
+        BoundingVolumeHierarchy<Vector> hierarchy = BoundingVolumeHierarchy.ofPoints(points);
+        assertEquals(5000, hierarchy.size());
+
+        for (int ii = 0; ii < 50; ii++)
+        {
+            Vector corner = Vector.of(random.nextDouble() * 100, random.nextDouble() * 100, random.nextDouble() * 20);
+            BoundingBox box = BoundingBox.of(corner, corner.add(Vector.of(10, 10, 5)));
+            assertEquals(points.stream()
+                               .filter(box::contains)
+                               .collect(Collectors.toSet()),
+                         new HashSet<>(hierarchy.overlapping(box)));
+        }
+    }
+
+    @Test
+    public void testRayCastAndSegmentCast() throws Exception
+    {
+        Random random = new Random(2);
+        List<Vector> centers = randomPoints(random, 2000);
+        BoundingVolumeHierarchy<Vector> hierarchy = BoundingVolumeHierarchy.of(centers, BoundingVolumeHierarchyTest::sphereBounds);
+
+        for (int ii = 0; ii < 50; ii++)
+        {
+            Vector from = Vector.of(random.nextDouble() * 100, random.nextDouble() * 100, random.nextDouble() * 20);
+            Vector to = Vector.of(random.nextDouble() * 100, random.nextDouble() * 100, random.nextDouble() * 20);
+            Vector direction = to.subtract(from);
+            double length = direction.absolute();
+            assertEquals(centers.stream()
+                                .filter(center -> sphereBounds(center).intersectRay(from, direction) <= length)
+                                .collect(Collectors.toSet()),
+                         new HashSet<>(hierarchy.segmentCast(from, to)));
+            assertEquals(centers.stream()
+                                .filter(center -> sphereBounds(center).intersectRay(from, direction) != Double.POSITIVE_INFINITY)
+                                .collect(Collectors.toSet()),
+                         new HashSet<>(hierarchy.rayCast(from, direction, Double.POSITIVE_INFINITY)));
+        }
+    }
+
+    @Test
+    public void testNearestHit() throws Exception
+    {
+        Random random = new Random(3);
+        List<Vector> centers = randomPoints(random, 3000);
+        BoundingVolumeHierarchy<Vector> hierarchy = BoundingVolumeHierarchy.of(centers, BoundingVolumeHierarchyTest::sphereBounds);
+
+        int numberOfHits = 0;
+        for (int ii = 0; ii < 200; ii++)
+        {
+            Vector origin = Vector.of(random.nextDouble() * 100, random.nextDouble() * 100, random.nextDouble() * 20);
+            Vector direction = Vector.of(random.nextGaussian(), random.nextGaussian(), random.nextGaussian() * 0.1);
+
+            Optional<Hit<Vector>> expected = nearestHitBruteForce(centers, origin, direction);
+            Optional<Hit<Vector>> hit = hierarchy.nearestHit(origin, direction, SPHERE_INTERSECTION);
+            assertEquals(expected.isPresent(), hit.isPresent());
+            if (hit.isPresent())
+            {
+                numberOfHits++;
+                assertEquals(expected.get()
+                                     .getDistance(),
+                             hit.get()
+                                .getDistance(),
+                             1E-9);
+                assertEquals(RADIUS, hit.get()
+                                        .getPoint()
+                                        .distanceTo(hit.get()
+                                                       .getElement()),
+                             1E-9);
+            }
+        }
+        assertTrue(numberOfHits > 0);
+
+        assertFalse(hierarchy.nearestHit(Vector.of(50, 50, 100), Vector.of(0, 0, 1), SPHERE_INTERSECTION)
+                             .isPresent());
+        assertFalse(hierarchy.nearestHit(Vector.of(-10, -10, -10), Vector.of(1, 1, 0.2), 1.0, SPHERE_INTERSECTION)
+                             .isPresent());
+    }
+
+    private static class Particle
+    {
+        private Vector position;
+
+        public Particle(Vector position)
+        {
+            super();
+            this.position = position;
+        }
+
+        public BoundingBox getBoundingBox()
+        {
+            return BoundingBox.of(this.position, this.position);
+        }
+    }
+
+    @Test
+    public void testRefit() throws Exception
+    {
+        Random random = new Random(4);
+        List<Particle> particles = randomPoints(random, 1000).stream()
+                                                             .map(Particle::new)
+                                                             .collect(Collectors.toList());
+        BoundingVolumeHierarchy<Particle> hierarchy = BoundingVolumeHierarchy.of(particles, Particle::getBoundingBox);
+
+        for (Particle particle : particles)
+        {
+            particle.position = particle.position.add(Vector.of(random.nextDouble() * 10 - 5, random.nextDouble() * 10 - 5, 0));
+        }
+        hierarchy.refit();
+
+        BoundingBox box = BoundingBox.of(Vector.of(20, 20, 0), Vector.of(60, 60, 20));
+        assertEquals(particles.stream()
+                              .filter(particle -> box.contains(particle.position))
+                              .collect(Collectors.toSet()),
+                     new HashSet<>(hierarchy.overlapping(box)));
+        assertEquals(BoundingBox.around(particles.stream()
+                                                 .map(particle -> particle.position)
+                                                 .toArray(Vector[]::new)),
+                     hierarchy.getBoundingBox());
+
+        Particle moved = particles.get(17);
+        moved.position = Vector.of(1000, 1000, 5);
+        hierarchy.refit(17);
+        assertEquals(Arrays.asList(moved), hierarchy.overlapping(BoundingBox.of(Vector.of(999, 999, 0), Vector.of(1001, 1001, 20))));
+        assertEquals(1000.0, hierarchy.getBoundingBox()
+                                      .getMax()
+                                      .getX(),
+                     0.0);
+    }
+
+    @Test
+    public void testDegenerateInput() throws Exception
+    {
+        List<Vector> points = new ArrayList<>();
+        for (int ii = 0; ii < 100; ii++)
+        {
+            points.add(Vector.of(1, 1, 1));
+        }
+        BoundingVolumeHierarchy<Vector> hierarchy = BoundingVolumeHierarchy.ofPoints(points);
+        assertEquals(100, hierarchy.overlapping(BoundingBox.of(Vector.of(0, 0, 0), Vector.of(1, 1, 1)))
+                                   .size());
+
+        BoundingVolumeHierarchy<Vector> empty = BoundingVolumeHierarchy.ofPoints(new ArrayList<>());
+        assertTrue(empty.getBoundingBox()
+                        .isEmpty());
+        assertTrue(empty.overlapping(BoundingBox.of(Vector.of(0, 0, 0), Vector.of(1, 1, 1)))
+                        .isEmpty());
+        assertFalse(empty.nearestHit(Vector.of(0, 0, 0), Vector.of(1, 0, 0), SPHERE_INTERSECTION)
+                         .isPresent());
+
+        List<Vector> exponential = new ArrayList<>();
+        for (int ii = 0; ii < 1000; ii++)
+        {
+            exponential.add(Vector.of(Math.pow(1.05, ii), 0, 0));
+        }
+        assertEquals(1000, BoundingVolumeHierarchy.ofPoints(exponential)
+                                                  .rayCast(Vector.of(0, 0, 0), Vector.of(1, 0, 0), Double.POSITIVE_INFINITY)
+                                                  .size());
+    }
+
+}
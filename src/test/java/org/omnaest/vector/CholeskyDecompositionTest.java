@@ -0,0 +1,60 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class CholeskyDecompositionTest
+{
+    @Test
+    public void testCholesky() throws Exception
+    {
+        Matrix matrix = Matrix.builder()
+                              .addRow(4, 12, -16)
+                              .addRow(12, 37, -43)
+                              .addRow(-16, -43, 98)
+                              .build();
+        CholeskyDecomposition decomposition = matrix.choleskyDecomposition();
+
+        assertEquals(Matrix.builder()
+                           .addRow(2, 0, 0)
+                           .addRow(6, 1, 0)
+                           .addRow(-8, 5, 3)
+                           .build(),
+                     decomposition.getL());
+        assertEquals(matrix.determinant(), decomposition.determinant(), 0.000001);
+
+        Vector x = new Vector(1, 2, 3);
+        assertEquals(0.0, decomposition.solve(matrix.multiply(x))
+                                       .distanceTo(x),
+                     0.000000001);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testNotPositiveDefinite() throws Exception
+    {
+        Matrix.builder()
+              .addRow(1, 2)
+              .addRow(2, 1)
+              .build()
+              .choleskyDecomposition();
+    }
+}
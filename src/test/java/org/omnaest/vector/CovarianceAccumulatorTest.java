@@ -0,0 +1,89 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class CovarianceAccumulatorTest
+{
+    @Test
+    public void testCovariance() throws Exception
+    {
+        CovarianceAccumulator accumulator = new CovarianceAccumulator();
+        accumulator.accept(new Vector(1, 2));
+        accumulator.accept(new Vector(3, 6));
+        accumulator.accept(new Vector(5, 7));
+
+        assertEquals(3, accumulator.getCount());
+        assertEquals(new Vector(3, 5), accumulator.getMean());
+        assertEquals(Matrix.builder()
+                           .addRow(4, 5)
+                           .addRow(5, 7)
+                           .build(),
+                     accumulator.getCovariance());
+    }
+
+    @Test
+    public void testCollector() throws Exception
+    {
+        Random random = new Random(1);
+        List<Vector> vectors = new ArrayList<>();
+        for (int ii = 0; ii < 20000; ii++)
+        {
+            double x = random.nextGaussian();
+            vectors.add(new Vector(1000000 + x, 2 * x + random.nextGaussian(), random.nextGaussian()));
+        }
+
+        CovarianceAccumulator sequential = new CovarianceAccumulator();
+        vectors.forEach(sequential);
+        CovarianceAccumulator parallel = vectors.parallelStream()
+                                                .collect(CovarianceAccumulator.collector());
+
+        assertEquals(20000, parallel.getCount());
+        assertEquals(0.0, sequential.getMean()
+                                    .distanceTo(parallel.getMean()),
+                     0.000001);
+        for (int ii = 1; ii <= 3; ii++)
+        {
+            for (int jj = 1; jj <= 3; jj++)
+            {
+                assertEquals(sequential.getCovariance()
+                                       .getValue(ii, jj),
+                             parallel.getCovariance()
+                                     .getValue(ii, jj),
+                             0.000001);
+            }
+        }
+        assertEquals(1.0, parallel.getCovariance()
+                                  .getValue(1, 1),
+                     0.05);
+        assertEquals(2.0, parallel.getCovariance()
+                                  .getValue(1, 2),
+                     0.1);
+        assertEquals(5.0, parallel.getCovariance()
+                                  .getValue(2, 2),
+                     0.2);
+    }
+}
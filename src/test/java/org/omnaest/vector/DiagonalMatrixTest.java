@@ -0,0 +1,83 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class DiagonalMatrixTest
+{
+    private static final Matrix DENSE = Matrix.builder()
+                                              .addRow(1, 2, 3)
+                                              .addRow(4, 5, 6)
+                                              .addRow(7, 8, 10)
+                                              .build();
+
+    @Test
+    public void testIdentity() throws Exception
+    {
+        Matrix identity = Matrix.identity(3);
+        assertTrue(identity instanceof DiagonalMatrix);
+        assertEquals(DENSE, identity.multiply(DENSE));
+        assertEquals(DENSE, DENSE.multiply(identity));
+        assertEquals(identity, new Matrix(identity.toArray()));
+        assertEquals(identity.hashCode(), new Matrix(identity.toArray()).hashCode());
+    }
+
+    @Test
+    public void testMultiply() throws Exception
+    {
+        DiagonalMatrix diagonal = DiagonalMatrix.of(2, 3, 4);
+        Matrix dense = new Matrix(diagonal.toArray());
+
+        assertEquals(dense.multiply(DENSE), diagonal.multiply(DENSE));
+        assertEquals(DENSE.multiply(dense), DENSE.multiply(diagonal));
+        assertEquals(new Vector(2, 6, 12), diagonal.multiply(new Vector(1, 2, 3)));
+        assertEquals(DiagonalMatrix.of(4, 9, 16), diagonal.multiply(diagonal));
+        assertEquals(DiagonalMatrix.of(1, 1.5, 2), diagonal.multiply(0.5));
+    }
+
+    @Test
+    public void testSolve() throws Exception
+    {
+        DiagonalMatrix diagonal = DiagonalMatrix.of(2, 4, 8);
+        assertEquals(64.0, diagonal.determinant(), 0.0);
+        assertEquals(new Vector(1, 1, 1), diagonal.solve(new Vector(2, 4, 8)));
+        assertEquals(DiagonalMatrix.of(0.5, 0.25, 0.125), diagonal.inverse());
+    }
+
+    @Test
+    public void testOfCopiesValues() throws Exception
+    {
+        double[] values = { 2, 3, 4 };
+        DiagonalMatrix diagonal = DiagonalMatrix.of(values);
+        int hashCode = diagonal.hashCode();
+        values[0] = 5;
+        assertEquals(DiagonalMatrix.of(2, 3, 4), diagonal);
+        assertEquals(hashCode, diagonal.hashCode());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testInverseOfSingular() throws Exception
+    {
+        DiagonalMatrix.of(2, 0, 8).inverse();
+    }
+}
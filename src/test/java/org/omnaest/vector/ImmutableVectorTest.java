@@ -0,0 +1,88 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+public class ImmutableVectorTest
+{
+
+    @Test
+    public void testDefensiveCopy() throws Exception
+    {
+        double[] coordinates = new double[] { 3, 4 };
+        ImmutableVector vector = ImmutableVector.of(coordinates);
+        coordinates[0] = 10;
+        assertEquals(3.0, vector.getX(), 0.0);
+
+        vector.getCoordinates()[0] = 10;
+        assertEquals(3.0, vector.getX(), 0.0);
+    }
+
+    @Test
+    public void testCachedValues() throws Exception
+    {
+        ImmutableVector vector = ImmutableVector.of(3, 4);
+        assertEquals(5.0, vector.absolute(), 0.0);
+        assertEquals(25.0, vector.absoluteSquared(), 0.0);
+        assertSame(vector.normVector(), vector.normVector());
+        assertTrue(vector.normVector()
+                         .equals(new Vector(0.6, 0.8), 1E-12));
+        assertEquals(1.0, vector.normVector()
+                                .absolute(),
+                     1E-12);
+        assertTrue(ImmutableVector.of(0, 0, 0)
+                                  .normVector()
+                                  .isZeroVector(0.0));
+    }
+
+    @Test
+    public void testEqualsAndHashCode() throws Exception
+    {
+        Vector vector = new Vector(1, 2, 3);
+        ImmutableVector immutableVector = vector.asImmutableVector();
+        assertEquals(vector, immutableVector);
+        assertEquals(immutableVector, vector);
+        assertEquals(vector.hashCode(), immutableVector.hashCode());
+        assertEquals(immutableVector.hashCode(), immutableVector.hashCode());
+        assertFalse(immutableVector.equals(ImmutableVector.of(1, 2, 4)));
+        assertSame(immutableVector, immutableVector.asImmutableVector());
+        assertSame(immutableVector, ImmutableVector.of(immutableVector));
+    }
+
+    @Test
+    public void testConcurrentAccess() throws Exception
+    {
+        ImmutableVector vector = ImmutableVector.of(1, 2, 2);
+        double sum = IntStream.range(0, 1000)
+                              .parallel()
+                              .mapToDouble(ii -> vector.absolute() + vector.normVector()
+                                                                           .absolute())
+                              .sum();
+        assertEquals(4000.0, sum, 1E-9);
+    }
+
+}
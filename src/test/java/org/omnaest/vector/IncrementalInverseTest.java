@@ -0,0 +1,165 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class IncrementalInverseTest
+{
+
+    private static Matrix randomMatrix(Random random, int rows, int columns)
+    {
+        double[][] data = new double[rows][columns];
+        for (int ii = 0; ii < rows; ii++)
+        {
+            for (int jj = 0; jj < columns; jj++)
+            {
+                data[ii][jj] = random.nextGaussian();
+            }
+        }
+        return new Matrix(data);
+    }
+
+    private static Vector randomVector(Random random, int dimension)
+    {
+        return new Vector(random.doubles(dimension)
+                                .map(value -> value - 0.5)
+                                .toArray());
+    }
+
+    private static void assertMatrixEquals(Matrix expected, Matrix actual, double delta)
+    {
+        double[][] expectedData = expected.toArray();
+        double[][] actualData = actual.toArray();
+        assertEquals(expectedData.length, actualData.length);
+        for (int ii = 0; ii < expectedData.length; ii++)
+        {
+            assertArrayEquals(expectedData[ii], actualData[ii], delta);
+        }
+    }
+
+    private static Matrix expectedInverse(Matrix matrix)
+    {
+        return new Matrix(DenseKernels.inverse(matrix.toArray()));
+    }
+
+    @Test
+    public void testRankOneUpdate() throws Exception
+    {
+        Random random = new Random(1);
+        int dimension = 8;
+        Matrix matrix = randomMatrix(random, dimension, dimension).add(Matrix.identity(dimension)
+                                                                             .multiply(5.0));
+        IncrementalInverse inverse = matrix.incrementalInverse();
+        assertMatrixEquals(expectedInverse(matrix), inverse.getInverse(), 1E-12);
+
+        for (int ii = 0; ii < 20; ii++)
+        {
+            Vector u = randomVector(random, dimension);
+            Vector v = randomVector(random, dimension);
+            matrix = matrix.add(u.outerProduct(v));
+            inverse.update(u, v);
+
+            assertMatrixEquals(matrix, inverse.getMatrix(), 1E-12);
+            assertMatrixEquals(expectedInverse(matrix), inverse.getInverse(), 1E-9);
+            double determinant = DenseKernels.determinant(matrix.toArray());
+            assertEquals(determinant, inverse.getDeterminant(), Math.abs(determinant) * 1E-9);
+        }
+        assertEquals(20, inverse.getUpdateCount());
+
+        Vector b = randomVector(random, dimension);
+        assertArrayEquals(b.getCoordinates(), matrix.multiply(inverse.solve(b))
+                                                    .getCoordinates(),
+                          1E-9);
+    }
+
+    @Test
+    public void testRankKUpdate() throws Exception
+    {
+        Random random = new Random(2);
+        int dimension = 10;
+        Matrix matrix = randomMatrix(random, dimension, dimension).add(Matrix.identity(dimension)
+                                                                             .multiply(6.0));
+        IncrementalInverse inverse = IncrementalInverse.of(matrix);
+
+        for (int ii = 0; ii < 5; ii++)
+        {
+            Matrix u = randomMatrix(random, dimension, 3).multiply(0.3);
+            Matrix v = randomMatrix(random, dimension, 3).multiply(0.3);
+            matrix = matrix.add(u.multiply(v.transposed()));
+            inverse.update(u, v);
+
+            assertMatrixEquals(matrix, inverse.getMatrix(), 1E-12);
+            assertMatrixEquals(expectedInverse(matrix), inverse.getInverse(), 1E-9);
+            double determinant = DenseKernels.determinant(matrix.toArray());
+            assertEquals(determinant, inverse.getDeterminant(), Math.abs(determinant) * 1E-9);
+        }
+    }
+
+    @Test
+    public void testRefresh() throws Exception
+    {
+        Random random = new Random(3);
+        int dimension = 6;
+        Matrix matrix = Matrix.identity(dimension);
+        IncrementalInverse inverse = IncrementalInverse.of(matrix, 10);
+        for (int ii = 0; ii < 1000; ii++)
+        {
+            Vector x = randomVector(random, dimension);
+            matrix = matrix.add(x.outerProduct(x));
+            inverse.update(x, x);
+        }
+        assertMatrixEquals(expectedInverse(matrix), inverse.getInverse(), 1E-12);
+        assertEquals(DenseKernels.determinant(matrix.toArray()), inverse.refresh()
+                                                                      .getDeterminant(),
+                     0.0);
+    }
+
+    @Test
+    public void testDeterminantWithPivoting() throws Exception
+    {
+        assertEquals(-6.0, IncrementalInverse.of(Matrix.builder()
+                                                       .addRow(0, 2)
+                                                       .addRow(3, 1)
+                                                       .build())
+                                             .getDeterminant(),
+                     1E-12);
+        Matrix matrix = Matrix.builder()
+                              .addRow(0, 1, 2)
+                              .addRow(0, 0, 3)
+                              .addRow(4, 5, 6)
+                              .build();
+        IncrementalInverse inverse = IncrementalInverse.of(matrix);
+        assertEquals(12.0, inverse.getDeterminant(), 1E-12);
+        assertMatrixEquals(expectedInverse(matrix), inverse.getInverse(), 1E-12);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testSingularUpdate() throws Exception
+    {
+        IncrementalInverse.of(Matrix.identity(2))
+                          .update(Vector.of(-1, 0), Vector.of(1, 0));
+    }
+
+}
@@ -0,0 +1,228 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class IterativeSolverTest
+{
+    private static final int DIMENSION = 200;
+
+    @Test
+    public void testConjugateGradient() throws Exception
+    {
+        LinearOperator laplacian = LinearOperator.of(DIMENSION, (input, output) ->
+        {
+            for (int ii = 0; ii < DIMENSION; ii++)
+            {
+                output[ii] = 2.5 * input[ii] - (ii > 0 ? input[ii - 1] : 0.0) - (ii < DIMENSION - 1 ? input[ii + 1] : 0.0);
+            }
+        });
+        Vector x = expectedSolution();
+        List<IterativeSolver.Progress> progress = new ArrayList<>();
+        IterativeSolver.Result result = IterativeSolver.builder()
+                                                       .withTolerance(0.000000000001)
+                                                       .withProgressListener(progress::add)
+                                                       .build()
+                                                       .conjugateGradient(laplacian, laplacian.apply(x));
+
+        assertTrue(result.isConverged());
+        assertEquals(result.getIterations(), progress.size());
+        assertEquals(result.getResidualNorm(), progress.get(progress.size() - 1)
+                                                       .getResidualNorm(),
+                     0.0);
+        assertEquals(0.0, result.getSolution()
+                                .distanceTo(x),
+                     0.000000001);
+    }
+
+    @Test
+    public void testConjugateGradientWithJacobi() throws Exception
+    {
+        double[][] data = tridiagonalMatrix(1.0, 0.0).toArray();
+        for (int ii = 0; ii < DIMENSION; ii++)
+        {
+            data[ii][ii] = (ii + 1) * 10.0;
+        }
+        Matrix matrix = new Matrix(data);
+        Vector x = expectedSolution();
+        Vector b = matrix.apply(x);
+
+        IterativeSolver.Result plain = IterativeSolver.builder()
+                                                      .build()
+                                                      .conjugateGradient(matrix, b);
+        IterativeSolver.Result preconditioned = IterativeSolver.builder()
+                                                               .withPreconditioner(Preconditioner.jacobi(matrix))
+                                                               .build()
+                                                               .conjugateGradient(matrix, b);
+        assertTrue(preconditioned.isConverged());
+        assertTrue(preconditioned.getIterations() < plain.getIterations());
+        assertEquals(0.0, preconditioned.getSolution()
+                                        .distanceTo(x),
+                     0.0000001);
+    }
+
+    @Test
+    public void testBiCGStab() throws Exception
+    {
+        Matrix matrix = tridiagonalMatrix(1.0, 0.5);
+        Vector x = expectedSolution();
+        IterativeSolver solver = IterativeSolver.builder()
+                                                .build();
+
+        IterativeSolver.Result result = solver.biCGStab(matrix, matrix.apply(x));
+        assertTrue(result.isConverged());
+        assertEquals(0.0, result.getSolution()
+                                .distanceTo(x),
+                     0.0000001);
+
+        IterativeSolver.Result fromSolution = solver.biCGStab(matrix, matrix.apply(x), x);
+        assertEquals(0, fromSolution.getIterations());
+    }
+
+    @Test
+    public void testGMRES() throws Exception
+    {
+        Matrix matrix = tridiagonalMatrix(1.0, 0.5);
+        Vector x = expectedSolution();
+        IterativeSolver.Result result = IterativeSolver.builder()
+                                                       .withRestart(10)
+                                                       .build()
+                                                       .gmres(matrix, matrix.apply(x));
+        assertTrue(result.isConverged());
+        assertEquals(0.0, result.getSolution()
+                                .distanceTo(x),
+                     0.0000001);
+
+        IterativeSolver.Result limited = IterativeSolver.builder()
+                                                        .withRestart(5)
+                                                        .withMaxIterations(3)
+                                                        .build()
+                                                        .gmres(matrix, matrix.apply(x));
+        assertFalse(limited.isConverged());
+        assertEquals(3, limited.getIterations());
+    }
+
+    @Test
+    public void testIncompleteLU() throws Exception
+    {
+        Matrix matrix = tridiagonalMatrix(1.0, 0.5);
+        Vector x = expectedSolution();
+
+        double[] output = new double[DIMENSION];
+        Preconditioner.incompleteLU(matrix)
+                      .apply(matrix.apply(x)
+                                   .getCoordinates(),
+                             output);
+        assertEquals(0.0, new Vector(output).distanceTo(x), 0.000000001);
+
+        IterativeSolver.Result result = IterativeSolver.builder()
+                                                       .withPreconditioner(Preconditioner.incompleteLU(matrix))
+                                                       .build()
+                                                       .gmres(matrix, matrix.apply(x));
+        assertTrue(result.isConverged());
+        assertEquals(1, result.getIterations());
+    }
+
+    @Test
+    public void testIncompleteLUOfCompressedSparseRows() throws Exception
+    {
+        Random random = new Random(3);
+        double[][] data = new double[DIMENSION][DIMENSION];
+        for (int ii = 0; ii < DIMENSION; ii++)
+        {
+            data[ii][ii] = 10.0;
+            for (int nn = 0; nn < 4; nn++)
+            {
+                data[ii][random.nextInt(DIMENSION)] += random.nextDouble() - 0.5;
+            }
+        }
+        data[5][5] = 0.0;
+        data[5][2] = 1.0;
+        data[2][5] = 1.0;
+
+        int[] rowPointers = new int[DIMENSION + 1];
+        int[] columnIndices = new int[DIMENSION * DIMENSION];
+        double[] values = new double[DIMENSION * DIMENSION];
+        for (int ii = 0, index = 0; ii < DIMENSION; ii++)
+        {
+            for (int jj = 0; jj < DIMENSION; jj++)
+            {
+                if (data[ii][jj] != 0.0)
+                {
+                    columnIndices[index] = jj;
+                    values[index++] = data[ii][jj];
+                }
+            }
+            rowPointers[ii + 1] = index;
+        }
+
+        double[] input = expectedSolution().getCoordinates();
+        double[] expected = new double[DIMENSION];
+        double[] output = new double[DIMENSION];
+        Preconditioner.incompleteLU(new Matrix(data))
+                      .apply(input, expected);
+        Preconditioner.incompleteLU(rowPointers, columnIndices, values)
+                      .apply(input, output);
+        assertArrayEquals(expected, output, 0.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIncompleteLUOfUnsortedCompressedSparseRows() throws Exception
+    {
+        Preconditioner.incompleteLU(new int[] { 0, 2, 3 }, new int[] { 1, 0, 1 }, new double[] { 1, 2, 3 });
+    }
+
+    /**
+     * Returns a diagonally dominant tridiagonal {@link Matrix}, which is symmetric for an asymmetry of 0
+     */
+    private static Matrix tridiagonalMatrix(double offDiagonal, double asymmetry)
+    {
+        double[][] data = new double[DIMENSION][DIMENSION];
+        for (int ii = 0; ii < DIMENSION; ii++)
+        {
+            data[ii][ii] = 3.0;
+            if (ii > 0)
+            {
+                data[ii][ii - 1] = -offDiagonal - asymmetry;
+                data[ii - 1][ii] = -offDiagonal + asymmetry;
+            }
+        }
+        return new Matrix(data);
+    }
+
+    private static Vector expectedSolution()
+    {
+        double[] coordinates = new double[DIMENSION];
+        for (int ii = 0; ii < DIMENSION; ii++)
+        {
+            coordinates[ii] = Math.sin(ii * 0.1);
+        }
+        return new Vector(coordinates);
+    }
+}
@@ -0,0 +1,105 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class KMeansTest
+{
+    private static final Vector[] CENTERS = new Vector[] { new Vector(0, 0), new Vector(10, 10), new Vector(-10, 10) };
+
+    @Test
+    public void testCluster() throws Exception
+    {
+        Vector[] points = createPoints(3000, 1);
+        List<KMeans.Progress> progresses = new ArrayList<>();
+        KMeans.Result result = KMeans.builder()
+                                     .withNumberOfClusters(3)
+                                     .withSeed(1)
+                                     .withProgressListener(progresses::add)
+                                     .build()
+                                     .cluster(points);
+
+        assertTrue(result.isConverged());
+        assertEquals(result.getIterations(), progresses.size());
+        for (Vector center : CENTERS)
+        {
+            Vector centroid = result.getCentroids()[result.assign(center)];
+            assertEquals(0.0, centroid.distanceTo(center), 0.1);
+        }
+        for (int ii = 0; ii < points.length; ii++)
+        {
+            assertEquals(result.assign(CENTERS[ii % CENTERS.length]), result.getAssignments()[ii]);
+        }
+    }
+
+    @Test
+    public void testDeterminism() throws Exception
+    {
+        Vector[] points = createPoints(10000, 2);
+        KMeans kMeans = KMeans.builder()
+                              .withNumberOfClusters(7)
+                              .withSeed(5)
+                              .build();
+        KMeans.Result result1 = kMeans.cluster(points);
+        KMeans.Result result2 = kMeans.cluster(points);
+
+        assertArrayEquals(result1.getAssignments(), result2.getAssignments());
+        assertEquals(result1.getInertia(), result2.getInertia(), 0.0);
+    }
+
+    @Test
+    public void testMiniBatch() throws Exception
+    {
+        Vector[] points = createPoints(5000, 3);
+        KMeans.Result result = KMeans.builder()
+                                     .withNumberOfClusters(3)
+                                     .withMiniBatchSize(100)
+                                     .withMaxIterations(50)
+                                     .withSeed(1)
+                                     .build()
+                                     .cluster(points);
+
+        assertEquals(50, result.getIterations());
+        for (Vector center : CENTERS)
+        {
+            Vector centroid = result.getCentroids()[result.assign(center)];
+            assertEquals(0.0, centroid.distanceTo(center), 0.5);
+        }
+    }
+
+    private static Vector[] createPoints(int count, long seed)
+    {
+        Random random = new Random(seed);
+        Vector[] points = new Vector[count];
+        for (int ii = 0; ii < count; ii++)
+        {
+            points[ii] = CENTERS[ii % CENTERS.length].add(new Vector(random.nextGaussian(), random.nextGaussian()));
+        }
+        return points;
+    }
+}
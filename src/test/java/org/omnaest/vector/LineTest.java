@@ -0,0 +1,132 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class LineTest
+{
+
+    private static double[] randomPoints(int numberOfPoints)
+    {
+        Random random = new Random(1);
+        double[] retval = new double[numberOfPoints * 3];
+        for (int ii = 0; ii < retval.length; ii++)
+        {
+            retval[ii] = random.nextDouble() * 20 - 10;
+        }
+        return retval;
+    }
+
+    private static Vector point(double[] points, int index)
+    {
+        return Vector.of(points[index * 3], points[index * 3 + 1], points[index * 3 + 2]);
+    }
+
+    @Test
+    public void testDistanceTo() throws Exception
+    {
+        Line line = Line.of(Vector.of(1, 0), Vector.of(0, 2));
+        assertEquals(3.0, line.distanceTo(Vector.of(4, 7)), 1E-12);
+        assertEquals(5.0, Line.of(Vector.of(1, 2, 2), Vector.of(0, 0, 0))
+                              .distanceTo(Vector.of(1, 2, 2).add(Vector.of(0, 3, 4))),
+                     1E-12);
+    }
+
+    @Test
+    public void testDistances() throws Exception
+    {
+        Vector pointOnLine = Vector.of(1, -2, 3);
+        Vector direction = Vector.of(2, 1, -1);
+        Line line = Line.of(pointOnLine, direction);
+
+        int numberOfPoints = 10000;
+        double[] points = randomPoints(numberOfPoints);
+        double[] distances = new double[numberOfPoints];
+        line.distances(points, distances);
+        for (int ii = 0; ii < numberOfPoints; ii++)
+        {
+            assertEquals(point(points, ii).closestDistanceToLine(pointOnLine, direction), distances[ii], 1E-12);
+        }
+
+        double[] distancesParallel = new double[numberOfPoints];
+        line.distancesParallel(points, distancesParallel);
+        assertArrayEquals(distances, distancesParallel, 0.0);
+    }
+
+    @Test
+    public void testClosestDirections() throws Exception
+    {
+        Vector pointOnLine = Vector.of(1, -2, 3);
+        Vector direction = Vector.of(2, 1, -1);
+        Line line = Line.of(pointOnLine, direction);
+
+        int numberOfPoints = 10000;
+        double[] points = randomPoints(numberOfPoints);
+        double[] directions = new double[points.length];
+        line.closestDirections(points, directions);
+        for (int ii = 0; ii < numberOfPoints; ii++)
+        {
+            Vector expected = point(points, ii).closestDirectionToLine(pointOnLine, direction);
+            assertArrayEquals(expected.getCoordinates(), point(directions, ii).getCoordinates(), 1E-12);
+        }
+
+        double[] inPlace = points.clone();
+        line.closestDirectionsParallel(inPlace, inPlace);
+        assertArrayEquals(directions, inPlace, 0.0);
+    }
+
+    @Test
+    public void testManyLines() throws Exception
+    {
+        Line[] lines = new Line[] { Line.of(Vector.of(0, 0, 0), Vector.of(1, 0, 0)), Line.of(Vector.of(0, 0, 0), Vector.of(0, 1, 0)),
+                Line.of(Vector.of(5, 5, 5), Vector.of(1, 1, 1)) };
+
+        int numberOfPoints = 5000;
+        double[] points = randomPoints(numberOfPoints);
+        double[] distances = new double[lines.length * numberOfPoints];
+        Line.distancesParallel(lines, points, distances);
+
+        int[] lineIndices = new int[numberOfPoints];
+        double[] closestDistances = new double[numberOfPoints];
+        Line.closestLinesParallel(lines, points, lineIndices, closestDistances);
+
+        for (int ii = 0; ii < numberOfPoints; ii++)
+        {
+            int closestLine = 0;
+            for (int jj = 0; jj < lines.length; jj++)
+            {
+                double distance = lines[jj].distanceTo(point(points, ii));
+                assertEquals(distance, distances[jj * numberOfPoints + ii], 0.0);
+                if (distance < distances[closestLine * numberOfPoints + ii])
+                {
+                    closestLine = jj;
+                }
+            }
+            assertEquals(closestLine, lineIndices[ii]);
+            assertEquals(distances[closestLine * numberOfPoints + ii], closestDistances[ii], 0.0);
+        }
+    }
+
+}
@@ -0,0 +1,61 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class Matrix4x4Test
+{
+    private static final Matrix4x4 MATRIX = new Matrix4x4(2, -1, 0, 3, 1, 3, 2, -2, 4, 0, -5, 1, 0, 2, 1, 6);
+
+    @Test
+    public void testMultiply() throws Exception
+    {
+        Matrix dense = new Matrix(MATRIX.toArray());
+        assertEquals(dense.multiply(dense), MATRIX.multiply(MATRIX));
+        assertEquals(dense.multiply(dense), MATRIX.multiply(dense));
+        assertEquals(dense.multiply(dense), dense.multiply(MATRIX));
+        assertEquals(dense.multiply(3.0), MATRIX.multiply(3.0));
+        assertEquals(dense.add(dense), MATRIX.add(MATRIX));
+        assertEquals(dense.transposed(), MATRIX.transposed());
+        assertEquals(MATRIX, Matrix4x4.of(dense));
+
+        Vector vector = new Vector(1, 2, 3, 4);
+        assertEquals(dense.multiply(vector), MATRIX.multiply(vector));
+        assertEquals(vector, Matrix4x4.identity()
+                                      .multiply(vector));
+    }
+
+    @Test
+    public void testInverse() throws Exception
+    {
+        assertEquals(DenseKernels.determinant(MATRIX.toArray()), MATRIX.determinant(), 0.000000001);
+
+        Matrix4x4 product = MATRIX.multiply(MATRIX.inverse());
+        for (int ii = 1; ii <= 4; ii++)
+        {
+            for (int jj = 1; jj <= 4; jj++)
+            {
+                assertEquals(ii == jj ? 1.0 : 0.0, product.getValue(ii, jj), 0.000000001);
+            }
+        }
+    }
+}
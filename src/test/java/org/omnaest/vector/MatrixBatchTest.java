@@ -0,0 +1,219 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class MatrixBatchTest
+{
+
+    private static double[] randomMatrices(int dimension, int numberOfMatrices)
+    {
+        Random random = new Random(dimension);
+        double[] retval = new double[numberOfMatrices * dimension * dimension];
+        for (int ii = 0; ii < retval.length; ii++)
+        {
+            retval[ii] = random.nextDouble() * 4 - 2;
+        }
+        return retval;
+    }
+
+    private static double[][] matrix(int dimension, double[] matrices, int index)
+    {
+        double[][] retval = new double[dimension][dimension];
+        for (int ii = 0; ii < dimension; ii++)
+        {
+            System.arraycopy(matrices, (index * dimension + ii) * dimension, retval[ii], 0, dimension);
+        }
+        return retval;
+    }
+
+    @Test
+    public void testDeterminants() throws Exception
+    {
+        for (int dimension = 1; dimension <= 6; dimension++)
+        {
+            int numberOfMatrices = 50;
+            double[] matrices = randomMatrices(dimension, numberOfMatrices);
+            double[] determinants = new double[numberOfMatrices];
+            MatrixBatch.determinants(dimension, matrices, determinants);
+            for (int ii = 0; ii < numberOfMatrices; ii++)
+            {
+                assertEquals(DenseKernels.determinant(matrix(dimension, matrices, ii)), determinants[ii], 1E-10);
+            }
+        }
+    }
+
+    @Test
+    public void testDeterminantsOfFixedSizeMatrices() throws Exception
+    {
+        double[] determinants = new double[1];
+        MatrixBatch.determinants(2, new double[] { 1, 2, 3, 4 }, determinants);
+        assertEquals(new Matrix2x2(1, 2, 3, 4).determinant(), determinants[0], 0.0);
+        MatrixBatch.determinants(4, new double[] { 2, 0, 0, 0, 0, 3, 0, 0, 0, 0, 4, 0, 0, 0, 0, 5 }, determinants);
+        assertEquals(120.0, determinants[0], 0.0);
+        MatrixBatch.determinants(3, new double[] { 2, 0, 1, 1, 3, 0, 0, 1, 4 }, determinants);
+        assertEquals(25.0, determinants[0], 0.0);
+    }
+
+    @Test
+    public void testInverses() throws Exception
+    {
+        for (int dimension = 1; dimension <= 6; dimension++)
+        {
+            int numberOfMatrices = 50;
+            double[] matrices = randomMatrices(dimension, numberOfMatrices);
+            double[] inverses = new double[matrices.length];
+            MatrixBatch.inverses(dimension, matrices, inverses);
+            for (int ii = 0; ii < numberOfMatrices; ii++)
+            {
+                double[][] identity = DenseKernels.multiply(matrix(dimension, matrices, ii), matrix(dimension, inverses, ii));
+                for (int row = 0; row < dimension; row++)
+                {
+                    for (int column = 0; column < dimension; column++)
+                    {
+                        assertEquals(row == column ? 1.0 : 0.0, identity[row][column], 1E-8);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testInversesInPlace() throws Exception
+    {
+        double[] matrices = randomMatrices(3, 10);
+        double[] inverses = new double[matrices.length];
+        MatrixBatch.inverses(3, matrices, inverses);
+        MatrixBatch.inverses(3, matrices, matrices);
+        assertArrayEquals(inverses, matrices, 0.0);
+    }
+
+    @Test
+    public void testInversesOfSingularMatrix() throws Exception
+    {
+        for (int dimension = 2; dimension <= 5; dimension++)
+        {
+            double[] matrices = new double[dimension * dimension];
+            double[] inverses = new double[matrices.length];
+            MatrixBatch.inverses(dimension, matrices, inverses);
+            assertTrue(Double.isNaN(inverses[0]) || Double.isInfinite(inverses[0]));
+        }
+    }
+
+    @Test
+    public void testAdjuncts() throws Exception
+    {
+        for (int dimension = 1; dimension <= 6; dimension++)
+        {
+            int numberOfMatrices = 20;
+            double[] matrices = randomMatrices(dimension, numberOfMatrices);
+            double[] adjuncts = new double[matrices.length];
+            double[] inverses = new double[matrices.length];
+            double[] determinants = new double[numberOfMatrices];
+            MatrixBatch.adjuncts(dimension, matrices, adjuncts);
+            MatrixBatch.inverses(dimension, matrices, inverses);
+            MatrixBatch.determinants(dimension, matrices, determinants);
+            for (int ii = 0; ii < adjuncts.length; ii++)
+            {
+                assertEquals(inverses[ii] * determinants[ii / (dimension * dimension)], adjuncts[ii], 1E-8);
+            }
+        }
+    }
+
+    @Test
+    public void testAdjunctsOfSingularMatrix() throws Exception
+    {
+        double[] adjuncts = new double[9];
+        MatrixBatch.adjuncts(3, new double[] { 1, 2, 3, 4, 5, 6, 7, 8, 9 }, adjuncts);
+        double[][] expected = new Matrix(new double[][] { { 1, 2, 3 }, { 4, 5, 6 }, { 7, 8, 9 } }).adjunct()
+                                                                                                  .toArray();
+        assertArrayEquals(DenseKernels.pack(new Vector[] { new Vector(expected[0]), new Vector(expected[1]), new Vector(expected[2]) }, 3),
+                          adjuncts, 1E-12);
+    }
+
+    @Test
+    public void testSolve() throws Exception
+    {
+        Random random = new Random(7);
+        for (int dimension = 1; dimension <= 6; dimension++)
+        {
+            int numberOfMatrices = 50;
+            double[] matrices = randomMatrices(dimension, numberOfMatrices);
+            double[] rightHandSides = new double[numberOfMatrices * dimension];
+            for (int ii = 0; ii < rightHandSides.length; ii++)
+            {
+                rightHandSides[ii] = random.nextDouble();
+            }
+            double[] solutions = new double[rightHandSides.length];
+            MatrixBatch.solve(dimension, matrices, rightHandSides, solutions);
+            for (int ii = 0; ii < numberOfMatrices; ii++)
+            {
+                double[][] a = matrix(dimension, matrices, ii);
+                for (int row = 0; row < dimension; row++)
+                {
+                    double value = DenseKernels.dot(a[row], 0, solutions, ii * dimension, dimension);
+                    assertEquals(rightHandSides[ii * dimension + row], value, 1E-8);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testParallel() throws Exception
+    {
+        for (int dimension = 3; dimension <= 5; dimension++)
+        {
+            int numberOfMatrices = 10000;
+            double[] matrices = randomMatrices(dimension, numberOfMatrices);
+            double[] rightHandSides = randomMatrices(dimension, numberOfMatrices / dimension + 1);
+
+            double[] determinants = new double[numberOfMatrices];
+            double[] determinantsParallel = new double[numberOfMatrices];
+            MatrixBatch.determinants(dimension, matrices, determinants);
+            MatrixBatch.determinantsParallel(dimension, matrices, determinantsParallel);
+            assertArrayEquals(determinants, determinantsParallel, 0.0);
+
+            double[] inverses = new double[matrices.length];
+            double[] inversesParallel = new double[matrices.length];
+            MatrixBatch.inverses(dimension, matrices, inverses);
+            MatrixBatch.inversesParallel(dimension, matrices, inversesParallel);
+            assertArrayEquals(inverses, inversesParallel, 0.0);
+
+            double[] adjuncts = new double[matrices.length];
+            double[] adjunctsParallel = new double[matrices.length];
+            MatrixBatch.adjuncts(dimension, matrices, adjuncts);
+            MatrixBatch.adjunctsParallel(dimension, matrices, adjunctsParallel);
+            assertArrayEquals(adjuncts, adjunctsParallel, 0.0);
+
+            double[] solutions = new double[numberOfMatrices * dimension];
+            double[] solutionsParallel = new double[numberOfMatrices * dimension];
+            MatrixBatch.solve(dimension, matrices, rightHandSides, solutions);
+            MatrixBatch.solveParallel(dimension, matrices, rightHandSides, solutionsParallel);
+            assertArrayEquals(solutions, solutionsParallel, 0.0);
+        }
+    }
+
+}
@@ -0,0 +1,155 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+public class MatrixChainTest
+{
+
+    private static Matrix randomMatrix(Random random, int rows, int columns)
+    {
+        double[][] data = new double[rows][columns];
+        for (int ii = 0; ii < rows; ii++)
+        {
+            for (int jj = 0; jj < columns; jj++)
+            {
+                data[ii][jj] = random.nextDouble() - 0.5;
+            }
+        }
+        return new Matrix(data);
+    }
+
+    private static void assertMatrixEquals(Matrix expected, Matrix actual, double delta)
+    {
+        double[][] expectedData = expected.toArray();
+        double[][] actualData = actual.toArray();
+        assertEquals(expectedData.length, actualData.length);
+        for (int ii = 0; ii < expectedData.length; ii++)
+        {
+            assertArrayEquals(expectedData[ii], actualData[ii], delta);
+        }
+    }
+
+    @Test
+    public void testParenthesization() throws Exception
+    {
+        Random random = new Random(1);
+        MatrixChain chain = MatrixChain.of(randomMatrix(random, 10, 30), randomMatrix(random, 30, 5), randomMatrix(random, 5, 60));
+        assertEquals("((A1 A2) A3)", chain.getParenthesization());
+        assertEquals(10 * 30 * 5 + 10 * 5 * 60, chain.getCost());
+
+        MatrixChain skinnyFatSkinny = MatrixChain.of(randomMatrix(random, 200, 2), randomMatrix(random, 2, 200), randomMatrix(random, 200, 2));
+        assertEquals("(A1 (A2 A3))", skinnyFatSkinny.getParenthesization());
+        assertEquals(2 * 200 * 2 + 200 * 2 * 2, skinnyFatSkinny.getCost());
+        assertEquals(200 * 2 * 200 + 200 * 200 * 2, skinnyFatSkinny.getLeftToRightCost());
+    }
+
+    @Test
+    public void testClassicExample() throws Exception
+    {
+        int[] dimensions = new int[] { 30, 35, 15, 5, 10, 20, 25 };
+        Random random = new Random(2);
+        Matrix[] matrices = new Matrix[dimensions.length - 1];
+        for (int ii = 0; ii < matrices.length; ii++)
+        {
+            matrices[ii] = randomMatrix(random, dimensions[ii], dimensions[ii + 1]);
+        }
+        MatrixChain chain = MatrixChain.of(matrices);
+        assertEquals(15125, chain.getCost());
+        assertEquals("((A1 (A2 A3)) ((A4 A5) A6))", chain.getParenthesization());
+
+        Matrix expected = matrices[0];
+        for (int ii = 1; ii < matrices.length; ii++)
+        {
+            expected = expected.multiply(matrices[ii]);
+        }
+        assertMatrixEquals(expected, chain.evaluate(), 1E-12);
+        assertMatrixEquals(expected, MatrixChain.product(matrices), 1E-12);
+    }
+
+    @Test
+    public void testLazyProduct() throws Exception
+    {
+        Random random = new Random(3);
+        Matrix a = randomMatrix(random, 50, 3);
+        Matrix b = randomMatrix(random, 3, 50);
+        Matrix c = randomMatrix(random, 50, 4);
+        MatrixChain chain = MatrixChain.of(a)
+                                       .multiply(b)
+                                       .multiply(c);
+        assertTrue(chain.getCost() < chain.getLeftToRightCost());
+        assertMatrixEquals(a.multiply(b)
+                            .multiply(c),
+                           chain.evaluate(), 1E-12);
+        assertSame(a, MatrixChain.of(a)
+                                 .evaluate());
+    }
+
+    @Test
+    public void testReusesIntermediateBuffers() throws Exception
+    {
+        Random random = new Random(4);
+        int dimension = 20;
+        Matrix[] matrices = new Matrix[6];
+        Matrix expected = Matrix.identity(dimension);
+        for (int ii = 0; ii < matrices.length; ii++)
+        {
+            matrices[ii] = randomMatrix(random, dimension, dimension);
+            expected = expected.multiply(matrices[ii]);
+        }
+        MatrixChain chain = MatrixChain.of(matrices);
+        assertEquals("(A1 (A2 (A3 (A4 (A5 A6)))))", chain.getParenthesization());
+
+        ScratchArena.clear();
+        assertMatrixEquals(expected, chain.evaluate(), 1E-12);
+        assertEquals(2 * dimension * dimension, ScratchArena.getPooledValues());
+    }
+
+    @Test
+    public void testConcurrentEvaluation() throws Exception
+    {
+        Random random = new Random(5);
+        Matrix a = randomMatrix(random, 30, 2);
+        Matrix b = randomMatrix(random, 2, 30);
+        Matrix c = randomMatrix(random, 30, 5);
+        MatrixChain chain = MatrixChain.of(a, b, c);
+        Matrix expected = a.multiply(b)
+                           .multiply(c);
+        IntStream.range(0, 64)
+                 .parallel()
+                 .forEach(ii -> assertMatrixEquals(expected, chain.evaluate(), 1E-12));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDimensionMismatch() throws Exception
+    {
+        Random random = new Random(4);
+        MatrixChain.of(randomMatrix(random, 2, 3), randomMatrix(random, 2, 3));
+    }
+
+}
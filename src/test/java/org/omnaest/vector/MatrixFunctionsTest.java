@@ -0,0 +1,174 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class MatrixFunctionsTest
+{
+
+    private static Matrix randomMatrix(Random random, int dimension, double scale)
+    {
+        double[][] data = new double[dimension][dimension];
+        for (int ii = 0; ii < dimension; ii++)
+        {
+            for (int jj = 0; jj < dimension; jj++)
+            {
+                data[ii][jj] = random.nextGaussian() * scale;
+            }
+        }
+        return new Matrix(data);
+    }
+
+    private static void assertMatrixEquals(Matrix expected, Matrix actual, double delta)
+    {
+        double[][] expectedData = expected.toArray();
+        double[][] actualData = actual.toArray();
+        assertEquals(expectedData.length, actualData.length);
+        for (int ii = 0; ii < expectedData.length; ii++)
+        {
+            assertArrayEquals(expectedData[ii], actualData[ii], delta);
+        }
+    }
+
+    /**
+     * Taylor series with many terms for matrices of small norm
+     */
+    private static Matrix expByTaylor(Matrix matrix)
+    {
+        int dimension = matrix.getRowCount();
+        Matrix retval = Matrix.identity(dimension);
+        Matrix term = Matrix.identity(dimension);
+        for (int kk = 1; kk < 60; kk++)
+        {
+            term = term.multiply(matrix)
+                       .multiply(1.0 / kk);
+            retval = retval.add(term);
+        }
+        return retval;
+    }
+
+    @Test
+    public void testPower() throws Exception
+    {
+        Random random = new Random(1);
+        Matrix matrix = randomMatrix(random, 6, 0.4);
+        Matrix expected = Matrix.identity(6);
+        for (int exponent = 0; exponent <= 13; exponent++)
+        {
+            assertMatrixEquals(expected, matrix.power(exponent), 1E-12);
+            expected = expected.multiply(matrix);
+        }
+
+        Matrix inverse = new Matrix(DenseKernels.inverse(matrix.toArray()));
+        assertMatrixEquals(inverse.multiply(inverse)
+                                  .multiply(inverse),
+                           matrix.power(-3), 1E-9);
+    }
+
+    @Test
+    public void testPowerOfMarkovChain() throws Exception
+    {
+        Matrix transitions = Matrix.builder()
+                                   .addRow(0.9, 0.1)
+                                   .addRow(0.5, 0.5)
+                                   .build();
+        Matrix stationary = transitions.power(1000);
+        assertMatrixEquals(Matrix.builder()
+                                 .addRow(5.0 / 6, 1.0 / 6)
+                                 .addRow(5.0 / 6, 1.0 / 6)
+                                 .build(),
+                           stationary, 1E-12);
+    }
+
+    @Test
+    public void testExp() throws Exception
+    {
+        Random random = new Random(2);
+        for (double scale : new double[] { 0.001, 0.05, 0.2, 0.4, 0.8 })
+        {
+            Matrix matrix = randomMatrix(random, 5, scale);
+            assertMatrixEquals(expByTaylor(matrix), matrix.exp(), 1E-12);
+        }
+
+        Matrix diagonal = Matrix.builder()
+                                .addRow(1, 0, 0)
+                                .addRow(0, -2, 0)
+                                .addRow(0, 0, 10)
+                                .build();
+        Matrix exp = diagonal.exp();
+        assertEquals(Math.E, exp.getValue(1, 1), 1E-14);
+        assertEquals(Math.exp(-2), exp.getValue(2, 2), 1E-15);
+        assertEquals(Math.exp(10), exp.getValue(3, 3), Math.exp(10) * 1E-13);
+        assertEquals(0.0, exp.getValue(1, 2), 0.0);
+    }
+
+    @Test
+    public void testExpDoesNotRetainLargeBuffers() throws Exception
+    {
+        int dimension = 300;
+        Matrix matrix = randomMatrix(new Random(3), dimension, 0.01);
+
+        ScratchArena.clear();
+        double[][] exp = MatrixFunctions.exp(matrix.toArray());
+        assertEquals(0, ScratchArena.getPooledValues());
+
+        double[] ones = new double[dimension];
+        Arrays.fill(ones, 1.0);
+        Vector vector = new Vector(ones);
+        Vector expected = vector;
+        Vector term = vector;
+        for (int kk = 1; kk < 30; kk++)
+        {
+            term = matrix.multiply(term)
+                         .multiply(1.0 / kk);
+            expected = expected.add(term);
+        }
+        assertArrayEquals(expected.getCoordinates(), new Matrix(exp).multiply(vector)
+                                                                    .getCoordinates(),
+                          1E-10);
+    }
+
+    @Test
+    public void testExpOfRotationGenerator() throws Exception
+    {
+        double angle = 2.5;
+        Matrix generator = Matrix.builder()
+                                 .addRow(0, -angle)
+                                 .addRow(angle, 0)
+                                 .build();
+        assertMatrixEquals(Matrix.builder()
+                                 .addRow(Math.cos(angle), -Math.sin(angle))
+                                 .addRow(Math.sin(angle), Math.cos(angle))
+                                 .build(),
+                           generator.exp(), 1E-14);
+
+        Matrix large = generator.multiply(40.0);
+        Matrix exp = large.exp();
+        assertEquals(Math.cos(100.0), exp.getValue(1, 1), 1E-11);
+        assertEquals(Math.sin(100.0), exp.getValue(2, 1), 1E-11);
+    }
+
+}
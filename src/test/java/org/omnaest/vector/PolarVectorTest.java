@@ -1,6 +1,10 @@
 package org.omnaest.vector;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
 
 import org.junit.Test;
 
@@ -78,4 +82,89 @@ public class PolarVectorTest
         assertEquals(0, vector.getZ(), 0.01);
     }
 
+    @Test
+    public void testOf() throws Exception
+    {
+        PolarVector polarVector = PolarVector.ofDegree(2.0, 90, 90);
+        assertEquals(2.0, polarVector.getRadius(), 0.0);
+        assertEquals(90.0, polarVector.getThetaInDegree(), 1E-9);
+        assertEquals(90.0, polarVector.getPhiInDegree(), 1E-9);
+        assertTrue(Vector.of(0, 2, 0)
+                         .equals(polarVector.asCartesianVector(), 1E-9));
+    }
+
+    @Test
+    public void testAddThetaBeyondPi() throws Exception
+    {
+        PolarVector polarVector = PolarVector.ofDegree(1.0, 150, 0)
+                                             .addThetaInDegree(60);
+        assertEquals(150.0, polarVector.getThetaInDegree(), 1E-9);
+        assertEquals(180.0, polarVector.getPhiInDegree(), 1E-9);
+
+        Vector expected = Vector.of(Math.sin(Math.toRadians(210)), 0, Math.cos(Math.toRadians(210)));
+        assertTrue(expected.equals(polarVector.asCartesianVector(), 1E-9));
+        assertEquals(polarVector.getThetaInDegree(), expected.asPolarVector()
+                                                             .getThetaInDegree(),
+                     1E-9);
+    }
+
+    @Test
+    public void testSetRadius() throws Exception
+    {
+        Vector vector = Vector.of(3, 4)
+                              .asPolarVector()
+                              .setRadius(10)
+                              .asCartesianVector();
+        assertEquals(2, vector.getDimension());
+        assertTrue(Vector.of(6, 8)
+                         .equals(vector, 1E-9));
+
+        PolarVector inverted = PolarVector.of(-1.0, 0.0, 0.0);
+        assertEquals(1.0, inverted.getRadius(), 0.0);
+        assertEquals(180.0, inverted.getThetaInDegree(), 1E-9);
+    }
+
+    @Test
+    public void testBulkConversion() throws Exception
+    {
+        Random random = new Random(1);
+        int numberOfPoints = 10000;
+        double[] cartesian = new double[numberOfPoints * 3];
+        for (int ii = 0; ii < cartesian.length; ii++)
+        {
+            cartesian[ii] = random.nextDouble() * 2 - 1;
+        }
+
+        double[] spherical = new double[cartesian.length];
+        PolarVector.toSpherical(cartesian, spherical);
+        for (int ii = 0; ii < 100; ii++)
+        {
+            PolarVector polarVector = Vector.of(cartesian[ii * 3], cartesian[ii * 3 + 1], cartesian[ii * 3 + 2])
+                                            .asPolarVector();
+            assertEquals(polarVector.getRadius(), spherical[ii * 3], 1E-12);
+            assertEquals(polarVector.getTheta(), spherical[ii * 3 + 1], 1E-12);
+            assertEquals(polarVector.getPhi(), spherical[ii * 3 + 2], 1E-12);
+        }
+
+        double[] sphericalParallel = new double[cartesian.length];
+        PolarVector.toSphericalParallel(cartesian, sphericalParallel);
+        assertArrayEquals(spherical, sphericalParallel, 0.0);
+
+        double[] roundTrip = spherical.clone();
+        PolarVector.toCartesian(roundTrip, roundTrip);
+        assertArrayEquals(cartesian, roundTrip, 1E-12);
+
+        double[] roundTripParallel = new double[cartesian.length];
+        PolarVector.toCartesianParallel(spherical, roundTripParallel);
+        assertArrayEquals(roundTrip, roundTripParallel, 0.0);
+    }
+
+    @Test
+    public void testBulkConversionOfOrigin() throws Exception
+    {
+        double[] spherical = new double[3];
+        PolarVector.toSpherical(new double[] { 0, 0, 0 }, spherical);
+        assertArrayEquals(new double[] { 0, 0, 0 }, spherical, 0.0);
+    }
+
 }
@@ -0,0 +1,72 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import org.omnaest.vector.PrincipalComponentAnalysis.Component;
+
+public class PrincipalComponentAnalysisTest
+{
+    @Test
+    public void testGetTopComponents() throws Exception
+    {
+        Random random = new Random(1);
+        CovarianceAccumulator accumulator = new CovarianceAccumulator();
+        Vector main = new Vector(1, 1, 0).normVector();
+        Vector second = new Vector(1, -1, 0).normVector();
+        for (int ii = 0; ii < 50000; ii++)
+        {
+            accumulator.accept(main.multiply(10 * random.nextGaussian())
+                                   .add(second.multiply(2 * random.nextGaussian()))
+                                   .add(new Vector(5, 5, 5)));
+        }
+
+        PrincipalComponentAnalysis analysis = PrincipalComponentAnalysis.of(accumulator);
+        List<Component> components = analysis.getTopComponents(2);
+
+        assertEquals(2, components.size());
+        assertEquals(100, components.get(0)
+                                    .getVariance(),
+                     3.0);
+        assertEquals(4, components.get(1)
+                                  .getVariance(),
+                     0.2);
+        assertEquals(1.0, Math.abs(components.get(0)
+                                             .getDirection()
+                                             .multiplyScalar(main)),
+                     0.001);
+        assertEquals(1.0, Math.abs(components.get(1)
+                                             .getDirection()
+                                             .multiplyScalar(second)),
+                     0.001);
+        assertEquals(1.0, components.get(0)
+                                    .getExplainedVarianceRatio()
+                + components.get(1)
+                            .getExplainedVarianceRatio(),
+                     0.001);
+        assertEquals(0.0, analysis.project(new Vector(5, 5, 5), components)
+                                  .absolute(),
+                     0.1);
+    }
+}
@@ -0,0 +1,88 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ProductQuantizerTest
+{
+    @Test
+    public void testEncodeDecode() throws Exception
+    {
+        Vector[] centers = new Vector[] { new Vector(1, 1, 0, 0), new Vector(-1, 2, 5, 5), new Vector(3, 3, -2, 1) };
+        Random random = new Random(1);
+        Vector[] samples = new Vector[300];
+        for (int ii = 0; ii < samples.length; ii++)
+        {
+            samples[ii] = centers[ii % centers.length].add(new Vector(random.nextGaussian(), random.nextGaussian(), random.nextGaussian(),
+                                                                      random.nextGaussian()).multiply(0.01));
+        }
+
+        ProductQuantizer quantizer = ProductQuantizer.builder()
+                                                     .withNumberOfSubspaces(2)
+                                                     .withNumberOfCentroids(3)
+                                                     .withSeed(1)
+                                                     .train(samples);
+        assertEquals(2, quantizer.getCodeSize());
+        for (Vector center : centers)
+        {
+            assertEquals(0.0, quantizer.decode(quantizer.encode(center))
+                                       .distanceTo(center),
+                         0.05);
+        }
+    }
+
+    @Test
+    public void testDistanceTable() throws Exception
+    {
+        Random random = new Random(2);
+        Vector[] vectors = new Vector[500];
+        for (int ii = 0; ii < vectors.length; ii++)
+        {
+            vectors[ii] = new Vector(random.nextGaussian(), random.nextGaussian(), random.nextGaussian(), random.nextGaussian(),
+                                     random.nextGaussian());
+        }
+        ProductQuantizer quantizer = ProductQuantizer.builder()
+                                                     .withNumberOfSubspaces(3)
+                                                     .withNumberOfCentroids(16)
+                                                     .train(vectors);
+        byte[] codes = quantizer.encodeAll(vectors);
+        Vector query = new Vector(0.5, -1, 0.25, 2, 1);
+        ProductQuantizer.DistanceTable table = quantizer.prepare(query);
+
+        for (int ii = 0; ii < vectors.length; ii++)
+        {
+            int offset = ii * quantizer.getCodeSize();
+            Vector decoded = quantizer.decode(codes, offset);
+            assertEquals(decoded.multiplyScalar(query), table.dotProduct(codes, offset), 0.000001);
+            assertEquals(decoded.distanceTo(query), table.distance(codes, offset), 0.000001);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testZeroSubspaces() throws Exception
+    {
+        ProductQuantizer.builder()
+                        .withNumberOfSubspaces(0);
+    }
+}
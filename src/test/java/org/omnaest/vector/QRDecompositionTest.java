@@ -0,0 +1,91 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class QRDecompositionTest
+{
+    private static final Matrix MATRIX = Matrix.builder()
+                                               .addRow(12, -51, 4)
+                                               .addRow(6, 167, -68)
+                                               .addRow(-4, 24, -41)
+                                               .addRow(1, 2, 3)
+                                               .build();
+
+    @Test
+    public void testQR() throws Exception
+    {
+        QRDecomposition decomposition = MATRIX.qrDecomposition();
+        Matrix q = decomposition.getQ();
+        Matrix r = decomposition.getR();
+
+        assertEquals(4, q.getRowCount());
+        assertEquals(3, q.getColumnCount());
+        assertEquals(0.0, r.getValue(2, 1), 0.0);
+        assertEquals(0.0, r.getValue(3, 2), 0.0);
+        assertMatrixEquals(MATRIX, q.multiply(r), 0.000000001);
+        assertMatrixEquals(Matrix.identity(3), q.transposed()
+                                                .multiply(q),
+                           0.000000001);
+    }
+
+    @Test
+    public void testLeastSquares() throws Exception
+    {
+        Vector x = new Vector(1, -2, 0.5);
+        Vector b = MATRIX.multiply(x);
+        assertEquals(0.0, MATRIX.leastSquares(b)
+                                .distanceTo(x),
+                     0.000000001);
+
+        Matrix line = Matrix.builder()
+                            .addRow(1, 0)
+                            .addRow(1, 1)
+                            .addRow(1, 2)
+                            .build();
+        Vector fit = line.leastSquares(new Vector(1, 2, 4));
+        assertEquals(5.0 / 6, fit.getX(), 0.000000001);
+        assertEquals(1.5, fit.getY(), 0.000000001);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testLeastSquaresRankDeficient() throws Exception
+    {
+        Matrix.builder()
+              .addRow(1, 2)
+              .addRow(2, 4)
+              .addRow(3, 6)
+              .build()
+              .leastSquares(new Vector(1, 2, 3));
+    }
+
+    private static void assertMatrixEquals(Matrix expected, Matrix actual, double delta)
+    {
+        for (int ii = 1; ii <= expected.getRowCount(); ii++)
+        {
+            for (int jj = 1; jj <= expected.getColumnCount(); jj++)
+            {
+                assertEquals(expected.getValue(ii, jj), actual.getValue(ii, jj), delta);
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ScalarQuantizerTest
+{
+    @Test
+    public void testEncodeDecode() throws Exception
+    {
+        ScalarQuantizer quantizer = ScalarQuantizer.train(new Vector(0, -10, 5), new Vector(255, 10, 5));
+        byte[] code = quantizer.encode(new Vector(100, 0, 5));
+
+        assertEquals(3, code.length);
+        Vector decoded = quantizer.decode(code);
+        assertEquals(100, decoded.getX(), 0.001);
+        assertEquals(0, decoded.getY(), 20.0 / 255);
+        assertEquals(5, decoded.getZ(), 0.001);
+    }
+
+    @Test
+    public void testDotProductAndDistance() throws Exception
+    {
+        Random random = new Random(1);
+        Vector[] vectors = new Vector[100];
+        for (int ii = 0; ii < vectors.length; ii++)
+        {
+            vectors[ii] = new Vector(random.nextGaussian(), random.nextGaussian(), random.nextGaussian(), random.nextGaussian());
+        }
+        ScalarQuantizer quantizer = ScalarQuantizer.train(vectors);
+        byte[] codes = quantizer.encodeAll(vectors);
+        Vector query = new Vector(0.5, -1, 0.25, 2);
+        ScalarQuantizer.Query preparedQuery = quantizer.prepare(query);
+
+        for (int ii = 0; ii < vectors.length; ii++)
+        {
+            int offset = ii * quantizer.getCodeSize();
+            assertEquals(vectors[ii].multiplyScalar(query), preparedQuery.dotProduct(codes, offset), 0.05);
+            assertEquals(vectors[ii].distanceTo(query), preparedQuery.distance(codes, offset), 0.05);
+            assertEquals(quantizer.decode(codes, offset)
+                                  .multiplyScalar(query),
+                         preparedQuery.dotProduct(codes, offset), 0.000001);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class ScratchArenaTest
+{
+    @Test
+    public void testReuse() throws Exception
+    {
+        double[] vector;
+        double[][] matrix;
+        try (ScratchArena arena = ScratchArena.open())
+        {
+            vector = arena.vector(3);
+            matrix = arena.matrix(2, 3);
+            vector[0] = 1.0;
+            matrix[1][2] = 1.0;
+        }
+
+        try (ScratchArena arena = ScratchArena.open())
+        {
+            assertSame(vector, arena.vector(3));
+            assertSame(matrix, arena.matrix(2, 3));
+            assertArrayEquals(new double[3], vector, 0.0);
+            assertArrayEquals(new double[3], matrix[1], 0.0);
+            assertNotSame(vector, arena.vector(3));
+        }
+    }
+
+    @Test
+    public void testNestedScopes() throws Exception
+    {
+        try (ScratchArena outer = ScratchArena.open())
+        {
+            double[] outerVector = outer.vector(4);
+            double[] innerVector;
+            try (ScratchArena inner = ScratchArena.open())
+            {
+                innerVector = inner.vector(4);
+                assertNotSame(outerVector, innerVector);
+            }
+            assertSame(innerVector, outer.vector(4));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testClosed() throws Exception
+    {
+        ScratchArena arena = ScratchArena.open();
+        arena.close();
+        arena.vector(3);
+    }
+
+    @Test
+    public void testDoubleClose() throws Exception
+    {
+        try (ScratchArena outer = ScratchArena.open())
+        {
+            double[] outerVector = outer.vector(5);
+            ScratchArena inner = ScratchArena.open();
+            inner.close();
+            try
+            {
+                inner.close();
+                fail();
+            }
+            catch (IllegalStateException e)
+            {
+                //expected
+            }
+            assertNotSame(outerVector, outer.vector(5));
+        }
+    }
+
+    @Test
+    public void testCloseOutOfOrder() throws Exception
+    {
+        ScratchArena outer = ScratchArena.open();
+        ScratchArena inner = ScratchArena.open();
+        try
+        {
+            outer.close();
+            fail();
+        }
+        catch (IllegalStateException e)
+        {
+            //expected
+        }
+        inner.close();
+        outer.close();
+    }
+
+    @Test
+    public void testCompoundOperations() throws Exception
+    {
+        assertEquals(new Vector(0, 0, 1), new Vector(1, 0, 0).multiplyCross(new Vector(0, 1, 0)));
+        assertEquals(new Vector(0, -1, 0), new Vector(1, 1, 0).closestDirectionToLine(new Vector(0, 0, 0), new Vector(2, 0, 0)));
+    }
+
+    @Test
+    public void testBounds() throws Exception
+    {
+        ScratchArena.clear();
+        double[] large;
+        double[][] empty;
+        try (ScratchArena arena = ScratchArena.open())
+        {
+            large = arena.vector(ScratchArena.MAX_POOLED_ARRAY_LENGTH + 1);
+            empty = arena.matrix(0, 5);
+            for (int ii = 0; ii < ScratchArena.MAX_POOLED_VALUES / ScratchArena.MAX_POOLED_ARRAY_LENGTH + 1; ii++)
+            {
+                arena.vector(ScratchArena.MAX_POOLED_ARRAY_LENGTH);
+            }
+        }
+        assertEquals(ScratchArena.MAX_POOLED_VALUES, ScratchArena.getPooledValues());
+
+        try (ScratchArena arena = ScratchArena.open())
+        {
+            assertNotSame(large, arena.vector(ScratchArena.MAX_POOLED_ARRAY_LENGTH + 1));
+            assertNotSame(empty, arena.matrix(0, 5));
+        }
+
+        ScratchArena.clear();
+        assertEquals(0, ScratchArena.getPooledValues());
+    }
+
+    @Test
+    public void testDeterminantOnlyBorrows() throws Exception
+    {
+        Matrix matrix = Matrix.builder()
+                              .addRow(2, 0, 1, 0)
+                              .addRow(1, 3, 0, 1)
+                              .addRow(0, 1, 4, 0)
+                              .addRow(1, 0, 1, 5)
+                              .build();
+        ScratchArena.clear();
+        assertEquals(126.0, matrix.determinant(), 0.000000001);
+        long pooledValues = ScratchArena.getPooledValues();
+        assertEquals(4 * 4 + 3 * 3 + 2 * 2, pooledValues);
+
+        assertEquals(126.0, matrix.determinant(), 0.000000001);
+        assertEquals(pooledValues, ScratchArena.getPooledValues());
+        assertEquals(1.0, new Matrix(new double[][] { { 1, 2, 3 }, { 0, 1, 4 }, { 5, 6, 0 } }).determinant(), 0.0);
+        assertEquals(-1.0, new Matrix(new double[][] { { 0, 1, 0, 0 }, { 1, 0, 0, 0 }, { 0, 0, 1, 0 }, { 0, 0, 0, 1 } }).determinant(), 0.0);
+
+        Random random = new Random(1);
+        for (int dimension = 1; dimension <= 6; dimension++)
+        {
+            double[][] data = new double[dimension][dimension];
+            for (double[] row : data)
+            {
+                for (int jj = 0; jj < dimension; jj++)
+                {
+                    row[jj] = random.nextDouble() - 0.5;
+                }
+            }
+            assertEquals(DenseKernels.determinant(new Matrix(data).toArray()), new Matrix(data).determinant(), 0.000000001);
+        }
+
+        double[][] product = matrix.multiply(matrix.inverse())
+                                   .toArray();
+        for (int ii = 0; ii < 4; ii++)
+        {
+            for (int jj = 0; jj < 4; jj++)
+            {
+                assertEquals(ii == jj ? 1.0 : 0.0, product[ii][jj], 0.000000001);
+            }
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class SingularValueDecompositionTest
+{
+    @Test
+    public void testOf() throws Exception
+    {
+        Matrix matrix = Matrix.builder()
+                              .addRow(3, 2, 2)
+                              .addRow(2, 3, -2)
+                              .build();
+        SingularValueDecomposition decomposition = matrix.singularValueDecomposition();
+
+        assertEquals(5.0, decomposition.getSingularValues()[0], 0.000000001);
+        assertEquals(3.0, decomposition.getSingularValues()[1], 0.000000001);
+        assertMatrixEquals(matrix, decomposition.getU()
+                                                .multiply(decomposition.getS())
+                                                .multiply(decomposition.getV()
+                                                                       .transposed()),
+                           0.000000001);
+    }
+
+    @Test
+    public void testOfRandomMatrix() throws Exception
+    {
+        Matrix matrix = randomMatrix(40, 25, 1);
+        SingularValueDecomposition decomposition = SingularValueDecomposition.of(matrix);
+
+        assertEquals(25, decomposition.rank());
+        assertMatrixEquals(matrix, decomposition.lowRankApproximation(25), 0.000000001);
+        assertMatrixEquals(Matrix.identity(25), decomposition.getV()
+                                                             .transposed()
+                                                             .multiply(decomposition.getV()),
+                           0.000000001);
+        assertMatrixEquals(Matrix.identity(25), decomposition.getU()
+                                                             .transposed()
+                                                             .multiply(decomposition.getU()),
+                           0.000000001);
+    }
+
+    @Test
+    public void testConditionNumber() throws Exception
+    {
+        Matrix matrix = new Matrix(new double[][] { { 3, 0 }, { 0, 0.5 } });
+        assertEquals(6.0, SingularValueDecomposition.of(matrix)
+                                                    .getConditionNumber(),
+                     0.000000001);
+        assertTrue(Double.isNaN(SingularValueDecomposition.of(new Matrix(new double[0][3]))
+                                                          .getConditionNumber()));
+    }
+
+    @Test
+    public void testPseudoInverse() throws Exception
+    {
+        Matrix singular = Matrix.builder()
+                                .addRow(1, 2)
+                                .addRow(2, 4)
+                                .build();
+        assertEquals(1, singular.rank());
+
+        Matrix pseudoInverse = singular.pseudoInverse();
+        assertMatrixEquals(singular, singular.multiply(pseudoInverse)
+                                             .multiply(singular),
+                           0.000000001);
+        assertMatrixEquals(Matrix.builder()
+                                 .addRow(1, 2)
+                                 .addRow(2, 4)
+                                 .build()
+                                 .multiply(1.0 / 25),
+                           pseudoInverse, 0.000000001);
+
+        Matrix invertible = Matrix.builder()
+                                  .addRow(2, -1, 0)
+                                  .addRow(-1, 2, -1)
+                                  .addRow(0, -1, 2)
+                                  .build();
+        assertMatrixEquals(invertible.inverse(), invertible.pseudoInverse(), 0.000000001);
+    }
+
+    @Test
+    public void testRandomized() throws Exception
+    {
+        Random random = new Random(2);
+        double[][] data = new double[300][120];
+        double[] weights = new double[] { 50, 20, 10, 5, 1 };
+        for (int rank = 0; rank < weights.length; rank++)
+        {
+            double[] left = new double[300];
+            double[] right = new double[120];
+            for (int ii = 0; ii < left.length; ii++)
+            {
+                left[ii] = random.nextGaussian();
+            }
+            for (int jj = 0; jj < right.length; jj++)
+            {
+                right[jj] = random.nextGaussian();
+            }
+            for (int ii = 0; ii < left.length; ii++)
+            {
+                for (int jj = 0; jj < right.length; jj++)
+                {
+                    data[ii][jj] += weights[rank] * left[ii] * right[jj] + 0.0001 * random.nextGaussian();
+                }
+            }
+        }
+        Matrix matrix = new Matrix(data);
+
+        SingularValueDecomposition exact = SingularValueDecomposition.of(matrix);
+        SingularValueDecomposition randomized = SingularValueDecomposition.randomized(matrix, 5);
+        assertEquals(5, randomized.getSingularValues().length);
+        for (int ii = 0; ii < 5; ii++)
+        {
+            assertEquals(exact.getSingularValues()[ii], randomized.getSingularValues()[ii], exact.getSingularValues()[ii] * 0.000001);
+        }
+        assertMatrixEquals(exact.lowRankApproximation(5), randomized.lowRankApproximation(5), 0.001);
+    }
+
+    private static void assertMatrixEquals(Matrix expected, Matrix actual, double delta)
+    {
+        assertEquals(expected.getRowCount(), actual.getRowCount());
+        assertEquals(expected.getColumnCount(), actual.getColumnCount());
+        for (int ii = 1; ii <= expected.getRowCount(); ii++)
+        {
+            for (int jj = 1; jj <= expected.getColumnCount(); jj++)
+            {
+                assertEquals(expected.getValue(ii, jj), actual.getValue(ii, jj), delta);
+            }
+        }
+    }
+
+    private static Matrix randomMatrix(int rows, int columns, long seed)
+    {
+        Random random = new Random(seed);
+        double[][] data = new double[rows][columns];
+        for (double[] row : data)
+        {
+            for (int jj = 0; jj < columns; jj++)
+            {
+                row[jj] = random.nextGaussian();
+            }
+        }
+        return new Matrix(data);
+    }
+}
@@ -0,0 +1,158 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+public class SpatialHashGridTest
+{
+
+    @Test
+    public void testFindEqual() throws Exception
+    {
+        SpatialHashGrid grid = SpatialHashGrid.of(0.01);
+        Vector point = Vector.of(1.0, 2.0, -3.0);
+        grid.add(point);
+
+        assertSame(point, grid.findEqual(Vector.of(1.0099, 1.991, -3.0), 0.01)
+                              .get());
+        assertFalse(grid.findEqual(Vector.of(1.011, 2.0, -3.0), 0.01)
+                        .isPresent());
+        assertSame(point, grid.findEqual(Vector.of(1.04, 2.0, -3.0), 0.05)
+                              .get());
+        assertFalse(grid.findEqual(Vector.of(1.0, 2.0), 0.01)
+                        .isPresent());
+    }
+
+    @Test
+    public void testDeduplicate() throws Exception
+    {
+        Random random = new Random(1);
+        List<Vector> originals = new ArrayList<>();
+        for (int ii = 0; ii < 1000; ii++)
+        {
+            originals.add(Vector.of(random.nextInt(1000), random.nextInt(1000), random.nextInt(1000)));
+        }
+        List<Vector> originalsUnique = new ArrayList<>(new LinkedHashSet<>(originals));
+
+        List<Vector> points = new ArrayList<>();
+        for (int ii = 0; ii < 20000; ii++)
+        {
+            Vector original = originals.get(ii % originals.size());
+            points.add(original.add(Vector.of(random.nextDouble() - 0.5, random.nextDouble() - 0.5, random.nextDouble() - 0.5)
+                                          .multiply(1E-7)));
+        }
+
+        List<Vector> unique = SpatialHashGrid.deduplicate(points, 1E-6);
+        assertEquals(originalsUnique.size(), unique.size());
+        for (int ii = 0; ii < originalsUnique.size(); ii++)
+        {
+            assertTrue(originalsUnique.get(ii)
+                                      .equals(unique.get(ii), 1E-6));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDeduplicateWithZeroDelta() throws Exception
+    {
+        SpatialHashGrid.deduplicate(Arrays.asList(new Vector(1, 2, 3), new Vector(1, 2, 3)), 0.0);
+    }
+
+    @Test
+    public void testWithinRadius() throws Exception
+    {
+        Random random = new Random(2);
+        List<Vector> points = new ArrayList<>();
+        for (int ii = 0; ii < 5000; ii++)
+        {
+            points.add(Vector.of(random.nextDouble() * 10 - 5, random.nextDouble() * 10 - 5, random.nextDouble() * 10 - 5));
+        }
+        SpatialHashGrid grid = SpatialHashGrid.of(0.5)
+                                              .addAll(points);
+        assertEquals(5000, grid.size());
+
+        for (int ii = 0; ii < 20; ii++)
+        {
+            Vector center = Vector.of(random.nextDouble() * 10 - 5, random.nextDouble() * 10 - 5, random.nextDouble() * 10 - 5);
+            double radius = random.nextDouble() * 2;
+            List<Vector> found = grid.withinRadius(center, radius);
+            assertEquals(points.stream()
+                               .filter(point -> center.distanceTo(point) <= radius)
+                               .collect(Collectors.toSet()),
+                         new HashSet<>(found));
+            assertEquals(new HashSet<>(found).size(), found.size());
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testWithinLargeRadius() throws Exception
+    {
+        List<Vector> points = Arrays.asList(Vector.of(0, 0, 0), Vector.of(1E6, 0, 0), Vector.of(-3, 4, 1E9));
+        SpatialHashGrid grid = SpatialHashGrid.of(0.01)
+                                              .addAll(points);
+
+        List<Vector> found = grid.withinRadius(Vector.of(0, 0, 0), 1E7);
+        assertEquals(2, found.size());
+        assertEquals(new HashSet<>(points.subList(0, 2)), new HashSet<>(found));
+        assertEquals(3, grid.withinRadius(Vector.of(0, 0, 0), 1E10)
+                            .size());
+        assertEquals(Vector.of(1E6, 0, 0), grid.findEqual(Vector.of(1E6 + 50, 0, 0), 100)
+                                               .get());
+    }
+
+    @Test
+    public void testConcurrent() throws Exception
+    {
+        Random random = new Random(3);
+        List<Vector> points = new ArrayList<>();
+        for (int ii = 0; ii < 50000; ii++)
+        {
+            points.add(Vector.of(random.nextInt(100), random.nextInt(100)));
+        }
+
+        SpatialHashGrid grid = SpatialHashGrid.concurrent(1.0);
+        points.parallelStream()
+              .forEach(grid::add);
+        assertEquals(points.size(), grid.size());
+        assertEquals(points.stream()
+                           .filter(point -> point.equals(Vector.of(10, 20), 0.5))
+                           .count(),
+                     grid.withinRadius(Vector.of(10, 20), 0.0)
+                         .size());
+
+        SpatialHashGrid deduplicationGrid = SpatialHashGrid.concurrent(0.5);
+        points.parallelStream()
+              .forEach(point -> deduplicationGrid.addIfAbsent(point, 0.5));
+        assertEquals(new HashSet<>(points).size(), deduplicationGrid.size());
+    }
+
+}
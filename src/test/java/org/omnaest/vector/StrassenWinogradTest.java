@@ -0,0 +1,125 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+public class StrassenWinogradTest
+{
+    private static final String BENCHMARK_PROPERTY = "org.omnaest.vector.benchmark";
+
+    private static double[][] randomArray(Random random, int rows, int columns)
+    {
+        double[][] retval = new double[rows][columns];
+        for (int ii = 0; ii < rows; ii++)
+        {
+            for (int jj = 0; jj < columns; jj++)
+            {
+                retval[ii][jj] = random.nextDouble() - 0.5;
+            }
+        }
+        return retval;
+    }
+
+    private static double maxDifference(double[][] expected, double[][] actual)
+    {
+        double retval = 0.0;
+        for (int ii = 0; ii < expected.length; ii++)
+        {
+            for (int jj = 0; jj < expected[ii].length; jj++)
+            {
+                retval = Math.max(retval, Math.abs(expected[ii][jj] - actual[ii][jj]));
+            }
+        }
+        return retval;
+    }
+
+    @Test
+    public void testMultiply() throws Exception
+    {
+        Random random = new Random(1);
+        for (int[] dimensions : new int[][] { { 64, 64, 64 }, { 100, 37, 81 }, { 129, 130, 131 }, { 5, 200, 3 } })
+        {
+            double[][] left = randomArray(random, dimensions[0], dimensions[1]);
+            double[][] right = randomArray(random, dimensions[1], dimensions[2]);
+            double[][] expected = DenseKernels.multiply(left, right);
+            double[][] actual = StrassenWinograd.multiply(left, right, 8);
+            assertEquals(dimensions[0], actual.length);
+            assertEquals(dimensions[2], actual[0].length);
+            assertEquals(0.0, maxDifference(expected, actual), 1E-11);
+        }
+    }
+
+    @Test
+    public void testMatrixMultiplyStrassen() throws Exception
+    {
+        Random random = new Random(2);
+        Matrix left = new Matrix(randomArray(random, 70, 90));
+        Matrix right = new Matrix(randomArray(random, 90, 60));
+        double[][] expected = left.multiply(right)
+                                  .toArray();
+        double[][] actual = left.multiplyStrassen(right, 16)
+                                .toArray();
+        for (int ii = 0; ii < expected.length; ii++)
+        {
+            assertArrayEquals(expected[ii], actual[ii], 1E-11);
+        }
+        assertEquals(left.multiply(right), left.multiplyStrassen(right));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDimensionMismatch() throws Exception
+    {
+        Random random = new Random(3);
+        StrassenWinograd.multiply(randomArray(random, 4, 5), randomArray(random, 4, 5), 1);
+    }
+
+    @Test
+    public void testBenchmark() throws Exception
+    {
+        Assume.assumeTrue(Boolean.getBoolean(BENCHMARK_PROPERTY));
+
+        Random random = new Random(4);
+        for (int dimension : new int[] { 512, 1024, 2048 })
+        {
+            double[][] left = randomArray(random, dimension, dimension);
+            double[][] right = randomArray(random, dimension, dimension);
+            for (int round = 0; round < 3; round++)
+            {
+                long start = System.nanoTime();
+                double[][] expected = DenseKernels.multiply(left, right);
+                long standardNanos = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                double[][] actual = StrassenWinograd.multiply(left, right, StrassenWinograd.DEFAULT_CUTOFF);
+                long strassenNanos = System.nanoTime() - start;
+
+                System.out.println(dimension + ": standard " + standardNanos / 1000000 + " ms, strassen-winograd " + strassenNanos / 1000000
+                        + " ms, max difference " + maxDifference(expected, actual));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,74 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class StreamingQRDecompositionTest
+{
+    @Test
+    public void testSolve() throws Exception
+    {
+        Random random = new Random(1);
+        Vector coefficients = new Vector(3, -1, 0.5, 2);
+        StreamingQRDecomposition first = new StreamingQRDecomposition(4);
+        StreamingQRDecomposition second = new StreamingQRDecomposition(4);
+        double[][] rows = new double[2000][];
+        double[] targets = new double[rows.length];
+        for (int ii = 0; ii < rows.length; ii++)
+        {
+            rows[ii] = new double[] { 1, random.nextGaussian(), random.nextGaussian(), random.nextGaussian() };
+            targets[ii] = new Vector(rows[ii]).multiplyScalar(coefficients) + 0.01 * random.nextGaussian();
+            (ii % 2 == 0 ? first : second).accept(rows[ii], targets[ii]);
+        }
+        StreamingQRDecomposition combined = first.combine(second);
+
+        Vector expected = new Matrix(rows).leastSquares(new Vector(targets));
+        Vector actual = combined.solve();
+        assertEquals(2000, combined.getCount());
+        assertEquals(0.0, expected.distanceTo(actual), 0.000000001);
+        assertEquals(0.0, actual.distanceTo(coefficients), 0.01);
+
+        double residualSumOfSquares = 0.0;
+        for (int ii = 0; ii < rows.length; ii++)
+        {
+            double residual = new Vector(rows[ii]).multiplyScalar(actual) - targets[ii];
+            residualSumOfSquares += residual * residual;
+        }
+        assertEquals(residualSumOfSquares, combined.getResidualSumOfSquares(), 0.000000001);
+    }
+
+    @Test
+    public void testAcceptChunk() throws Exception
+    {
+        Matrix chunk = Matrix.builder()
+                             .addRow(1, 0)
+                             .addRow(1, 1)
+                             .addRow(1, 2)
+                             .build();
+        Vector fit = new StreamingQRDecomposition(2).accept(chunk, new Vector(1, 2, 4))
+                                                    .solve();
+        assertEquals(5.0 / 6, fit.getX(), 0.000000001);
+        assertEquals(1.5, fit.getY(), 0.000000001);
+    }
+}
@@ -0,0 +1,122 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class SymmetricEigenDecompositionTest
+{
+    @Test
+    public void testOf() throws Exception
+    {
+        Matrix matrix = Matrix.builder()
+                              .addRow(2, -1, 0)
+                              .addRow(-1, 2, -1)
+                              .addRow(0, -1, 2)
+                              .build();
+        SymmetricEigenDecomposition decomposition = matrix.symmetricEigenDecomposition();
+
+        assertEquals(2 + Math.sqrt(2), decomposition.getEigenValue(0), 0.000000001);
+        assertEquals(2, decomposition.getEigenValue(1), 0.000000001);
+        assertEquals(2 - Math.sqrt(2), decomposition.getEigenValue(2), 0.000000001);
+        assertEigenPairs(matrix, decomposition);
+    }
+
+    @Test
+    public void testOfRandomMatrix() throws Exception
+    {
+        Matrix matrix = randomSymmetricMatrix(50, 1);
+        assertEigenPairs(matrix, SymmetricEigenDecomposition.of(matrix));
+    }
+
+    @Test
+    public void testTopK() throws Exception
+    {
+        Matrix matrix = randomSymmetricMatrix(200, 2);
+        SymmetricEigenDecomposition full = SymmetricEigenDecomposition.of(matrix);
+        SymmetricEigenDecomposition topK = SymmetricEigenDecomposition.topK(matrix, 4);
+
+        assertEquals(4, topK.size());
+        for (int ii = 0; ii < 4; ii++)
+        {
+            assertEquals(full.getEigenValue(ii), topK.getEigenValue(ii), 0.0000001);
+        }
+        assertEigenPairs(matrix, topK);
+    }
+
+    @Test
+    public void testTopKWithRepeatedEigenValues() throws Exception
+    {
+        SymmetricEigenDecomposition topK = SymmetricEigenDecomposition.topK(Matrix.identity(100)
+                                                                                  .multiply(3),
+                                                                            2);
+        assertEquals(3, topK.getEigenValue(0), 0.000000001);
+        assertEquals(3, topK.getEigenValue(1), 0.000000001);
+    }
+
+    @Test
+    public void testTopKOfLinearOperator() throws Exception
+    {
+        LinearOperator operator = LinearOperator.of(1000, (input, output) ->
+        {
+            for (int ii = 0; ii < input.length; ii++)
+            {
+                output[ii] = (ii + 1.0) * (ii + 1.0) * input[ii];
+            }
+        });
+        SymmetricEigenDecomposition topK = SymmetricEigenDecomposition.topK(operator, 3);
+        assertEquals(1000000.0, topK.getEigenValue(0), 0.000001);
+        assertEquals(998001.0, topK.getEigenValue(1), 0.000001);
+        assertEquals(996004.0, topK.getEigenValue(2), 0.000001);
+        assertEquals(1.0, Math.abs(topK.getEigenVector(0)
+                                       .getCoordinate(999)),
+                     0.000001);
+    }
+
+    private static void assertEigenPairs(Matrix matrix, SymmetricEigenDecomposition decomposition)
+    {
+        for (int ii = 0; ii < decomposition.size(); ii++)
+        {
+            Vector eigenVector = decomposition.getEigenVector(ii);
+            assertEquals(1.0, eigenVector.absolute(), 0.000000001);
+            Vector difference = matrix.multiply(eigenVector)
+                                      .subtract(eigenVector.multiply(decomposition.getEigenValue(ii)));
+            assertEquals(0.0, difference.absolute(), 0.000001);
+        }
+    }
+
+    private static Matrix randomSymmetricMatrix(int dimension, long seed)
+    {
+        Random random = new Random(seed);
+        double[][] data = new double[dimension][dimension];
+        for (int ii = 0; ii < dimension; ii++)
+        {
+            for (int jj = 0; jj <= ii; jj++)
+            {
+                data[ii][jj] = random.nextGaussian();
+                data[jj][ii] = data[ii][jj];
+            }
+        }
+        return new Matrix(data);
+    }
+}
@@ -0,0 +1,137 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class SymmetricPackedMatrixTest
+{
+    private static final Matrix DENSE = Matrix.builder()
+                                              .addRow(4, 1, 2)
+                                              .addRow(1, 5, 3)
+                                              .addRow(2, 3, 6)
+                                              .build();
+
+    @Test
+    public void testOf() throws Exception
+    {
+        SymmetricPackedMatrix symmetric = SymmetricPackedMatrix.of(DENSE);
+        assertEquals(DENSE, symmetric);
+        assertEquals(new Vector(12, 20, 26), symmetric.multiply(new Vector(1, 2, 3)));
+        assertEquals(DENSE.multiply(DENSE), symmetric.multiply(DENSE));
+        assertEquals(DENSE.multiply(DENSE), DENSE.multiply(symmetric));
+        assertEquals(DENSE.multiply(2), symmetric.multiply(2));
+        assertEquals(DENSE.determinant(), symmetric.determinant(), 0.000000001);
+
+        Vector x = new Vector(1, -2, 3);
+        assertEquals(0.0, symmetric.solve(DENSE.multiply(x))
+                                   .distanceTo(x),
+                     0.000000001);
+    }
+
+    @Test
+    public void testInverse() throws Exception
+    {
+        SymmetricPackedMatrix symmetric = SymmetricPackedMatrix.of(DENSE);
+        SymmetricPackedMatrix inverse = symmetric.inverse();
+        assertIdentity(DENSE.multiply(inverse));
+        assertEquals(DenseKernels.determinant(DENSE.toArray()), symmetric.determinant(), 0.000000001);
+    }
+
+    @Test
+    public void testIndefinite() throws Exception
+    {
+        SymmetricPackedMatrix symmetric = SymmetricPackedMatrix.of(Matrix.builder()
+                                                                         .addRow(0, 2)
+                                                                         .addRow(2, 1)
+                                                                         .build());
+        assertEquals(-4.0, symmetric.determinant(), 0.000000001);
+        assertIdentity(symmetric.multiply(symmetric.inverse()));
+        assertEquals(0.0, symmetric.solve(new Vector(2, 3))
+                                   .distanceTo(new Vector(1, 1)),
+                     0.000000001);
+    }
+
+    @Test
+    public void testTinyPivot() throws Exception
+    {
+        SymmetricPackedMatrix symmetric = SymmetricPackedMatrix.of(Matrix.builder()
+                                                                         .addRow(1E-17, 1)
+                                                                         .addRow(1, 1)
+                                                                         .build());
+        assertEquals(0.0, symmetric.solve(new Vector(1, 2))
+                                   .distanceTo(new Vector(1, 1)),
+                     0.000000001);
+        assertEquals(-1.0, symmetric.determinant(), 0.000000001);
+
+        SymmetricPackedMatrix inverse = symmetric.inverse();
+        assertEquals(-1.0, inverse.getValue(1, 1), 0.000000001);
+        assertEquals(1.0, inverse.getValue(1, 2), 0.000000001);
+        assertEquals(0.0, inverse.getValue(2, 2), 0.000000001);
+    }
+
+    @Test
+    public void testRandomIndefinite() throws Exception
+    {
+        Random random = new Random(1);
+        for (int dimension = 1; dimension <= 12; dimension++)
+        {
+            double[][] data = new double[dimension][dimension];
+            for (int ii = 0; ii < dimension; ii++)
+            {
+                for (int jj = 0; jj <= ii; jj++)
+                {
+                    data[ii][jj] = random.nextDouble() - 0.5;
+                    data[jj][ii] = data[ii][jj];
+                }
+                data[ii][ii] *= 1E-3;
+            }
+            Matrix dense = new Matrix(data);
+            SymmetricPackedMatrix symmetric = SymmetricPackedMatrix.of(dense);
+
+            double[] coordinates = new double[dimension];
+            for (int ii = 0; ii < dimension; ii++)
+            {
+                coordinates[ii] = ii + 1;
+            }
+            Vector x = new Vector(coordinates);
+            assertEquals(0.0, symmetric.solve(dense.multiply(x))
+                                       .distanceTo(x),
+                         0.000001);
+            assertEquals(DenseKernels.determinant(dense.toArray()), symmetric.determinant(), 0.000000001);
+            assertIdentity(dense.multiply(symmetric.inverse()));
+        }
+    }
+
+    private static void assertIdentity(Matrix matrix)
+    {
+        double[][] data = matrix.toArray();
+        for (int ii = 0; ii < data.length; ii++)
+        {
+            for (int jj = 0; jj < data[ii].length; jj++)
+            {
+                assertEquals(ii == jj ? 1.0 : 0.0, data[ii][jj], 0.000000001);
+            }
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class TriangularMatrixTest
+{
+    private static final Matrix DENSE = Matrix.builder()
+                                              .addRow(2, 9, 9)
+                                              .addRow(1, 3, 9)
+                                              .addRow(4, 5, 6)
+                                              .build();
+
+    @Test
+    public void testLower() throws Exception
+    {
+        TriangularMatrix lower = TriangularMatrix.lower(DENSE);
+        Matrix dense = Matrix.builder()
+                             .addRow(2, 0, 0)
+                             .addRow(1, 3, 0)
+                             .addRow(4, 5, 6)
+                             .build();
+        assertStructure(dense, lower);
+    }
+
+    @Test
+    public void testUpper() throws Exception
+    {
+        TriangularMatrix upper = TriangularMatrix.upper(DENSE);
+        Matrix dense = Matrix.builder()
+                             .addRow(2, 9, 9)
+                             .addRow(0, 3, 9)
+                             .addRow(0, 0, 6)
+                             .build();
+        assertStructure(dense, upper);
+    }
+
+    private static void assertStructure(Matrix dense, TriangularMatrix triangular)
+    {
+        assertEquals(dense, triangular);
+        assertEquals(dense.multiply(DENSE), triangular.multiply(DENSE));
+        assertEquals(DENSE.multiply(dense), DENSE.multiply(triangular));
+        assertEquals(dense.transposed(), triangular.transposed());
+        assertEquals(triangular.isLower(), triangular.transposed()
+                                                     .isUpper());
+        assertEquals(36.0, triangular.determinant(), 0.0);
+
+        Vector x = new Vector(1, -2, 3);
+        assertEquals(0.0, triangular.solve(dense.multiply(x))
+                                    .distanceTo(x),
+                     0.000000001);
+
+        Matrix product = triangular.inverse()
+                                   .multiply(dense);
+        for (int ii = 1; ii <= 3; ii++)
+        {
+            for (int jj = 1; jj <= 3; jj++)
+            {
+                assertEquals(ii == jj ? 1.0 : 0.0, product.getValue(ii, jj), 0.000000001);
+            }
+        }
+    }
+}
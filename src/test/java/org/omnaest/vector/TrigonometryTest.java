@@ -0,0 +1,124 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+public class TrigonometryTest
+{
+    private static final String BENCHMARK_PROPERTY = "org.omnaest.vector.benchmark";
+
+    @Test
+    public void testAccuracy() throws Exception
+    {
+        Random random = new Random(1);
+        double[] sinCos = new double[2];
+        double maxError = 0.0;
+        for (int ii = 0; ii < 100000; ii++)
+        {
+            double angle = (random.nextDouble() - 0.5) * 2 * Math.pow(10, random.nextInt(ii % 2 == 0 ? 7 : 300));
+            double reducedAngle = angle % 360.0;
+            double sin = Trigonometry.EXACT.sin(reducedAngle);
+            double cos = Trigonometry.EXACT.cos(reducedAngle);
+
+            Trigonometry.FAST.sinCos(angle, sinCos);
+            maxError = Math.max(maxError, Math.abs(Trigonometry.FAST.sin(angle) - sin));
+            maxError = Math.max(maxError, Math.abs(Trigonometry.FAST.cos(angle) - cos));
+            maxError = Math.max(maxError, Math.abs(sinCos[0] - sin));
+            maxError = Math.max(maxError, Math.abs(sinCos[1] - cos));
+        }
+        assertTrue("max error " + maxError, maxError < 2E-15);
+    }
+
+    @Test
+    public void testWholeDegrees() throws Exception
+    {
+        for (int angle = -720; angle <= 720; angle += 15)
+        {
+            assertEquals(Trigonometry.EXACT.sin(angle), Trigonometry.FAST.sin(angle), 1E-14);
+            assertEquals(Trigonometry.EXACT.cos(angle), Trigonometry.FAST.cos(angle), 1E-14);
+        }
+        assertEquals(1.0, Trigonometry.FAST.sin(90), 0.0);
+        assertEquals(-1.0, Trigonometry.FAST.cos(-180), 0.0);
+    }
+
+    @Test
+    public void testNonFinite() throws Exception
+    {
+        assertTrue(Double.isNaN(Trigonometry.FAST.sin(Double.POSITIVE_INFINITY)));
+        assertTrue(Double.isNaN(Trigonometry.FAST.cos(Double.NaN)));
+        assertEquals(Trigonometry.EXACT.sin(Double.MAX_VALUE % 360.0), Trigonometry.FAST.sin(Double.MAX_VALUE), 1E-15);
+    }
+
+    @Test
+    public void testRotate() throws Exception
+    {
+        Vector vector = Vector.of(1, 2, 3);
+        Vector exact = vector.rotate(10.5, -33.25, 190);
+        assertEquals(exact, vector.rotate(10.5, -33.25, 190, Trigonometry.EXACT));
+        assertTrue(exact.equals(vector.rotate(10.5, -33.25, 190, Trigonometry.FAST), 1E-12));
+
+        Vector transformed = AffineTransform.identity()
+                                            .rotate(10.5, -33.25, 190, Trigonometry.FAST)
+                                            .apply(vector);
+        assertTrue(exact.equals(transformed, 1E-12));
+    }
+
+    @Test
+    public void testThroughput() throws Exception
+    {
+        Assume.assumeTrue(Boolean.getBoolean(BENCHMARK_PROPERTY));
+
+        double[] angles = new Random(1).doubles(999999, -360, 360)
+                                       .toArray();
+        for (int round = 0; round < 5; round++)
+        {
+            for (Trigonometry trigonometry : Trigonometry.values())
+            {
+                double[] sinCos = new double[2];
+                double checksum = 0.0;
+                long start = System.nanoTime();
+                for (double angle : angles)
+                {
+                    trigonometry.sinCos(angle, sinCos);
+                    checksum += sinCos[0] + sinCos[1];
+                }
+                long sinCosNanos = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                for (int ii = 0; ii < angles.length; ii += 3)
+                {
+                    checksum += Vector.E_X.rotate(angles[ii], angles[ii + 1], angles[ii + 2], trigonometry)
+                                          .getX();
+                }
+                long rotateNanos = System.nanoTime() - start;
+
+                System.out.println(trigonometry + ": sinCos " + sinCosNanos / angles.length + " ns, rotate " + rotateNanos / (angles.length / 3)
+                        + " ns (checksum " + checksum + ")");
+            }
+        }
+    }
+
+}
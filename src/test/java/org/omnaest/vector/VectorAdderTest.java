@@ -0,0 +1,96 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class VectorAdderTest
+{
+
+    @Test
+    public void testAdd() throws Exception
+    {
+        VectorAdder adder = new VectorAdder(3);
+        adder.add(Vector.of(1, 2, 3))
+             .add(new double[] { 0.5, -2, 1 })
+             .add(ImmutableVector.of(1, 1, 1));
+        assertEquals(Vector.of(2.5, 1, 5), adder.sum());
+        assertEquals(Vector.of(2.5, 1, 5), adder.sumThenReset());
+        assertEquals(Vector.of(0, 0, 0), adder.sum());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testAddWrongDimension() throws Exception
+    {
+        new VectorAdder(3).add(Vector.of(1, 2));
+    }
+
+    @Test
+    public void testConcurrentAdd() throws Exception
+    {
+        int numberOfThreads = 16;
+        int additionsPerThread = 20000;
+        VectorAdder adder = new VectorAdder(4);
+        ExecutorService executorService = Executors.newFixedThreadPool(numberOfThreads);
+        for (int ii = 0; ii < numberOfThreads; ii++)
+        {
+            executorService.submit(() ->
+            {
+                Vector vector = Vector.of(1, 2, 0.5, -1);
+                for (int jj = 0; jj < additionsPerThread; jj++)
+                {
+                    adder.add(vector);
+                }
+            });
+        }
+        executorService.shutdown();
+        assertTrue(executorService.awaitTermination(1, TimeUnit.MINUTES));
+
+        double count = numberOfThreads * additionsPerThread;
+        assertEquals(Vector.of(count, 2 * count, 0.5 * count, -count), adder.sum());
+    }
+
+    @Test
+    public void testSumWhileAdding() throws Exception
+    {
+        VectorAdder adder = new VectorAdder(2);
+        Thread thread = new Thread(() ->
+        {
+            for (int ii = 0; ii < 100000; ii++)
+            {
+                adder.add(new double[] { 1, 1 });
+            }
+        });
+        thread.start();
+        while (thread.isAlive())
+        {
+            Vector sum = adder.sum();
+            assertEquals(sum.getX(), sum.getY(), 0.0);
+        }
+        assertEquals(Vector.of(100000, 100000), adder.sum());
+    }
+
+}
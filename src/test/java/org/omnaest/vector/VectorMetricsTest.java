@@ -0,0 +1,137 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.omnaest.vector.VectorMetrics.Operation;
+import org.omnaest.vector.VectorMetrics.Statistic;
+
+public class VectorMetricsTest
+{
+    @Before
+    public void setUp() throws Exception
+    {
+        VectorMetrics.reset();
+    }
+
+    @Test
+    public void testAdd() throws Exception
+    {
+        VectorMetrics.add(Operation.DETERMINANT, 1, 10, 9, 100);
+        VectorMetrics.add(Operation.DETERMINANT, 2, 20, 18, 200);
+
+        Statistic statistic = VectorMetrics.get(Operation.DETERMINANT);
+        assertEquals(3, statistic.getCalls());
+        assertEquals(30, statistic.getFlops());
+        assertEquals(27, statistic.getElements());
+        assertEquals(300, statistic.getNanos());
+        assertEquals(0, VectorMetrics.getAll()
+                                     .get(Operation.INVERSE)
+                                     .getCalls());
+
+        VectorMetrics.reset();
+        assertEquals(0, VectorMetrics.get(Operation.DETERMINANT)
+                                     .getCalls());
+    }
+
+    @Test
+    public void testMBean() throws Exception
+    {
+        ObjectName objectName = VectorMetrics.registerMBean();
+        VectorMetrics.add(Operation.MATRIX_MULTIPLY, 4, 0, 0, 0);
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        assertEquals(VectorMetrics.ENABLED, server.getAttribute(objectName, "Enabled"));
+        TabularData calls = (TabularData) server.getAttribute(objectName, "Calls");
+        CompositeData row = calls.get(new Object[] { Operation.MATRIX_MULTIPLY.name() });
+        assertEquals(4L, row.get("value"));
+
+        server.invoke(objectName, "reset", new Object[0], new String[0]);
+        assertEquals(0, VectorMetrics.get(Operation.MATRIX_MULTIPLY)
+                                     .getCalls());
+    }
+
+    @Test
+    public void testRecord() throws Exception
+    {
+        Assume.assumeTrue(VectorMetrics.ENABLED);
+
+        Matrix.builder()
+              .addRow(1, 2)
+              .addRow(3, 4)
+              .build()
+              .multiply(new Vector(1, 1));
+        Statistic statistic = VectorMetrics.get(Operation.MATRIX_VECTOR_MULTIPLY);
+        assertEquals(1, statistic.getCalls());
+        assertEquals(8, statistic.getFlops());
+        assertEquals(4, statistic.getElements());
+        assertTrue(statistic.getNanos() >= 0);
+        assertEquals(1, VectorMetrics.get(Operation.BUILDER_BUILD)
+                                     .getCalls());
+    }
+
+    @Test
+    public void testRecordNestedOperationsOnce() throws Exception
+    {
+        Assume.assumeTrue(VectorMetrics.ENABLED);
+
+        Matrix matrix = Matrix.builder()
+                              .addRow(2, 0, 1, 0, 1)
+                              .addRow(1, 3, 0, 1, 0)
+                              .addRow(0, 1, 4, 0, 1)
+                              .addRow(1, 0, 1, 5, 0)
+                              .addRow(0, 1, 0, 1, 6)
+                              .build();
+        VectorMetrics.reset();
+        matrix.determinant();
+        Statistic determinant = VectorMetrics.get(Operation.DETERMINANT);
+        assertEquals(1, determinant.getCalls());
+        assertEquals(5 * (4 * (3 * (3 + 2) + 2) + 2), determinant.getFlops());
+
+        VectorMetrics.reset();
+        matrix.inverse();
+        assertEquals(1, VectorMetrics.get(Operation.INVERSE)
+                                     .getCalls());
+        assertTrue(VectorMetrics.get(Operation.INVERSE)
+                                .getFlops() > 0);
+        assertEquals(0, VectorMetrics.get(Operation.DETERMINANT)
+                                     .getCalls());
+        assertEquals(0, VectorMetrics.get(Operation.MATRIX_SCALAR_MULTIPLY)
+                                     .getCalls());
+
+        VectorMetrics.reset();
+        new Vector(1, 2, 3).rotate(10, 20, 30);
+        assertEquals(18, VectorMetrics.get(Operation.VECTOR_ROTATE)
+                                      .getFlops());
+        assertEquals(0, VectorMetrics.get(Operation.MATRIX_VECTOR_MULTIPLY)
+                                     .getCalls());
+    }
+}
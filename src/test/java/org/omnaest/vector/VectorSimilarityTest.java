@@ -0,0 +1,205 @@
+/*
+
+	Copyright 2017 Danny Kunz
+
+	Licensed under the Apache License, Version 2.0 (the "License");
+	you may not use this file except in compliance with the License.
+	You may obtain a copy of the License at
+
+		http://www.apache.org/licenses/LICENSE-2.0
+
+	Unless required by applicable law or agreed to in writing, software
+	distributed under the License is distributed on an "AS IS" BASIS,
+	WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+	See the License for the specific language governing permissions and
+	limitations under the License.
+
+
+*/
+package org.omnaest.vector;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+import org.omnaest.vector.VectorSimilarity.Match;
+
+public class VectorSimilarityTest
+{
+    @Test
+    public void testCosineSimilarityMatrix() throws Exception
+    {
+        Vector[] corpus = randomVectors(2000, 7, 1);
+        Vector[] queries = randomVectors(37, 7, 2);
+        Matrix similarities = VectorSimilarity.of(corpus)
+                                              .cosineSimilarityMatrix(queries);
+
+        assertEquals(37, similarities.getRowCount());
+        assertEquals(2000, similarities.getColumnCount());
+        for (int ii = 0; ii < queries.length; ii += 5)
+        {
+            for (int jj = 0; jj < corpus.length; jj += 97)
+            {
+                double expected = Math.cos(Math.toRadians(queries[ii].determineAngle(corpus[jj])));
+                assertEquals(expected, similarities.getValue(ii + 1, jj + 1), 0.000001);
+            }
+        }
+    }
+
+    @Test
+    public void testDistanceMatrix() throws Exception
+    {
+        Vector[] corpus = randomVectors(1500, 5, 3);
+        Vector[] queries = randomVectors(9, 5, 4);
+        Matrix distances = VectorSimilarity.of(corpus)
+                                           .distanceMatrix(queries);
+        for (int ii = 0; ii < queries.length; ii++)
+        {
+            for (int jj = 0; jj < corpus.length; jj += 31)
+            {
+                assertEquals(queries[ii].distanceTo(corpus[jj]), distances.getValue(ii + 1, jj + 1), 0.000001);
+            }
+        }
+    }
+
+    @Test
+    public void testTopKByCosineSimilarity() throws Exception
+    {
+        VectorSimilarity similarity = VectorSimilarity.of(new Vector(1, 0), new Vector(0, 1), new Vector(1, 1), new Vector(-1, 0));
+        List<List<Match>> matches = similarity.topKByCosineSimilarity(2, new Vector(1, 0.1), new Vector(-1, 0));
+
+        assertEquals(2, matches.get(0)
+                               .size());
+        assertEquals(0, matches.get(0)
+                               .get(0)
+                               .getIndex());
+        assertEquals(2, matches.get(0)
+                               .get(1)
+                               .getIndex());
+        assertEquals(3, matches.get(1)
+                               .get(0)
+                               .getIndex());
+        assertEquals(1.0, matches.get(1)
+                                 .get(0)
+                                 .getScore(),
+                     0.000001);
+    }
+
+    @Test
+    public void testTopKByDistance() throws Exception
+    {
+        Vector[] corpus = randomVectors(3000, 3, 5);
+        Vector query = new Vector(0.5, 0.5, 0.5);
+        List<Match> matches = VectorSimilarity.of(corpus)
+                                              .topKByDistance(10, query)
+                                              .get(0);
+
+        assertEquals(10, matches.size());
+        double previous = 0.0;
+        for (Match match : matches)
+        {
+            assertEquals(query.distanceTo(corpus[match.getIndex()]), match.getScore(), 0.000001);
+            assertTrue(match.getScore() >= previous);
+            previous = match.getScore();
+        }
+        double threshold = previous - 0.000001;
+        long closerCount = Arrays.stream(corpus)
+                                 .filter(vector -> vector.distanceTo(query) < threshold)
+                                 .count();
+        assertEquals(9, closerCount);
+    }
+
+    @Test
+    public void testTopKAcrossManyTiles() throws Exception
+    {
+        Vector[] corpus = randomVectors(5000, 4, 6);
+        Vector[] queries = randomVectors(70, 4, 7);
+        List<List<Match>> matches = VectorSimilarity.of(corpus)
+                                                    .topKByDistance(5, queries);
+
+        assertEquals(queries.length, matches.size());
+        for (int ii = 0; ii < queries.length; ii++)
+        {
+            Vector query = queries[ii];
+            int[] expected = IntStream.range(0, corpus.length)
+                                      .boxed()
+                                      .sorted(Comparator.comparingDouble(index -> query.distanceTo(corpus[index])))
+                                      .limit(5)
+                                      .mapToInt(Integer::intValue)
+                                      .toArray();
+            assertArrayEquals(expected, matches.get(ii)
+                                               .stream()
+                                               .mapToInt(Match::getIndex)
+                                               .toArray());
+        }
+    }
+
+    @Test
+    public void testTopKByDistanceOfNearDuplicates() throws Exception
+    {
+        Vector base = new Vector(1E8, 1E8, 1E8);
+        VectorSimilarity similarity = VectorSimilarity.of(base.add(new Vector(0.5, 0, 0)), base.add(new Vector(0, 0.25, 0)), base);
+        List<Match> matches = similarity.topKByDistance(3, base)
+                                        .get(0);
+
+        assertEquals(2, matches.get(0)
+                               .getIndex());
+        assertEquals(0.0, matches.get(0)
+                                 .getScore(),
+                     0.0);
+        assertEquals(1, matches.get(1)
+                               .getIndex());
+        assertEquals(0.25, matches.get(1)
+                                  .getScore(),
+                     0.0);
+        assertEquals(0.5, matches.get(2)
+                                 .getScore(),
+                     0.0);
+    }
+
+    @Test
+    public void testTopKByDistanceOfMixedDimensions() throws Exception
+    {
+        Vector[] corpus = { new Vector(1, 0), new Vector(0, 2, 0.5), new Vector(3, 3), new Vector(0.5, 0.5, 0.5) };
+        Vector[] queries = { new Vector(0, 0, 0, 2), new Vector(1), new Vector(0.5, 0.5, 0.5, 0.5, 0.5) };
+        VectorSimilarity similarity = VectorSimilarity.of(corpus);
+        List<List<Match>> matches = similarity.topKByDistance(corpus.length, queries);
+        Matrix distances = similarity.distanceMatrix(queries);
+
+        for (int ii = 0; ii < queries.length; ii++)
+        {
+            double previous = 0.0;
+            for (Match match : matches.get(ii))
+            {
+                double expected = queries[ii].distanceTo(corpus[match.getIndex()]);
+                assertEquals(expected, match.getScore(), 0.000000001);
+                assertEquals(expected, distances.getValue(ii + 1, match.getIndex() + 1), 0.000000001);
+                assertTrue(match.getScore() >= previous);
+                previous = match.getScore();
+            }
+        }
+    }
+
+    private static Vector[] randomVectors(int count, int dimension, long seed)
+    {
+        Random random = new Random(seed);
+        Vector[] retval = new Vector[count];
+        for (int ii = 0; ii < count; ii++)
+        {
+            double[] coordinates = new double[dimension];
+            for (int dd = 0; dd < dimension; dd++)
+            {
+                coordinates[dd] = random.nextDouble();
+            }
+            retval[ii] = Vector.of(coordinates);
+        }
+        return retval;
+    }
+}